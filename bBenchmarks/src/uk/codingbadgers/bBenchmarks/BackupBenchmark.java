@@ -0,0 +1,239 @@
+/**
+ * bBenchmarks 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bBenchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.bukkit.GameMode;
+import org.bukkit.Material;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.codingbadgers.bFundamentals.backup.BackupFactory;
+import uk.codingbadgers.bFundamentals.backup.PlayerBackup;
+import uk.thecodingbadgers.bFundamentals.TestContainer;
+
+/**
+ * Backs up and restores a full 36 slot inventory of enchanted and meta heavy
+ * items, with and without compression.
+ * <p>
+ * snapshot is the part of a backup left on the main thread, write and read
+ * are the work done by the backup writer and by a restore that isn't served
+ * from memory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BackupBenchmark {
+
+	@Param({"true", "false"})
+	public boolean compressed;
+
+	private File folder;
+	private File file;
+	private Player player;
+	private PlayerBackup backup;
+
+	@Setup
+	public void setup() throws IOException {
+		TestContainer.setup();
+		BackupFactory.setCompressionEnabled(compressed);
+
+		folder = Files.createTempDirectory("bBenchmarks").toFile();
+		file = BackupFactory.getBackupFile(folder, "TheFish97");
+		player = BackupPlayer.create("TheFish97");
+
+		backup = new PlayerBackup(file, player);
+		backup.writeToFile();
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		BackupFactory.setCompressionEnabled(true);
+		FileUtils.deleteDirectory(folder);
+	}
+
+	@Benchmark
+	public PlayerBackup snapshot() {
+		return new PlayerBackup(file, player);
+	}
+
+	@Benchmark
+	public File write() throws IOException {
+		backup.writeToFile();
+		return file;
+	}
+
+	@Benchmark
+	public Player read() throws IOException {
+		new PlayerBackup(file).restore(player);
+		return player;
+	}
+
+	private static ItemStack item(Material material, int amount, int slot, boolean enchanted) {
+		ItemStack stack = new ItemStack(material, amount);
+		ItemMeta meta = stack.getItemMeta();
+		meta.setDisplayName("Item of slot " + slot);
+		meta.setLore(Arrays.asList("Found in the hub", "Backed up by bCreative", "Slot " + slot));
+
+		if (enchanted) {
+			meta.addEnchant(Enchantment.DAMAGE_ALL, 5, true);
+			meta.addEnchant(Enchantment.DURABILITY, 3, true);
+			meta.addEnchant(Enchantment.FIRE_ASPECT, 2, true);
+		}
+
+		stack.setItemMeta(meta);
+		return stack;
+	}
+
+	/**
+	 * A player with a full inventory and armour, and enough of the player and
+	 * inventory methods implemented to back them up and restore them.
+	 */
+	private static final class BackupPlayer implements InvocationHandler {
+
+		private final String name;
+		private final PlayerInventory inventory;
+		private int xp = 1500;
+		private GameMode gamemode = GameMode.SURVIVAL;
+
+		private BackupPlayer(String name) {
+			this.name = name;
+
+			ItemStack[] contents = new ItemStack[36];
+			for (int i = 0; i < contents.length; i++) {
+				if (i % 3 == 0) {
+					contents[i] = item(Material.DIAMOND_SWORD, 1, i, true);
+				} else if (i % 3 == 1) {
+					contents[i] = item(Material.STONE, 64, i, false);
+				} else {
+					contents[i] = new ItemStack(Material.COBBLESTONE, 64);
+				}
+			}
+
+			ItemStack[] armour = {
+				item(Material.DIAMOND_HELMET, 1, 100, true),
+				item(Material.DIAMOND_CHESTPLATE, 1, 101, true),
+				item(Material.DIAMOND_LEGGINGS, 1, 102, true),
+				item(Material.DIAMOND_BOOTS, 1, 103, true)
+			};
+
+			this.inventory = (PlayerInventory) Proxy.newProxyInstance(PlayerInventory.class.getClassLoader(), new Class<?>[] { PlayerInventory.class }, new Inventory(contents, armour));
+		}
+
+		static Player create(String name) {
+			return (Player) Proxy.newProxyInstance(Player.class.getClassLoader(), new Class<?>[] { Player.class }, new BackupPlayer(name));
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) {
+			switch (method.getName()) {
+				case "getName":
+					return name;
+				case "getInventory":
+					return inventory;
+				case "getTotalExperience":
+					return xp;
+				case "setTotalExperience":
+					xp = (Integer) args[0];
+					return null;
+				case "getGameMode":
+					return gamemode;
+				case "setGameMode":
+					gamemode = (GameMode) args[0];
+					return null;
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "equals":
+					return proxy == args[0];
+				default:
+					throw new UnsupportedOperationException(String.valueOf(method));
+			}
+		}
+	}
+
+	private static final class Inventory implements InvocationHandler {
+
+		private ItemStack[] contents;
+		private final ItemStack[] armour;
+
+		Inventory(ItemStack[] contents, ItemStack[] armour) {
+			this.contents = contents;
+			this.armour = armour;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) {
+			switch (method.getName()) {
+				case "getContents":
+					return contents.clone();
+				case "setContents":
+					contents = ((ItemStack[]) args[0]).clone();
+					return null;
+				case "getHelmet":
+					return armour[0];
+				case "getChestplate":
+					return armour[1];
+				case "getLeggings":
+					return armour[2];
+				case "getBoots":
+					return armour[3];
+				case "setHelmet":
+					armour[0] = (ItemStack) args[0];
+					return null;
+				case "setChestplate":
+					armour[1] = (ItemStack) args[0];
+					return null;
+				case "setLeggings":
+					armour[2] = (ItemStack) args[0];
+					return null;
+				case "setBoots":
+					armour[3] = (ItemStack) args[0];
+					return null;
+				default:
+					throw new UnsupportedOperationException(String.valueOf(method));
+			}
+		}
+	}
+}
@@ -0,0 +1,67 @@
+/**
+ * bBenchmarks 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bBenchmarks;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.logging.Level;
+
+import uk.codingbadgers.bFundamentals.module.Module;
+import uk.codingbadgers.bFundamentals.module.loader.LoadableDescriptionFile;
+
+/**
+ * A module which is never loaded by the module loader, gives benchmarks a
+ * module to register commands and load language files against.
+ */
+public class BenchmarkModule extends Module {
+
+	/**
+	 * Creates a module with a given name and data folder, the module is
+	 * never enabled.
+	 *
+	 * @param name the name of the module
+	 * @param dataFolder the data folder of the module
+	 * @return the module
+	 */
+	public static BenchmarkModule create(String name, File dataFolder) {
+		BenchmarkModule module = new BenchmarkModule();
+		module.setDesciption(new LoadableDescriptionFile(name, "1.0", "", null, Arrays.asList("TheCodingBadgers"), Collections.<String>emptyList(), Collections.<String>emptyList()));
+		module.setDatafolder(dataFolder);
+		module.init();
+
+		// keep log output, such as the child a command dispatched to, out of the results
+		module.getLogger().setLevel(Level.OFF);
+		return module;
+	}
+
+	@Override
+	public void onEnable() {
+	}
+
+	@Override
+	public void onDisable() {
+	}
+
+	/**
+	 * Loads the language file for the current language from the data folder.
+	 */
+	public void loadLanguage() {
+		loadLanguageFile();
+	}
+}
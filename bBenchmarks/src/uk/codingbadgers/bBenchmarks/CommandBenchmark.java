@@ -0,0 +1,132 @@
+/**
+ * bBenchmarks 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bBenchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.bukkit.command.CommandSender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.codingbadgers.bFundamentals.commands.ModuleChildCommand;
+import uk.codingbadgers.bFundamentals.commands.ModuleCommand;
+import uk.codingbadgers.bFundamentals.timings.Timings;
+import uk.thecodingbadgers.bFundamentals.TestContainer;
+import uk.thecodingbadgers.bFundamentals.support.DummyPlayer;
+
+/**
+ * Dispatches a command with 50 child commands, with timings both enabled
+ * and disabled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandBenchmark {
+
+	private static final int CHILDREN = 50;
+
+	@Param({"false", "true"})
+	public boolean timings;
+
+	private File folder;
+	private ModuleCommand command;
+	private CommandSender sender;
+	private String[][] childArgs;
+	private String[] aliasArgs;
+	private String[] noArgs;
+	private int next;
+
+	@Setup
+	public void setup() throws IOException {
+		TestContainer.setup();
+		Timings.setEnabled(timings);
+
+		folder = Files.createTempDirectory("bBenchmarks").toFile();
+		BenchmarkModule module = BenchmarkModule.create("bCommandBenchmark", folder);
+
+		command = new ModuleCommand("parent", "/parent <child>") {
+			@Override
+			public boolean onCommand(CommandSender sender, String label, String[] args) {
+				return true;
+			}
+		};
+
+		childArgs = new String[CHILDREN][];
+
+		for (int i = 0; i < CHILDREN; i++) {
+			ModuleChildCommand child = new ModuleChildCommand(command, "child" + i) {
+				@Override
+				public boolean onCommand(CommandSender sender, String label, String[] args) {
+					return args.length == 1;
+				}
+			};
+			child.addAliase("c" + i);
+			command.addChildCommand(child);
+
+			childArgs[i] = new String[] { "CHILD" + i, "argument" };
+		}
+
+		command.register(module);
+
+		aliasArgs = new String[] { "c" + (CHILDREN - 1), "argument" };
+		noArgs = new String[0];
+		sender = DummyPlayer.create("TheFish97");
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		Timings.setEnabled(false);
+		Timings.reset();
+		FileUtils.deleteDirectory(folder);
+	}
+
+	@Benchmark
+	public boolean dispatchChild() {
+		if (++next == CHILDREN) {
+			next = 0;
+		}
+		return command.execute(sender, "parent", childArgs[next]);
+	}
+
+	@Benchmark
+	public boolean dispatchAlias() {
+		return command.execute(sender, "parent", aliasArgs);
+	}
+
+	@Benchmark
+	public boolean dispatchParent() {
+		return command.execute(sender, "parent", noArgs);
+	}
+}
@@ -0,0 +1,80 @@
+/**
+ * bBenchmarks 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bBenchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.codingbadgers.bFundamentals.config.ConfigFactory;
+import uk.thecodingbadgers.bFundamentals.config.ReloadConfig;
+
+/**
+ * Reloads a config class from its file in a module's data folder, and reads
+ * values from the snapshot published by the last load.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigBenchmark {
+
+	private File folder;
+
+	@Setup
+	public void setup() throws Exception {
+		folder = Files.createTempDirectory("bBenchmarks").toFile();
+
+		File file = new File(folder, ReloadConfig.class.getSimpleName().toLowerCase() + ".yml");
+		FileUtils.writeStringToFile(file, "first: a\nsecond: b\nnested:\n  third: c\n", "UTF-8");
+
+		ConfigFactory.load(ReloadConfig.class, folder);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(folder);
+	}
+
+	@Benchmark
+	public String load() throws Exception {
+		ConfigFactory.load(ReloadConfig.class, folder);
+		return ReloadConfig.first;
+	}
+
+	@Benchmark
+	public Object readSnapshot() {
+		return ConfigFactory.getSnapshot(ReloadConfig.class).get("nested.third");
+	}
+}
@@ -0,0 +1,84 @@
+/**
+ * bBenchmarks 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bBenchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.codingbadgers.bFundamentals.error.CrashReport;
+import uk.codingbadgers.bFundamentals.error.CrashReporter;
+
+/**
+ * Reports an exception which has already been reported, the cost a handler
+ * throwing the same exception every tick pays for each throw.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CrashReporterBenchmark {
+
+	private CrashReporter reporter;
+	private Exception exception;
+	private String fingerprint;
+
+	@Setup
+	public void setup() {
+		// nothing listens on the discard port, and without a spool folder the first report is dropped
+		reporter = new CrashReporter("http://127.0.0.1:9/", "password", null, TimeUnit.HOURS.toMillis(1), 10, 64);
+
+		exception = new IllegalStateException("handler failed");
+		fingerprint = CrashReport.fingerprint(exception);
+		reporter.report(exception, fingerprint);
+	}
+
+	@TearDown
+	public void tearDown() {
+		reporter.shutdown(1000);
+	}
+
+	@Benchmark
+	public boolean reportDuplicate() {
+		return reporter.report(exception);
+	}
+
+	@Benchmark
+	public boolean reportFingerprinted() {
+		return reporter.report(exception, fingerprint);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public boolean reportDuplicateContended() {
+		return reporter.report(exception);
+	}
+}
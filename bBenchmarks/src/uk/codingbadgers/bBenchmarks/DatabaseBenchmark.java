@@ -0,0 +1,219 @@
+/**
+ * bBenchmarks 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bBenchmarks;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.codingbadgers.bFundamentals.DatabaseSettings;
+import uk.codingbadgers.bFundamentals.bFundamentals;
+import uk.codingbadgers.bFundamentals.database.DatabaseService;
+import uk.codingbadgers.bFundamentals.database.RowMapper;
+import uk.thecodingbadgers.bDatabaseManager.Database.BukkitDatabase;
+import uk.thecodingbadgers.bFundamentals.TestContainer;
+import uk.thecodingbadgers.bFundamentals.support.TestPlugin;
+
+/**
+ * Runs queries and updates through the pooled database service against an
+ * in memory database in MySQL mode, so the results show the cost of the
+ * service rather than of a network round trip.
+ * <p>
+ * The same queries are also run against the bFundamentals SQLite file, both
+ * through the blocking {@link BukkitDatabase} path modules used before the
+ * service existed and through the service. The submit benchmarks time only
+ * the calling thread handing a task to the service's background executor,
+ * the task is waited for outside of the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DatabaseBenchmark {
+
+	private static final int PLAYERS = 1000;
+	private static final int BATCH = 100;
+
+	private static final Executor DIRECT = new Executor() {
+		@Override
+		public void execute(Runnable command) {
+			command.run();
+		}
+	};
+
+	private static final RowMapper<Integer> SCORE = new RowMapper<Integer>() {
+		@Override
+		public Integer map(ResultSet result) throws SQLException {
+			return result.getInt("score");
+		}
+	};
+
+	private DatabaseService service;
+	private DatabaseService sqlite;
+	private BukkitDatabase legacy;
+	private List<Object[]> batch;
+	private int next;
+
+	/**
+	 * The task a submit benchmark handed to the background executor, it is
+	 * finished before the next invocation so the queue never fills.
+	 */
+	@State(Scope.Thread)
+	public static class Pending {
+
+		Future<?> future;
+
+		@TearDown(Level.Invocation)
+		public void await() throws InterruptedException, ExecutionException {
+			if (future != null) {
+				future.get();
+				future = null;
+			}
+		}
+	}
+
+	@Setup
+	public void setup() throws Exception {
+		Class.forName("org.h2.Driver");
+		service = new DatabaseService("jdbc:h2:mem:bBenchmarks;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "", 2, DIRECT);
+		service.update("CREATE TABLE IF NOT EXISTS players (name VARCHAR(32) PRIMARY KEY, score INT)");
+
+		List<Object[]> rows = new ArrayList<Object[]>(PLAYERS);
+		for (int i = 0; i < PLAYERS; i++) {
+			rows.add(new Object[] { "Player" + i, i });
+		}
+		service.batch("MERGE INTO players (name, score) KEY (name) VALUES (?, ?)", rows);
+
+		TestContainer.setup();
+		TestPlugin.setup();
+		DatabaseSettings settings = bFundamentals.getConfigurationManager().getDatabaseSettings();
+		legacy = bFundamentals.getBukkitDatabase();
+		sqlite = new DatabaseService(DatabaseService.getUrl(settings, bFundamentals.getInstance().getDataFolder()), null, null, 2, DIRECT);
+		sqlite.update("CREATE TABLE IF NOT EXISTS players (name VARCHAR(32) PRIMARY KEY, score INT)");
+		sqlite.batch("INSERT OR REPLACE INTO players (name, score) VALUES (?, ?)", rows);
+
+		batch = new ArrayList<Object[]>(BATCH);
+		for (int i = 0; i < BATCH; i++) {
+			batch.add(new Object[] { i, "Player" + i });
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws SQLException {
+		service.update("DROP TABLE players");
+		service.shutdown(1000);
+
+		sqlite.update("DROP TABLE players");
+		sqlite.shutdown(1000);
+		legacy.freeDatabase();
+	}
+
+	private String nextName() {
+		if (++next == PLAYERS) {
+			next = 0;
+		}
+		return "Player" + next;
+	}
+
+	@Benchmark
+	public List<Integer> query() throws SQLException {
+		return service.query("SELECT score FROM players WHERE name = ?", SCORE, nextName());
+	}
+
+	@Benchmark
+	public List<Integer> queryAsync() throws InterruptedException, ExecutionException {
+		return service.queryAsync("SELECT score FROM players WHERE name = ?", SCORE, null, nextName()).get();
+	}
+
+	@Benchmark
+	public int update() throws SQLException {
+		return service.update("UPDATE players SET score = score + 1 WHERE name = ?", nextName());
+	}
+
+	@Benchmark
+	public int[] batch() throws SQLException {
+		return service.batch("UPDATE players SET score = ? WHERE name = ?", batch);
+	}
+
+	/**
+	 * How modules queried before the database service, a concatenated query
+	 * run on the calling thread.
+	 */
+	@Benchmark
+	public int queryBlocking() throws SQLException {
+		ResultSet result = legacy.queryResult("SELECT score FROM players WHERE name = '" + nextName() + "'");
+
+		try {
+			result.next();
+			return result.getInt("score");
+		} finally {
+			result.close();
+		}
+	}
+
+	@Benchmark
+	public List<Integer> querySqlite() throws SQLException {
+		return sqlite.query("SELECT score FROM players WHERE name = ?", SCORE, nextName());
+	}
+
+	@Benchmark
+	public Future<?> querySubmit(Pending pending) {
+		pending.future = sqlite.queryAsync("SELECT score FROM players WHERE name = ?", SCORE, null, nextName());
+		return pending.future;
+	}
+
+	/**
+	 * How modules updated before the database service, a concatenated
+	 * statement run on the calling thread.
+	 */
+	@Benchmark
+	public void updateBlocking() {
+		legacy.query("UPDATE players SET score = score + 1 WHERE name = '" + nextName() + "'", true);
+	}
+
+	@Benchmark
+	public int updateSqlite() throws SQLException {
+		return sqlite.update("UPDATE players SET score = score + 1 WHERE name = ?", nextName());
+	}
+
+	@Benchmark
+	public Future<?> updateSubmit(Pending pending) {
+		pending.future = sqlite.updateAsync("UPDATE players SET score = score + 1 WHERE name = ?", nextName());
+		return pending.future;
+	}
+}
@@ -0,0 +1,85 @@
+/**
+ * bBenchmarks 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bBenchmarks;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.event.EventException;
+import org.bukkit.plugin.EventExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.codingbadgers.bFundamentals.module.EventExecutorGenerator;
+import uk.codingbadgers.bFundamentals.module.EventRegistrar;
+import uk.thecodingbadgers.bFundamentals.module.EventExecutorGeneratorTest.TestEvent;
+import uk.thecodingbadgers.bFundamentals.module.EventExecutorGeneratorTest.TestListener;
+
+/**
+ * Calls a module event handler through a generated executor, through a
+ * reflective executor like the ones bukkit creates, and directly.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventExecutorBenchmark {
+
+	private TestListener listener;
+	private TestEvent event;
+	private EventExecutor generated;
+	private EventExecutor reflective;
+
+	@Setup
+	public void setup() throws NoSuchMethodException {
+		listener = new TestListener();
+		event = new TestEvent();
+
+		Method method = TestListener.class.getDeclaredMethod("onEvent", TestEvent.class);
+		generated = new EventExecutorGenerator(TestListener.class).generate(TestEvent.class, method);
+		reflective = EventRegistrar.createReflectiveExecutor(TestEvent.class, method);
+	}
+
+	@Benchmark
+	public int direct() {
+		listener.onEvent(event);
+		return listener.calls;
+	}
+
+	@Benchmark
+	public int generated() throws EventException {
+		generated.execute(listener, event);
+		return listener.calls;
+	}
+
+	@Benchmark
+	public int reflective() throws EventException {
+		reflective.execute(listener, event);
+		return listener.calls;
+	}
+}
@@ -0,0 +1,83 @@
+/**
+ * bBenchmarks 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bBenchmarks;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.codingbadgers.bFundamentals.module.ModuleExecutor;
+
+/**
+ * Hands a task to a module's executor and waits for it, against a plain
+ * fixed thread pool of the same size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExecutorBenchmark {
+
+	private static final Callable<Integer> TASK = new Callable<Integer>() {
+		@Override
+		public Integer call() {
+			return 1;
+		}
+	};
+
+	private ModuleExecutor module;
+	private ExecutorService pool;
+
+	@Setup
+	public void setup() {
+		module = new ModuleExecutor("bExecutorBenchmark", ModuleExecutor.DEFAULT_THREADS, ModuleExecutor.DEFAULT_CAPACITY);
+		pool = Executors.newFixedThreadPool(ModuleExecutor.DEFAULT_THREADS);
+	}
+
+	@TearDown
+	public void tearDown() {
+		module.shutdown(1000);
+		pool.shutdownNow();
+	}
+
+	@Benchmark
+	public Integer moduleExecutor() throws InterruptedException, ExecutionException {
+		return module.submit(TASK).get();
+	}
+
+	@Benchmark
+	public Integer threadPool() throws InterruptedException, ExecutionException {
+		return pool.submit(TASK).get();
+	}
+}
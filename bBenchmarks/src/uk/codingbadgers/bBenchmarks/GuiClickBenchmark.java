@@ -0,0 +1,146 @@
+/**
+ * bBenchmarks 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bBenchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.ClickType;
+import org.bukkit.event.inventory.InventoryAction;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.event.inventory.InventoryType.SlotType;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryView;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.codingbadgers.bFundamentals.gui.GuiCallback;
+import uk.codingbadgers.bFundamentals.gui.GuiInventory;
+import uk.codingbadgers.bFundamentals.gui.GuiListener;
+import uk.thecodingbadgers.bFundamentals.TestContainer;
+import uk.thecodingbadgers.bFundamentals.support.DummyPlayer;
+
+/**
+ * Routes clicks through the gui listener with many menus open, both on a
+ * menu item and on an empty slot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GuiClickBenchmark {
+
+	private static final int ITEM_SLOT = 4;
+	private static final int EMPTY_SLOT = 5;
+
+	@Param({"1", "1000"})
+	public int menus;
+
+	private final GuiListener listener = new GuiListener();
+	private InventoryClickEvent[] itemClicks;
+	private InventoryClickEvent[] emptyClicks;
+	private int clicked;
+	private int next;
+
+	@Setup
+	public void setup() {
+		TestContainer.setup();
+
+		GuiCallback callback = new GuiCallback() {
+			@Override
+			public void onClick(GuiInventory inventory, InventoryClickEvent clickEvent) {
+				clicked++;
+			}
+		};
+
+		Player player = DummyPlayer.create("TheFish97");
+		Inventory bottom = Bukkit.createInventory(null, 36, "Player");
+
+		itemClicks = new InventoryClickEvent[menus];
+		emptyClicks = new InventoryClickEvent[menus];
+
+		for (int i = 0; i < menus; i++) {
+			GuiInventory gui = new GuiInventory(null);
+			gui.createInventory("Store " + i, 3);
+			gui.addMenuItem("Buy", new ItemStack(Material.DIAMOND), new String[] { "Buy a diamond" }, ITEM_SLOT, callback);
+
+			InventoryView view = createView(gui.getInventory(), bottom, player);
+			itemClicks[i] = new InventoryClickEvent(view, SlotType.CONTAINER, ITEM_SLOT, ClickType.LEFT, InventoryAction.PICKUP_ALL);
+			emptyClicks[i] = new InventoryClickEvent(view, SlotType.CONTAINER, EMPTY_SLOT, ClickType.LEFT, InventoryAction.NOTHING);
+		}
+	}
+
+	private static InventoryView createView(final Inventory top, final Inventory bottom, final HumanEntity player) {
+		return new InventoryView() {
+			@Override
+			public Inventory getTopInventory() {
+				return top;
+			}
+
+			@Override
+			public Inventory getBottomInventory() {
+				return bottom;
+			}
+
+			@Override
+			public HumanEntity getPlayer() {
+				return player;
+			}
+
+			@Override
+			public InventoryType getType() {
+				return InventoryType.CHEST;
+			}
+		};
+	}
+
+	private int next() {
+		if (++next >= menus) {
+			next = 0;
+		}
+		return next;
+	}
+
+	@Benchmark
+	public int clickItem() {
+		listener.onInventoryClick(itemClicks[next()]);
+		return clicked;
+	}
+
+	@Benchmark
+	public int clickEmpty() {
+		listener.onInventoryClick(emptyClicks[next()]);
+		return clicked;
+	}
+}
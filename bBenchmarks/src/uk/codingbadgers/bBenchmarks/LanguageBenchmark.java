@@ -0,0 +1,176 @@
+/**
+ * bBenchmarks 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bBenchmarks;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.codingbadgers.bFundamentals.bFundamentals;
+import uk.codingbadgers.bFundamentals.language.MessageTemplate;
+import uk.thecodingbadgers.bFundamentals.TestContainer;
+
+/**
+ * Looks up and renders values from a module's language file.
+ * <p>
+ * The old benchmarks are the path modules used before language files were
+ * compiled: a map of raw lines looked up by lower cased key, rendered with
+ * {@link String#format(String, Object...)}. The old path did not translate
+ * colour codes, {@link uk.codingbadgers.bFundamentals.module.Module#getLanguageValue(String)}
+ * now returns translated text, so the old path does slightly less work.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LanguageBenchmark {
+
+	private static final String NAME = "bLanguageBenchmark";
+
+	private File folder;
+	private BenchmarkModule module;
+	private MessageTemplate welcome;
+	private Map<String, String> oldLanguage;
+
+	@Setup
+	public void setup() throws IOException {
+		TestContainer.setup();
+		folder = Files.createTempDirectory("bBenchmarks").toFile();
+
+		StringBuilder language = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			language.append("#key-").append(i).append('\n');
+			language.append("&7Filler message number ").append(i).append('\n');
+		}
+		language.append("#WELCOME-MESSAGE\n");
+		language.append("&aWelcome %playername% to <<servername>>, you have %coins% coins\n");
+		language.append("#plain\n");
+		language.append("&cYou don't have permission to do that\n");
+
+		oldLanguage = parseOld(language.toString().replace("%playername% to <<servername>>, you have %coins%", "%s to %s, you have %d"));
+
+		File file = new File(folder, NAME + "_" + bFundamentals.getConfigurationManager().getLanguage() + ".lang");
+		FileUtils.writeStringToFile(file, language.toString(), "UTF-8");
+
+		module = BenchmarkModule.create(NAME, folder);
+		module.loadLanguage();
+		welcome = module.getLanguageTemplate("welcome-message");
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(folder);
+	}
+
+	@Benchmark
+	public String plain() {
+		return module.getLanguageValue("PLAIN");
+	}
+
+	@Benchmark
+	public String missing() {
+		return module.getLanguageValue("missing-key");
+	}
+
+	@Benchmark
+	public String render() {
+		return module.getLanguageValue("welcome-message", "playername", "TheFish97", "servername", "McBadgerCraft", "coins", 250);
+	}
+
+	@Benchmark
+	public String renderTemplate() {
+		return welcome.render("playername", "TheFish97", "servername", "McBadgerCraft", "coins", 250);
+	}
+
+	@Benchmark
+	public String plainOld() {
+		return getOldLanguageValue("PLAIN");
+	}
+
+	@Benchmark
+	public String missingOld() {
+		return getOldLanguageValue("missing-key");
+	}
+
+	@Benchmark
+	public String renderOld() {
+		return String.format(getOldLanguageValue("welcome-message"), "TheFish97", "McBadgerCraft", 250);
+	}
+
+	/**
+	 * The lookup Module.getLanguageValue did before language files were
+	 * compiled.
+	 */
+	private String getOldLanguageValue(String key) {
+		String value = oldLanguage.get(key.toLowerCase());
+
+		if (value == null) {
+			value = key.toLowerCase().replace("-", " ");
+		}
+
+		return value;
+	}
+
+	/**
+	 * Parses a language file the way Module.loadLanguageFile did before
+	 * language files were compiled.
+	 */
+	private static Map<String, String> parseOld(String language) throws IOException {
+		Map<String, String> values = new HashMap<String, String>();
+		BufferedReader reader = new BufferedReader(new StringReader(language));
+		String line;
+		String key = null;
+
+		while ((line = reader.readLine()) != null) {
+			if (line.isEmpty() || line.startsWith("//")) {
+				continue;
+			}
+
+			if (line.startsWith("#")) {
+				key = line.substring(1);
+				continue;
+			}
+
+			if (key != null) {
+				values.put(key.toLowerCase(), line);
+			}
+		}
+
+		return values;
+	}
+}
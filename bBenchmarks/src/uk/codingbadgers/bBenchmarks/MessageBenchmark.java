@@ -0,0 +1,196 @@
+/**
+ * bBenchmarks 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bBenchmarks;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.ChatColor;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.comphenix.protocol.PacketType;
+import com.comphenix.protocol.ProtocolLibrary;
+import com.comphenix.protocol.ProtocolManager;
+import com.comphenix.protocol.events.PacketContainer;
+import com.comphenix.protocol.utility.MinecraftReflection;
+import com.comphenix.protocol.wrappers.WrappedChatComponent;
+import com.google.gson.Gson;
+
+import uk.codingbadgers.bFundamentals.bFundamentals;
+import uk.codingbadgers.bFundamentals.message.ClickEventType;
+import uk.codingbadgers.bFundamentals.message.Message;
+import uk.codingbadgers.bFundamentals.message.MessageSender;
+import uk.thecodingbadgers.bFundamentals.TestContainer;
+import uk.thecodingbadgers.bFundamentals.support.DummyPlayer;
+
+/**
+ * Encodes chat messages to json, both directly through gson and through the
+ * cached form each message keeps until it is modified, and sends a message to
+ * a group of players through {@link MessageSender#broadcast(Player[], Message)}
+ * and through the old path that encoded the message again for every player.
+ * Packets are built by ProtocolLib but sent to a protocol manager that only
+ * counts them, there is no server to write them to.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageBenchmark {
+
+	@Param({"1", "10"})
+	public int extras;
+
+	@Param({"1", "100", "1000"})
+	public int recipients;
+
+	private Gson gson;
+	private Message message;
+	private Message last;
+	private String json;
+	private boolean toggle;
+	private Player[] players;
+	private ProtocolManager manager;
+	private int sent;
+
+	@Setup
+	public void setup() {
+		TestContainer.setup();
+		gson = bFundamentals.getGsonInstance();
+
+		message = new Message("Welcome to the server ");
+		message.setColor(ChatColor.GOLD);
+		message.addStyle(ChatColor.BOLD);
+
+		for (int i = 0; i < extras; i++) {
+			last = new Message("part " + i + " ");
+			last.setColor(ChatColor.GREEN);
+			last.addClickEvent(ClickEventType.RUN_COMMAND, "/help " + i);
+			last.addItemTooltip(new ItemStack(Material.DIAMOND));
+			message.addExtra(last);
+		}
+
+		json = gson.toJson(message);
+
+		players = new Player[recipients];
+		for (int i = 0; i < recipients; i++) {
+			players[i] = DummyPlayer.create("player" + i);
+		}
+
+		MinecraftReflection.setMinecraftPackage("net.minecraft.server.v1_7_R1", "org.bukkit.craftbukkit.v1_7_R1");
+		manager = (ProtocolManager) Proxy.newProxyInstance(ProtocolManager.class.getClassLoader(), new Class<?>[] { ProtocolManager.class }, new CountingManager());
+		setProtocolManager(manager);
+	}
+
+	@Benchmark
+	public String encode() {
+		return gson.toJson(message);
+	}
+
+	@Benchmark
+	public String encodeCached() {
+		return message.toJson();
+	}
+
+	@Benchmark
+	public String encodeModified() {
+		toggle = !toggle;
+		last.setColor(toggle ? ChatColor.RED : ChatColor.GREEN);
+		return message.toJson();
+	}
+
+	@Benchmark
+	public Message decode() {
+		return gson.fromJson(json, Message.class);
+	}
+
+	@Benchmark
+	public int broadcast() {
+		MessageSender.broadcast(players, message);
+		return sent;
+	}
+
+	/**
+	 * The send path before messages cached their encoded form, every player
+	 * got a freshly serialized message.
+	 */
+	@Benchmark
+	public int broadcastPerPlayer() throws Exception {
+		for (Player player : players) {
+			String encoded = gson.toJson(message);
+
+			PacketContainer packet = manager.createPacket(PacketType.Play.Server.CHAT);
+			packet.getChatComponents().write(0, WrappedChatComponent.fromJson(encoded));
+			manager.sendServerPacket(player, packet);
+		}
+		return sent;
+	}
+
+	private static void setProtocolManager(ProtocolManager manager) {
+		try {
+			for (Field field : ProtocolLibrary.class.getDeclaredFields()) {
+				if (field.getType() == ProtocolManager.class) {
+					field.setAccessible(true);
+					field.set(null, manager);
+					return;
+				}
+			}
+		} catch (IllegalAccessException ex) {
+			throw new IllegalStateException(ex);
+		}
+
+		throw new IllegalStateException("ProtocolLibrary has no protocol manager field");
+	}
+
+	private final class CountingManager implements InvocationHandler {
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) {
+			switch (method.getName()) {
+				case "createPacket":
+					return new PacketContainer((PacketType) args[0]);
+				case "sendServerPacket":
+					sent++;
+					return null;
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "equals":
+					return proxy == args[0];
+				default:
+					throw new UnsupportedOperationException(method.getName());
+			}
+		}
+	}
+}
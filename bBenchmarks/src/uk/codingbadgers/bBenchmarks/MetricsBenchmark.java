@@ -0,0 +1,133 @@
+/**
+ * bBenchmarks 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bBenchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.codingbadgers.bFundamentals.metrics.Counter;
+import uk.codingbadgers.bFundamentals.metrics.Histogram;
+import uk.codingbadgers.bFundamentals.metrics.Metrics;
+import uk.codingbadgers.bFundamentals.timings.Timing;
+import uk.codingbadgers.bFundamentals.timings.TimingType;
+import uk.codingbadgers.bFundamentals.timings.Timings;
+
+/**
+ * Records values into metrics and timings. Recording should never allocate,
+ * which the gc profiler the benchmarks are run with reports as
+ * gc.alloc.rate.norm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsBenchmark {
+
+	private static final String GROUP = "bMetricsBenchmark";
+
+	private Counter counter;
+	private Histogram histogram;
+	private Timing timing;
+	private Runnable task;
+	private Runnable timedTask;
+	private long value;
+
+	@Setup
+	public void setup() {
+		Timings.setEnabled(false);
+
+		counter = Metrics.counter(GROUP, "counter");
+		histogram = Metrics.histogram(GROUP, "histogram");
+		timing = Timings.getTiming(GROUP, TimingType.TASK, "timing");
+
+		task = new Runnable() {
+			@Override
+			public void run() {
+				counter.inc();
+			}
+		};
+		timedTask = Timings.wrap(GROUP, task);
+	}
+
+	@TearDown
+	public void tearDown() {
+		Metrics.remove(GROUP);
+		Timings.reset();
+	}
+
+	private long nextValue() {
+		// spread the values over the buckets rather than always hitting one
+		return value = (value + 7919) & 0xFFFFFF;
+	}
+
+	@Benchmark
+	public void counter() {
+		counter.inc();
+	}
+
+	@Benchmark
+	@Threads(4)
+	public void counterContended() {
+		counter.inc();
+	}
+
+	@Benchmark
+	public void histogram() {
+		histogram.update(nextValue());
+	}
+
+	@Benchmark
+	@Threads(4)
+	public void histogramContended() {
+		histogram.update(System.nanoTime() & 0xFFFFFF);
+	}
+
+	@Benchmark
+	public void timing() {
+		timing.record(nextValue());
+	}
+
+	@Benchmark
+	public void counterLookup() {
+		Metrics.counter(GROUP, "counter").inc();
+	}
+
+	@Benchmark
+	public void task() {
+		task.run();
+	}
+
+	@Benchmark
+	public void timedTaskDisabled() {
+		timedTask.run();
+	}
+}
@@ -0,0 +1,121 @@
+/**
+ * bBenchmarks 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bBenchmarks;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.codingbadgers.bFundamentals.player.FundamentalPlayer;
+import uk.codingbadgers.bFundamentals.player.FundamentalPlayerArray;
+import uk.thecodingbadgers.bFundamentals.support.DummyPlayer;
+
+/**
+ * Looks up online players by name, unique id and bukkit player, the lookups
+ * cycle through every online player so none of them stay in a register.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayerArrayBenchmark {
+
+	@Param({"50", "500"})
+	public int online;
+
+	private FundamentalPlayerArray players;
+	private Player[] bukkitPlayers;
+	private String[] names;
+	private UUID[] ids;
+	private Player joining;
+	private int next;
+
+	@Setup
+	public void setup() {
+		players = new FundamentalPlayerArray();
+		bukkitPlayers = new Player[online];
+		names = new String[online];
+		ids = new UUID[online];
+
+		for (int i = 0; i < online; i++) {
+			bukkitPlayers[i] = DummyPlayer.create("Player" + i);
+			// commands are typed in any case
+			names[i] = i % 2 == 0 ? "player" + i : "PLAYER" + i;
+			ids[i] = bukkitPlayers[i].getUniqueId();
+			players.add(new FundamentalPlayer(bukkitPlayers[i]));
+		}
+
+		joining = DummyPlayer.create("Joining");
+	}
+
+	private int next() {
+		if (++next >= online) {
+			next = 0;
+		}
+		return next;
+	}
+
+	@Benchmark
+	public FundamentalPlayer byName() {
+		return players.getPlayer(names[next()]);
+	}
+
+	@Benchmark
+	public FundamentalPlayer byId() {
+		return players.getPlayer(ids[next()]);
+	}
+
+	@Benchmark
+	public FundamentalPlayer byPlayer() {
+		return players.getPlayer(bukkitPlayers[next()]);
+	}
+
+	@Benchmark
+	public int iterate() {
+		int count = 0;
+
+		for (FundamentalPlayer player : players) {
+			if (player != null) {
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	@Benchmark
+	public int joinAndQuit() {
+		players.add(new FundamentalPlayer(joining));
+		players.removePlayer(joining);
+		return players.size();
+	}
+}
@@ -0,0 +1,128 @@
+/**
+ * bBenchmarks 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bBenchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.codingbadgers.bFundamentals.player.PlayerNameIndex;
+
+/**
+ * Compares the known player name index against scanning every known name,
+ * which is what matching an offline player did before the index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayerNameIndexBenchmark {
+
+	private static final int QUERIES = 1024;
+	private static final int PREFIX_LIMIT = 10;
+
+	@Param({"50000"})
+	public int known;
+
+	private PlayerNameIndex index;
+	private List<String> names;
+	private String[] exact;
+	private String[] prefixes;
+	private int next;
+
+	@Setup
+	public void setup() {
+		names = new ArrayList<String>(known);
+
+		for (int i = 0; i < known; i++) {
+			names.add("Player" + i);
+		}
+
+		index = new PlayerNameIndex();
+		index.rebuild(names);
+
+		exact = new String[QUERIES];
+		prefixes = new String[QUERIES];
+
+		for (int i = 0; i < QUERIES; i++) {
+			int player = (int) ((i * 2654435761L) % known);
+			exact[i] = "player" + player;
+			prefixes[i] = "PLAYER" + (player / 10);
+		}
+	}
+
+	private int next() {
+		return next = (next + 1) & (QUERIES - 1);
+	}
+
+	@Benchmark
+	public String exactIndex() {
+		return index.getExact(exact[next()]);
+	}
+
+	@Benchmark
+	public String exactScan() {
+		String name = exact[next()];
+
+		for (String candidate : names) {
+			if (candidate.equalsIgnoreCase(name)) {
+				return candidate;
+			}
+		}
+
+		return null;
+	}
+
+	@Benchmark
+	public List<String> prefixIndex() {
+		return index.getPrefixMatches(prefixes[next()], PREFIX_LIMIT);
+	}
+
+	@Benchmark
+	public List<String> prefixScan() {
+		String prefix = prefixes[next()].toLowerCase(Locale.ENGLISH);
+		List<String> matches = new ArrayList<String>();
+
+		for (String candidate : names) {
+			if (candidate.toLowerCase(Locale.ENGLISH).startsWith(prefix)) {
+				matches.add(candidate);
+
+				if (matches.size() == PREFIX_LIMIT) {
+					break;
+				}
+			}
+		}
+
+		return matches;
+	}
+}
@@ -0,0 +1,149 @@
+/**
+ * bBenchmarks 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bBenchmarks;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.Location;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sk89q.worldedit.Vector;
+import com.sk89q.worldedit.regions.CuboidRegion;
+
+import uk.codingbadgers.bportals.portal.Portal;
+import uk.codingbadgers.bportals.portal.PortalIndex;
+
+import static uk.codingbadgers.bportals.utils.LocationUtils.*;
+
+/**
+ * Finds the portal containing a block, as done for every portal block
+ * physics update, with the chunk index and with the linear scan over every
+ * portal it replaced. Lookups cycle between blocks inside a portal and blocks
+ * next to one, most physics updates are for blocks in no portal at all.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PortalBenchmark {
+
+	/** portals are laid out on a grid this many blocks apart */
+	private static final int SPACING = 40;
+	private static final int PER_ROW = 32;
+	private static final int LOOKUPS = 1024;
+
+	@Param({"10", "100", "1000"})
+	public int portals;
+
+	private Set<Portal> scanned;
+	private PortalIndex index;
+	private Location[] inside;
+	private Location[] outside;
+	private int next;
+
+	@Setup
+	public void setup() {
+		scanned = new HashSet<Portal>();
+		index = new PortalIndex();
+
+		for (int i = 0; i < portals; i++) {
+			int x = (i % PER_ROW) * SPACING;
+			int z = (i / PER_ROW) * SPACING;
+
+			Portal portal = new Portal("portal" + i);
+			portal.setRegion(new CuboidRegion(new Vector(x, 64, z), new Vector(x + 3, 68, z)));
+			scanned.add(portal);
+			index.add(portal);
+		}
+
+		inside = new Location[LOOKUPS];
+		outside = new Location[LOOKUPS];
+
+		for (int i = 0; i < LOOKUPS; i++) {
+			int portal = (i * 7) % portals;
+			int x = (portal % PER_ROW) * SPACING;
+			int z = (portal / PER_ROW) * SPACING;
+
+			inside[i] = new Location(null, x + 1.5, 65.5, z + 0.5);
+			// just behind the portal and in the same chunk, so the index still has to test it
+			outside[i] = new Location(null, x + 1.5, 65.5, z + 2.5);
+		}
+	}
+
+	private int next() {
+		if (++next == LOOKUPS) {
+			next = 0;
+		}
+		return next;
+	}
+
+	@Benchmark
+	public Portal indexedInside() {
+		return index.get(inside[next()]);
+	}
+
+	@Benchmark
+	public Portal indexedOutside() {
+		return index.get(outside[next()]);
+	}
+
+	@Benchmark
+	public Portal scanInside() {
+		return scan(inside[next()]);
+	}
+
+	@Benchmark
+	public Portal scanOutside() {
+		return scan(outside[next()]);
+	}
+
+	/**
+	 * The lookup PortalManager did before portals were indexed.
+	 */
+	private Portal scan(Location loc) {
+		for (Portal portal : scanned) {
+			if (portal.getPortalRegion().contains(convertLocationToVector(loc))) {
+				return portal;
+			}
+
+			if (portal.getPortalRegion().contains(convertLocationToFloorVector(loc))) {
+				return portal;
+			}
+
+			if (portal.getPortalRegion().contains(convertLocationToCeilVector(loc))) {
+				return portal;
+			}
+		}
+
+		return null;
+	}
+}
@@ -0,0 +1,100 @@
+/**
+ * bBenchmarks 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bBenchmarks;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.Material;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.Gson;
+
+import uk.codingbadgers.bFundamentals.bFundamentals;
+import uk.thecodingbadgers.bFundamentals.TestContainer;
+
+/**
+ * Round trips item stacks through the json form written by the
+ * ItemStackSerializer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+	@Param({"plain", "meta", "enchanted"})
+	public String item;
+
+	private Gson gson;
+	private ItemStack stack;
+	private String json;
+
+	@Setup
+	public void setup() {
+		TestContainer.setup();
+		gson = bFundamentals.getGsonInstance();
+
+		stack = new ItemStack(Material.APPLE, 5, (short) 7);
+
+		if (!item.equals("plain")) {
+			ItemMeta meta = stack.getItemMeta();
+			meta.setDisplayName("Apple of Awsome");
+			meta.setLore(Arrays.asList("Its just a apple", "But a very nice one"));
+
+			if (item.equals("enchanted")) {
+				meta.addEnchant(Enchantment.PROTECTION_ENVIRONMENTAL, 1, true);
+				meta.addEnchant(Enchantment.DURABILITY, 3, true);
+			}
+
+			stack.setItemMeta(meta);
+		}
+
+		json = gson.toJson(stack);
+	}
+
+	@Benchmark
+	public String serialize() {
+		return gson.toJson(stack);
+	}
+
+	@Benchmark
+	public ItemStack deserialize() {
+		return gson.fromJson(json, ItemStack.class);
+	}
+
+	@Benchmark
+	public ItemStack roundTrip() {
+		return gson.fromJson(gson.toJson(stack), ItemStack.class);
+	}
+}
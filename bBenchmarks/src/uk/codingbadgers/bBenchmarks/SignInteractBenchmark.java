@@ -0,0 +1,180 @@
+/**
+ * bBenchmarks 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bBenchmarks;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares finding the sign at a clicked block through bSign's sign registry
+ * against scanning every sign, which is what the interact handler did before
+ * signs were indexed. Clicks are timed on a sign and on a block next to one.
+ * <p>
+ * bSign is not part of the build, its inputgui dependency is only published
+ * to a personal repository, so the registry's lookup is reproduced here over
+ * plain locations rather than calling SignRegistry itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SignInteractBenchmark {
+
+	private static final int CLICKS = 1024;
+
+	@Param({"5000"})
+	public int signs;
+
+	private SignIndex index;
+	private List<Location> scanned;
+	private Location[] onSign;
+	private Location[] nextToSign;
+	private int next;
+
+	@Setup
+	public void setup() {
+		World world = (World) Proxy.newProxyInstance(World.class.getClassLoader(), new Class<?>[] { World.class }, new NamedWorld("world"));
+		index = new SignIndex();
+		scanned = new ArrayList<Location>(signs);
+
+		for (int i = 0; i < signs; i++) {
+			Location sign = new Location(world, (i % 100) * 3, 64, (i / 100) * 3);
+			index.add(sign);
+			scanned.add(sign);
+		}
+
+		onSign = new Location[CLICKS];
+		nextToSign = new Location[CLICKS];
+
+		for (int i = 0; i < CLICKS; i++) {
+			int sign = (int) ((i * 2654435761L) % signs);
+			int x = (sign % 100) * 3, z = (sign / 100) * 3;
+			onSign[i] = new Location(world, x, 64, z);
+			nextToSign[i] = new Location(world, x + 1, 64, z);
+		}
+	}
+
+	private int next() {
+		return next = (next + 1) & (CLICKS - 1);
+	}
+
+	@Benchmark
+	public Location registryHit() {
+		return index.get(onSign[next()]);
+	}
+
+	@Benchmark
+	public Location registryMiss() {
+		return index.get(nextToSign[next()]);
+	}
+
+	@Benchmark
+	public Location scanHit() {
+		return scan(onSign[next()]);
+	}
+
+	@Benchmark
+	public Location scanMiss() {
+		return scan(nextToSign[next()]);
+	}
+
+	private Location scan(Location clicked) {
+		for (Location sign : scanned) {
+			if (sign.equals(clicked)) {
+				return sign;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * The block lookup of bSign's SignRegistry, signs keyed by world name and
+	 * packed block coordinates.
+	 */
+	private static final class SignIndex {
+
+		private final Map<String, Map<Long, Location>> worlds = new HashMap<String, Map<Long, Location>>();
+
+		void add(Location sign) {
+			String world = sign.getWorld().getName();
+			Map<Long, Location> blocks = worlds.get(world);
+
+			if (blocks == null) {
+				blocks = new HashMap<Long, Location>();
+				worlds.put(world, blocks);
+			}
+
+			blocks.put(blockKey(sign.getBlockX(), sign.getBlockY(), sign.getBlockZ()), sign);
+		}
+
+		Location get(Location location) {
+			Map<Long, Location> blocks = worlds.get(location.getWorld().getName());
+			return blocks == null ? null : blocks.get(blockKey(location.getBlockX(), location.getBlockY(), location.getBlockZ()));
+		}
+
+		private static long blockKey(int x, int y, int z) {
+			return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+		}
+	}
+
+	private static final class NamedWorld implements InvocationHandler {
+
+		private final String name;
+
+		NamedWorld(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) {
+			switch (method.getName()) {
+				case "getName":
+					return name;
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "equals":
+					return proxy == args[0];
+				default:
+					throw new UnsupportedOperationException(method.getName());
+			}
+		}
+	}
+}
@@ -0,0 +1,182 @@
+/**
+ * bBenchmarks 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bBenchmarks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A load test client for the bSocks listener. It opens a connection for every
+ * request, as the website does, from a number of threads at once. It prints
+ * the connections completed per second and the latency percentiles.
+ * <p>
+ * It only speaks the line framed json protocol, so it can be run against
+ * any bSocks build on a running server:
+ * <pre>
+ * java -cp bBenchmarks.jar uk.codingbadgers.bBenchmarks.SocksLoadClient [host] [port] [password] [requests] [threads] [command]
+ * </pre>
+ * The defaults match the bSocks defaults, 20,000 serverstats requests from
+ * 32 threads against localhost:5598.
+ */
+public final class SocksLoadClient {
+
+	private static final int TIMEOUT = 10000;
+
+	private final InetSocketAddress address;
+	private final byte[] request;
+	private final int requests;
+	private final int threads;
+
+	private final AtomicInteger next = new AtomicInteger();
+	private final AtomicInteger failures = new AtomicInteger();
+	private final AtomicLong responses = new AtomicLong();
+	private final long[] latencies;
+	private long elapsed;
+
+	private SocksLoadClient(InetSocketAddress address, String request, int requests, int threads) {
+		this.address = address;
+		this.request = (request + "\n").getBytes(StandardCharsets.UTF_8);
+		this.requests = requests;
+		this.threads = threads;
+		this.latencies = new long[requests];
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		String host = args.length > 0 ? args[0] : "localhost";
+		int port = args.length > 1 ? Integer.parseInt(args[1]) : 5598;
+		String password = args.length > 2 ? args[2] : "mypassword";
+		int requests = args.length > 3 ? Integer.parseInt(args[3]) : 20000;
+		int threads = args.length > 4 ? Integer.parseInt(args[4]) : 32;
+		String command = args.length > 5 ? args[5] : "serverstats";
+
+		String request = "{\"command\":\"" + command + "\",\"player\":\"a\",\"password\":\"" + md5(password) + "\"}";
+		SocksLoadClient client = new SocksLoadClient(new InetSocketAddress(host, port), request, requests, threads);
+
+		// warm the server up before measuring
+		new SocksLoadClient(client.address, request, Math.min(requests, 2000), threads).run();
+		client.run().print();
+	}
+
+	private SocksLoadClient run() throws InterruptedException {
+		final CountDownLatch done = new CountDownLatch(threads);
+		long start = System.nanoTime();
+
+		for (int i = 0; i < threads; i++) {
+			Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						int index;
+						while ((index = next.getAndIncrement()) < requests) {
+							latencies[index] = send();
+						}
+					} finally {
+						done.countDown();
+					}
+				}
+			}, "bSocks load client " + i);
+			thread.start();
+		}
+
+		done.await();
+		elapsed = System.nanoTime() - start;
+		return this;
+	}
+
+	/**
+	 * Sends a single request on a new connection.
+	 *
+	 * @return the time taken to connect, send and read the response, or -1 if
+	 *         the request failed
+	 */
+	private long send() {
+		long begin = System.nanoTime();
+
+		try (Socket socket = new Socket()) {
+			socket.setTcpNoDelay(true);
+			socket.setSoTimeout(TIMEOUT);
+			socket.connect(address, TIMEOUT);
+
+			OutputStream out = socket.getOutputStream();
+			out.write(request);
+			out.flush();
+
+			BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+			if (in.readLine() != null) {
+				responses.incrementAndGet();
+			}
+		} catch (IOException e) {
+			failures.incrementAndGet();
+			return -1;
+		}
+
+		return System.nanoTime() - begin;
+	}
+
+	private void print() {
+		long[] sorted = new long[requests - failures.get()];
+		int count = 0;
+
+		for (long latency : latencies) {
+			if (latency >= 0 && count < sorted.length) {
+				sorted[count++] = latency;
+			}
+		}
+		Arrays.sort(sorted, 0, count);
+
+		System.out.println(String.format("%d requests from %d threads to %s", requests, threads, address));
+		System.out.println(String.format("%d failed, %d answered", failures.get(), responses.get()));
+		System.out.println(String.format("%.0f connections/s", count / (elapsed / 1000000000.0)));
+		System.out.println(String.format("latency p50 %.2fms, p90 %.2fms, p99 %.2fms, max %.2fms",
+				millis(sorted, count, 0.50), millis(sorted, count, 0.90), millis(sorted, count, 0.99), millis(sorted, count, 1.0)));
+	}
+
+	private static double millis(long[] sorted, int count, double percentile) {
+		if (count == 0) {
+			return 0;
+		}
+
+		int index = Math.min(count - 1, (int) Math.ceil(percentile * count) - 1);
+		return sorted[Math.max(0, index)] / 1000000.0;
+	}
+
+	/**
+	 * Hashes the password the same way the listener does.
+	 */
+	private static String md5(String word) {
+		try {
+			MessageDigest md5 = MessageDigest.getInstance("MD5");
+			md5.update(word.getBytes());
+			return new BigInteger(1, md5.digest()).toString(16);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
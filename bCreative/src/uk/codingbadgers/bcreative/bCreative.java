@@ -40,6 +40,8 @@ import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.event.player.PlayerPickupItemEvent;
 
 import uk.codingbadgers.bFundamentals.bFundamentals;
+import uk.codingbadgers.bFundamentals.backup.BackupCallback;
+import uk.codingbadgers.bFundamentals.backup.PlayerBackup;
 import uk.codingbadgers.bFundamentals.module.Module;
 import uk.codingbadgers.bFundamentals.player.FundamentalPlayer;
 
@@ -64,6 +66,12 @@ public class bCreative extends Module implements Listener {
 	 * A list of all players whom are currently processing gamemode events
 	 */
 	private List<String> playerProcessingGameModeEvent = null;
+	
+	/**
+	 * A list of all players who are being put back into their old gamemode
+	 * because their inventory could not be saved
+	 */
+	private List<String> playerRevertingGameMode = null;
 
 	/**
 	 * The folder that player backups will be saved in
@@ -124,6 +132,7 @@ public class bCreative extends Module implements Listener {
 		
 		playersLastPickupItem = new HashMap<Player, Location>();
 		playerProcessingGameModeEvent = new ArrayList<String>();
+		playerRevertingGameMode = new ArrayList<String>();
 	}
 
 	/* 
@@ -135,6 +144,7 @@ public class bCreative extends Module implements Listener {
 		interactBlacklist.clear();
 		playersLastPickupItem.clear();
 		playerProcessingGameModeEvent.clear();
+		playerRevertingGameMode.clear();
 	}
 	
 	/* 
@@ -268,6 +278,7 @@ public class bCreative extends Module implements Listener {
 		
 		playerProcessingGameModeEvent.add(player.getName());
 		
+		final boolean reverting = playerRevertingGameMode.remove(player.getName());
 		final String oldGameMode = player.getGameMode().name();
 		final String newGameMode = event.getNewGameMode().name();
 		
@@ -275,7 +286,30 @@ public class bCreative extends Module implements Listener {
 		final File restoreFolder = new File(this.backupFolder + File.separator + newGameMode);
 		
 		final FundamentalPlayer fundamentalPlayer = bFundamentals.Players.getPlayer(player);
-		fundamentalPlayer.backupInventory(backupFolder, true);
+		fundamentalPlayer.backupInventory(backupFolder, true, new BackupCallback() {
+			@Override
+			public void onComplete(PlayerBackup backup) {
+			}
+
+			@Override
+			public void onError(PlayerBackup backup, Throwable cause) {
+				if (!isEnabled() || !player.isOnline() || !player.getGameMode().name().equals(newGameMode)) {
+					return;
+				}
+				
+				// don't switch back and forth if the inventory we came back with can't be saved either
+				if (reverting) {
+					sendMessage(getName(), player, "Your " + oldGameMode.toLowerCase() + " inventory could not be saved, it will be lost if the server restarts.");
+					return;
+				}
+				
+				// switching back restores the old inventory from the backup held in memory
+				sendMessage(getName(), player, "Your " + oldGameMode.toLowerCase() + " inventory could not be saved, your gamemode has been changed back.");
+				playerRevertingGameMode.add(player.getName());
+				player.setGameMode(GameMode.valueOf(oldGameMode));
+				playerRevertingGameMode.remove(player.getName());
+			}
+		});
 		
 		try {
 			fundamentalPlayer.restoreInventory(restoreFolder);
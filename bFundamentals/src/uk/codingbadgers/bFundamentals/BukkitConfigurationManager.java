@@ -37,6 +37,9 @@ public class BukkitConfigurationManager implements ConfigManager {
 	protected boolean m_autoDownload = false;
 	protected boolean m_autoApply = false;
 	protected boolean m_debug = false;
+	protected boolean m_timings = false;
+	protected boolean m_metricsJmx = true;
+	protected int m_metricsInterval = 60;
 	protected String m_logPrefix = null;
 	protected DatabaseSettings m_databaseSettings = null;
 	protected String m_crashPass;
@@ -50,6 +53,9 @@ public class BukkitConfigurationManager implements ConfigManager {
 		
 		config.addDefault("general.language", "UK");
 		config.addDefault("general.debug", false);
+		config.addDefault("general.timings", false);
+		config.addDefault("general.metrics.jmx", true);
+		config.addDefault("general.metrics.snapshotInterval", 60);
         config.addDefault("general.crash.password", "Password");
 		
 		config.addDefault("module.update.enabled", false);
@@ -66,12 +72,16 @@ public class BukkitConfigurationManager implements ConfigManager {
         config.addDefault("database.password", "");
         config.addDefault("database.port", 3306);
         config.addDefault("database.updateRate", 5);
+        config.addDefault("database.poolSize", 4);
 		
 		config.options().copyDefaults(true);
 		config.save(configFile);
 		
 		m_language = config.getString("general.language");
 		m_debug = config.getBoolean("general.debug");
+		m_timings = config.getBoolean("general.timings");
+		m_metricsJmx = config.getBoolean("general.metrics.jmx");
+		m_metricsInterval = Math.max(0, config.getInt("general.metrics.snapshotInterval"));
 		m_crashPass = config.getString("general.crash.password", "Password");
 		
 		m_autoUpdate = config.getBoolean("module.update.enabled");
@@ -89,6 +99,7 @@ public class BukkitConfigurationManager implements ConfigManager {
 		m_databaseSettings.password = config.getString("database.password", "");
 		m_databaseSettings.port = config.getInt("database.port", 3306);
 		m_databaseSettings.updaterate =  config.getInt("database.updateRate", 5);
+		m_databaseSettings.poolSize = config.getInt("database.poolSize", 4);
 		
 	}
 	
@@ -116,6 +127,14 @@ public class BukkitConfigurationManager implements ConfigManager {
 		return m_debug;
 	}
 	
+	/* (non-Javadoc)
+	 * @see uk.codingbadgers.bFundamentals.ConfigManager#isTimingsEnabled()
+	 */
+	@Override
+	public boolean isTimingsEnabled() {
+		return m_timings;
+	}
+	
 	/* (non-Javadoc)
 	 * @see uk.codingbadgers.bFundamentals.ConfigManager#isAutoUpdateEnabled()
 	 */
@@ -156,4 +175,20 @@ public class BukkitConfigurationManager implements ConfigManager {
 		return m_crashPass;
 	}
 
+	/* (non-Javadoc)
+	 * @see uk.codingbadgers.bFundamentals.ConfigManager#isMetricsJmxEnabled()
+	 */
+	@Override
+	public boolean isMetricsJmxEnabled() {
+		return m_metricsJmx;
+	}
+
+	/* (non-Javadoc)
+	 * @see uk.codingbadgers.bFundamentals.ConfigManager#getMetricsSnapshotInterval()
+	 */
+	@Override
+	public int getMetricsSnapshotInterval() {
+		return m_metricsInterval;
+	}
+
 }
@@ -17,8 +17,13 @@
  */
 package uk.codingbadgers.bFundamentals;
 
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
+import java.util.logging.Level;
 
 import org.bukkit.ChatColor;
 import org.bukkit.command.Command;
@@ -26,6 +31,7 @@ import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabExecutor;
 
 import uk.codingbadgers.bFundamentals.module.Module;
+import uk.codingbadgers.bFundamentals.timings.Timings;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableList.Builder;
@@ -40,6 +46,7 @@ public class CommandHandler implements TabExecutor {
 			sender.sendMessage(ChatColor.DARK_AQUA + "module " + ChatColor.WHITE + "- access module load/unload/reload commands");
 			sender.sendMessage(ChatColor.DARK_AQUA + "debug " + ChatColor.WHITE + "- debug a given module");
 			sender.sendMessage(ChatColor.DARK_AQUA + "reload " + ChatColor.WHITE + "- reload the plugin");
+			sender.sendMessage(ChatColor.DARK_AQUA + "timings " + ChatColor.WHITE + "- report module listener, command and task timings");
 			return true;	
 		}
 		
@@ -155,22 +162,67 @@ public class CommandHandler implements TabExecutor {
 			return true;
 		}
 
+		if (args[0].equalsIgnoreCase("timings")) {
+			handleTimingsCommand(sender, args);
+			return true;
+		}
+
 		sender.sendMessage(ChatColor.DARK_AQUA + "[bFundamentals] " + ChatColor.WHITE + "bFundamentals commands");
 		sender.sendMessage(ChatColor.DARK_AQUA + "module " + ChatColor.WHITE + "- access module load/unload/reload commands");
 		sender.sendMessage(ChatColor.DARK_AQUA + "debug " + ChatColor.WHITE + "- debug a given module");
 		sender.sendMessage(ChatColor.DARK_AQUA + "reload " + ChatColor.WHITE + "- reload the plugin");
+		sender.sendMessage(ChatColor.DARK_AQUA + "timings " + ChatColor.WHITE + "- report module listener, command and task timings");
 		return true;
 	}
+	
+	private void handleTimingsCommand(CommandSender sender, String[] args) {
+		String action = args.length < 2 ? "report" : args[1];
+		
+		if (action.equalsIgnoreCase("on") || action.equalsIgnoreCase("off")) {
+			Timings.setEnabled(action.equalsIgnoreCase("on"));
+			sender.sendMessage(ChatColor.DARK_AQUA + "[bFundamentals] " + ChatColor.WHITE + "Timings " + (Timings.isEnabled() ? "enabled" : "disabled"));
+			return;
+		}
+		
+		if (action.equalsIgnoreCase("reset")) {
+			Timings.reset();
+			sender.sendMessage(ChatColor.DARK_AQUA + "[bFundamentals] " + ChatColor.WHITE + "Timings reset");
+			return;
+		}
+		
+		if (action.equalsIgnoreCase("report")) {
+			for (String line : Timings.report()) {
+				sender.sendMessage(line);
+			}
+			return;
+		}
+		
+		if (action.equalsIgnoreCase("export")) {
+			String name = "timings-" + new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(new Date()) + ".txt";
+			File file = new File(new File(bFundamentals.getInstance().getDataFolder(), "timings"), name);
+			
+			try {
+				Timings.export(file);
+				sender.sendMessage(ChatColor.DARK_AQUA + "[bFundamentals] " + ChatColor.WHITE + "Timings written to " + file.getPath());
+			} catch (IOException e) {
+				bFundamentals.log(Level.WARNING, "Could not export timings", e);
+				sender.sendMessage(ChatColor.DARK_AQUA + "[bFundamentals] " + ChatColor.WHITE + "Could not write timings, check the console for details");
+			}
+			return;
+		}
+		
+		sender.sendMessage(ChatColor.DARK_AQUA + "[bFundamentals] " + ChatColor.WHITE + "/bfundamentals timings <on|off|reset|report|export>");
+	}
 
 	@Override
 	public List<String> onTabComplete(CommandSender sebder, Command command, String label, String[] args) {
 		if (args.length == 0) {
-			return ImmutableList.of("module", "debug", "reload");
+			return ImmutableList.of("module", "debug", "reload", "timings");
 		}
 		
 		if (args.length == 1) {
 			Builder<String> list = ImmutableList.builder();
-			for (String string : Arrays.asList("module", "debug", "reload")) {
+			for (String string : Arrays.asList("module", "debug", "reload", "timings")) {
 				if (string.startsWith(args[0])) {
 					list.add(string);
 				}
@@ -51,6 +51,13 @@ public interface ConfigManager {
 	 */
 	public abstract boolean isDebugEnabled();
 
+	/**
+	 * Gets whether listener, command and task timings should be recorded.
+	 *
+	 * @return true if timings are enabled, false if not
+	 */
+	public abstract boolean isTimingsEnabled();
+
 	/**
 	 * Gets whether auto update is enabled.
 	 *
@@ -86,4 +93,18 @@ public interface ConfigManager {
 	 */
 	public abstract String getCrashPassword();
 
+	/**
+	 * Gets whether metrics should be exported over JMX.
+	 *
+	 * @return true if metrics are exported, false if not
+	 */
+	public abstract boolean isMetricsJmxEnabled();
+
+	/**
+	 * Gets how often a metrics snapshot is written to disk.
+	 *
+	 * @return the period in seconds, or 0 to not write snapshots
+	 */
+	public abstract int getMetricsSnapshotInterval();
+
 }
\ No newline at end of file
@@ -29,5 +29,6 @@ public class DatabaseSettings {
 	public String password;
 	public int port;
 	public int updaterate;
+	public int poolSize = 4;
 	
 }
@@ -52,23 +52,39 @@ import ru.tehkode.permissions.PermissionManager;
 import ru.tehkode.permissions.PermissionUser;
 import ru.tehkode.permissions.bukkit.PermissionsEx;
 
+import uk.codingbadgers.bFundamentals.backup.BackupFactory;
 import uk.codingbadgers.bFundamentals.bungee.BungeeMessenger;
 import uk.codingbadgers.bFundamentals.bungee.SimpleBungeeMessenger;
+import uk.codingbadgers.bFundamentals.database.DatabaseService;
+import uk.codingbadgers.bFundamentals.error.ExceptionHandler;
+import uk.codingbadgers.bFundamentals.gui.GuiListener;
 import uk.codingbadgers.bFundamentals.message.ClickEventType;
 import uk.codingbadgers.bFundamentals.message.HoverEventType;
 import uk.codingbadgers.bFundamentals.message.Message;
+import uk.codingbadgers.bFundamentals.metrics.Gauge;
+import uk.codingbadgers.bFundamentals.metrics.Histogram;
+import uk.codingbadgers.bFundamentals.metrics.MetricGroup;
+import uk.codingbadgers.bFundamentals.metrics.Metrics;
 import uk.codingbadgers.bFundamentals.module.Module;
 import uk.codingbadgers.bFundamentals.module.ModuleLoader;
 import uk.codingbadgers.bFundamentals.player.FundamentalPlayer;
 import uk.codingbadgers.bFundamentals.player.FundamentalPlayerArray;
+import uk.codingbadgers.bFundamentals.player.PlayerNameIndex;
 import uk.codingbadgers.bFundamentals.serialization.AchievementSerializer;
 import uk.codingbadgers.bFundamentals.serialization.ItemStackSerializer;
+import uk.codingbadgers.bFundamentals.timings.Timings;
+import uk.codingbadgers.bFundamentals.update.UpdateQueue;
 import uk.thecodingbadgers.bDatabaseManager.bDatabaseManager;
 import uk.thecodingbadgers.bDatabaseManager.bDatabaseManager.DatabaseType;
 import uk.thecodingbadgers.bDatabaseManager.Database.BukkitDatabase;
 
 public class bFundamentals extends JavaPlugin implements Listener {
 	
+	/** The maximum time to wait for queued database work on disable. */
+	private static final long DATABASE_SHUTDOWN_TIMEOUT = 10000L;
+	private static final long CRASH_REPORTER_SHUTDOWN_TIMEOUT = 5000L;
+	private static final long UPDATE_SHUTDOWN_TIMEOUT = 5000L;
+	
 	protected static Gson m_gson = null;
 	protected static Logger m_log = null;
 	protected static bFundamentals m_instance = null;
@@ -78,12 +94,17 @@ public class bFundamentals extends JavaPlugin implements Listener {
 	protected static Economy m_economy = null;
 
 	protected static BukkitDatabase m_database = null;
+	protected static DatabaseService m_databaseService = null;
 	protected static ModuleLoader m_moduleLoader = null;
 	protected static ConfigManager m_configuration = null;
 	protected static BungeeMessenger m_messenger = null;
 	
 	public static FundamentalPlayerArray Players = new FundamentalPlayerArray(); 
 	
+	protected static PlayerNameIndex m_playerNames = new PlayerNameIndex();
+	private final Histogram m_joinTime = Metrics.histogram("bFundamentals", "player.join");
+	private final Histogram m_quitTime = Metrics.histogram("bFundamentals", "player.quit");
+	
 	/**
 	 * Called on loading. This is called before onEnable.
 	 * Store the instance here, to do it as early as possible.
@@ -111,9 +132,20 @@ public class bFundamentals extends JavaPlugin implements Listener {
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
+		
+		Timings.setEnabled(m_configuration.isTimingsEnabled());
+		Metrics.setJmxEnabled(m_configuration.isMetricsJmxEnabled());
+		if (m_configuration.getMetricsSnapshotInterval() > 0) {
+			Metrics.startSnapshots(new File(getDataFolder(), "metrics.txt"), m_configuration.getMetricsSnapshotInterval());
+		}
 
         Bukkit.getMessenger().registerOutgoingPluginChannel(bFundamentals.getInstance(), "BungeeCord");
-		setBungeeMessenger(new SimpleBungeeMessenger());
+		SimpleBungeeMessenger messenger = new SimpleBungeeMessenger();
+		setBungeeMessenger(messenger);
+		registerBungeeMetrics(messenger);
+		
+		// index every known player name once, it's kept up to date on join
+		m_playerNames.rebuild(getServer().getOfflinePlayers());
 		
 		// load the modules in
 		m_moduleLoader = new ModuleLoader();
@@ -127,6 +159,7 @@ public class bFundamentals extends JavaPlugin implements Listener {
 		
 		// Register this as a listener
 		this.getServer().getPluginManager().registerEvents(this, this);
+		this.getServer().getPluginManager().registerEvents(new GuiListener(), this);
 		
 		getCommand("bFundamentals").setExecutor(new CommandHandler());
 		
@@ -141,7 +174,20 @@ public class bFundamentals extends JavaPlugin implements Listener {
 	public void onDisable() {
 		bFundamentals.log(Level.INFO, "bFundamentals Disabled.");
 		m_moduleLoader.disable();
-		m_database.freeDatabase();
+		UpdateQueue.shutdown(UPDATE_SHUTDOWN_TIMEOUT);
+		BackupFactory.shutdown();
+		ExceptionHandler.shutdown(CRASH_REPORTER_SHUTDOWN_TIMEOUT);
+		Metrics.stopSnapshots();
+		Metrics.setJmxEnabled(false);
+		synchronized (bFundamentals.class) {
+			if (m_databaseService != null) {
+				m_databaseService.shutdown(DATABASE_SHUTDOWN_TIMEOUT);
+				m_databaseService = null;
+			}
+			if (m_database != null) {
+				m_database.freeDatabase();
+			}
+		}
 
 		// Clear instances
 		m_instance = null;
@@ -222,12 +268,22 @@ public class bFundamentals extends JavaPlugin implements Listener {
     	return m_gson;
     }
 
+	/**
+	 * Get the index of every player name the server has seen, for looking up
+	 * offline players by name without scanning the player files.
+	 * 
+	 * @return the player name index
+	 */
+	public static PlayerNameIndex getPlayerNameIndex() {
+		return m_playerNames;
+	}
+
 	/**
 	 * Access to the bukkit database
 	 * 
 	 * @return the bukkit database for bFundamentals
 	 */
-	public static BukkitDatabase getBukkitDatabase() {
+	public static synchronized BukkitDatabase getBukkitDatabase() {
 		if (m_database == null) {
 			DatabaseSettings settings = m_configuration.getDatabaseSettings();
 			m_database = bDatabaseManager.createDatabase(settings.name, m_instance, settings.type);
@@ -238,6 +294,23 @@ public class bFundamentals extends JavaPlugin implements Listener {
 		return m_database;
 	}
 	
+	/**
+	 * Access to the shared database service, queries are run on a pooled
+	 * connection and can be run asynchronously with their results delivered
+	 * back on the main thread.
+	 * <p>
+	 * Modules prepare in parallel, so the service is created under the class
+	 * lock to make sure only one connection pool is ever opened.
+	 * 
+	 * @return the database service for bFundamentals
+	 */
+	public static synchronized DatabaseService getDatabaseService() {
+		if (m_databaseService == null) {
+			m_databaseService = DatabaseService.create(m_configuration.getDatabaseSettings(), m_instance);
+		}
+		return m_databaseService;
+	}
+	
 	/**
 	 * Static access to vaults permission manager
 	 * 
@@ -330,7 +403,7 @@ public class bFundamentals extends JavaPlugin implements Listener {
 		
 		m_moduleLoader.unload(module);
 		m_moduleLoader.load(module.getFile());
-		m_moduleLoader.getModule(module.getName()).onEnable();
+		m_moduleLoader.getModule(module.getName()).setEnabled(true);
 	}
 
 	/**
@@ -381,8 +454,11 @@ public class bFundamentals extends JavaPlugin implements Listener {
 	 */
 	@EventHandler(priority = EventPriority.NORMAL)
 	public void onPlayerJoin(PlayerJoinEvent event) {
+		long start = System.nanoTime();
 		FundamentalPlayer newPlayer = new FundamentalPlayer(event.getPlayer());
 		bFundamentals.Players.add(newPlayer);
+		m_playerNames.add(event.getPlayer().getName());
+		m_joinTime.update(System.nanoTime() - start);
 	}
 	
 	/**
@@ -392,7 +468,33 @@ public class bFundamentals extends JavaPlugin implements Listener {
 	 */
 	@EventHandler(priority = EventPriority.NORMAL)
 	public void onPlayerQuit(PlayerQuitEvent event) {
+		long start = System.nanoTime();
 		bFundamentals.Players.removePlayer(event.getPlayer());
+		m_quitTime.update(System.nanoTime() - start);
+	}
+
+	private static void registerBungeeMetrics(final SimpleBungeeMessenger messenger) {
+		MetricGroup metrics = Metrics.getGroup("bFundamentals");
+		metrics.gauge("bungee.queue", new Gauge() {
+			public long getValue() {
+				return messenger.getQueueSize();
+			}
+		});
+		metrics.gauge("bungee.sent", new Gauge() {
+			public long getValue() {
+				return messenger.getSentCount();
+			}
+		});
+		metrics.gauge("bungee.dropped", new Gauge() {
+			public long getValue() {
+				return messenger.getDroppedCount();
+			}
+		});
+		metrics.gauge("bungee.coalesced", new Gauge() {
+			public long getValue() {
+				return messenger.getCoalescedCount();
+			}
+		});
 	}
 		
 	/**
@@ -0,0 +1,42 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bFundamentals.backup;
+
+/**
+ * Receives the result of writing a player backup to disk, both methods are
+ * called on the main server thread.
+ */
+public interface BackupCallback {
+
+	/**
+	 * Called once the backup has been written to disk.
+	 * 
+	 * @param backup the backup
+	 */
+	public void onComplete(PlayerBackup backup);
+	
+	/**
+	 * Called when the backup could not be written. The backup is still held
+	 * in memory until the server stops, so it can be restored from.
+	 * 
+	 * @param backup the backup
+	 * @param cause the cause of the failure
+	 */
+	public void onError(PlayerBackup backup, Throwable cause);
+	
+}
@@ -25,37 +25,66 @@ import org.bukkit.entity.Player;
 
 /**
  * A factory for creating Player Backup objects.
+ * <p>
+ * Backups are written asynchronously, a backup that was written recently or
+ * is still waiting to be written is read back from memory.
  * 
  * @see PlayerBackup
  */
 public class BackupFactory {
+	
+	/** The file extension for binary backups. */
+	public static final String EXTENSION = ".backup";
+	
+	/** The file extension for legacy json backups. */
+	public static final String LEGACY_EXTENSION = ".json";
+	
+	private static volatile boolean compression = true;
 		
 	/**
-	 * Creates a new Player backup.
+	 * Creates a new Player backup and queues it to be written to disk.
 	 *
+	 * @param backupFile the file to write the backup to
 	 * @param player the player to backup
 	 * @return the player backup
 	 */
 	public static PlayerBackup createBackup(File backupFile, Player player) {
+		return createBackup(backupFile, player, null);
+	}
+	
+	/**
+	 * Creates a new Player backup and queues it to be written to disk. The
+	 * backup is a snapshot of the player, so the player's inventory can be
+	 * cleared straight away.
+	 *
+	 * @param backupFile the file to write the backup to
+	 * @param player the player to backup
+	 * @param callback told on the main thread whether the backup was
+	 *        written, or null
+	 * @return the player backup
+	 */
+	public static PlayerBackup createBackup(File backupFile, Player player, BackupCallback callback) {
 		Validate.notNull(player, "player cannot be null");
 		Validate.notNull(backupFile, "backupFile cannot be null");
 		
-		try {
-			return new PlayerBackup(backupFile, player);
-		} catch (IOException ex) {
-			ex.printStackTrace();
-			return null;
-		}
+		PlayerBackup backup = new PlayerBackup(backupFile, player);
+		BackupWriter.write(backup, callback);
+		return backup;
 	}
 	
 	/**
 	 * Read backup from file.
 	 *
-	 * @param playerName the player name to retrieve the backup for
-	 * @return the player backup or null if there is no backup on disk
+	 * @param backupFile the file to read the backup from
+	 * @return the player backup or null if the backup could not be read
 	 */
 	public static PlayerBackup readBackup(File backupFile) {
-		Validate.isTrue(backupFile.exists(), "The given backup file does not exist");
+		PlayerBackup cached = BackupWriter.getCached(backupFile);
+		if (cached != null) {
+			return cached;
+		}
+		
+		Validate.isTrue(backupFile.exists() && !BackupWriter.isDeleting(backupFile), "The given backup file does not exist");
 		
 		try {
 			return new PlayerBackup(backupFile);
@@ -64,4 +93,106 @@ public class BackupFactory {
 			return null;
 		}
 	}
+	
+	/**
+	 * Read the backup for a player from a folder, legacy json backups are
+	 * migrated to the binary format the first time they are read.
+	 *
+	 * @param backupFolder the folder the backup is in
+	 * @param name the name of the player
+	 * @return the player backup or null if there is no backup or it could not be read
+	 */
+	public static PlayerBackup readBackup(File backupFolder, String name) {
+		File backupFile = getBackupFile(backupFolder, name);
+		
+		if (!hasBackup(backupFile)) {
+			File legacyFile = getLegacyFile(backupFile);
+			
+			if (!hasBackup(legacyFile)) {
+				return null;
+			}
+			
+			PlayerBackup backup = readBackup(legacyFile);
+			if (backup != null) {
+				backup.setFile(backupFile);
+				BackupWriter.write(backup, null);
+			}
+			return backup;
+		}
+		
+		return readBackup(backupFile);
+	}
+	
+	/**
+	 * Check if a player has a backup in a folder, either binary or legacy.
+	 *
+	 * @param backupFolder the folder the backup is in
+	 * @param name the name of the player
+	 * @return true if there is a backup
+	 */
+	public static boolean hasBackup(File backupFolder, String name) {
+		File backupFile = getBackupFile(backupFolder, name);
+		return hasBackup(backupFile) || hasBackup(getLegacyFile(backupFile));
+	}
+	
+	private static boolean hasBackup(File backupFile) {
+		if (BackupWriter.getCached(backupFile) != null) {
+			return true;
+		}
+		
+		return backupFile.exists() && !BackupWriter.isDeleting(backupFile);
+	}
+	
+	/**
+	 * Get the binary backup file for a player.
+	 *
+	 * @param backupFolder the folder the backup is in
+	 * @param name the name of the player
+	 * @return the backup file
+	 */
+	public static File getBackupFile(File backupFolder, String name) {
+		return new File(backupFolder, name + EXTENSION);
+	}
+	
+	/**
+	 * Get the legacy json backup file that sits next to a binary backup.
+	 *
+	 * @param backupFile the binary backup file
+	 * @return the legacy backup file
+	 */
+	public static File getLegacyFile(File backupFile) {
+		String fileName = backupFile.getName();
+		
+		if (fileName.endsWith(EXTENSION)) {
+			fileName = fileName.substring(0, fileName.length() - EXTENSION.length()) + LEGACY_EXTENSION;
+		}
+		
+		return new File(backupFile.getParentFile(), fileName);
+	}
+	
+	/**
+	 * Set whether new backups should be gzip compressed, compressed and
+	 * uncompressed backups can always be read.
+	 *
+	 * @param enabled true to compress new backups
+	 */
+	public static void setCompressionEnabled(boolean enabled) {
+		compression = enabled;
+	}
+	
+	/**
+	 * Gets whether new backups are gzip compressed.
+	 *
+	 * @return true if new backups are compressed
+	 */
+	public static boolean isCompressionEnabled() {
+		return compression;
+	}
+	
+	/**
+	 * Wait for all queued backups to be written, called on disable.
+	 */
+	public static void shutdown() {
+		BackupWriter.shutdown();
+	}
 }
@@ -0,0 +1,222 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bFundamentals.backup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.IllegalPluginAccessException;
+
+import uk.codingbadgers.bFundamentals.bFundamentals;
+
+/**
+ * Writes player backups to disk on a single background thread and keeps
+ * recently written backups in memory so a restore shortly after a backup
+ * never has to touch the disk.
+ * <p>
+ * Writes and deletes for every file are run in submission order on the same
+ * thread, so a delete queued after a write always wins and vice versa.
+ */
+final class BackupWriter {
+
+	/** How long a written backup is kept in memory, in milliseconds. */
+	private static final long RECENT_TIME = 5 * 60 * 1000L;
+
+	/** How long to wait for queued writes on shutdown, in seconds. */
+	private static final long SHUTDOWN_TIMEOUT = 30;
+
+	private static final ConcurrentMap<File, CachedBackup> cache = new ConcurrentHashMap<File, CachedBackup>();
+	private static final Set<File> deleting = Collections.newSetFromMap(new ConcurrentHashMap<File, Boolean>());
+	private static ExecutorService executor = null;
+
+	private BackupWriter() {
+	}
+
+	/**
+	 * Queue a backup to be written to its file.
+	 *
+	 * @param backup the backup
+	 * @param callback told on the main thread whether the backup was
+	 *        written, or null
+	 */
+	static void write(final PlayerBackup backup, final BackupCallback callback) {
+		final File file = key(backup.getFile());
+		final CachedBackup cached = new CachedBackup(backup);
+		cache.put(file, cached);
+
+		submit(new Runnable() {
+			public void run() {
+				try {
+					backup.writeToFile();
+				} catch (IOException ex) {
+					bFundamentals.log(Level.SEVERE, "Could not write backup " + file.getAbsolutePath() + ", it is only held in memory", ex);
+					dispatch(callback, backup, ex);
+					return;
+				}
+
+				cached.written = System.currentTimeMillis();
+				evictExpired(cached.written);
+				dispatch(callback, backup, null);
+			}
+		});
+	}
+
+	/**
+	 * Queue a backup file, and any legacy json backup next to it, to be deleted.
+	 *
+	 * @param backupFile the backup file
+	 */
+	static void delete(File backupFile) {
+		final File file = key(backupFile);
+		deleting.add(file);
+		cache.remove(file);
+
+		submit(new Runnable() {
+			public void run() {
+				file.delete();
+				BackupFactory.getLegacyFile(file).delete();
+				deleting.remove(file);
+			}
+		});
+	}
+
+	/**
+	 * Get a backup from memory if it was written recently or has not been
+	 * written yet.
+	 *
+	 * @param backupFile the backup file
+	 * @return the backup, or null if it is not held in memory
+	 */
+	static PlayerBackup getCached(File backupFile) {
+		CachedBackup cached = cache.get(key(backupFile));
+		return cached == null ? null : cached.backup;
+	}
+
+	/**
+	 * Check whether a backup file has been queued for deletion, a file
+	 * waiting to be deleted should be treated as if it does not exist.
+	 *
+	 * @param backupFile the backup file
+	 * @return true if the file is waiting to be deleted
+	 */
+	static boolean isDeleting(File backupFile) {
+		return deleting.contains(key(backupFile));
+	}
+
+	/**
+	 * Wait for every queued write to finish and stop the writer thread.
+	 */
+	static synchronized void shutdown() {
+		if (executor == null) {
+			return;
+		}
+
+		executor.shutdown();
+
+		try {
+			if (!executor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+				bFundamentals.log(Level.SEVERE, "Timed out waiting for player backups to be written");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		executor = null;
+		cache.clear();
+	}
+
+	private static synchronized void submit(Runnable task) {
+		if (executor == null) {
+			executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "bFundamentals backup writer");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+
+		try {
+			executor.execute(task);
+		} catch (RejectedExecutionException ex) {
+			// writer is shutting down, don't lose the backup
+			task.run();
+		}
+	}
+
+	private static void dispatch(final BackupCallback callback, final PlayerBackup backup, final Throwable cause) {
+		if (callback == null) {
+			return;
+		}
+
+		try {
+			Bukkit.getScheduler().runTask(bFundamentals.getInstance(), new Runnable() {
+				public void run() {
+					if (cause == null) {
+						callback.onComplete(backup);
+					} else {
+						callback.onError(backup, cause);
+					}
+				}
+			});
+		} catch (IllegalPluginAccessException ex) {
+			// the server is stopping, there is no main thread left to tell
+			bFundamentals.log(Level.WARNING, "Could not report the result of backup " + backup.getFile().getAbsolutePath());
+		}
+	}
+
+	private static void evictExpired(long now) {
+		Iterator<CachedBackup> itr = cache.values().iterator();
+
+		while (itr.hasNext()) {
+			CachedBackup cached = itr.next();
+
+			if (cached.written != 0 && now - cached.written > RECENT_TIME) {
+				itr.remove();
+			}
+		}
+	}
+
+	private static File key(File file) {
+		return file.getAbsoluteFile();
+	}
+
+	private static final class CachedBackup {
+
+		final PlayerBackup backup;
+		/** when the backup reached the disk, 0 while the write is pending */
+		volatile long written = 0;
+
+		CachedBackup(PlayerBackup backup) {
+			this.backup = backup;
+		}
+	}
+}
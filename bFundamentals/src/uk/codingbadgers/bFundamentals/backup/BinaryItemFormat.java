@@ -0,0 +1,221 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bFundamentals.backup;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import org.bukkit.configuration.serialization.ConfigurationSerialization;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Compact binary encoding for item stacks, each item is written as the tree
+ * produced by its {@link ConfigurationSerializable#serialize()} method so
+ * every piece of item meta bukkit knows about survives a round trip.
+ * Serializable values are tagged with their alias the same way bukkit's yaml
+ * configurations do, and rebuilt bottom up on read.
+ */
+final class BinaryItemFormat {
+
+	private static final int NULL = 0;
+	private static final int STRING = 1;
+	private static final int INT = 2;
+	private static final int LONG = 3;
+	private static final int DOUBLE = 4;
+	private static final int FLOAT = 5;
+	private static final int BOOLEAN = 6;
+	private static final int SHORT = 7;
+	private static final int BYTE = 8;
+	private static final int LIST = 9;
+	private static final int MAP = 10;
+	private static final int SERIALIZABLE = 11;
+
+	private BinaryItemFormat() {
+	}
+
+	/**
+	 * Write an array of item stacks, null slots are preserved.
+	 *
+	 * @param out the stream to write to
+	 * @param items the items
+	 * @throws IOException if the stream could not be written to
+	 */
+	static void writeItems(DataOutputStream out, ItemStack[] items) throws IOException {
+		out.writeShort(items.length);
+
+		for (ItemStack item : items) {
+			writeValue(out, item);
+		}
+	}
+
+	/**
+	 * Read an array of item stacks written by {@link #writeItems(DataOutputStream, ItemStack[])}.
+	 *
+	 * @param in the stream to read from
+	 * @return the items
+	 * @throws IOException if the stream could not be read or is corrupt
+	 */
+	static ItemStack[] readItems(DataInputStream in) throws IOException {
+		ItemStack[] items = new ItemStack[in.readUnsignedShort()];
+
+		for (int i = 0; i < items.length; i++) {
+			Object value = readValue(in);
+
+			if (value != null && !(value instanceof ItemStack)) {
+				throw new IOException("Expected an item stack in slot " + i + " but found " + value.getClass().getName());
+			}
+
+			items[i] = (ItemStack) value;
+		}
+
+		return items;
+	}
+
+	private static void writeValue(DataOutputStream out, Object value) throws IOException {
+		if (value == null) {
+			out.writeByte(NULL);
+		} else if (value instanceof String) {
+			out.writeByte(STRING);
+			writeString(out, (String) value);
+		} else if (value instanceof Integer) {
+			out.writeByte(INT);
+			out.writeInt((Integer) value);
+		} else if (value instanceof Long) {
+			out.writeByte(LONG);
+			out.writeLong((Long) value);
+		} else if (value instanceof Double) {
+			out.writeByte(DOUBLE);
+			out.writeDouble((Double) value);
+		} else if (value instanceof Float) {
+			out.writeByte(FLOAT);
+			out.writeFloat((Float) value);
+		} else if (value instanceof Boolean) {
+			out.writeByte(BOOLEAN);
+			out.writeBoolean((Boolean) value);
+		} else if (value instanceof Short) {
+			out.writeByte(SHORT);
+			out.writeShort((Short) value);
+		} else if (value instanceof Byte) {
+			out.writeByte(BYTE);
+			out.writeByte((Byte) value);
+		} else if (value instanceof List) {
+			List<?> list = (List<?>) value;
+			out.writeByte(LIST);
+			out.writeInt(list.size());
+			for (Object element : list) {
+				writeValue(out, element);
+			}
+		} else if (value instanceof Map) {
+			out.writeByte(MAP);
+			writeMap(out, (Map<?, ?>) value);
+		} else if (value instanceof ConfigurationSerializable) {
+			ConfigurationSerializable serializable = (ConfigurationSerializable) value;
+			out.writeByte(SERIALIZABLE);
+			writeString(out, ConfigurationSerialization.getAlias(serializable.getClass()));
+			writeMap(out, serializable.serialize());
+		} else {
+			throw new IOException("Cannot write values of type " + value.getClass().getName());
+		}
+	}
+
+	private static void writeMap(DataOutputStream out, Map<?, ?> map) throws IOException {
+		out.writeInt(map.size());
+
+		for (Map.Entry<?, ?> entry : map.entrySet()) {
+			writeString(out, String.valueOf(entry.getKey()));
+			writeValue(out, entry.getValue());
+		}
+	}
+
+	private static Object readValue(DataInputStream in) throws IOException {
+		int type = in.readUnsignedByte();
+
+		switch (type) {
+			case NULL:
+				return null;
+			case STRING:
+				return readString(in);
+			case INT:
+				return in.readInt();
+			case LONG:
+				return in.readLong();
+			case DOUBLE:
+				return in.readDouble();
+			case FLOAT:
+				return in.readFloat();
+			case BOOLEAN:
+				return in.readBoolean();
+			case SHORT:
+				return in.readShort();
+			case BYTE:
+				return in.readByte();
+			case LIST:
+				int size = in.readInt();
+				List<Object> list = new ArrayList<Object>(size);
+				for (int i = 0; i < size; i++) {
+					list.add(readValue(in));
+				}
+				return list;
+			case MAP:
+				return readMap(in);
+			case SERIALIZABLE:
+				String alias = readString(in);
+				Map<String, Object> args = readMap(in);
+				args.put(ConfigurationSerialization.SERIALIZED_TYPE_KEY, alias);
+				ConfigurationSerializable object = ConfigurationSerialization.deserializeObject(args);
+
+				if (object == null) {
+					throw new IOException("Could not deserialize a value of type " + alias);
+				}
+
+				return object;
+			default:
+				throw new IOException("Unknown value type " + type);
+		}
+	}
+
+	private static Map<String, Object> readMap(DataInputStream in) throws IOException {
+		int size = in.readInt();
+		Map<String, Object> map = new LinkedHashMap<String, Object>(size * 2);
+
+		for (int i = 0; i < size; i++) {
+			String key = readString(in);
+			map.put(key, readValue(in));
+		}
+
+		return map;
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		byte[] bytes = value.getBytes("UTF-8");
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, "UTF-8");
+	}
+}
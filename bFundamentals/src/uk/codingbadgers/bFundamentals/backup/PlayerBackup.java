@@ -17,15 +17,22 @@
  */
 package uk.codingbadgers.bFundamentals.backup;
 
-import java.io.BufferedWriter;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.logging.Level;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import org.apache.commons.lang.Validate;
 import org.bukkit.GameMode;
@@ -42,9 +49,22 @@ import org.json.simple.parser.ParseException;
 
 import uk.codingbadgers.bFundamentals.bFundamentals;
 
-@SuppressWarnings("unchecked")
+/**
+ * A snapshot of a players inventory, armour, experience and gamemode.
+ * <p>
+ * Backups are stored in a compact binary format, optionally gzip compressed,
+ * and written through a temporary file that is renamed over the old backup
+ * so a crash mid write never leaves a truncated backup behind. Backups in
+ * the old json format are still read and are rewritten in the binary format
+ * the first time they are loaded.
+ */
 public class PlayerBackup {
 
+	/** The magic number at the start of every binary backup, "BFPB". */
+	private static final int MAGIC = 0x42465042;
+	private static final int VERSION = 1;
+	private static final int FLAG_COMPRESSED = 0x1;
+
 	private String name = null;
 	private File backup = null;
 	
@@ -93,30 +113,27 @@ public class PlayerBackup {
 	}
 	
 	/**
-	 * Create a player backup from a given player and write it to a specified file
+	 * Create a player backup from a given player, the backup is a copy of the
+	 * players current state so the player can be modified straight away.
+	 * The backup is not written to disk, use {@link BackupFactory#createBackup(File, Player)}
+	 * to queue it to be written or {@link #writeToFile()} to write it synchronously.
 	 *
 	 * @param backupFile The file where the player backup should be written
 	 * @param player The player to backup
 	 */
-	public PlayerBackup(File backupFile, Player player) throws IOException {
+	public PlayerBackup(File backupFile, Player player) {
 				
 		this.name = player.getName();
-		this.invContents = player.getInventory().getContents();
-		this.armourContents = getPlayerArmour(player);
+		this.invContents = copy(player.getInventory().getContents());
+		this.armourContents = copy(getPlayerArmour(player));
 		this.xp = player.getTotalExperience();
 		this.gamemode = player.getGameMode().name();
 		this.backup = backupFile;
-		
-		File backupFolder = backupFile.getParentFile();
-		if (!backupFolder.exists()) {
-			backupFolder.mkdirs();
-		}
-		
-		writeToFile();
 	}
 	
 	/**
-	 * Parse a given file to create a player backup object
+	 * Parse a given file to create a player backup object, the file can
+	 * either be a binary backup or a legacy json backup.
 	 *
 	 * @param backupFile The file where the player backup should be read from
 	 */
@@ -138,6 +155,15 @@ public class PlayerBackup {
 		return name;
 	}
 	
+	/**
+	 * Get the file this backup is stored in
+	 *
+	 * @return the backup file
+	 */
+	public File getFile() {
+		return backup;
+	}
+	
 	/**
 	 * Restore a players backup
 	 *
@@ -148,42 +174,67 @@ public class PlayerBackup {
 			return;
 		}
 
-		player.getInventory().setContents(invContents);
-		setPlayerArmour(player, armourContents);
+		player.getInventory().setContents(copy(invContents));
+		setPlayerArmour(player, copy(armourContents));
 		player.setTotalExperience(xp);
 		player.setGameMode(GameMode.valueOf(gamemode));
 	}
 	
 	/**
-	 * Write a player backup to file
+	 * Write a player backup to file in the binary format, any legacy json
+	 * backup for the same player is removed once the write has succeeded.
 	 */
 	public void writeToFile() throws IOException {
 		
-		if (!backup.exists()) {
-			backup.createNewFile();
+		File folder = backup.getAbsoluteFile().getParentFile();
+		if (!folder.exists()) {
+			folder.mkdirs();
 		}
 		
-		JSONObject obj = new JSONObject();
-		
-		obj.put("name", name);
-		obj.put("level", String.valueOf(xp));
-		obj.put("inventory", ItemStackArrayToJSONArray(invContents));
-		obj.put("armour", ItemStackArrayToJSONArray(armourContents));
-		obj.put("gamemode", gamemode);
-
-		FileWriter stream = null;
-		BufferedWriter writer = null;
+		File temp = new File(folder, backup.getName() + ".tmp");
+		FileOutputStream stream = new FileOutputStream(temp);
 		
 		try {
-			stream = new FileWriter(backup);
-			writer = new BufferedWriter(stream);
-			writer.write(obj.toJSONString());
+			DataOutputStream header = new DataOutputStream(stream);
+			boolean compressed = BackupFactory.isCompressionEnabled();
+			header.writeInt(MAGIC);
+			header.writeByte(VERSION);
+			header.writeByte(compressed ? FLAG_COMPRESSED : 0);
+			
+			OutputStream body = compressed ? new GZIPOutputStream(stream) : stream;
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(body));
+			
+			out.writeUTF(name);
+			out.writeInt(xp);
+			out.writeUTF(gamemode);
+			BinaryItemFormat.writeItems(out, invContents);
+			BinaryItemFormat.writeItems(out, armourContents);
+			out.flush();
+			
+			if (body instanceof GZIPOutputStream) {
+				((GZIPOutputStream) body).finish();
+			}
+			
+			stream.getFD().sync();
 		} finally {
-			if (writer != null) {
-				writer.flush();
-				writer.close();
+			stream.close();
+		}
+		
+		// rename is atomic where the platform allows replacing the target,
+		// otherwise fall back to removing the old backup first
+		if (!temp.renameTo(backup)) {
+			backup.delete();
+			
+			if (!temp.renameTo(backup)) {
+				temp.delete();
+				throw new IOException("Could not move " + temp.getAbsolutePath() + " to " + backup.getAbsolutePath());
 			}
 		}
+		
+		File legacy = BackupFactory.getLegacyFile(backup);
+		if (!legacy.equals(backup)) {
+			legacy.delete();
+		}
 	}
 	
 	/**
@@ -195,6 +246,41 @@ public class PlayerBackup {
 			return;
 		}
 		
+		InputStream stream = new BufferedInputStream(new FileInputStream(backup));
+		
+		try {
+			DataInputStream header = new DataInputStream(stream);
+			
+			if (header.readInt() != MAGIC) {
+				stream.close();
+				readLegacyFile();
+				return;
+			}
+			
+			int version = header.readUnsignedByte();
+			if (version != VERSION) {
+				throw new IOException("Unsupported backup version " + version + " in " + backup.getAbsolutePath());
+			}
+			
+			int flags = header.readUnsignedByte();
+			InputStream body = (flags & FLAG_COMPRESSED) != 0 ? new GZIPInputStream(stream) : stream;
+			DataInputStream in = new DataInputStream(body);
+			
+			name = in.readUTF();
+			xp = in.readInt();
+			gamemode = in.readUTF();
+			invContents = BinaryItemFormat.readItems(in);
+			armourContents = BinaryItemFormat.readItems(in);
+		} finally {
+			stream.close();
+		}
+	}
+	
+	/**
+	 * Read a player backup from a legacy json file
+	 */
+	private void readLegacyFile() throws IOException {
+		
 		FileReader reader = null;
 		
 		try {
@@ -209,76 +295,33 @@ public class PlayerBackup {
 			gamemode = (String) object.get("gamemode");
 
 		} catch (ParseException e) {
-			e.printStackTrace();
+			throw new IOException("Could not parse legacy backup " + backup.getAbsolutePath() + ": " + e);
 		} finally {
 			if (reader != null) {
 				reader.close();
 			}
 		}
 	}
-
+	
 	/**
-	 * Convert an itemstack array into a json array
+	 * Move this backup to a new file, used when migrating legacy backups.
 	 *
-	 * @param items The itemstack array to convert
-	 * @return A Json array of the given itemstack array
+	 * @param file the new backup file
 	 */
-	@SuppressWarnings("deprecation")
-	private JSONArray ItemStackArrayToJSONArray(ItemStack[] items) {
-
-		JSONArray inv = new JSONArray();
-		
-		for (ItemStack stack : items) {
-			JSONObject item = new JSONObject();
-			
-			if (stack == null) {
-				stack = new ItemStack(Material.AIR, 1);
-			}
-			
-			item.put("type", stack.getType().name());
-			item.put("amount", String.valueOf(stack.getAmount()));
-			item.put("durability", String.valueOf(stack.getDurability()));
-			item.put("data", String.valueOf(stack.getData().getData()));
-			
-			JSONArray enchants = new JSONArray();
-			for (Map.Entry<Enchantment, Integer> entry : stack.getEnchantments().entrySet()) {
-				JSONObject enchantment = new JSONObject();
-				enchantment.put("id", entry.getKey().getName());
-				enchantment.put("level", String.valueOf(entry.getValue()));
-				enchants.add(enchantment);
-			}
-			item.put("enchantment", enchants);
-			
-			ItemMeta itemMeta = stack.getItemMeta();
-			if (itemMeta != null) {
-				
-				if (itemMeta.hasDisplayName() || itemMeta.getLore() != null) {
-					
-					JSONObject metadata = new JSONObject();
+	void setFile(File file) {
+		this.backup = file;
+	}
 	
-					if (itemMeta.hasDisplayName()) {
-						metadata.put("displayname", itemMeta.getDisplayName());
-					}
-					
-					List<String> lores = itemMeta.getLore();
-					if (lores != null) {
-						JSONArray itemLore = new JSONArray();
-						for (String loreString : lores) {
-							itemLore.add(loreString);
-						}
-						metadata.put("lores", itemLore);
-					}
-					
-					item.put("metadata", metadata);
-				}
-			}
-			
-			inv.add(item);
+	private static ItemStack[] copy(ItemStack[] items) {
+		ItemStack[] copy = new ItemStack[items.length];
+		
+		for (int i = 0; i < items.length; i++) {
+			copy[i] = items[i] == null ? null : items[i].clone();
 		}
 		
-		return inv;
+		return copy;
 	}
-	
+
 	/**
 	 * Convert a json array into an itemstack array
 	 *
@@ -356,11 +399,13 @@ public class PlayerBackup {
 	}
 	
 	/**
-	 * Delete the backup file
+	 * Delete the backup file, the delete is queued behind any pending write
+	 * of this backup.
 	 * 
-	 * @return True if the file was deleted, false otherwise
+	 * @return True, the delete is always queued
 	 */
 	public boolean deleteFile() {
-		return backup.delete();
+		BackupWriter.delete(backup);
+		return true;
 	}
 }
@@ -21,20 +21,64 @@ import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
 
 import uk.codingbadgers.bFundamentals.bFundamentals;
 
+/**
+ * The default {@link BungeeMessenger}, messages that aren't sent through a
+ * specific player are queued and sent together once a tick through the first
+ * online player.
+ * <p>
+ * The queue is bounded, if it is full new messages are dropped rather than
+ * letting them build up while nobody is online. Requests whose answer only
+ * depends on their arguments, such as PlayerCount or PlayerList, are only
+ * queued once until they are sent.
+ */
 public class SimpleBungeeMessenger implements BungeeMessenger {
 
-    private List<byte[]> queue = null;
+    /** The default maximum number of messages waiting to be sent. */
+    public static final int DEFAULT_CAPACITY = 1024;
+    
+    private static final String CHANNEL = "BungeeCord";
+    private static final Set<String> IDEMPOTENT_COMMANDS = new HashSet<String>(Arrays.asList("PlayerCount", "PlayerList", "GetServers", "GetServer"));
+    
+    private final Plugin plugin;
+    private final int capacity;
+    private final Encoder encoder = new Encoder();
+    
+    private final Object lock = new Object();
+    private List<byte[]> queue = new ArrayList<byte[]>();
+    /** the idempotent requests currently queued */
+    private final Set<String> pending = new HashSet<String>();
+    private boolean flushScheduled = false;
+    
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
     
     public SimpleBungeeMessenger() {
-        queue = new ArrayList<byte[]>();
-        Bukkit.getPluginManager().registerEvents(new BungeePlayerListener(this), bFundamentals.getInstance());
+        this(bFundamentals.getInstance(), DEFAULT_CAPACITY);
+        Bukkit.getPluginManager().registerEvents(new BungeePlayerListener(this), plugin);
+    }
+    
+    /**
+     * Instantiates a new messenger without registering any listeners.
+     *
+     * @param plugin the plugin to send messages as
+     * @param capacity the maximum number of messages waiting to be sent
+     */
+    protected SimpleBungeeMessenger(Plugin plugin, int capacity) {
+        this.plugin = plugin;
+        this.capacity = capacity;
     }
     
     @Override
@@ -44,101 +88,151 @@ public class SimpleBungeeMessenger implements BungeeMessenger {
 
     @Override
     public boolean sendRawMessage(byte[] message, boolean shouldQueue) {
-        if (Bukkit.getOnlinePlayers().length > 0) {
-            Player p = Bukkit.getOnlinePlayers()[0];
-            p.sendPluginMessage(bFundamentals.getInstance(), "BungeeCord", message);
-            return true;
-        } else if (shouldQueue){
-            queue.add(message);
+        if (shouldQueue) {
+            return enqueue(message, null) && getCarrier() != null;
         }
         
-        return false;
+        Player carrier = getCarrier();
+        if (carrier == null) {
+            return false;
+        }
+        
+        carrier.sendPluginMessage(plugin, CHANNEL, message);
+        sent.incrementAndGet();
+        return true;
     }
     
     @Override
     public void sendRawPlayerMessage(Player player, byte[] message) {
         if (player.isOnline()) {
-            player.sendPluginMessage(bFundamentals.getInstance(), "BungeeCord", message);
+            player.sendPluginMessage(plugin, CHANNEL, message);
         }
     }
 
     @Override
     public void sendPlayerCommand(String command, Player player, String... args) {
-        byte[] message = new byte[0];
+        byte[] message = encoder.encode(command, args);
         
-        try {
-            ByteArrayOutputStream b = new ByteArrayOutputStream();
-            DataOutputStream out = new DataOutputStream(b);
-            
-            out.writeUTF(command);
+        if (message != null) {
+            sendRawPlayerMessage(player, message);
+        }
+    }
+    
+    @Override
+    public void sendBungeeCommand(String command, String... args) {
+        String key = null;
+        
+        if (IDEMPOTENT_COMMANDS.contains(command)) {
+            StringBuilder builder = new StringBuilder(command);
             for (String arg : args) {
-                out.writeUTF(arg);
+                builder.append('\0').append(arg);
             }
+            key = builder.toString();
             
-            message = b.toByteArray();
-        } catch (IOException e) {
-            e.printStackTrace();
-            return;
+            synchronized (lock) {
+                if (pending.contains(key)) {
+                    coalesced.incrementAndGet();
+                    return;
+                }
+            }
         }
         
-        sendRawPlayerMessage(player, message);
+        byte[] message = encoder.encode(command, args);
+        
+        if (message != null) {
+            enqueue(message, key);
+        }
     }
     
-    @Override
-    public void sendBungeeCommand(String command, String... args) {
-        byte[] message = new byte[0];
+    private boolean enqueue(byte[] message, String key) {
+        boolean schedule;
         
-        try {
-            ByteArrayOutputStream b = new ByteArrayOutputStream();
-            DataOutputStream out = new DataOutputStream(b);
+        synchronized (lock) {
+            if (key != null && !pending.add(key)) {
+                coalesced.incrementAndGet();
+                return true;
+            }
             
-            out.writeUTF(command);
-            for (String arg : args) {
-                out.writeUTF(arg);
+            if (queue.size() >= capacity) {
+                if (key != null) {
+                    pending.remove(key);
+                }
+                dropped.incrementAndGet();
+                return false;
             }
             
-            message = b.toByteArray();
-        } catch (IOException e) {
-            e.printStackTrace();
-            return;
+            queue.add(message);
+            schedule = !flushScheduled;
+            flushScheduled = true;
         }
         
-        sendRawMessage(message);
+        if (schedule) {
+            scheduleFlush();
+        }
+        return true;
     }
     
-    @Override
-    public void sendQueuedCommands() {
-        List<byte[]> cache = new ArrayList<byte[]>(queue);
+    /**
+     * Schedules {@link #flush()} to run on the next tick, called when the
+     * first message is queued after a flush.
+     */
+    protected void scheduleFlush() {
+        Bukkit.getScheduler().runTask(plugin, new Runnable() {
+            @Override
+            public void run() {
+                flush();
+            }
+        });
+    }
+    
+    /**
+     * Gets the player to send queued messages through.
+     *
+     * @return the player, or null if nobody is online
+     */
+    protected Player getCarrier() {
+        Player[] players = Bukkit.getOnlinePlayers();
+        return players.length > 0 ? players[0] : null;
+    }
+    
+    /**
+     * Sends every queued message, if nobody is online they are left queued
+     * until a player joins.
+     */
+    public void flush() {
+        Player carrier = getCarrier();
+        List<byte[]> messages;
         
-        for (byte[] message : cache) {
-            if (sendRawMessage(message, false)) {
-                queue.remove(message);
+        synchronized (lock) {
+            flushScheduled = false;
+            
+            if (carrier == null || queue.isEmpty()) {
+                return;
             }
             
+            messages = queue;
+            queue = new ArrayList<byte[]>();
+            pending.clear();
         }
+        
+        for (byte[] message : messages) {
+            carrier.sendPluginMessage(plugin, CHANNEL, message);
+        }
+        sent.addAndGet(messages.size());
+    }
+    
+    @Override
+    public void sendQueuedCommands() {
+        flush();
     }
     
     @Override
     public void forwardMessage(String servers, String subchannel, ByteArrayOutputStream data) {
-        byte[] message = new byte[0];
+        byte[] message = encoder.encodeForward(servers, subchannel, data);
         
-        try {
-            ByteArrayOutputStream b = new ByteArrayOutputStream();
-            DataOutputStream out = new DataOutputStream(b);
-            out.writeUTF("FORWARD");
-            out.writeUTF(servers);
-            out.writeUTF(subchannel);
-            
-            out.writeShort(data.toByteArray().length);
-            out.write(data.toByteArray());
-            
-            message = b.toByteArray();
-        } catch (IOException e) {
-            e.printStackTrace();
-            return;
+        if (message != null) {
+            sendRawMessage(message);
         }
-        
-        sendRawMessage(message);
     }
     
     @Override
@@ -165,4 +259,86 @@ public class SimpleBungeeMessenger implements BungeeMessenger {
     public void getIP(Player player) {
         sendPlayerCommand("IP", player);
     }
+    
+    /**
+     * Gets the number of messages waiting to be sent.
+     *
+     * @return the queue depth
+     */
+    public int getQueueSize() {
+        synchronized (lock) {
+            return queue.size();
+        }
+    }
+    
+    /**
+     * Gets the number of queued messages that have been sent.
+     *
+     * @return the sent message count
+     */
+    public long getSentCount() {
+        return sent.get();
+    }
+    
+    /**
+     * Gets the number of messages dropped because the queue was full.
+     *
+     * @return the dropped message count
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+    
+    /**
+     * Gets the number of requests that weren't queued because the same
+     * request was already waiting to be sent.
+     *
+     * @return the coalesced request count
+     */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+    
+    /**
+     * Encodes messages into a single reused buffer.
+     */
+    private static final class Encoder {
+        
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+        private final DataOutputStream out = new DataOutputStream(buffer);
+        
+        synchronized byte[] encode(String command, String... args) {
+            buffer.reset();
+            
+            try {
+                out.writeUTF(command);
+                for (String arg : args) {
+                    out.writeUTF(arg);
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+                return null;
+            }
+            
+            return buffer.toByteArray();
+        }
+        
+        synchronized byte[] encodeForward(String servers, String subchannel, ByteArrayOutputStream data) {
+            buffer.reset();
+            
+            try {
+                out.writeUTF("FORWARD");
+                out.writeUTF(servers);
+                out.writeUTF(subchannel);
+                
+                out.writeShort(data.size());
+                data.writeTo(out);
+            } catch (IOException e) {
+                e.printStackTrace();
+                return null;
+            }
+            
+            return buffer.toByteArray();
+        }
+    }
 }
@@ -30,4 +30,15 @@ public class ModuleChildCommand extends ModuleCommand {
 		return m_parent;
 	}
 
+	@Override
+	public ModuleCommand addAliase(String aliase) {
+		super.addAliase(aliase);
+		
+		// keep the parent's lookup up to date if we've already been added to it
+		if (m_parent.m_children.contains(this)) {
+			m_parent.indexChildren();
+		}
+		return this;
+	}
+
 }
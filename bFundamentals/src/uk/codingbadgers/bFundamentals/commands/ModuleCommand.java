@@ -20,7 +20,10 @@ package uk.codingbadgers.bFundamentals.commands;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.logging.Level;
 
 import org.apache.commons.lang.Validate;
@@ -34,7 +37,12 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableList.Builder;
 
 import uk.codingbadgers.bFundamentals.bFundamentals;
+import uk.codingbadgers.bFundamentals.metrics.Histogram;
+import uk.codingbadgers.bFundamentals.metrics.Metrics;
 import uk.codingbadgers.bFundamentals.module.Module;
+import uk.codingbadgers.bFundamentals.timings.Timing;
+import uk.codingbadgers.bFundamentals.timings.TimingType;
+import uk.codingbadgers.bFundamentals.timings.Timings;
 
 /**
  * A minecraft command that is associated with a specific bFundamentals
@@ -51,7 +59,11 @@ public class ModuleCommand extends Command implements TabExecutor {
 	protected ModuleCommandHelpTopic m_helpTopic = null;
 	protected String m_permission = null;
 	protected List<ModuleChildCommand> m_children = new ArrayList<ModuleChildCommand>();
+	/** the children keyed by lower case label and aliases, labels take priority over aliases */
+	private Map<String, ModuleChildCommand> m_childIndex = new HashMap<String, ModuleChildCommand>();
 	protected Module m_module;
+	private Timing m_timing;
+	private Histogram m_metric;
 
 	/**
 	 * Instantiates a new module command.
@@ -88,6 +100,8 @@ public class ModuleCommand extends Command implements TabExecutor {
 		}
 
 		m_module = module;
+		m_timing = Timings.getTiming(module.getName(), TimingType.COMMAND, "/" + m_label);
+		m_metric = Metrics.histogram(module.getName(), "command./" + m_label);
 	}
 
 	/**
@@ -213,6 +227,45 @@ public class ModuleCommand extends Command implements TabExecutor {
 	 */
 	public void addChildCommand(ModuleChildCommand command) {
 		this.m_children.add(command);
+		indexChildren();
+	}
+
+	/**
+	 * Gets the child command with a given label or alias, ignoring case.
+	 * 
+	 * @param label
+	 *            the label or alias of the child command
+	 * @return the child command, or null if there is no child command with
+	 *         that label or alias
+	 */
+	public ModuleChildCommand getChildCommand(String label) {
+		return m_childIndex.get(label.toLowerCase(Locale.ENGLISH));
+	}
+
+	/**
+	 * Rebuilds the child command lookup, called whenever a child command or
+	 * an alias of a child command is added.
+	 */
+	void indexChildren() {
+		Map<String, ModuleChildCommand> index = new HashMap<String, ModuleChildCommand>();
+
+		for (ModuleChildCommand child : m_children) {
+			for (String alias : child.getAliases()) {
+				String key = alias.toLowerCase(Locale.ENGLISH);
+				
+				if (!index.containsKey(key)) {
+					index.put(key, child);
+				}
+			}
+		}
+
+		// labels are added last so they always override an alias
+		for (int i = m_children.size() - 1; i >= 0; i--) {
+			ModuleChildCommand child = m_children.get(i);
+			index.put(child.getLabel().toLowerCase(Locale.ENGLISH), child);
+		}
+
+		m_childIndex = index;
 	}
 
 	/**
@@ -227,14 +280,32 @@ public class ModuleCommand extends Command implements TabExecutor {
 	 */
 	@Override
 	public final boolean execute(CommandSender sender, String label, String[] args) {
-		if (args.length >= 1) {
-			for (ModuleChildCommand child : m_children) {
-				if (child.getLabel().equalsIgnoreCase(args[0])) {
-					m_module.log(Level.INFO, child.getLabel());
-					// cut first argument (sub command) out of command then handle as child command
-					args = Arrays.copyOfRange(args, 1, args.length);
-					return child.execute(sender, label, args);
-				}
+		if (m_metric == null) {
+			return dispatch(sender, label, args);
+		}
+		
+		long start = System.nanoTime();
+		try {
+			return dispatch(sender, label, args);
+		} finally {
+			long elapsed = System.nanoTime() - start;
+			m_metric.update(elapsed);
+			
+			if (Timings.isEnabled()) {
+				m_timing.record(elapsed);
+			}
+		}
+	}
+	
+	private boolean dispatch(CommandSender sender, String label, String[] args) {
+		if (args.length >= 1 && !m_children.isEmpty()) {
+			ModuleChildCommand child = getChildCommand(args[0]);
+			
+			if (child != null) {
+				m_module.log(Level.INFO, child.getLabel());
+				// cut first argument (sub command) out of command then handle as child command
+				args = Arrays.copyOfRange(args, 1, args.length);
+				return child.execute(sender, label, args);
 			}
 		}
 
@@ -18,9 +18,8 @@
 package uk.codingbadgers.bFundamentals.commands;
 
 import java.lang.reflect.Field;
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
@@ -47,7 +46,8 @@ public class ModuleCommandHandler {
 	private static final String commandMapFieldName = "commandMap";
 	private static final String commandsFieldName = "knownCommands";
 	
-	private static Map<Module, List<ModuleCommand>> commands = new HashMap<Module, List<ModuleCommand>>();
+	/** each module's commands, replaced rather than modified so the listings can be handed out as they are */
+	private static Map<Module, ImmutableList<ModuleCommand>> commands = new HashMap<Module, ImmutableList<ModuleCommand>>();
 	private static CommandMap commandMap;
 	private static Field knownCommandsField;
 	
@@ -90,11 +90,7 @@ public class ModuleCommandHandler {
 		command.register(module);
 		commandMap.register(module.getName(), command);
 		
-		if (commands.containsKey(module)) {
-			commands.get(module).add(command);
-		} else {
-			commands.put(module, new ArrayList<ModuleCommand>(Arrays.asList(command)));
-		}
+		commands.put(module, new ImmutableList.Builder<ModuleCommand>().addAll(getCommands(module)).add(command).build());
 	}
 
 	/**
@@ -105,14 +101,13 @@ public class ModuleCommandHandler {
 	@SuppressWarnings("unchecked")
 	public static void deregisterCommand(Module module) {
 
-		if (!commands.containsKey(module) || getCommands(module) == null) {
+		List<ModuleCommand> commands = ModuleCommandHandler.commands.remove(module);
+		
+		if (commands == null) {
 			return;
 		}
 		
-		List<ModuleCommand> commands = new ArrayList<ModuleCommand>(getCommands(module));
 		for (ModuleCommand command : commands) {
-			ModuleCommandHandler.commands.get(module).remove(command);
-
 			try {
 				Map<String, Command> knownCommands = (Map<String, Command>) knownCommandsField.get(commandMap);
 				Command theCommand = commandMap.getCommand(command.getLabel());
@@ -122,7 +117,14 @@ public class ModuleCommandHandler {
 				}
 				
 				theCommand.unregister(commandMap);
-				knownCommands.remove(theCommand.getLabel().toLowerCase());
+				
+				// remove the aliases and fallback prefixed labels as well, so nothing keeps the module reachable
+				Iterator<Command> itr = knownCommands.values().iterator();
+				while (itr.hasNext()) {
+					if (itr.next() == theCommand) {
+						itr.remove();
+					}
+				}
 				if (bFundamentals.getConfigurationManager().isDebugEnabled()) {
 					bFundamentals.log(Level.INFO, theCommand.getLabel().toLowerCase() + " for module " + module.getName() + " has been deregistered successfully");
 				}
@@ -133,15 +135,18 @@ public class ModuleCommandHandler {
 	}
 
 	/**
-	 * Gets the commands for a module.
+	 * Gets the commands for a module, the list is only rebuilt when the
+	 * module's commands are registered or deregistered.
 	 *
 	 * @param module the module
 	 * @return the commands for that module
 	 */
 	public static List<ModuleCommand> getCommands(Module module) {
-	    if (!commands.containsKey(module)) {
-	        return new ImmutableList.Builder<ModuleCommand>().build();
-	    }
-		return new ImmutableList.Builder<ModuleCommand>().addAll(commands.get(module)).build();
+		ImmutableList<ModuleCommand> listing = commands.get(module);
+		
+		if (listing == null) {
+			return ImmutableList.of();
+		}
+		return listing;
 	}	
 }
@@ -0,0 +1,182 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bFundamentals.config;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.bukkit.configuration.Configuration;
+
+import uk.codingbadgers.bFundamentals.config.annotation.Catagory;
+import uk.codingbadgers.bFundamentals.config.annotation.Element;
+import uk.codingbadgers.bFundamentals.config.deserialiser.ConfigMapper;
+
+/**
+ * The binding plan of a config class, every {@link Element} field of the class
+ * and its categories along with its path, mapper and declared default. Built
+ * once per class by {@link ConfigFactory} so a reload doesn't have to reflect
+ * over the class again.
+ */
+final class ConfigBinding {
+
+	/** mappers are stateless, one instance is shared between every element using it */
+	private static final ConcurrentMap<Class<?>, ConfigMapper<?>> mappers = new ConcurrentHashMap<Class<?>, ConfigMapper<?>>();
+	
+	private final Class<? extends ConfigFile> clazz;
+	private final Bound[] elements;
+	
+	ConfigBinding(Class<? extends ConfigFile> clazz) throws IllegalAccessException, InstantiationException, NoSuchFieldException {
+		this.clazz = clazz;
+		
+		List<Class<?>> catagories = new ArrayList<Class<?>>();
+		catagories.add(clazz);
+		
+		for (Class<?> catagory : clazz.getClasses()) {
+			if (catagory.isAnnotationPresent(Catagory.class)) {
+				catagories.add(catagory);
+			}
+		}
+		
+		List<Bound> elements = new ArrayList<Bound>();
+		
+		for (Class<?> catagory : catagories) {
+			String catName = catagory.getSimpleName() + ".";
+			
+			if (catagory == clazz) {
+				catName = "";
+			} else if (catagory.getAnnotation(Catagory.class).value().length() != 0) {
+				catName = catagory.getAnnotation(Catagory.class).value() + ".";
+			}
+			
+			for (Field field : catagory.getFields()) {
+				if (!Modifier.isStatic(field.getModifiers()) || !field.isAnnotationPresent(Element.class)) {
+					continue;
+				}
+				
+				Element element = field.getAnnotation(Element.class);
+				String name = element.value().length() > 0 ? element.value() : field.getName();
+				
+				removeModifier(field, Modifier.FINAL);
+				elements.add(new Bound(field, catName + name, getMapper(element.mapper()), field.get(null)));
+			}
+		}
+		
+		this.elements = elements.toArray(new Bound[elements.size()]);
+	}
+	
+	/**
+	 * Forgets every mapper loaded by a class loader.
+	 *
+	 * @param loader the class loader of an unloaded module
+	 */
+	static void forget(ClassLoader loader) {
+		ConfigFactory.forget(mappers.keySet(), loader);
+	}
+	
+	private static ConfigMapper<?> getMapper(Class<? extends ConfigMapper<?>> clazz) throws InstantiationException, IllegalAccessException {
+		ConfigMapper<?> mapper = mappers.get(clazz);
+		
+		if (mapper == null) {
+			mapper = clazz.newInstance();
+			ConfigMapper<?> existing = mappers.putIfAbsent(clazz, mapper);
+			
+			if (existing != null) {
+				mapper = existing;
+			}
+		}
+		
+		return mapper;
+	}
+	
+	private static void removeModifier(Field field, int mod) throws NoSuchFieldException, IllegalAccessException {
+		field.setAccessible(true);
+		
+		if ((field.getModifiers() & mod) == 0) {
+			return;
+		}
+		
+		Field modifiersField = Field.class.getDeclaredField("modifiers");
+		modifiersField.setAccessible(true);
+		modifiersField.setInt(field, field.getModifiers() & ~mod);
+	}
+	
+	/**
+	 * Reads every element from a config, nothing is written to the config
+	 * class.
+	 *
+	 * @param config the config to read
+	 * @return the snapshot of the values read
+	 */
+	ConfigSnapshot read(Configuration config) {
+		Map<String, Object> values = new LinkedHashMap<String, Object>(elements.length * 2);
+		
+		for (Bound element : elements) {
+			values.put(element.path, element.mapper.deserialise(config.get(element.path, element.def)));
+		}
+		
+		return new ConfigSnapshot(clazz, values);
+	}
+	
+	/**
+	 * Writes the values of a snapshot to the static fields of the config
+	 * class. The fields are written one at a time with nothing to publish
+	 * them, so this is only called on the main thread.
+	 *
+	 * @param snapshot the snapshot to apply
+	 * @throws IllegalAccessException if a field couldn't be written
+	 */
+	void apply(ConfigSnapshot snapshot) throws IllegalAccessException {
+		for (Bound element : elements) {
+			element.field.set(null, snapshot.get(element.path));
+		}
+	}
+	
+	/**
+	 * Adds the current value of every element to a config as its default.
+	 *
+	 * @param config the config to add the defaults to
+	 * @throws IllegalAccessException if a field couldn't be read
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	void addDefaults(Configuration config) throws IllegalAccessException {
+		for (Bound element : elements) {
+			config.addDefault(element.path, ((ConfigMapper) element.mapper).serialise(element.field.get(null)));
+		}
+	}
+	
+	private static final class Bound {
+		
+		final Field field;
+		final String path;
+		final ConfigMapper<?> mapper;
+		final Object def;
+		
+		Bound(Field field, String path, ConfigMapper<?> mapper, Object def) {
+			this.field = field;
+			this.path = path;
+			this.mapper = mapper;
+			this.def = def;
+		}
+	}
+}
@@ -19,29 +19,34 @@ package uk.codingbadgers.bFundamentals.config;
 
 import java.io.File;
 import java.io.IOException;
-import java.lang.reflect.Array;
-import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 
-import uk.codingbadgers.bFundamentals.config.annotation.Catagory;
-import uk.codingbadgers.bFundamentals.config.annotation.Element;
-import uk.codingbadgers.bFundamentals.config.deserialiser.ConfigMapper;
-
 /**
  * A factory for load Config classes, for internal use only for a module use
  * {@link Module#registerConfig(Class)} to load a config.
+ * <p>
+ * Each config class is only reflected over the first time it is loaded, after
+ * that a reload reads every value into a new {@link ConfigSnapshot} before any
+ * of them are applied, then publishes the snapshot in a single step.
+ * <p>
+ * Configs are loaded on the main thread, the static fields of a config class
+ * are written without synchronisation so other threads should read a
+ * {@link ConfigSnapshot} instead.
  * 
  * @author James Fitzpatrick
  * @see ConfigFile
  */
 public class ConfigFactory {
 
+	private static final ConcurrentMap<Class<? extends ConfigFile>, ConfigBinding> bindings = new ConcurrentHashMap<Class<? extends ConfigFile>, ConfigBinding>();
+	private static final ConcurrentMap<Class<? extends ConfigFile>, ConfigSnapshot> snapshots = new ConcurrentHashMap<Class<? extends ConfigFile>, ConfigSnapshot>();
+	
 	/**
 	 * Load a config class from a config file located in the datafolder of a 
 	 * module.
@@ -62,7 +67,9 @@ public class ConfigFactory {
 	}
 	
 	/**
-	 * Load config from a specified file.
+	 * Load config from a specified file. Every value is read and mapped before
+	 * the config class is changed, if any of them fail the current values are
+	 * kept.
 	 *
 	 * @param clazz the config class
 	 * @param configfile the config file
@@ -72,67 +79,64 @@ public class ConfigFactory {
 	 * @throws NoSuchFieldException the no such field exception
 	 * @throws InstantiationException the instantiation exception
 	 */
-    @SuppressWarnings("unchecked")
-    public static void loadConfig(Class<? extends ConfigFile> clazz, File configfile) throws IllegalArgumentException, IllegalAccessException, SecurityException, NoSuchFieldException, InstantiationException {
-		FileConfiguration config = YamlConfiguration.loadConfiguration(configfile);
-
-		Class<?>[] catagories = clazz.getClasses();
-		catagories = insertAtBegining(catagories, clazz);
+	public static void loadConfig(Class<? extends ConfigFile> clazz, File configfile) throws IllegalArgumentException, IllegalAccessException, SecurityException, NoSuchFieldException, InstantiationException {
+		ConfigBinding binding = getBinding(clazz);
 		
-		for (Class<?> catagory : catagories) {
-			if (!catagory.isAnnotationPresent(Catagory.class) && catagory != clazz) {
-				continue;
-			}
-			
-			String catName = catagory.getSimpleName() + ".";
-			
-			if (catagory == clazz) {
-				catName = "";
-			} else if (catagory.getAnnotation(Catagory.class).value().length() != 0){
-				catName = catagory.getAnnotation(Catagory.class).value() + ".";
-			}
-			Field[] elements = catagory.getFields();
-			
-			for (Field field : elements) {
-				if (!Modifier.isStatic(field.getModifiers())) {
-					continue;
-				}
-				
-				if (field.isAnnotationPresent(Element.class)) {
-					String name = field.getName();
-					
-					Element element = field.getAnnotation(Element.class);
-					
-					if (element.value().length() > 0) {
-						name = element.value();
-					}
-					
-					removeModifier(field, Modifier.FINAL);
-					ConfigMapper<?> mapper = element.mapper().newInstance();
-					field.set(null, mapper.deserialise(config.get(catName + name, field.get(null))));
-				}
+		synchronized (binding) {
+			FileConfiguration config = YamlConfiguration.loadConfiguration(configfile);
+			ConfigSnapshot snapshot = binding.read(config);
+			binding.apply(snapshot);
+			snapshots.put(clazz, snapshot);
+		}
+	}
+	
+	/**
+	 * Forgets every config class loaded by a class loader, so the bindings
+	 * and snapshots of an unloaded module's configs don't keep its class
+	 * loader alive.
+	 *
+	 * @param loader the class loader of the module
+	 */
+	public static void forget(ClassLoader loader) {
+		forget(bindings.keySet(), loader);
+		forget(snapshots.keySet(), loader);
+		ConfigBinding.forget(loader);
+	}
+	
+	static void forget(Set<? extends Class<?>> classes, ClassLoader loader) {
+		Iterator<? extends Class<?>> itr = classes.iterator();
+		
+		while (itr.hasNext()) {
+			if (itr.next().getClassLoader() == loader) {
+				itr.remove();
 			}
 		}
 	}
-
-    @SuppressWarnings("unchecked")
-	private static <T> T[] insertAtBegining(T[] original, T... addition) {
-        List<T> buffer = new ArrayList<T>();
-        
-        for (T add : addition) {
-            buffer.add(add);
-        }
-        
-        buffer.addAll(Arrays.asList(original));
-        
-        return buffer.toArray((T[]) Array.newInstance(original.getClass().getComponentType(), buffer.size()));
+	
+	/**
+	 * Gets the values of a config class as they were at the end of its last
+	 * load.
+	 *
+	 * @param clazz the config class
+	 * @return the snapshot, or null if the class hasn't been loaded
+	 */
+	public static ConfigSnapshot getSnapshot(Class<? extends ConfigFile> clazz) {
+		return snapshots.get(clazz);
 	}
 	
-	private static void removeModifier(Field field, int mod) throws SecurityException, NoSuchFieldException, IllegalArgumentException, IllegalAccessException {
-		field.setAccessible(true);
-	    Field modifiersField = Field.class.getDeclaredField("modifiers");
-	    modifiersField.setAccessible(true);
-	    modifiersField.setInt(field, field.getModifiers() & ~mod);
+	private static ConfigBinding getBinding(Class<? extends ConfigFile> clazz) throws IllegalAccessException, InstantiationException, NoSuchFieldException {
+		ConfigBinding binding = bindings.get(clazz);
+		
+		if (binding == null) {
+			binding = new ConfigBinding(clazz);
+			ConfigBinding existing = bindings.putIfAbsent(clazz, binding);
+			
+			if (existing != null) {
+				binding = existing;
+			}
+		}
+		
+		return binding;
 	}
  
 	/**
@@ -145,51 +149,22 @@ public class ConfigFactory {
 	 * @throws IllegalAccessException the illegal access exception
 	 * @throws InstantiationException the instantiation exception
 	 */
-	@SuppressWarnings({ "unchecked", "rawtypes" })
 	public static void createDefaultConfig(Class<? extends ConfigFile> clazz, File configfile) throws IOException, IllegalArgumentException, IllegalAccessException, InstantiationException {
 		if (!configfile.exists()) {
 			configfile.createNewFile();
 		}
 		
-		FileConfiguration config = YamlConfiguration.loadConfiguration(configfile);
-
-		Class<?>[] catagories = clazz.getClasses();
-		catagories = insertAtBegining(catagories, clazz);
+		ConfigBinding binding;
 		
-		for (Class<?> catagory : catagories) {
-			if (!catagory.isAnnotationPresent(Catagory.class) && catagory != clazz) {
-				continue;
-			}
-			
-			String catName = catagory.getSimpleName() + ".";
-			
-			if (catagory == clazz) {
-				catName = "";
-			} else if (catagory.getAnnotation(Catagory.class).value().length() != 0){
-				catName = catagory.getAnnotation(Catagory.class).value() + ".";
-			}
-			Field[] elements = catagory.getFields();
-			
-			for (Field field : elements) {
-				if (!Modifier.isStatic(field.getModifiers())) {
-					continue;
-				}
-				
-				if (field.isAnnotationPresent(Element.class)) {
-					String name = field.getName();
-
-					Element element = field.getAnnotation(Element.class);
-					
-					if (element.value().length() > 0) {
-						name = element.value();
-					}
-
-					ConfigMapper mapper = element.mapper().newInstance();
-					config.addDefault(catName + name, mapper.serialise(field.get(null)));
-				}
-			}
+		try {
+			binding = getBinding(clazz);
+		} catch (NoSuchFieldException e) {
+			throw new IllegalAccessException("Cannot bind config " + clazz.getName() + ", " + e.getMessage());
 		}
 		
+		FileConfiguration config = YamlConfiguration.loadConfiguration(configfile);
+		binding.addDefaults(config);
+		
 		config.options().copyDefaults(true);
 		config.save(configfile);
 	}
@@ -0,0 +1,98 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bFundamentals.config;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * An immutable copy of every value of a config class, as it was at the end of
+ * a single load.
+ * <p>
+ * The static fields of a config class are updated one at a time when it is
+ * reloaded, so a thread reading several of them while a reload is in progress
+ * can see a mix of old and new values. Code that needs values which are
+ * consistent with each other, or reads them off the main thread, should take
+ * a snapshot with {@link ConfigFactory#getSnapshot(Class)} and read from that.
+ * 
+ * @see ConfigFactory
+ */
+public final class ConfigSnapshot {
+
+	private final Class<? extends ConfigFile> clazz;
+	private final Map<String, Object> values;
+	private final long loaded;
+	
+	ConfigSnapshot(Class<? extends ConfigFile> clazz, Map<String, Object> values) {
+		this.clazz = clazz;
+		this.values = Collections.unmodifiableMap(values);
+		this.loaded = System.currentTimeMillis();
+	}
+	
+	/**
+	 * Gets the config class this snapshot was loaded for.
+	 *
+	 * @return the config class
+	 */
+	public Class<? extends ConfigFile> getConfigClass() {
+		return clazz;
+	}
+	
+	/**
+	 * Gets a value from the snapshot.
+	 *
+	 * @param path the path of the element in the config file, including its
+	 *            category, for example {@code database-settings.host}
+	 * @return the value, or null if there is no element at that path
+	 */
+	public Object get(String path) {
+		return values.get(path);
+	}
+	
+	/**
+	 * Gets a value from the snapshot.
+	 *
+	 * @param <T> the type of the value
+	 * @param path the path of the element in the config file, including its
+	 *            category, for example {@code database-settings.host}
+	 * @param type the type of the value
+	 * @return the value, or null if there is no element at that path
+	 * @throws ClassCastException if the value is not of the given type
+	 */
+	public <T> T get(String path, Class<T> type) {
+		return type.cast(values.get(path));
+	}
+	
+	/**
+	 * Gets every value in the snapshot keyed by path.
+	 *
+	 * @return the values
+	 */
+	public Map<String, Object> getValues() {
+		return values;
+	}
+	
+	/**
+	 * Gets the time this snapshot was loaded.
+	 *
+	 * @return the load time in milliseconds
+	 */
+	public long getLoadTime() {
+		return loaded;
+	}
+}
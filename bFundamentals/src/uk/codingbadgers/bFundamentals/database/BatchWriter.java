@@ -0,0 +1,180 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bFundamentals.database;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A write behind writer for a single statement. Rows are queued without
+ * blocking and written in batches on a background thread, either when a full
+ * batch is waiting or when the flush interval elapses.
+ * <p>
+ * If the queue is full new rows are dropped rather than blocking the caller,
+ * the number of dropped rows is logged on the next flush.
+ * 
+ * @see DatabaseService#createBatchWriter(String, int, int, long)
+ */
+public class BatchWriter {
+
+	private static final Logger LOGGER = Logger.getLogger("bFundamentals");
+	
+	private final DatabaseService service;
+	private final String sql;
+	private final int batchSize;
+	private final BlockingQueue<Object[]> queue;
+	
+	private final AtomicBoolean flushPending = new AtomicBoolean();
+	private final AtomicLong dropped = new AtomicLong();
+	private final AtomicLong written = new AtomicLong();
+	private final AtomicLong batches = new AtomicLong();
+	private long reportedDrops = 0;
+	
+	private volatile boolean closed = false;
+	private ScheduledExecutorService scheduler;
+	private ScheduledFuture<?> task;
+	
+	private final Runnable flushTask = new Runnable() {
+		@Override
+		public void run() {
+			flushPending.set(false);
+			flush();
+		}
+	};
+	
+	BatchWriter(DatabaseService service, String sql, int capacity, int batchSize) {
+		this.service = service;
+		this.sql = sql;
+		this.batchSize = Math.max(1, batchSize);
+		this.queue = new ArrayBlockingQueue<Object[]>(Math.max(1, capacity));
+	}
+	
+	void schedule(ScheduledExecutorService scheduler, long flushInterval) {
+		this.scheduler = scheduler;
+		this.task = scheduler.scheduleWithFixedDelay(flushTask, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Queue a row to be written, never blocks.
+	 * 
+	 * @param row the statement parameters for the row, in order
+	 * @return true if the row was queued, false if it was dropped
+	 */
+	public boolean offer(Object... row) {
+		if (closed || !queue.offer(row)) {
+			dropped.incrementAndGet();
+			return false;
+		}
+		
+		// a full batch is waiting, write it now rather than at the next interval
+		if (queue.size() >= batchSize && flushPending.compareAndSet(false, true)) {
+			try {
+				scheduler.execute(flushTask);
+			} catch (RuntimeException ex) {
+				flushPending.set(false);
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Write every queued row on the calling thread.
+	 */
+	public synchronized void flush() {
+		List<Object[]> batch = new ArrayList<Object[]>(Math.min(batchSize, queue.size()));
+		
+		while (queue.drainTo(batch, batchSize) > 0) {
+			try {
+				service.batch(sql, batch);
+				written.addAndGet(batch.size());
+				batches.incrementAndGet();
+			} catch (SQLException e) {
+				LOGGER.log(Level.SEVERE, "Failed to write " + batch.size() + " rows with '" + sql + "'", e);
+			}
+			
+			batch.clear();
+		}
+		
+		long drops = dropped.get();
+		if (drops != reportedDrops) {
+			LOGGER.log(Level.WARNING, "Write queue for '" + sql + "' full, dropped " + (drops - reportedDrops) + " rows");
+			reportedDrops = drops;
+		}
+	}
+	
+	/**
+	 * Stop accepting rows and write everything already queued.
+	 */
+	public void close() {
+		if (closed) {
+			return;
+		}
+		
+		closed = true;
+		task.cancel(false);
+		flush();
+		service.remove(this);
+	}
+	
+	/**
+	 * Gets the number of rows waiting to be written.
+	 * 
+	 * @return the queue depth
+	 */
+	public int getQueueSize() {
+		return queue.size();
+	}
+	
+	/**
+	 * Gets the number of rows dropped because the queue was full.
+	 * 
+	 * @return the dropped row count
+	 */
+	public long getDroppedCount() {
+		return dropped.get();
+	}
+	
+	/**
+	 * Gets the number of rows written to the database.
+	 * 
+	 * @return the written row count
+	 */
+	public long getWrittenCount() {
+		return written.get();
+	}
+	
+	/**
+	 * Gets the number of batches written to the database.
+	 * 
+	 * @return the written batch count
+	 */
+	public long getBatchCount() {
+		return batches.get();
+	}
+}
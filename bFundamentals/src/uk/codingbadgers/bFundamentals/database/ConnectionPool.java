@@ -0,0 +1,139 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bFundamentals.database;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded pool of database connections, connections are opened lazily up
+ * to the maximum size and callers wait for a free connection once they have
+ * all been handed out.
+ */
+class ConnectionPool {
+
+	private final String url;
+	private final String user;
+	private final String password;
+	private final int statementCacheSize;
+	private final int size;
+	private final long timeout;
+	
+	private final Semaphore permits;
+	private final BlockingQueue<SqlConnection> idle = new LinkedBlockingQueue<SqlConnection>();
+	private volatile boolean closed = false;
+	
+	ConnectionPool(String url, String user, String password, int size, int statementCacheSize, long timeout) {
+		this.url = url;
+		this.user = user;
+		this.password = password;
+		this.size = size;
+		this.statementCacheSize = statementCacheSize;
+		this.timeout = timeout;
+		this.permits = new Semaphore(size, true);
+	}
+	
+	/**
+	 * Take a connection from the pool, opening a new one if there are no idle
+	 * connections.
+	 * 
+	 * @return the connection
+	 * @throws SQLException if no connection became free before the timeout or
+	 *             a new connection could not be opened
+	 */
+	SqlConnection acquire() throws SQLException {
+		if (closed) {
+			throw new SQLException("Connection pool is closed");
+		}
+		
+		try {
+			if (!permits.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+				throw new SQLException("Timed out after " + timeout + "ms waiting for a database connection");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted waiting for a database connection");
+		}
+		
+		try {
+			SqlConnection connection;
+			
+			while ((connection = idle.poll()) != null) {
+				if (!connection.isClosed()) {
+					return connection;
+				}
+			}
+			
+			return new SqlConnection(user == null ? DriverManager.getConnection(url) : DriverManager.getConnection(url, user, password), statementCacheSize);
+		} catch (SQLException e) {
+			permits.release();
+			throw e;
+		} catch (RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Return a connection to the pool.
+	 * 
+	 * @param connection the connection
+	 */
+	void release(SqlConnection connection) {
+		try {
+			connection.reset();
+			
+			if (closed) {
+				connection.close();
+			} else {
+				idle.offer(connection);
+			}
+		} catch (SQLException e) {
+			// the connection is in an unknown state, drop it and open a new one next time
+			connection.close();
+		} finally {
+			permits.release();
+		}
+	}
+	
+	/**
+	 * Gets the number of connections currently handed out.
+	 * 
+	 * @return the number of connections in use
+	 */
+	int getActiveCount() {
+		return size - permits.availablePermits();
+	}
+	
+	/**
+	 * Close every idle connection, connections in use are closed when they
+	 * are released.
+	 */
+	void close() {
+		closed = true;
+		
+		SqlConnection connection;
+		while ((connection = idle.poll()) != null) {
+			connection.close();
+		}
+	}
+}
@@ -0,0 +1,468 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bFundamentals.database;
+
+import java.io.File;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+
+import uk.codingbadgers.bFundamentals.DatabaseSettings;
+import uk.codingbadgers.bFundamentals.metrics.Counter;
+import uk.codingbadgers.bFundamentals.metrics.Histogram;
+import uk.codingbadgers.bFundamentals.metrics.Metrics;
+import uk.thecodingbadgers.bDatabaseManager.bDatabaseManager.DatabaseType;
+
+/**
+ * The shared database service for bFundamentals and its modules. Queries run
+ * on a bounded pool of connections, each with a cache of prepared statements,
+ * and can either be run on the calling thread or handed to a background
+ * executor with the result delivered back on the main server thread.
+ * <p>
+ * All statements are prepared, parameters are bound rather than concatenated
+ * into the query.
+ * <p>
+ * At most {@value #QUEUE_CAPACITY} background tasks can wait for a thread, if
+ * the queue is full new tasks are rejected with a
+ * {@link RejectedExecutionException} rather than blocking the caller.
+ */
+public class DatabaseService {
+
+	/** The number of prepared statements cached per connection. */
+	private static final int STATEMENT_CACHE_SIZE = 64;
+	
+	/** The maximum time to wait for a free connection in milliseconds. */
+	private static final long ACQUIRE_TIMEOUT = 30000L;
+	
+	/** The maximum number of background tasks waiting for a thread. */
+	public static final int QUEUE_CAPACITY = 1024;
+	
+	private static final Logger LOGGER = Logger.getLogger("bFundamentals");
+	
+	private final ConnectionPool pool;
+	private final ExecutorService executor;
+	private final ScheduledExecutorService scheduler;
+	private final Executor syncExecutor;
+	private final List<BatchWriter> writers = new CopyOnWriteArrayList<BatchWriter>();
+	
+	/** every task run by any database service */
+	private static final Histogram TASK_TIME = Metrics.histogram("bFundamentals", "database.task");
+	private static final Counter TASK_FAILURES = Metrics.counter("bFundamentals", "database.failures");
+	private static final Counter TASK_REJECTIONS = Metrics.counter("bFundamentals", "database.rejected");
+	
+	private final AtomicLong taskCount = new AtomicLong();
+	private final AtomicLong taskNanos = new AtomicLong();
+	
+	/**
+	 * Instantiates a new database service.
+	 * 
+	 * @param url the jdbc url of the database
+	 * @param user the database user, or null if not needed
+	 * @param password the database password
+	 * @param poolSize the maximum number of open connections, also the number
+	 *            of background threads
+	 * @param syncExecutor the executor callbacks are run on, normally the main
+	 *            server thread
+	 * @see #mainThreadExecutor(Plugin)
+	 */
+	public DatabaseService(String url, String user, String password, int poolSize, Executor syncExecutor) {
+		poolSize = Math.max(1, poolSize);
+		
+		this.pool = new ConnectionPool(url, user, password, poolSize, STATEMENT_CACHE_SIZE, ACQUIRE_TIMEOUT);
+		this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(QUEUE_CAPACITY), 
+				new DatabaseThreadFactory("bFundamentals database"), new RejectionPolicy());
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(new DatabaseThreadFactory("bFundamentals database flush"));
+		this.syncExecutor = syncExecutor;
+	}
+	
+	/**
+	 * Create a database service for the bFundamentals database settings.
+	 * 
+	 * @param settings the database settings
+	 * @param plugin the plugin callbacks are scheduled for
+	 * @return the database service
+	 */
+	public static DatabaseService create(DatabaseSettings settings, Plugin plugin) {
+		boolean sql = settings.type == DatabaseType.SQL;
+		return new DatabaseService(getUrl(settings, plugin.getDataFolder()), sql ? settings.user : null, settings.password, settings.poolSize, mainThreadExecutor(plugin));
+	}
+	
+	/**
+	 * Get the jdbc url for a set of database settings, sqlite databases are
+	 * stored in the given folder.
+	 * 
+	 * @param settings the database settings
+	 * @param dataFolder the folder sqlite databases are stored in
+	 * @return the jdbc url
+	 */
+	public static String getUrl(DatabaseSettings settings, File dataFolder) {
+		if (settings.type == DatabaseType.SQL) {
+			return "jdbc:mysql://" + settings.host + ":" + settings.port + "/" + settings.name;
+		}
+		
+		return "jdbc:sqlite:" + new File(dataFolder, settings.name + ".db").getAbsolutePath();
+	}
+	
+	/**
+	 * Get an executor which runs tasks on the main server thread, tasks
+	 * submitted from the main thread are run straight away.
+	 * 
+	 * @param plugin the plugin to schedule the tasks for
+	 * @return the main thread executor
+	 */
+	public static Executor mainThreadExecutor(final Plugin plugin) {
+		return new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				if (Bukkit.isPrimaryThread()) {
+					command.run();
+				} else {
+					Bukkit.getScheduler().runTask(plugin, command);
+				}
+			}
+		};
+	}
+	
+	/**
+	 * Run a task on the calling thread.
+	 * 
+	 * @param task the task
+	 * @return the result of the task
+	 * @throws SQLException if the task fails or no connection is available
+	 */
+	public <T> T execute(SqlTask<T> task) throws SQLException {
+		long start = System.nanoTime();
+		SqlConnection connection = pool.acquire();
+		boolean failed = true;
+		
+		try {
+			T result = task.run(connection);
+			failed = false;
+			return result;
+		} finally {
+			pool.release(connection);
+			long elapsed = System.nanoTime() - start;
+			taskCount.incrementAndGet();
+			taskNanos.addAndGet(elapsed);
+			TASK_TIME.update(elapsed);
+			
+			if (failed) {
+				TASK_FAILURES.inc();
+			}
+		}
+	}
+	
+	/**
+	 * Run a task on a background thread.
+	 * 
+	 * @param task the task
+	 * @return a future for the result of the task
+	 */
+	public <T> Future<T> submit(SqlTask<T> task) {
+		return submit(task, null);
+	}
+	
+	/**
+	 * Run a task on a background thread, the callback is run on the main
+	 * thread once the task completes.
+	 * 
+	 * @param task the task
+	 * @param callback the callback, or null for none
+	 * @return a future for the result of the task
+	 * @throws RejectedExecutionException if the background queue is full
+	 */
+	public <T> Future<T> submit(final SqlTask<T> task, final DatabaseCallback<T> callback) {
+		return executor.submit(new Callable<T>() {
+			@Override
+			public T call() throws Exception {
+				final T result;
+				
+				try {
+					result = execute(task);
+				} catch (final Exception ex) {
+					if (callback == null) {
+						LOGGER.log(Level.WARNING, "Asynchronous database task failed", ex);
+					} else {
+						dispatch(new Runnable() {
+							@Override
+							public void run() {
+								callback.onError(ex);
+							}
+						});
+					}
+					
+					throw ex;
+				}
+				
+				if (callback != null) {
+					dispatch(new Runnable() {
+						@Override
+						public void run() {
+							callback.onComplete(result);
+						}
+					});
+				}
+				
+				return result;
+			}
+		});
+	}
+	
+	/**
+	 * Run an insert, update or delete statement on the calling thread.
+	 * 
+	 * @param sql the statement
+	 * @param params the parameters, in order
+	 * @return the number of rows changed
+	 * @throws SQLException if the statement fails
+	 */
+	public int update(final String sql, final Object... params) throws SQLException {
+		return execute(new SqlTask<Integer>() {
+			@Override
+			public Integer run(SqlConnection connection) throws SQLException {
+				return connection.update(sql, params);
+			}
+		});
+	}
+	
+	/**
+	 * Run an insert, update or delete statement on a background thread.
+	 * 
+	 * @param sql the statement
+	 * @param params the parameters, in order
+	 * @return a future for the number of rows changed
+	 */
+	public Future<Integer> updateAsync(final String sql, final Object... params) {
+		return submit(new SqlTask<Integer>() {
+			@Override
+			public Integer run(SqlConnection connection) throws SQLException {
+				return connection.update(sql, params);
+			}
+		});
+	}
+	
+	/**
+	 * Run a query on the calling thread.
+	 * 
+	 * @param sql the query
+	 * @param mapper the row mapper
+	 * @param params the parameters, in order
+	 * @return the mapped rows
+	 * @throws SQLException if the query fails
+	 */
+	public <T> List<T> query(final String sql, final RowMapper<T> mapper, final Object... params) throws SQLException {
+		return execute(new SqlTask<List<T>>() {
+			@Override
+			public List<T> run(SqlConnection connection) throws SQLException {
+				return connection.query(sql, mapper, params);
+			}
+		});
+	}
+	
+	/**
+	 * Run a query on a background thread, the callback is run on the main
+	 * thread with the mapped rows.
+	 * 
+	 * @param sql the query
+	 * @param mapper the row mapper
+	 * @param callback the callback, or null for none
+	 * @param params the parameters, in order
+	 * @return a future for the mapped rows
+	 */
+	public <T> Future<List<T>> queryAsync(final String sql, final RowMapper<T> mapper, DatabaseCallback<List<T>> callback, final Object... params) {
+		return submit(new SqlTask<List<T>>() {
+			@Override
+			public List<T> run(SqlConnection connection) throws SQLException {
+				return connection.query(sql, mapper, params);
+			}
+		}, callback);
+	}
+	
+	/**
+	 * Run a statement once for every row in a single batch on the calling
+	 * thread.
+	 * 
+	 * @param sql the statement
+	 * @param rows the parameters for each row
+	 * @return the update counts for each row
+	 * @throws SQLException if the batch fails
+	 */
+	public int[] batch(final String sql, final Iterable<Object[]> rows) throws SQLException {
+		return execute(new SqlTask<int[]>() {
+			@Override
+			public int[] run(SqlConnection connection) throws SQLException {
+				return connection.batch(sql, rows);
+			}
+		});
+	}
+	
+	/**
+	 * Run a statement once for every row in a single batch on a background
+	 * thread.
+	 * 
+	 * @param sql the statement
+	 * @param rows the parameters for each row, must not be modified after
+	 *            this is called
+	 * @return a future for the update counts for each row
+	 */
+	public Future<int[]> batchAsync(final String sql, final Iterable<Object[]> rows) {
+		return submit(new SqlTask<int[]>() {
+			@Override
+			public int[] run(SqlConnection connection) throws SQLException {
+				return connection.batch(sql, rows);
+			}
+		});
+	}
+	
+	/**
+	 * Create a write behind batch writer for a statement, rows offered to the
+	 * writer are queued and written in batches on a background thread. The
+	 * writer is flushed and closed when this service shuts down.
+	 * 
+	 * @param sql the statement, normally an insert
+	 * @param capacity the maximum number of rows waiting to be written
+	 * @param batchSize the maximum number of rows written in one batch
+	 * @param flushInterval the maximum time in milliseconds a row waits
+	 *            before being written
+	 * @return the batch writer
+	 */
+	public BatchWriter createBatchWriter(String sql, int capacity, int batchSize, long flushInterval) {
+		BatchWriter writer = new BatchWriter(this, sql, capacity, batchSize);
+		writer.schedule(scheduler, flushInterval);
+		writers.add(writer);
+		return writer;
+	}
+	
+	/**
+	 * Gets the number of tasks run against the database.
+	 * 
+	 * @return the task count
+	 */
+	public long getTaskCount() {
+		return taskCount.get();
+	}
+	
+	/**
+	 * Gets the total time spent running tasks, including waiting for a
+	 * connection.
+	 * 
+	 * @return the total task time in nanoseconds
+	 */
+	public long getTaskNanos() {
+		return taskNanos.get();
+	}
+	
+	/**
+	 * Gets the number of connections currently in use.
+	 * 
+	 * @return the active connection count
+	 */
+	public int getActiveConnections() {
+		return pool.getActiveCount();
+	}
+	
+	/**
+	 * Flush every batch writer, wait for queued tasks to finish and close
+	 * every connection.
+	 * 
+	 * @param timeout the maximum time to wait in milliseconds
+	 */
+	public void shutdown(long timeout) {
+		for (BatchWriter writer : writers) {
+			writer.close();
+		}
+		writers.clear();
+		
+		scheduler.shutdown();
+		executor.shutdown();
+		
+		try {
+			if (!executor.awaitTermination(timeout, TimeUnit.MILLISECONDS)) {
+				LOGGER.log(Level.WARNING, "Database tasks did not finish within " + timeout + "ms");
+				executor.shutdownNow();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		
+		pool.close();
+	}
+	
+	void remove(BatchWriter writer) {
+		writers.remove(writer);
+	}
+	
+	private void dispatch(Runnable callback) {
+		try {
+			syncExecutor.execute(callback);
+		} catch (RuntimeException ex) {
+			// the plugin has been disabled, nothing is left to handle the result
+			LOGGER.log(Level.WARNING, "Could not run database callback", ex);
+		}
+	}
+	
+	private static final class RejectionPolicy implements RejectedExecutionHandler {
+		
+		@Override
+		public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+			TASK_REJECTIONS.inc();
+			
+			if (executor.isShutdown()) {
+				throw new RejectedExecutionException("Database service has been shut down");
+			}
+			
+			throw new RejectedExecutionException("Database queue full, " + executor.getQueue().size() + " tasks waiting");
+		}
+	}
+	
+	private static final class DatabaseThreadFactory implements ThreadFactory {
+		
+		private final String name;
+		private final AtomicInteger count = new AtomicInteger();
+		
+		DatabaseThreadFactory(String name) {
+			this.name = name;
+		}
+		
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, name + " #" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
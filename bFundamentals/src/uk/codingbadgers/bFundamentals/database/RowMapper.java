@@ -0,0 +1,40 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bFundamentals.database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps a single row of a query result to an object.
+ *
+ * @param <T> the type each row is mapped to
+ */
+public interface RowMapper<T> {
+
+	/**
+	 * Map the current row of a result set, the result set must not be
+	 * advanced or closed.
+	 * 
+	 * @param result the result set, positioned on the row to map
+	 * @return the mapped row
+	 * @throws SQLException if a column could not be read
+	 */
+	public T map(ResultSet result) throws SQLException;
+	
+}
@@ -0,0 +1,220 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bFundamentals.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A pooled database connection with a cache of prepared statements. Each
+ * connection is only ever used by one thread at a time, so the cache needs no
+ * locking.
+ */
+public class SqlConnection {
+
+	private final Connection connection;
+	private final Map<String, PreparedStatement> statements;
+	
+	SqlConnection(Connection connection, final int cacheSize) {
+		this.connection = connection;
+		this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+				if (size() <= cacheSize) {
+					return false;
+				}
+				
+				closeQuietly(eldest.getValue());
+				return true;
+			}
+		};
+	}
+	
+	/**
+	 * Get the prepared statement for a query, statements are cached per
+	 * connection so a query is only prepared once. The returned statement is
+	 * owned by the connection and must not be closed.
+	 * 
+	 * @param sql the query
+	 * @return the prepared statement, with its parameters cleared
+	 * @throws SQLException if the statement could not be prepared
+	 */
+	public PreparedStatement prepare(String sql) throws SQLException {
+		PreparedStatement statement = statements.get(sql);
+		
+		if (statement == null) {
+			statement = connection.prepareStatement(sql);
+			statements.put(sql, statement);
+		} else {
+			statement.clearParameters();
+		}
+		
+		return statement;
+	}
+	
+	/**
+	 * Get the prepared statement for a query with its parameters bound.
+	 * 
+	 * @param sql the query
+	 * @param params the parameters, in order
+	 * @return the prepared statement
+	 * @throws SQLException if the statement could not be prepared
+	 * @see #prepare(String)
+	 */
+	public PreparedStatement prepare(String sql, Object... params) throws SQLException {
+		PreparedStatement statement = prepare(sql);
+		bind(statement, params);
+		return statement;
+	}
+	
+	/**
+	 * Run an insert, update or delete statement.
+	 * 
+	 * @param sql the statement
+	 * @param params the parameters, in order
+	 * @return the number of rows changed
+	 * @throws SQLException if the statement fails
+	 */
+	public int update(String sql, Object... params) throws SQLException {
+		return prepare(sql, params).executeUpdate();
+	}
+	
+	/**
+	 * Run a query, mapping every row of the result.
+	 * 
+	 * @param sql the query
+	 * @param mapper the row mapper
+	 * @param params the parameters, in order
+	 * @return the mapped rows
+	 * @throws SQLException if the query fails
+	 */
+	public <T> List<T> query(String sql, RowMapper<T> mapper, Object... params) throws SQLException {
+		ResultSet result = prepare(sql, params).executeQuery();
+		
+		try {
+			List<T> rows = new ArrayList<T>();
+			
+			while (result.next()) {
+				rows.add(mapper.map(result));
+			}
+			
+			return rows;
+		} finally {
+			result.close();
+		}
+	}
+	
+	/**
+	 * Run a statement once for every row in a single transaction, using jdbc
+	 * batching.
+	 * 
+	 * @param sql the statement
+	 * @param rows the parameters for each row
+	 * @return the update counts for each row
+	 * @throws SQLException if the batch fails, no rows are committed
+	 */
+	public int[] batch(String sql, Iterable<Object[]> rows) throws SQLException {
+		PreparedStatement statement = prepare(sql);
+		boolean autoCommit = connection.getAutoCommit();
+		
+		try {
+			connection.setAutoCommit(false);
+			
+			for (Object[] row : rows) {
+				bind(statement, row);
+				statement.addBatch();
+			}
+			
+			int[] result = statement.executeBatch();
+			connection.commit();
+			return result;
+		} catch (SQLException e) {
+			statement.clearBatch();
+			connection.rollback();
+			throw e;
+		} finally {
+			connection.setAutoCommit(autoCommit);
+		}
+	}
+	
+	/**
+	 * Get the underlying jdbc connection, the connection must not be closed.
+	 * 
+	 * @return the jdbc connection
+	 */
+	public Connection getConnection() {
+		return connection;
+	}
+	
+	/**
+	 * Put the connection back into a clean state before it goes back to the
+	 * pool.
+	 * 
+	 * @throws SQLException if the connection could not be reset
+	 */
+	void reset() throws SQLException {
+		if (!connection.getAutoCommit()) {
+			connection.rollback();
+			connection.setAutoCommit(true);
+		}
+	}
+	
+	boolean isClosed() {
+		try {
+			return connection.isClosed();
+		} catch (SQLException e) {
+			return true;
+		}
+	}
+	
+	void close() {
+		Iterator<PreparedStatement> itr = statements.values().iterator();
+		
+		while (itr.hasNext()) {
+			closeQuietly(itr.next());
+			itr.remove();
+		}
+		
+		try {
+			connection.close();
+		} catch (SQLException e) {
+		}
+	}
+	
+	private static void bind(PreparedStatement statement, Object[] params) throws SQLException {
+		for (int i = 0; i < params.length; i++) {
+			statement.setObject(i + 1, params[i]);
+		}
+	}
+	
+	private static void closeQuietly(PreparedStatement statement) {
+		try {
+			statement.close();
+		} catch (SQLException e) {
+		}
+	}
+}
@@ -0,0 +1,41 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bFundamentals.database;
+
+import java.sql.SQLException;
+
+/**
+ * A unit of database work, run with a pooled connection by a
+ * {@link DatabaseService}.
+ *
+ * @param <T> the result of the task
+ */
+public interface SqlTask<T> {
+
+	/**
+	 * Run the task, the connection is returned to the pool when this returns.
+	 * Statements prepared through the connection are cached and must not be
+	 * closed.
+	 * 
+	 * @param connection the connection to run the task with
+	 * @return the result of the task
+	 * @throws SQLException if the task fails
+	 */
+	public T run(SqlConnection connection) throws SQLException;
+	
+}
@@ -0,0 +1,196 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bFundamentals.error;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Properties;
+
+/**
+ * A single crash report, the details of an exception that are sent to the
+ * crash server.
+ * <p>
+ * Reports have a fingerprint made from the exception types and stack frames
+ * of the exception and its causes, but not their messages, so the same
+ * failure repeated with different values gives the same fingerprint.
+ */
+public final class CrashReport {
+
+	private final String fingerprint;
+	private final String exception;
+	private final String message;
+	private final String stackTrace;
+	private final long time;
+	
+	private CrashReport(String fingerprint, String exception, String message, String stackTrace, long time) {
+		this.fingerprint = fingerprint;
+		this.exception = exception;
+		this.message = message;
+		this.stackTrace = stackTrace;
+		this.time = time;
+	}
+	
+	/**
+	 * Creates a report for an exception.
+	 *
+	 * @param throwable the exception
+	 * @return the report
+	 */
+	public static CrashReport create(Throwable throwable) {
+		return create(throwable, fingerprint(throwable));
+	}
+	
+	static CrashReport create(Throwable throwable, String fingerprint) {
+		Throwable root = throwable;
+		while (root.getCause() != null) {
+			root = root.getCause();
+		}
+		
+		StringWriter writer = new StringWriter();
+		throwable.printStackTrace(new PrintWriter(writer));
+		
+		return new CrashReport(fingerprint, root.getClass().getName(), root.getMessage(), writer.toString(), System.currentTimeMillis());
+	}
+	
+	/**
+	 * Gets the fingerprint of an exception, exceptions thrown from the same
+	 * place for the same reason have the same fingerprint.
+	 *
+	 * @param throwable the exception
+	 * @return the fingerprint
+	 */
+	public static String fingerprint(Throwable throwable) {
+		long hash = 1125899906842597L;
+		int depth = 0;
+		
+		// limit the depth in case of a cause loop
+		for (Throwable cause = throwable; cause != null && depth < 16; cause = cause.getCause(), depth++) {
+			hash = 31 * hash + cause.getClass().getName().hashCode();
+			
+			for (StackTraceElement element : cause.getStackTrace()) {
+				hash = 31 * hash + element.getClassName().hashCode();
+				hash = 31 * hash + element.getMethodName().hashCode();
+				hash = 31 * hash + element.getLineNumber();
+			}
+		}
+		
+		return Long.toHexString(hash);
+	}
+	
+	/**
+	 * Reads a report written by {@link #write(File)}.
+	 *
+	 * @param file the file to read
+	 * @return the report
+	 * @throws IOException if the file could not be read
+	 */
+	public static CrashReport read(File file) throws IOException {
+		Properties properties = new Properties();
+		InputStream in = new FileInputStream(file);
+		
+		try {
+			properties.load(in);
+		} finally {
+			in.close();
+		}
+		
+		long time;
+		try {
+			time = Long.parseLong(properties.getProperty("time", "0"));
+		} catch (NumberFormatException e) {
+			time = file.lastModified();
+		}
+		
+		String message = properties.getProperty("message");
+		return new CrashReport(properties.getProperty("fingerprint", ""), properties.getProperty("exception", ""), message == null || message.isEmpty() ? null : message, properties.getProperty("stacktrace", ""), time);
+	}
+	
+	/**
+	 * Writes the report to a file so it can be sent later.
+	 *
+	 * @param file the file to write to
+	 * @throws IOException if the file could not be written
+	 */
+	public void write(File file) throws IOException {
+		Properties properties = new Properties();
+		properties.setProperty("fingerprint", fingerprint);
+		properties.setProperty("exception", exception);
+		properties.setProperty("message", message == null ? "" : message);
+		properties.setProperty("stacktrace", stackTrace);
+		properties.setProperty("time", Long.toString(time));
+		
+		OutputStream out = new FileOutputStream(file);
+		
+		try {
+			properties.store(out, "bFundamentals crash report");
+		} finally {
+			out.close();
+		}
+	}
+	
+	/**
+	 * Gets the fingerprint of the exception.
+	 *
+	 * @return the fingerprint
+	 */
+	public String getFingerprint() {
+		return fingerprint;
+	}
+	
+	/**
+	 * Gets the class name of the exception that caused the crash.
+	 *
+	 * @return the root cause's class name
+	 */
+	public String getException() {
+		return exception;
+	}
+	
+	/**
+	 * Gets the message of the exception that caused the crash.
+	 *
+	 * @return the root cause's message, may be null
+	 */
+	public String getMessage() {
+		return message;
+	}
+	
+	/**
+	 * Gets the full stack trace.
+	 *
+	 * @return the stack trace
+	 */
+	public String getStackTrace() {
+		return stackTrace;
+	}
+	
+	/**
+	 * Gets the time the exception was reported.
+	 *
+	 * @return the time in milliseconds
+	 */
+	public long getTime() {
+		return time;
+	}
+}
@@ -0,0 +1,395 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bFundamentals.error;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+import org.json.simple.parser.ParseException;
+
+import uk.codingbadgers.bFundamentals.bFundamentals;
+
+/**
+ * Sends crash reports to the crash server from a single background thread,
+ * reporting an exception never blocks the thread it was thrown on.
+ * <p>
+ * Exceptions with the same {@link CrashReport#fingerprint(Throwable)
+ * fingerprint} are only reported once per window, and no more than a set
+ * number of reports are sent each minute. Reports waiting to be sent are held
+ * in a bounded queue, if it is full new reports are dropped. If the crash
+ * server can't be reached reports are written to a spool folder and sent
+ * once it can be reached again.
+ */
+public class CrashReporter {
+
+	/** The maximum number of reports kept in the spool folder. */
+	private static final int MAX_SPOOLED = 100;
+	private static final String SPOOL_EXTENSION = ".crash";
+	
+	private final String url;
+	private final String password;
+	private final File spoolFolder;
+	private final long window;
+	private final int maxPerMinute;
+	
+	private final BlockingQueue<Pending> queue;
+	/** when each fingerprint was last reported, and how many repeats have been suppressed since */
+	private final ConcurrentMap<String, Seen> seen = new ConcurrentHashMap<String, Seen>();
+	private final Thread worker;
+	private volatile boolean running = true;
+	
+	private long minuteStart = 0;
+	private int sentThisMinute = 0;
+	
+	private final AtomicLong uploaded = new AtomicLong();
+	private final AtomicLong suppressed = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	private final AtomicLong spooled = new AtomicLong();
+	
+	/**
+	 * Instantiates a new crash reporter and starts its background thread.
+	 *
+	 * @param url the url of the crash server
+	 * @param password the crash server password
+	 * @param spoolFolder the folder to keep reports in while the server can't
+	 *            be reached, or null to drop them
+	 * @param window the time in milliseconds an exception isn't reported
+	 *            again after being reported
+	 * @param maxPerMinute the maximum number of reports sent each minute
+	 * @param capacity the maximum number of reports waiting to be sent
+	 */
+	public CrashReporter(String url, String password, File spoolFolder, long window, int maxPerMinute, int capacity) {
+		this.url = url;
+		this.password = password;
+		this.spoolFolder = spoolFolder;
+		this.window = window;
+		this.maxPerMinute = maxPerMinute;
+		this.queue = new LinkedBlockingQueue<Pending>(capacity);
+		
+		this.worker = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				work();
+			}
+		}, "bFundamentals crash reporter");
+		this.worker.setDaemon(true);
+		this.worker.start();
+	}
+	
+	/**
+	 * Queues an exception to be reported, never blocks.
+	 *
+	 * @param throwable the exception
+	 * @return true if a report was queued, false if the exception had already
+	 *         been reported recently or the queue was full
+	 */
+	public boolean report(Throwable throwable) {
+		return report(throwable, CrashReport.fingerprint(throwable));
+	}
+	
+	/**
+	 * Queues an exception to be reported, never blocks.
+	 *
+	 * @param throwable the exception
+	 * @param fingerprint the exception's fingerprint
+	 * @return true if a report was queued, false if the exception had already
+	 *         been reported recently or the queue was full
+	 */
+	public boolean report(Throwable throwable, String fingerprint) {
+		if (!running) {
+			return false;
+		}
+		
+		long now = System.currentTimeMillis();
+		Seen last = seen.get(fingerprint);
+		
+		if (last != null && now - last.time < window) {
+			last.repeats.incrementAndGet();
+			suppressed.incrementAndGet();
+			return false;
+		}
+		
+		Seen current = new Seen(now);
+		if (last == null ? seen.putIfAbsent(fingerprint, current) != null : !seen.replace(fingerprint, last, current)) {
+			// another thread reported the same exception at the same time
+			suppressed.incrementAndGet();
+			return false;
+		}
+		
+		if (last != null && last.repeats.get() > 0) {
+			bFundamentals.log(Level.WARNING, throwable.getClass().getName() + " was thrown " + last.repeats.get() + " more times since it was last reported");
+		}
+		
+		if (seen.size() > 1000) {
+			expire(now);
+		}
+		
+		if (!queue.offer(new Pending(throwable, fingerprint))) {
+			dropped.incrementAndGet();
+			return false;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Checks if an exception with a given fingerprint has been reported too
+	 * recently to be reported again.
+	 *
+	 * @param fingerprint the exception's fingerprint
+	 * @return true if the exception has been reported within the window
+	 */
+	public boolean isDuplicate(String fingerprint) {
+		Seen last = seen.get(fingerprint);
+		return last != null && System.currentTimeMillis() - last.time < window;
+	}
+	
+	private void expire(long now) {
+		Iterator<Seen> itr = seen.values().iterator();
+		
+		while (itr.hasNext()) {
+			if (now - itr.next().time >= window) {
+				itr.remove();
+			}
+		}
+	}
+	
+	private void work() {
+		sendSpooled();
+		
+		while (running || !queue.isEmpty()) {
+			Pending pending;
+			
+			try {
+				pending = queue.poll(1, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				// woken by shutdown, spool anything left
+				pending = queue.poll();
+			}
+			
+			if (pending == null) {
+				continue;
+			}
+			
+			CrashReport report = CrashReport.create(pending.throwable, pending.fingerprint);
+			
+			if (!running || !acquire()) {
+				spool(report);
+				continue;
+			}
+			
+			if (send(report)) {
+				// the server is reachable again, send anything that was spooled
+				sendSpooled();
+			} else {
+				spool(report);
+			}
+		}
+	}
+	
+	private boolean acquire() {
+		long now = System.currentTimeMillis();
+		
+		if (now - minuteStart >= 60000L) {
+			minuteStart = now;
+			sentThisMinute = 0;
+		}
+		
+		return ++sentThisMinute <= maxPerMinute;
+	}
+	
+	/**
+	 * Sends a report.
+	 *
+	 * @return true if the report was dealt with, false if the server couldn't
+	 *         be reached and it should be spooled
+	 */
+	private boolean send(CrashReport report) {
+		try {
+			if (new ReportExceptionRunnable(report, url, password).send()) {
+				uploaded.incrementAndGet();
+			}
+			return true;
+		} catch (IOException e) {
+			return false;
+		} catch (ParseException e) {
+			// the server answered, just not with anything we understand
+			e.printStackTrace();
+			return true;
+		}
+	}
+	
+	private void spool(CrashReport report) {
+		if (spoolFolder == null) {
+			dropped.incrementAndGet();
+			return;
+		}
+		
+		if (!spoolFolder.exists() && !spoolFolder.mkdirs()) {
+			dropped.incrementAndGet();
+			return;
+		}
+		
+		File[] files = getSpooled();
+		if (files.length >= MAX_SPOOLED) {
+			dropped.incrementAndGet();
+			return;
+		}
+		
+		try {
+			report.write(new File(spoolFolder, report.getTime() + "-" + report.getFingerprint() + SPOOL_EXTENSION));
+			spooled.incrementAndGet();
+		} catch (IOException e) {
+			dropped.incrementAndGet();
+		}
+	}
+	
+	private void sendSpooled() {
+		if (spoolFolder == null) {
+			return;
+		}
+		
+		File[] files = getSpooled();
+		Arrays.sort(files);
+		
+		for (File file : files) {
+			if (!running || !acquire()) {
+				return;
+			}
+			
+			CrashReport report;
+			try {
+				report = CrashReport.read(file);
+			} catch (IOException e) {
+				file.delete();
+				continue;
+			}
+			
+			if (!send(report)) {
+				return;
+			}
+			
+			file.delete();
+		}
+	}
+	
+	private File[] getSpooled() {
+		File[] files = spoolFolder.listFiles(new FileFilter() {
+			@Override
+			public boolean accept(File file) {
+				return file.isFile() && file.getName().endsWith(SPOOL_EXTENSION);
+			}
+		});
+		
+		return files == null ? new File[0] : files;
+	}
+	
+	/**
+	 * Stops the reporter, reports that haven't been sent yet are spooled.
+	 *
+	 * @param timeout the maximum time to wait in milliseconds
+	 */
+	public void shutdown(long timeout) {
+		running = false;
+		worker.interrupt();
+		
+		try {
+			worker.join(timeout);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * Gets the number of reports waiting to be sent.
+	 *
+	 * @return the queue depth
+	 */
+	public int getQueueSize() {
+		return queue.size();
+	}
+	
+	/**
+	 * Gets the number of reports accepted by the crash server.
+	 *
+	 * @return the uploaded report count
+	 */
+	public long getUploadedCount() {
+		return uploaded.get();
+	}
+	
+	/**
+	 * Gets the number of exceptions not reported because the same exception
+	 * had been reported recently.
+	 *
+	 * @return the suppressed exception count
+	 */
+	public long getSuppressedCount() {
+		return suppressed.get();
+	}
+	
+	/**
+	 * Gets the number of reports dropped because the queue or spool folder
+	 * was full.
+	 *
+	 * @return the dropped report count
+	 */
+	public long getDroppedCount() {
+		return dropped.get();
+	}
+	
+	/**
+	 * Gets the number of reports written to the spool folder.
+	 *
+	 * @return the spooled report count
+	 */
+	public long getSpooledCount() {
+		return spooled.get();
+	}
+	
+	private static final class Pending {
+		
+		final Throwable throwable;
+		final String fingerprint;
+		
+		Pending(Throwable throwable, String fingerprint) {
+			this.throwable = throwable;
+			this.fingerprint = fingerprint;
+		}
+	}
+	
+	private static final class Seen {
+		
+		final long time;
+		final AtomicLong repeats = new AtomicLong();
+		
+		Seen(long time) {
+			this.time = time;
+		}
+	}
+}
@@ -17,21 +17,98 @@
  */
 package uk.codingbadgers.bFundamentals.error;
 
+import java.io.File;
 import java.lang.Thread.UncaughtExceptionHandler;
 
+import uk.codingbadgers.bFundamentals.ConfigManager;
+import uk.codingbadgers.bFundamentals.bFundamentals;
+
+/**
+ * Reports exceptions to the crash server through a background
+ * {@link CrashReporter}, the same exception is only printed and reported
+ * once every ten minutes.
+ */
 public class ExceptionHandler implements UncaughtExceptionHandler {
 
+	/** The time the same exception isn't reported again for. */
+	private static final long DUPLICATE_WINDOW = 10 * 60 * 1000L;
+	private static final int MAX_REPORTS_PER_MINUTE = 10;
+	private static final int QUEUE_CAPACITY = 64;
+	
 	private static final ExceptionHandler instance;
+	private static CrashReporter reporter = null;
 	
 	static {
 		instance = new ExceptionHandler();
 		Thread.setDefaultUncaughtExceptionHandler(instance);
 	}
 
+	/**
+	 * Prints and queues an exception to be reported, returns straight away.
+	 *
+	 * @param e the exception
+	 * @return true if a report was queued, false if the same exception was
+	 *         reported recently or it couldn't be queued
+	 */
 	public static boolean handleException(Throwable e) {
-		e.printStackTrace();
-		ReportExceptionRunnable run = new ReportExceptionRunnable(e);
-		return run.run();
+		CrashReporter current = getReporter();
+		
+		if (current == null) {
+			e.printStackTrace();
+			return false;
+		}
+		
+		String fingerprint = CrashReport.fingerprint(e);
+		
+		if (!current.isDuplicate(fingerprint)) {
+			e.printStackTrace();
+		}
+		
+		return current.report(e, fingerprint);
+	}
+	
+	/**
+	 * Gets the crash reporter, creating it the first time it is needed.
+	 *
+	 * @return the crash reporter, or null if bFundamentals hasn't been
+	 *         configured yet
+	 */
+	public static synchronized CrashReporter getReporter() {
+		if (reporter == null) {
+			ConfigManager config = bFundamentals.getConfigurationManager();
+			
+			if (config == null) {
+				return null;
+			}
+			
+			bFundamentals plugin = bFundamentals.getInstance();
+			File spool = plugin == null ? null : new File(plugin.getDataFolder(), "crash-reports");
+			reporter = new CrashReporter(ReportExceptionRunnable.DEFAULT_URL, config.getCrashPassword(), spool, DUPLICATE_WINDOW, MAX_REPORTS_PER_MINUTE, QUEUE_CAPACITY);
+		}
+		
+		return reporter;
+	}
+	
+	/**
+	 * Sets the crash reporter, the current reporter is not shut down.
+	 *
+	 * @param crashReporter the new crash reporter
+	 */
+	public static synchronized void setReporter(CrashReporter crashReporter) {
+		reporter = crashReporter;
+	}
+	
+	/**
+	 * Stops the crash reporter, reports that haven't been sent are spooled to
+	 * be sent next time the server starts.
+	 *
+	 * @param timeout the maximum time to wait in milliseconds
+	 */
+	public static synchronized void shutdown(long timeout) {
+		if (reporter != null) {
+			reporter.shutdown(timeout);
+			reporter = null;
+		}
 	}
 	
 	@Override
@@ -18,15 +18,12 @@
 package uk.codingbadgers.bFundamentals.error;
 
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.http.HttpResponse;
 import org.apache.http.NameValuePair;
-import org.apache.http.client.ClientProtocolException;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.impl.client.DefaultHttpClient;
@@ -38,37 +35,34 @@ import org.json.simple.parser.ParseException;
 
 import uk.codingbadgers.bFundamentals.bFundamentals;
 
+/**
+ * Sends a single {@link CrashReport} to the crash server on the calling
+ * thread, exceptions should normally be reported through
+ * {@link ExceptionHandler#handleException(Throwable)} which sends reports in
+ * the background.
+ */
 public class ReportExceptionRunnable {
 
-	private Throwable throwable;
+	/** The crash server reports are sent to by default. */
+	public static final String DEFAULT_URL = "http://server.mcbadgercraft.com/crash/report.php";
+	
+	private final CrashReport report;
+	private final String url;
+	private final String password;
 
 	public ReportExceptionRunnable(Throwable ex) {
-		this.throwable = ex;
+		this(CrashReport.create(ex), DEFAULT_URL, bFundamentals.getConfigurationManager().getCrashPassword());
+	}
+	
+	public ReportExceptionRunnable(CrashReport report, String url, String password) {
+		this.report = report;
+		this.url = url;
+		this.password = password;
 	}
 	
 	public boolean run() {
 		try {
-			List<NameValuePair> data = new ArrayList<NameValuePair>();
-			data.add(new BasicNameValuePair("password", DigestUtils.md5Hex(bFundamentals.getConfigurationManager().getCrashPassword())));
-			data.add(new BasicNameValuePair("project", "bFundamentals"));
-			data.add(new BasicNameValuePair("cause", getException(throwable)));
-			data.add(new BasicNameValuePair("message", getMessage(throwable)));
-			data.add(new BasicNameValuePair("st", buildStackTrace(throwable)));
-			HttpPost post = new HttpPost("http://server.mcbadgercraft.com/crash/report.php");
-			post.setEntity(new UrlEncodedFormEntity(data));
-			
-			DefaultHttpClient client = new DefaultHttpClient();
-			HttpResponse responce = client.execute(post);
-            String result = EntityUtils.toString(responce.getEntity());
-            
-            if (bFundamentals.getConfigurationManager().isDebugEnabled()) System.out.println(result);
-            
-            JSONObject object = (JSONObject) new JSONParser().parse(result);
-            boolean success = (Boolean) object.get("success");
-            if (!success) System.err.println(object.get("error"));
-            return success;
-		} catch (ClientProtocolException e) {
-			e.printStackTrace();
+			return send();
 		} catch (IOException e) {
 			e.printStackTrace();
 		} catch (ParseException e) {
@@ -77,26 +71,47 @@ public class ReportExceptionRunnable {
 		
 		return false;
 	}
-
-	private String getException(Throwable cause) {
-		while (cause.getCause() != null) {
-			cause = cause.getCause();
-		}
+	
+	/**
+	 * Sends the report.
+	 *
+	 * @return true if the server accepted the report, false if it rejected it
+	 * @throws IOException if the server could not be reached
+	 * @throws ParseException if the server's response could not be read
+	 */
+	public boolean send() throws IOException, ParseException {
+		List<NameValuePair> data = new ArrayList<NameValuePair>();
+		data.add(new BasicNameValuePair("password", DigestUtils.md5Hex(password)));
+		data.add(new BasicNameValuePair("project", "bFundamentals"));
+		data.add(new BasicNameValuePair("cause", report.getException()));
+		data.add(new BasicNameValuePair("message", report.getMessage()));
+		data.add(new BasicNameValuePair("st", report.getStackTrace()));
+		HttpPost post = new HttpPost(url);
+		post.setEntity(new UrlEncodedFormEntity(data));
 		
-		return cause.getClass().getName();
-	}
-
-	private String getMessage(Throwable cause) {
-		while (cause.getCause() != null) {
-			cause = cause.getCause();
-		}
+		DefaultHttpClient client = new DefaultHttpClient();
 		
-		return cause.getMessage();
+		try {
+			HttpResponse responce = client.execute(post);
+			String result = EntityUtils.toString(responce.getEntity());
+			
+			if (bFundamentals.getConfigurationManager() != null && bFundamentals.getConfigurationManager().isDebugEnabled()) System.out.println(result);
+			
+			JSONObject object = (JSONObject) new JSONParser().parse(result);
+			boolean success = Boolean.TRUE.equals(object.get("success"));
+			if (!success) System.err.println(object.get("error"));
+			return success;
+		} finally {
+			client.getConnectionManager().shutdown();
+		}
 	}
 	
-	private String buildStackTrace(Throwable cause) {
-		StringWriter writer = new StringWriter();
-		cause.printStackTrace(new PrintWriter(writer));
-		return writer.toString();
+	/**
+	 * Gets the report this sends.
+	 *
+	 * @return the report
+	 */
+	public CrashReport getReport() {
+		return report;
 	}
 }
@@ -11,21 +11,24 @@ import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
 import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.entity.HumanEntity;
 import org.bukkit.entity.Player;
 import org.bukkit.event.Event;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryType;
 import org.bukkit.event.inventory.InventoryType.SlotType;
 import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
 import org.bukkit.inventory.InventoryView;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.plugin.Plugin;
 
-public class GuiInventory implements Listener {
+/**
+ * A chest style menu, clicks are routed to the menu that owns the inventory
+ * by bFundamentals' {@link GuiListener}. Each menu is the
+ * {@link InventoryHolder} of its own inventory so no lookup is needed.
+ */
+public class GuiInventory implements InventoryHolder {
 
     private final Plugin m_plugin;
     private String m_title;
@@ -33,7 +36,7 @@ public class GuiInventory implements Listener {
 
     private final Map<String, GuiSubInventory> m_subMenus;
     private final Map<String, ItemStack> m_items;
-    private final Map<Integer, GuiCallback> m_callbacks;
+    private GuiCallback[] m_callbacks;
     private Inventory m_inventory;
     
     /**
@@ -44,23 +47,33 @@ public class GuiInventory implements Listener {
     public GuiInventory(Plugin plugin) {
         m_plugin = plugin;
 
-        m_plugin.getServer().getPluginManager().registerEvents(this, m_plugin);
-
         m_subMenus = new HashMap<String, GuiSubInventory>();
         m_items = new HashMap<String, ItemStack>();
-        m_callbacks = new HashMap<Integer, GuiCallback>();
+        m_callbacks = new GuiCallback[0];
     }
     
     public void createInventory(String title, int rowCount) {
         m_title = title;
         m_rowCount = rowCount;
         
-        m_inventory = Bukkit.createInventory(null, m_rowCount * 9, m_title);
+        m_inventory = Bukkit.createInventory(this, m_rowCount * 9, m_title);
+        m_callbacks = new GuiCallback[m_inventory.getSize()];
     }
     
     public void createInventory(String title, InventoryType type) {
         m_title = title;        
-        m_inventory = Bukkit.createInventory(null, type);
+        m_inventory = Bukkit.createInventory(this, type);
+        m_callbacks = new GuiCallback[m_inventory.getSize()];
+    }
+    
+    /**
+     * Get the inventory shown by this menu
+     * 
+     * @return the inventory
+     */
+    @Override
+    public Inventory getInventory() {
+        return m_inventory;
     }
     
     /**
@@ -203,9 +216,7 @@ public class GuiInventory implements Listener {
         item.setItemMeta(meta);
 
         m_inventory.setItem(slot, item);
-        if (callback != null) {
-            m_callbacks.put(slot, callback);
-        }
+        m_callbacks[slot] = callback;
         
         m_items.put(name, item);
         
@@ -213,33 +224,27 @@ public class GuiInventory implements Listener {
     }
 
     /**
-     * Handle click events within inventory's
+     * Get the callback for a slot
+     * 
+     * @param slot The slot in the inventory
+     * @return the callback, or null if the slot has no callback
+     */
+    public GuiCallback getCallback(int slot) {
+        if (slot < 0 || slot >= m_callbacks.length) {
+            return null;
+        }
+        return m_callbacks[slot];
+    }
+
+    /**
+     * Handle click events within this inventory, called by the
+     * {@link GuiListener} for clicks in inventories this menu holds
      *
      * @param event The click event
      */
-    @EventHandler
     public void onInventoryClick(InventoryClickEvent event) {
         
-        // Do we care about this inventory?
-        Inventory inventory = event.getInventory();
-        if (!inventory.getName().equalsIgnoreCase(m_inventory.getName())) {
-            return;
-        }
-        
-        // Do we care about this player?
         Player player = (Player) event.getWhoClicked();
-
-        boolean isViewer = false;
-        for (HumanEntity entity : m_inventory.getViewers()) {
-            if (entity.getName().equalsIgnoreCase(player.getName())) {
-                isViewer = true;
-                break;
-            }
-        }
-        
-        if (!isViewer) {
-            return;
-        }
         
         if (event.getSlotType() != SlotType.CONTAINER) {
             return;
@@ -274,8 +279,8 @@ public class GuiInventory implements Listener {
         final int itemSlot = event.getSlot();
 
         // Item is a normal item, call its gui callback method
-        if (m_callbacks.containsKey(itemSlot)) {
-            GuiCallback callback = m_callbacks.get(itemSlot);
+        GuiCallback callback = getCallback(itemSlot);
+        if (callback != null) {
             callback.onClick(this, event);
             return;
         }
@@ -0,0 +1,29 @@
+package uk.codingbadgers.bFundamentals.gui;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.inventory.InventoryHolder;
+
+/**
+ * The single listener for every {@link GuiInventory}, registered by
+ * bFundamentals. A click is passed straight to the menu holding the clicked
+ * inventory, clicks in any other inventory are ignored.
+ */
+public class GuiListener implements Listener {
+
+    /**
+     * Route a click to the menu it happened in
+     *
+     * @param event The click event
+     */
+    @EventHandler
+    public void onInventoryClick(InventoryClickEvent event) {
+        InventoryHolder holder = event.getInventory().getHolder();
+        
+        if (holder instanceof GuiInventory) {
+            ((GuiInventory) holder).onInventoryClick(event);
+        }
+    }
+
+}
@@ -0,0 +1,165 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bFundamentals.language;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An immutable set of compiled language values, read from a module's
+ * {@code <name>_<language>.lang} file.
+ * <p>
+ * A language file is made of keys on lines starting with {@code #}, each
+ * followed by its value on the next line. Blank lines and lines starting with
+ * {@code //} are ignored. Keys are matched ignoring case, looking up a key in
+ * the case it was written in the file, upper case or lower case doesn't
+ * allocate.
+ */
+public final class LanguageCatalog {
+
+	/** A catalog with no values. */
+	public static final LanguageCatalog EMPTY = new LanguageCatalog(Collections.<String, MessageTemplate>emptyMap(), Collections.<String, MessageTemplate>emptyMap());
+	
+	private final Map<String, MessageTemplate> lookup;
+	private final Map<String, MessageTemplate> values;
+	
+	private LanguageCatalog(Map<String, MessageTemplate> lookup, Map<String, MessageTemplate> values) {
+		this.lookup = lookup;
+		this.values = values;
+	}
+	
+	/**
+	 * Reads and compiles a language file.
+	 *
+	 * @param file the language file
+	 * @param log the logger to report badly formed lines to, or null
+	 * @return the catalog
+	 * @throws IOException if the file could not be read
+	 */
+	public static LanguageCatalog load(File file, Logger log) throws IOException {
+		Reader reader = new InputStreamReader(new FileInputStream(file), "UTF-8");
+		
+		try {
+			return parse(reader, log);
+		} finally {
+			reader.close();
+		}
+	}
+	
+	/**
+	 * Reads and compiles language values.
+	 *
+	 * @param in the reader to read from
+	 * @param log the logger to report badly formed lines to, or null
+	 * @return the catalog
+	 * @throws IOException if the values could not be read
+	 */
+	public static LanguageCatalog parse(Reader in, Logger log) throws IOException {
+		BufferedReader reader = new BufferedReader(in);
+		Map<String, String> raw = new LinkedHashMap<String, String>();
+		Map<String, String> written = new HashMap<String, String>();
+		
+		String line = null;
+		String key = null;
+		
+		while ((line = reader.readLine()) != null) {
+			if (line.isEmpty() || line.startsWith("//")) {
+				continue;
+			}
+			
+			if (line.startsWith("#")) {
+				key = line.substring(1);
+				continue;
+			}
+			
+			if (key == null) {
+				if (log != null) {
+					log.log(Level.WARNING, "Trying to parse a language value, with no key set!");
+				}
+				continue;
+			}
+			
+			String normalised = normalise(key);
+			raw.put(normalised, line);
+			written.put(normalised, key);
+		}
+		
+		Map<String, MessageTemplate> values = new LinkedHashMap<String, MessageTemplate>();
+		Map<String, MessageTemplate> lookup = new HashMap<String, MessageTemplate>();
+		
+		for (Map.Entry<String, String> entry : raw.entrySet()) {
+			MessageTemplate template = MessageTemplate.compile(entry.getValue());
+			values.put(entry.getKey(), template);
+			lookup.put(entry.getKey(), template);
+			lookup.put(entry.getKey().toUpperCase(Locale.ENGLISH), template);
+			lookup.put(written.get(entry.getKey()), template);
+		}
+		
+		return new LanguageCatalog(lookup, Collections.unmodifiableMap(values));
+	}
+	
+	private static String normalise(String key) {
+		return key.toLowerCase(Locale.ENGLISH);
+	}
+	
+	/**
+	 * Gets a compiled language value.
+	 *
+	 * @param key the language key, in any case
+	 * @return the template, or null if the key isn't in the catalog
+	 */
+	public MessageTemplate get(String key) {
+		MessageTemplate template = lookup.get(key);
+		
+		if (template == null) {
+			template = lookup.get(normalise(key));
+		}
+		
+		return template;
+	}
+	
+	/**
+	 * Gets every key in the catalog, in lower case.
+	 *
+	 * @return the keys
+	 */
+	public Set<String> getKeys() {
+		return values.keySet();
+	}
+	
+	/**
+	 * Gets the number of values in the catalog.
+	 *
+	 * @return the number of values
+	 */
+	public int size() {
+		return values.size();
+	}
+}
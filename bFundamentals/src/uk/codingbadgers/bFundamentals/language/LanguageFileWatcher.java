@@ -0,0 +1,144 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bFundamentals.language;
+
+import java.io.File;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls files for changes on a single background thread, used to reload
+ * language files while the server is running.
+ * <p>
+ * A file is considered changed when its modification time or length changes,
+ * the callback runs on the watcher thread.
+ */
+public class LanguageFileWatcher {
+
+	private static final LanguageFileWatcher instance = new LanguageFileWatcher(2000);
+	
+	private final long interval;
+	private ScheduledExecutorService executor = null;
+	private int watching = 0;
+	
+	/**
+	 * Instantiates a new watcher.
+	 *
+	 * @param interval the time between checks in milliseconds
+	 */
+	public LanguageFileWatcher(long interval) {
+		this.interval = interval;
+	}
+	
+	/**
+	 * Gets the watcher shared by every module.
+	 *
+	 * @return the shared watcher
+	 */
+	public static LanguageFileWatcher getInstance() {
+		return instance;
+	}
+	
+	/**
+	 * Starts watching a file.
+	 *
+	 * @param file the file to watch
+	 * @param callback run each time the file changes
+	 * @return the watch, cancel it to stop watching the file
+	 */
+	public synchronized Watch watch(File file, Runnable callback) {
+		if (executor == null) {
+			executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "bFundamentals language watcher");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		
+		Watch watch = new Watch(file, callback);
+		watch.future = executor.scheduleWithFixedDelay(watch, interval, interval, TimeUnit.MILLISECONDS);
+		watching++;
+		return watch;
+	}
+	
+	private synchronized void cancelled() {
+		// stop the thread when nothing is being watched so it can't outlive a reload
+		if (--watching == 0 && executor != null) {
+			executor.shutdown();
+			executor = null;
+		}
+	}
+	
+	/**
+	 * A file being watched.
+	 */
+	public final class Watch implements Runnable {
+		
+		private final File file;
+		private final Runnable callback;
+		private long lastModified;
+		private long length;
+		private ScheduledFuture<?> future;
+		private boolean cancelled = false;
+		
+		private Watch(File file, Runnable callback) {
+			this.file = file;
+			this.callback = callback;
+			this.lastModified = file.lastModified();
+			this.length = file.length();
+		}
+		
+		@Override
+		public void run() {
+			long modified = file.lastModified();
+			long size = file.length();
+			
+			if (modified == lastModified && size == length) {
+				return;
+			}
+			
+			lastModified = modified;
+			length = size;
+			
+			if (modified != 0) {
+				callback.run();
+			}
+		}
+		
+		/**
+		 * Stops watching the file.
+		 */
+		public void cancel() {
+			synchronized (LanguageFileWatcher.this) {
+				if (cancelled) {
+					return;
+				}
+				
+				cancelled = true;
+				future.cancel(false);
+				cancelled();
+			}
+		}
+	}
+}
@@ -0,0 +1,215 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bFundamentals.language;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.bukkit.ChatColor;
+
+/**
+ * A language value compiled into literal text and placeholders, so sending
+ * a message doesn't need to search or copy the value more than once.
+ * <p>
+ * Placeholders are written as {@code %name%} or {@code <<name>>}, names are
+ * matched ignoring case. Colour codes written with {@code &} are translated
+ * when the template is compiled.
+ */
+public final class MessageTemplate {
+
+	private final String text;
+	private final String[] literals;
+	private final String[] names;
+	private final String[] tokens;
+	private final int literalLength;
+	
+	private MessageTemplate(String text, String[] literals, String[] names, String[] tokens) {
+		this.text = text;
+		this.literals = literals;
+		this.names = names;
+		this.tokens = tokens;
+		
+		int length = 0;
+		for (String literal : literals) {
+			length += literal.length();
+		}
+		this.literalLength = length;
+	}
+	
+	/**
+	 * Compiles a language value into a template.
+	 *
+	 * @param value the language value
+	 * @return the template
+	 */
+	public static MessageTemplate compile(String value) {
+		String text = ChatColor.translateAlternateColorCodes('&', value);
+		List<String> literals = new ArrayList<String>();
+		List<String> names = new ArrayList<String>();
+		List<String> tokens = new ArrayList<String>();
+		
+		int start = 0;
+		int index = 0;
+		
+		while (index < text.length()) {
+			int end = -1;
+			int nameStart = 0;
+			int nameEnd = 0;
+			
+			if (text.charAt(index) == '%') {
+				nameStart = index + 1;
+				nameEnd = scanName(text, nameStart);
+				end = nameEnd < text.length() && nameEnd > nameStart && text.charAt(nameEnd) == '%' ? nameEnd + 1 : -1;
+			} else if (text.startsWith("<<", index)) {
+				nameStart = index + 2;
+				nameEnd = scanName(text, nameStart);
+				end = nameEnd > nameStart && text.startsWith(">>", nameEnd) ? nameEnd + 2 : -1;
+			}
+			
+			if (end == -1) {
+				index++;
+				continue;
+			}
+			
+			literals.add(text.substring(start, index));
+			names.add(text.substring(nameStart, nameEnd));
+			tokens.add(text.substring(index, end));
+			start = index = end;
+		}
+		
+		literals.add(text.substring(start));
+		return new MessageTemplate(text, literals.toArray(new String[literals.size()]), names.toArray(new String[names.size()]), tokens.toArray(new String[tokens.size()]));
+	}
+	
+	private static int scanName(String text, int index) {
+		while (index < text.length()) {
+			char c = text.charAt(index);
+			
+			if (!Character.isLetterOrDigit(c) && c != '_' && c != '-' && c != '.') {
+				break;
+			}
+			index++;
+		}
+		return index;
+	}
+	
+	/**
+	 * Gets the text of the template with its placeholders left in.
+	 *
+	 * @return the text
+	 */
+	public String getText() {
+		return text;
+	}
+	
+	/**
+	 * Checks if the template has any placeholders.
+	 *
+	 * @return true if the template has placeholders
+	 */
+	public boolean hasPlaceholders() {
+		return names.length != 0;
+	}
+	
+	/**
+	 * Gets the placeholder names in the order they appear.
+	 *
+	 * @return the placeholder names
+	 */
+	public String[] getPlaceholders() {
+		return names.clone();
+	}
+	
+	/**
+	 * Renders the template, placeholders without a value are left as they
+	 * are.
+	 *
+	 * @param values alternating placeholder names and values, for example
+	 *            {@code render("player", name, "amount", 5)}
+	 * @return the rendered message
+	 */
+	public String render(Object... values) {
+		if (names.length == 0) {
+			return text;
+		}
+		
+		StringBuilder builder = new StringBuilder(literalLength + names.length * 16);
+		builder.append(literals[0]);
+		
+		for (int i = 0; i < names.length; i++) {
+			Object value = find(names[i], values);
+			
+			if (value == null) {
+				builder.append(tokens[i]);
+			} else {
+				builder.append(value);
+			}
+			
+			builder.append(literals[i + 1]);
+		}
+		
+		return builder.toString();
+	}
+	
+	/**
+	 * Renders the template, placeholders without a value are left as they
+	 * are.
+	 *
+	 * @param values the placeholder values keyed by placeholder name, names
+	 *            must be lower case
+	 * @return the rendered message
+	 */
+	public String render(Map<String, ?> values) {
+		if (names.length == 0) {
+			return text;
+		}
+		
+		StringBuilder builder = new StringBuilder(literalLength + names.length * 16);
+		builder.append(literals[0]);
+		
+		for (int i = 0; i < names.length; i++) {
+			Object value = values.get(names[i]);
+			
+			if (value == null) {
+				value = values.get(names[i].toLowerCase());
+			}
+			
+			builder.append(value == null ? tokens[i] : value);
+			builder.append(literals[i + 1]);
+		}
+		
+		return builder.toString();
+	}
+	
+	private static Object find(String name, Object[] values) {
+		for (int i = 0; i + 1 < values.length; i += 2) {
+			Object key = values[i];
+			
+			if (key instanceof String && name.equalsIgnoreCase((String) key)) {
+				return values[i + 1] == null ? "null" : values[i + 1];
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public String toString() {
+		return text;
+	}
+}
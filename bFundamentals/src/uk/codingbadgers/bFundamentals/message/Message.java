@@ -9,6 +9,8 @@ import org.bukkit.Achievement;
 import org.bukkit.ChatColor;
 import org.bukkit.inventory.ItemStack;
 
+import uk.codingbadgers.bFundamentals.bFundamentals;
+
 import com.google.gson.JsonDeserializationContext;
 import com.google.gson.JsonDeserializer;
 import com.google.gson.JsonElement;
@@ -26,6 +28,9 @@ public class Message {
 	private ClickEvent clickevent;
 	private HoverEvent hoverevent;
 	
+	private int modifications = 0;
+	private volatile Encoded encoded = null;
+	
 	public Message() {
 		this("");
 	}
@@ -41,6 +46,7 @@ public class Message {
 	public void setColor(ChatColor color) {
 		Validate.isTrue(color.isColor(), "Cannot set color to a non color");
 		this.color = color;
+		modifications++;
 	}
 
 	public ChatColor getColor() {
@@ -50,6 +56,8 @@ public class Message {
 	public void addStyle(ChatColor color) {
 		Validate.isTrue(color.isFormat() || color == ChatColor.RESET, "Cannot add a color as a style");
 		
+		modifications++;
+		
 		if (color == ChatColor.RESET) {
 			styles.clear();
 			this.color = ChatColor.WHITE;
@@ -70,6 +78,7 @@ public class Message {
 	
 	public void addClickEvent(ClickEvent event) {
 		this.clickevent = event;
+		modifications++;
 	}
 	
 	public void addItemTooltip(ItemStack stack) {
@@ -87,6 +96,7 @@ public class Message {
 	
 	public void addHoverEvent(HoverEvent event) {
 		this.hoverevent = event;
+		modifications++;
 	}
 
 	public void addExtra(Message message) {
@@ -95,6 +105,49 @@ public class Message {
 		}
 		
 		this.extra.add(message);
+		modifications++;
+	}
+	
+	/**
+	 * Get the json form of this message, the json is cached until this
+	 * message or any of its extras are modified.
+	 * 
+	 * @return the json form of this message
+	 */
+	public String toJson() {
+		return getEncoded().json;
+	}
+	
+	/**
+	 * Get the cached encoded form of this message, re-encoding it if it or
+	 * any of its extras have been modified since it was last encoded.
+	 * 
+	 * @return the encoded message
+	 */
+	Encoded getEncoded() {
+		long stamp = getStamp();
+		Encoded current = encoded;
+		
+		if (current == null || current.stamp != stamp) {
+			current = new Encoded(stamp, bFundamentals.getGsonInstance().toJson(this));
+			encoded = current;
+		}
+		
+		return current;
+	}
+	
+	/**
+	 * Modification counts only ever go up, so the sum over the whole tree
+	 * changes whenever any message in it is modified.
+	 */
+	private long getStamp() {
+		long stamp = modifications;
+		
+		for (Message child : extra) {
+			stamp += child.getStamp();
+		}
+		
+		return stamp;
 	}
 
 	@Override
@@ -120,6 +173,24 @@ public class Message {
 		return obj instanceof Message && obj.hashCode() == hashCode();
 	}
 	
+	/**
+	 * The encoded form of a message, shared by every send of the message
+	 * until it is modified.
+	 */
+	static final class Encoded {
+		
+		final long stamp;
+		final String json;
+		
+		/** the chat component for this message, created on first send */
+		volatile Object component;
+		
+		Encoded(long stamp, String json) {
+			this.stamp = stamp;
+			this.json = json;
+		}
+	}
+	
 	public static class MessageSerializer implements JsonSerializer<Message>, JsonDeserializer<Message> {
 
 		@Override
@@ -0,0 +1,89 @@
+package uk.codingbadgers.bFundamentals.message;
+
+import java.util.Arrays;
+import java.util.logging.Level;
+
+import org.bukkit.entity.Player;
+
+import uk.codingbadgers.bFundamentals.bFundamentals;
+
+import com.comphenix.protocol.PacketType;
+import com.comphenix.protocol.ProtocolLibrary;
+import com.comphenix.protocol.ProtocolManager;
+import com.comphenix.protocol.events.PacketContainer;
+import com.comphenix.protocol.wrappers.WrappedChatComponent;
+
+/**
+ * Sends {@link Message}s to players as chat packets. A message is encoded
+ * to a single chat component the first time it is sent and that component is
+ * reused for every recipient and every later send until the message is
+ * modified. Each send gets its own packet, so packet listeners that modify a
+ * packet never affect another player's copy.
+ */
+public final class MessageSender {
+
+	private MessageSender() {
+	}
+	
+	/**
+	 * Send a message to a single player.
+	 * 
+	 * @param player the player
+	 * @param message the message
+	 */
+	public static void send(Player player, Message message) {
+		send(ProtocolLibrary.getProtocolManager(), player, getComponent(message));
+	}
+	
+	/**
+	 * Send a message to a group of players, the message is only encoded once
+	 * no matter how many players it is sent to.
+	 * 
+	 * @param players the players
+	 * @param message the message
+	 */
+	public static void broadcast(Iterable<? extends Player> players, Message message) {
+		WrappedChatComponent component = getComponent(message);
+		ProtocolManager manager = ProtocolLibrary.getProtocolManager();
+		
+		for (Player player : players) {
+			send(manager, player, component);
+		}
+	}
+	
+	/**
+	 * Send a message to a group of players, the message is only encoded once
+	 * no matter how many players it is sent to.
+	 * 
+	 * @param players the players
+	 * @param message the message
+	 */
+	public static void broadcast(Player[] players, Message message) {
+		broadcast(Arrays.asList(players), message);
+	}
+	
+	private static void send(ProtocolManager manager, Player player, WrappedChatComponent component) {
+		PacketContainer packet = manager.createPacket(PacketType.Play.Server.CHAT);
+		packet.getChatComponents().write(0, component);
+		
+		try {
+			manager.sendServerPacket(player, packet);
+		} catch (Exception ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+	
+	private static WrappedChatComponent getComponent(Message message) {
+		Message.Encoded encoded = message.getEncoded();
+		WrappedChatComponent component = (WrappedChatComponent) encoded.component;
+		
+		if (component == null) {
+			if (bFundamentals.getConfigurationManager().isDebugEnabled()) { bFundamentals.log(Level.INFO, encoded.json); }
+			
+			component = WrappedChatComponent.fromJson(encoded.json);
+			encoded.component = component;
+		}
+		
+		return component;
+	}
+}
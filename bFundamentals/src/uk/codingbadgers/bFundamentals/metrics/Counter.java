@@ -0,0 +1,57 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bFundamentals.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A count of how many times something happened, safe from any thread and
+ * never allocates.
+ */
+public class Counter implements Metric, CounterMBean {
+
+	private final AtomicLong count = new AtomicLong();
+	
+	/**
+	 * Adds one to the count.
+	 */
+	public void inc() {
+		count.incrementAndGet();
+	}
+	
+	/**
+	 * Adds to the count.
+	 *
+	 * @param amount the amount to add
+	 */
+	public void inc(long amount) {
+		count.addAndGet(amount);
+	}
+	
+	@Override
+	public long getCount() {
+		return count.get();
+	}
+	
+	/**
+	 * Resets the count to zero.
+	 */
+	public void reset() {
+		count.set(0);
+	}
+}
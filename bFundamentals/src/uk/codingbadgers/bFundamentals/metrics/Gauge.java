@@ -0,0 +1,32 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bFundamentals.metrics;
+
+/**
+ * A value read when the metrics are reported, such as the depth of a queue.
+ * Gauges are read from the JMX and snapshot threads so must be thread safe.
+ */
+public interface Gauge extends Metric {
+
+	/**
+	 * Gets the current value.
+	 *
+	 * @return the value
+	 */
+	public long getValue();
+}
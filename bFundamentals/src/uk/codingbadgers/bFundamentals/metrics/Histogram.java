@@ -0,0 +1,207 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bFundamentals.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of non negative values, records how many values there were,
+ * their sum and maximum and how they are distributed.
+ * <p>
+ * The histogram has four buckets per power of two, so the percentiles it
+ * reports are within 25% of the real value. Recording never locks, never
+ * allocates and is safe from any thread.
+ */
+public class Histogram implements Metric, HistogramMBean {
+
+	private static final int SUB_BUCKETS = 4;
+	private static final int BUCKETS = 62 * SUB_BUCKETS;
+	
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong total = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+	
+	/**
+	 * Records a value, negative values are recorded as zero.
+	 *
+	 * @param value the value
+	 */
+	public void update(long value) {
+		if (value < 0) {
+			value = 0;
+		}
+		
+		count.incrementAndGet();
+		total.addAndGet(value);
+		buckets.incrementAndGet(bucket(value));
+		
+		long current;
+		while (value > (current = max.get())) {
+			if (max.compareAndSet(current, value)) {
+				break;
+			}
+		}
+	}
+	
+	@Override
+	public long getCount() {
+		return count.get();
+	}
+	
+	@Override
+	public long getSum() {
+		return total.get();
+	}
+	
+	@Override
+	public long getMax() {
+		return max.get();
+	}
+	
+	@Override
+	public long getMean() {
+		long values = count.get();
+		return values == 0 ? 0 : total.get() / values;
+	}
+	
+	@Override
+	public long get50thPercentile() {
+		return getPercentile(0.5);
+	}
+	
+	@Override
+	public long get99thPercentile() {
+		return getPercentile(0.99);
+	}
+	
+	/**
+	 * Gets an approximate percentile of the values recorded.
+	 *
+	 * @param percentile the percentile, between 0 and 1
+	 * @return the percentile, or 0 if nothing has been recorded
+	 */
+	public long getPercentile(double percentile) {
+		return percentile(snapshot(), percentile, getMax());
+	}
+	
+	/**
+	 * Resets the histogram.
+	 */
+	public void reset() {
+		count.set(0);
+		total.set(0);
+		max.set(0);
+		
+		for (int i = 0; i < BUCKETS; i++) {
+			buckets.set(i, 0);
+		}
+	}
+	
+	/**
+	 * Copies the bucket counts, so histograms can be merged.
+	 *
+	 * @return the bucket counts
+	 */
+	public long[] snapshot() {
+		long[] values = new long[BUCKETS];
+		
+		for (int i = 0; i < BUCKETS; i++) {
+			values[i] = buckets.get(i);
+		}
+		
+		return values;
+	}
+	
+	/**
+	 * Adds one set of bucket counts to another.
+	 *
+	 * @param into the bucket counts to add to
+	 * @param values the bucket counts to add
+	 * @return the merged bucket counts
+	 */
+	public static long[] merge(long[] into, long[] values) {
+		for (int i = 0; i < BUCKETS; i++) {
+			into[i] += values[i];
+		}
+		return into;
+	}
+	
+	/**
+	 * Creates a set of empty bucket counts.
+	 *
+	 * @return the empty bucket counts
+	 */
+	public static long[] emptySnapshot() {
+		return new long[BUCKETS];
+	}
+	
+	/**
+	 * Gets an approximate percentile from a set of bucket counts.
+	 *
+	 * @param values the bucket counts
+	 * @param percentile the percentile, between 0 and 1
+	 * @param max the largest value recorded
+	 * @return the percentile, or 0 if the buckets are empty
+	 */
+	public static long percentile(long[] values, double percentile, long max) {
+		long count = 0;
+		for (long value : values) {
+			count += value;
+		}
+		
+		if (count == 0) {
+			return 0;
+		}
+		
+		long rank = Math.max(1, (long) Math.ceil(percentile * count));
+		long seen = 0;
+		
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += values[i];
+			
+			if (seen >= rank) {
+				return Math.min(upperBound(i), max);
+			}
+		}
+		
+		return max;
+	}
+	
+	static int bucket(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int sub = (int) (value >>> (exponent - 2)) & (SUB_BUCKETS - 1);
+		return Math.min((exponent - 1) * SUB_BUCKETS + sub, BUCKETS - 1);
+	}
+	
+	static long upperBound(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		
+		int exponent = bucket / SUB_BUCKETS + 1;
+		long width = 1L << (exponent - 2);
+		long lower = (SUB_BUCKETS + bucket % SUB_BUCKETS) * width;
+		return lower + width - 1;
+	}
+}
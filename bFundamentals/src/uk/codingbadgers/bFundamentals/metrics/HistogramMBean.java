@@ -0,0 +1,66 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bFundamentals.metrics;
+
+/**
+ * The JMX view of a {@link Histogram}.
+ */
+public interface HistogramMBean {
+
+	/**
+	 * Gets the number of values recorded.
+	 *
+	 * @return the count
+	 */
+	public long getCount();
+	
+	/**
+	 * Gets the sum of every value recorded.
+	 *
+	 * @return the sum
+	 */
+	public long getSum();
+	
+	/**
+	 * Gets the largest value recorded.
+	 *
+	 * @return the maximum
+	 */
+	public long getMax();
+	
+	/**
+	 * Gets the mean of the values recorded.
+	 *
+	 * @return the mean
+	 */
+	public long getMean();
+	
+	/**
+	 * Gets the approximate median of the values recorded.
+	 *
+	 * @return the median
+	 */
+	public long get50thPercentile();
+	
+	/**
+	 * Gets the approximate 99th percentile of the values recorded.
+	 *
+	 * @return the 99th percentile
+	 */
+	public long get99thPercentile();
+}
@@ -0,0 +1,70 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bFundamentals.metrics;
+
+/**
+ * The metrics of a single module, every metric created through a group is
+ * named after it and is removed with it when the module is unloaded.
+ */
+public class MetricGroup {
+
+	private final String name;
+	
+	MetricGroup(String name) {
+		this.name = name;
+	}
+	
+	/**
+	 * Gets the name of the group.
+	 *
+	 * @return the group name
+	 */
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * Gets a counter in this group, creating it if needed.
+	 *
+	 * @param metric the name of the counter
+	 * @return the counter
+	 */
+	public Counter counter(String metric) {
+		return Metrics.counter(name, metric);
+	}
+	
+	/**
+	 * Gets a histogram in this group, creating it if needed.
+	 *
+	 * @param metric the name of the histogram
+	 * @return the histogram
+	 */
+	public Histogram histogram(String metric) {
+		return Metrics.histogram(name, metric);
+	}
+	
+	/**
+	 * Registers a gauge in this group, replacing any gauge with the same name.
+	 *
+	 * @param metric the name of the gauge
+	 * @param gauge the gauge
+	 */
+	public void gauge(String metric, Gauge gauge) {
+		Metrics.gauge(name, metric, gauge);
+	}
+}
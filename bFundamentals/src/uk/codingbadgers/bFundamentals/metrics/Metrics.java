@@ -0,0 +1,406 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bFundamentals.metrics;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import uk.codingbadgers.bFundamentals.bFundamentals;
+
+/**
+ * The registry of counters, gauges and histograms, metrics are grouped by the
+ * module they belong to.
+ * <p>
+ * Metrics can be exported over JMX under {@value #DOMAIN} and written to a
+ * text file on a fixed period. Looking a metric up builds its key, so hot
+ * paths should look it up once and keep it.
+ */
+public final class Metrics {
+
+	/** The JMX domain metrics are exported under. */
+	public static final String DOMAIN = "uk.codingbadgers.bFundamentals";
+	
+	private static final ConcurrentMap<String, Registered> metrics = new ConcurrentHashMap<String, Registered>();
+	private static final ConcurrentMap<String, MetricGroup> groups = new ConcurrentHashMap<String, MetricGroup>();
+	
+	private static MBeanServer server = null;
+	private static ScheduledExecutorService writer = null;
+	
+	private Metrics() {
+	}
+	
+	/**
+	 * Gets the metrics of a module, or any other named group.
+	 *
+	 * @param group the name of the group
+	 * @return the metric group
+	 */
+	public static MetricGroup getGroup(String group) {
+		MetricGroup existing = groups.get(group);
+		
+		if (existing == null) {
+			MetricGroup created = new MetricGroup(group);
+			existing = groups.putIfAbsent(group, created);
+			
+			if (existing == null) {
+				existing = created;
+			}
+		}
+		
+		return existing;
+	}
+	
+	/**
+	 * Gets a counter, creating it if needed.
+	 *
+	 * @param group the name of the group the counter belongs to
+	 * @param name the name of the counter
+	 * @return the counter
+	 */
+	public static Counter counter(String group, String name) {
+		Metric metric = getOrCreate(group, name, Counter.class);
+		return metric == null ? (Counter) register(group, name, new Counter(), false) : (Counter) metric;
+	}
+	
+	/**
+	 * Gets a histogram, creating it if needed.
+	 *
+	 * @param group the name of the group the histogram belongs to
+	 * @param name the name of the histogram
+	 * @return the histogram
+	 */
+	public static Histogram histogram(String group, String name) {
+		Metric metric = getOrCreate(group, name, Histogram.class);
+		return metric == null ? (Histogram) register(group, name, new Histogram(), false) : (Histogram) metric;
+	}
+	
+	/**
+	 * Registers a gauge, replacing any gauge with the same name.
+	 *
+	 * @param group the name of the group the gauge belongs to
+	 * @param name the name of the gauge
+	 * @param gauge the gauge
+	 */
+	public static void gauge(String group, String name, Gauge gauge) {
+		Metric metric = getOrCreate(group, name, Gauge.class);
+		register(group, name, gauge, metric != null);
+	}
+	
+	/**
+	 * Gets a metric.
+	 *
+	 * @param group the name of the group the metric belongs to
+	 * @param name the name of the metric
+	 * @return the metric, or null if there isn't one
+	 */
+	public static Metric getMetric(String group, String name) {
+		Registered registered = metrics.get(key(group, name));
+		return registered == null ? null : registered.metric;
+	}
+	
+	/**
+	 * Gets every metric, sorted by name.
+	 *
+	 * @return the metrics keyed by group and name
+	 */
+	public static Map<String, Metric> getMetrics() {
+		Map<String, Metric> sorted = new TreeMap<String, Metric>();
+		
+		for (Map.Entry<String, Registered> entry : metrics.entrySet()) {
+			sorted.put(entry.getKey(), entry.getValue().metric);
+		}
+		
+		return Collections.unmodifiableMap(sorted);
+	}
+	
+	/**
+	 * Removes every metric in a group, called when a module is unloaded so
+	 * its gauges don't keep it loaded.
+	 *
+	 * @param group the name of the group
+	 */
+	public static void remove(String group) {
+		groups.remove(group);
+		
+		for (Registered registered : metrics.values()) {
+			if (registered.group.equals(group) && metrics.remove(key(registered.group, registered.name), registered)) {
+				unexport(registered);
+			}
+		}
+	}
+	
+	private static Metric getOrCreate(String group, String name, Class<? extends Metric> type) {
+		Registered registered = metrics.get(key(group, name));
+		
+		if (registered == null) {
+			return null;
+		}
+		
+		if (!type.isInstance(registered.metric)) {
+			throw new IllegalArgumentException("Metric " + key(group, name) + " is a " + registered.metric.getClass().getSimpleName() + " not a " + type.getSimpleName());
+		}
+		
+		return registered.metric;
+	}
+	
+	private static Metric register(String group, String name, Metric metric, boolean replace) {
+		String key = key(group, name);
+		Registered created = new Registered(group, name, metric);
+		Registered previous;
+		
+		if (replace) {
+			previous = metrics.put(key, created);
+			if (previous != null) {
+				unexport(previous);
+			}
+		} else {
+			previous = metrics.putIfAbsent(key, created);
+			if (previous != null) {
+				// another thread created it first
+				return previous.metric;
+			}
+		}
+		
+		export(created);
+		return metric;
+	}
+	
+	private static String key(String group, String name) {
+		return group + '.' + name;
+	}
+	
+	/**
+	 * Enables or disables exporting metrics over JMX.
+	 *
+	 * @param enabled true to export metrics
+	 */
+	public static synchronized void setJmxEnabled(boolean enabled) {
+		if (enabled == (server != null)) {
+			return;
+		}
+		
+		if (enabled) {
+			server = ManagementFactory.getPlatformMBeanServer();
+			
+			for (Registered registered : metrics.values()) {
+				export(registered);
+			}
+		} else {
+			for (Registered registered : metrics.values()) {
+				unexport(registered);
+			}
+			
+			server = null;
+		}
+	}
+	
+	/**
+	 * Checks if metrics are exported over JMX.
+	 *
+	 * @return true if metrics are exported
+	 */
+	public static synchronized boolean isJmxEnabled() {
+		return server != null;
+	}
+	
+	private static synchronized void export(Registered registered) {
+		if (server == null || registered.objectName != null) {
+			return;
+		}
+		
+		try {
+			ObjectName objectName = new ObjectName(DOMAIN + ":type=Metrics,group=" + ObjectName.quote(registered.group) + ",name=" + ObjectName.quote(registered.name));
+			
+			if (server.isRegistered(objectName)) {
+				server.unregisterMBean(objectName);
+			}
+			
+			server.registerMBean(managed(registered.metric), objectName);
+			registered.objectName = objectName;
+		} catch (JMException e) {
+			bFundamentals.log(Level.WARNING, "Could not export metric " + key(registered.group, registered.name), e);
+		}
+	}
+	
+	private static synchronized void unexport(Registered registered) {
+		if (server == null || registered.objectName == null) {
+			return;
+		}
+		
+		try {
+			server.unregisterMBean(registered.objectName);
+		} catch (JMException e) {
+			// already gone
+		}
+		
+		registered.objectName = null;
+	}
+	
+	private static Object managed(Metric metric) throws NotCompliantMBeanException {
+		if (metric instanceof Gauge) {
+			return new StandardMBean((Gauge) metric, Gauge.class);
+		} else if (metric instanceof Histogram) {
+			return new StandardMBean((Histogram) metric, HistogramMBean.class);
+		}
+		return new StandardMBean((Counter) metric, CounterMBean.class);
+	}
+	
+	/**
+	 * Builds a report of every metric, one line per metric sorted by name.
+	 *
+	 * @return the report lines
+	 */
+	public static List<String> report() {
+		List<String> lines = new ArrayList<String>();
+		
+		for (Map.Entry<String, Metric> entry : getMetrics().entrySet()) {
+			Metric metric = entry.getValue();
+			String value;
+			
+			if (metric instanceof Gauge) {
+				try {
+					value = "value=" + ((Gauge) metric).getValue();
+				} catch (RuntimeException e) {
+					value = "value=error";
+				}
+			} else if (metric instanceof Histogram) {
+				Histogram histogram = (Histogram) metric;
+				value = "count=" + histogram.getCount() + " mean=" + histogram.getMean() + " max=" + histogram.getMax() + " p50=" + histogram.get50thPercentile() + " p99=" + histogram.get99thPercentile();
+			} else {
+				value = "count=" + ((Counter) metric).getCount();
+			}
+			
+			lines.add(entry.getKey() + ": " + value);
+		}
+		
+		return lines;
+	}
+	
+	/**
+	 * Writes the report to a file, the file is replaced in one step so
+	 * readers never see a partly written report.
+	 *
+	 * @param file the file to write to
+	 * @throws IOException if the file could not be written
+	 */
+	public static void export(File file) throws IOException {
+		if (file.getParentFile() != null) {
+			file.getParentFile().mkdirs();
+		}
+		
+		File temp = new File(file.getPath() + ".tmp");
+		PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(temp), "UTF-8"));
+		
+		try {
+			writer.println("# " + new Date());
+			for (String line : report()) {
+				writer.println(line);
+			}
+		} finally {
+			writer.close();
+		}
+		
+		if (writer.checkError()) {
+			temp.delete();
+			throw new IOException("Could not write metrics to " + file.getPath());
+		}
+		
+		if ((file.exists() && !file.delete()) || !temp.renameTo(file)) {
+			temp.delete();
+			throw new IOException("Could not replace " + file.getPath());
+		}
+	}
+	
+	/**
+	 * Starts writing the report to a file on a fixed period, replaces any
+	 * snapshots already being written.
+	 *
+	 * @param file the file to write to
+	 * @param period the period in seconds
+	 */
+	public static synchronized void startSnapshots(final File file, long period) {
+		stopSnapshots();
+		
+		writer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "bFundamentals metrics writer");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		
+		writer.scheduleAtFixedRate(new Runnable() {
+			public void run() {
+				try {
+					export(file);
+				} catch (IOException e) {
+					bFundamentals.log(Level.WARNING, "Could not write metrics snapshot", e);
+				}
+			}
+		}, period, period, TimeUnit.SECONDS);
+	}
+	
+	/**
+	 * Stops writing snapshots.
+	 */
+	public static synchronized void stopSnapshots() {
+		if (writer == null) {
+			return;
+		}
+		
+		writer.shutdownNow();
+		writer = null;
+	}
+	
+	private static final class Registered {
+		
+		final String group;
+		final String name;
+		final Metric metric;
+		ObjectName objectName;
+		
+		Registered(String group, String name, Metric metric) {
+			this.group = group;
+			this.name = name;
+			this.metric = metric;
+		}
+	}
+}
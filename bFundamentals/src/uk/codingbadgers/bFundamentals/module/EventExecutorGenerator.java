@@ -0,0 +1,416 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bFundamentals.module;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bukkit.event.Event;
+import org.bukkit.event.EventException;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.EventExecutor;
+
+/**
+ * Generates an {@link EventExecutor} class per event handler which calls the
+ * handler directly instead of through {@link Method#invoke}.
+ * <p>
+ * Each generated executor is equivalent to
+ * <pre>
+ * public void execute(Listener listener, Event event) throws EventException {
+ *     if (!(event instanceof HandlerEvent)) {
+ *         return;
+ *     }
+ *     try {
+ *         ((HandlerListener) listener).handler((HandlerEvent) event);
+ *     } catch (Throwable ex) {
+ *         throw new EventException(ex);
+ *     }
+ * }
+ * </pre>
+ * Executors can only be generated for public handlers on public classes, the
+ * generated class lives in its own class loader and can't see anything else.
+ * Executors for a listener share a class loader which is a child of the
+ * listener's class loader, so they are released along with the listener.
+ */
+public final class EventExecutorGenerator {
+
+	private static final String PACKAGE = "uk/codingbadgers/bFundamentals/module/generated/";
+	private static final AtomicInteger counter = new AtomicInteger();
+	
+	private final ExecutorClassLoader loader;
+	
+	/**
+	 * Instantiates a new generator for the handlers of a listener class.
+	 *
+	 * @param listenerClass the listener class
+	 */
+	public EventExecutorGenerator(Class<?> listenerClass) {
+		ClassLoader parent = listenerClass.getClassLoader();
+		this.loader = new ExecutorClassLoader(parent == null ? EventExecutorGenerator.class.getClassLoader() : parent);
+	}
+	
+	/**
+	 * Checks if an executor can be generated for a handler.
+	 *
+	 * @param method the handler method
+	 * @return true if the handler can be called from a generated executor
+	 */
+	public boolean canGenerate(Method method) {
+		Class<?>[] parameters = method.getParameterTypes();
+		
+		return parameters.length == 1
+				&& Event.class.isAssignableFrom(parameters[0])
+				&& Modifier.isPublic(method.getModifiers())
+				&& isAccessible(method.getDeclaringClass())
+				&& isAccessible(parameters[0]);
+	}
+	
+	private boolean isAccessible(Class<?> clazz) {
+		for (Class<?> current = clazz; current != null; current = current.getDeclaringClass()) {
+			if (!Modifier.isPublic(current.getModifiers())) {
+				return false;
+			}
+		}
+		
+		// the generated class must resolve the name to the very same class
+		try {
+			return Class.forName(clazz.getName(), false, loader) == clazz;
+		} catch (ClassNotFoundException ex) {
+			return false;
+		} catch (LinkageError ex) {
+			return false;
+		}
+	}
+	
+	/**
+	 * Generates an executor for a handler.
+	 *
+	 * @param eventClass the class of event the handler accepts
+	 * @param method the handler method
+	 * @return the generated executor
+	 * @throws IllegalArgumentException if the handler can't be called from a
+	 *             generated executor, check {@link #canGenerate(Method)} first
+	 */
+	public EventExecutor generate(Class<? extends Event> eventClass, Method method) {
+		if (!canGenerate(method) || !isAccessible(eventClass)) {
+			throw new IllegalArgumentException("Cannot generate an executor for " + method.toGenericString());
+		}
+		
+		String name = PACKAGE + "Executor" + counter.incrementAndGet();
+		
+		try {
+			byte[] bytes = new ExecutorWriter(name, eventClass, method).write();
+			Class<?> clazz = loader.define(name.replace('/', '.'), bytes);
+			return clazz.asSubclass(EventExecutor.class).newInstance();
+		} catch (IOException ex) {
+			throw new IllegalArgumentException("Cannot generate an executor for " + method.toGenericString(), ex);
+		} catch (InstantiationException ex) {
+			throw new IllegalArgumentException("Cannot generate an executor for " + method.toGenericString(), ex);
+		} catch (IllegalAccessException ex) {
+			throw new IllegalArgumentException("Cannot generate an executor for " + method.toGenericString(), ex);
+		}
+	}
+	
+	private static String internalName(Class<?> clazz) {
+		return clazz.getName().replace('.', '/');
+	}
+	
+	private static String descriptor(Class<?> clazz) {
+		if (clazz.isArray()) {
+			return internalName(clazz);
+		}
+		if (clazz == Void.TYPE) {
+			return "V";
+		}
+		if (clazz == Boolean.TYPE) {
+			return "Z";
+		}
+		if (clazz == Byte.TYPE) {
+			return "B";
+		}
+		if (clazz == Character.TYPE) {
+			return "C";
+		}
+		if (clazz == Short.TYPE) {
+			return "S";
+		}
+		if (clazz == Integer.TYPE) {
+			return "I";
+		}
+		if (clazz == Long.TYPE) {
+			return "J";
+		}
+		if (clazz == Float.TYPE) {
+			return "F";
+		}
+		if (clazz == Double.TYPE) {
+			return "D";
+		}
+		return "L" + internalName(clazz) + ";";
+	}
+	
+	private static final class ExecutorClassLoader extends ClassLoader {
+		
+		ExecutorClassLoader(ClassLoader parent) {
+			super(parent);
+		}
+		
+		Class<?> define(String name, byte[] bytes) {
+			return defineClass(name, bytes, 0, bytes.length);
+		}
+	}
+	
+	/**
+	 * Writes the class file of a single executor. The class file targets java
+	 * 5 so it doesn't need a stack map table.
+	 */
+	private static final class ExecutorWriter {
+		
+		private static final int ACC_PUBLIC = 0x0001;
+		private static final int ACC_FINAL = 0x0010;
+		private static final int ACC_SUPER = 0x0020;
+		
+		private static final int ALOAD_0 = 0x2a;
+		private static final int ALOAD_1 = 0x2b;
+		private static final int ALOAD_2 = 0x2c;
+		private static final int ALOAD_3 = 0x2d;
+		private static final int ASTORE_3 = 0x4e;
+		private static final int POP = 0x57;
+		private static final int POP2 = 0x58;
+		private static final int DUP = 0x59;
+		private static final int IFNE = 0x9a;
+		private static final int RETURN = 0xb1;
+		private static final int INVOKEVIRTUAL = 0xb6;
+		private static final int INVOKESPECIAL = 0xb7;
+		private static final int INVOKESTATIC = 0xb8;
+		private static final int INVOKEINTERFACE = 0xb9;
+		private static final int NEW = 0xbb;
+		private static final int ATHROW = 0xbf;
+		private static final int CHECKCAST = 0xc0;
+		private static final int INSTANCEOF = 0xc1;
+		
+		private final String name;
+		private final Class<? extends Event> eventClass;
+		private final Method method;
+		
+		private final List<Object[]> constants = new ArrayList<Object[]>();
+		private final Map<String, Integer> constantIndex = new HashMap<String, Integer>();
+		
+		ExecutorWriter(String name, Class<? extends Event> eventClass, Method method) {
+			this.name = name;
+			this.eventClass = eventClass;
+			this.method = method;
+		}
+		
+		byte[] write() throws IOException {
+			Class<?> owner = method.getDeclaringClass();
+			boolean isStatic = Modifier.isStatic(method.getModifiers());
+			boolean isInterface = owner.isInterface();
+			Class<?> returnType = method.getReturnType();
+			
+			int thisClass = classRef(name);
+			int superClass = classRef("java/lang/Object");
+			int executorInterface = classRef(internalName(EventExecutor.class));
+			int objectInit = methodRef(false, "java/lang/Object", "<init>", "()V");
+			int ownerClass = classRef(internalName(owner));
+			int eventType = classRef(internalName(eventClass));
+			int parameterType = classRef(internalName(method.getParameterTypes()[0]));
+			int handler = methodRef(isInterface, internalName(owner), method.getName(), "(" + descriptor(method.getParameterTypes()[0]) + ")" + descriptor(returnType));
+			int exceptionClass = classRef(internalName(EventException.class));
+			int exceptionInit = methodRef(false, internalName(EventException.class), "<init>", "(Ljava/lang/Throwable;)V");
+			int initName = utf8("<init>");
+			int initDescriptor = utf8("()V");
+			int executeName = utf8("execute");
+			int executeDescriptor = utf8("(" + descriptor(Listener.class) + descriptor(Event.class) + ")V");
+			int code = utf8("Code");
+			int exceptions = utf8("Exceptions");
+			
+			// constructor, calls super()
+			ByteArrayOutputStream init = new ByteArrayOutputStream();
+			DataOutputStream initOut = new DataOutputStream(init);
+			initOut.writeByte(ALOAD_0);
+			initOut.writeByte(INVOKESPECIAL);
+			initOut.writeShort(objectInit);
+			initOut.writeByte(RETURN);
+			
+			// execute, checks the event type then calls the handler
+			ByteArrayOutputStream execute = new ByteArrayOutputStream();
+			DataOutputStream executeOut = new DataOutputStream(execute);
+			executeOut.writeByte(ALOAD_2);
+			executeOut.writeByte(INSTANCEOF);
+			executeOut.writeShort(eventType);
+			executeOut.writeByte(IFNE);
+			executeOut.writeShort(4);
+			executeOut.writeByte(RETURN);
+			
+			int tryStart = execute.size();
+			if (!isStatic) {
+				executeOut.writeByte(ALOAD_1);
+				executeOut.writeByte(CHECKCAST);
+				executeOut.writeShort(ownerClass);
+			}
+			executeOut.writeByte(ALOAD_2);
+			executeOut.writeByte(CHECKCAST);
+			executeOut.writeShort(parameterType);
+			
+			if (isStatic) {
+				executeOut.writeByte(INVOKESTATIC);
+				executeOut.writeShort(handler);
+			} else if (isInterface) {
+				executeOut.writeByte(INVOKEINTERFACE);
+				executeOut.writeShort(handler);
+				executeOut.writeByte(2);
+				executeOut.writeByte(0);
+			} else {
+				executeOut.writeByte(INVOKEVIRTUAL);
+				executeOut.writeShort(handler);
+			}
+			
+			if (returnType == Long.TYPE || returnType == Double.TYPE) {
+				executeOut.writeByte(POP2);
+			} else if (returnType != Void.TYPE) {
+				executeOut.writeByte(POP);
+			}
+			int tryEnd = execute.size();
+			executeOut.writeByte(RETURN);
+			
+			int handlerStart = execute.size();
+			executeOut.writeByte(ASTORE_3);
+			executeOut.writeByte(NEW);
+			executeOut.writeShort(exceptionClass);
+			executeOut.writeByte(DUP);
+			executeOut.writeByte(ALOAD_3);
+			executeOut.writeByte(INVOKESPECIAL);
+			executeOut.writeShort(exceptionInit);
+			executeOut.writeByte(ATHROW);
+			
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+			
+			out.writeInt(0xCAFEBABE);
+			out.writeShort(0);
+			out.writeShort(49);
+			writeConstants(out);
+			
+			out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+			out.writeShort(thisClass);
+			out.writeShort(superClass);
+			out.writeShort(1);
+			out.writeShort(executorInterface);
+			out.writeShort(0);
+			
+			out.writeShort(2);
+			
+			out.writeShort(ACC_PUBLIC);
+			out.writeShort(initName);
+			out.writeShort(initDescriptor);
+			out.writeShort(1);
+			writeCode(out, code, 1, 1, init.toByteArray(), null);
+			
+			out.writeShort(ACC_PUBLIC);
+			out.writeShort(executeName);
+			out.writeShort(executeDescriptor);
+			out.writeShort(2);
+			writeCode(out, code, 3, 4, execute.toByteArray(), new int[] { tryStart, tryEnd, handlerStart });
+			out.writeShort(exceptions);
+			out.writeInt(4);
+			out.writeShort(1);
+			out.writeShort(exceptionClass);
+			
+			out.writeShort(0);
+			out.flush();
+			return bytes.toByteArray();
+		}
+		
+		private void writeCode(DataOutputStream out, int attribute, int maxStack, int maxLocals, byte[] code, int[] handler) throws IOException {
+			out.writeShort(attribute);
+			out.writeInt(12 + code.length + (handler == null ? 0 : 8));
+			out.writeShort(maxStack);
+			out.writeShort(maxLocals);
+			out.writeInt(code.length);
+			out.write(code);
+			
+			if (handler == null) {
+				out.writeShort(0);
+			} else {
+				out.writeShort(1);
+				out.writeShort(handler[0]);
+				out.writeShort(handler[1]);
+				out.writeShort(handler[2]);
+				out.writeShort(0); // catch any throwable
+			}
+			
+			out.writeShort(0);
+		}
+		
+		private void writeConstants(DataOutputStream out) throws IOException {
+			out.writeShort(constants.size() + 1);
+			
+			for (Object[] constant : constants) {
+				int tag = (Integer) constant[0];
+				out.writeByte(tag);
+				
+				if (tag == 1) {
+					out.writeUTF((String) constant[1]);
+				} else if (tag == 7) {
+					out.writeShort((Integer) constant[1]);
+				} else {
+					out.writeShort((Integer) constant[1]);
+					out.writeShort((Integer) constant[2]);
+				}
+			}
+		}
+		
+		private int constant(String key, Object... value) {
+			Integer index = constantIndex.get(key);
+			
+			if (index == null) {
+				constants.add(value);
+				index = constants.size();
+				constantIndex.put(key, index);
+			}
+			
+			return index;
+		}
+		
+		private int utf8(String value) {
+			return constant("utf8:" + value, 1, value);
+		}
+		
+		private int classRef(String internalName) {
+			return constant("class:" + internalName, 7, utf8(internalName));
+		}
+		
+		private int nameAndType(String name, String descriptor) {
+			return constant("nat:" + name + ":" + descriptor, 12, utf8(name), utf8(descriptor));
+		}
+		
+		private int methodRef(boolean isInterface, String owner, String name, String descriptor) {
+			int tag = isInterface ? 11 : 10;
+			return constant("method:" + tag + ":" + owner + "." + name + descriptor, tag, classRef(owner), nameAndType(name, descriptor));
+		}
+	}
+}
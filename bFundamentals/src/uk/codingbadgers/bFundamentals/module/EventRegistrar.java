@@ -0,0 +1,171 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bFundamentals.module;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.logging.Level;
+
+import org.bukkit.event.Event;
+import org.bukkit.event.EventException;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.EventExecutor;
+import org.bukkit.plugin.IllegalPluginAccessException;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.RegisteredListener;
+
+import uk.codingbadgers.bFundamentals.bFundamentals;
+import uk.codingbadgers.bFundamentals.timings.TimedEventExecutor;
+import uk.codingbadgers.bFundamentals.timings.Timings;
+import uk.codingbadgers.bFundamentals.timings.TimingType;
+
+/**
+ * Registers module listeners with bukkit, every event handler gets its own
+ * executor wrapped in a {@link TimedEventExecutor} so its time can be
+ * reported per module.
+ * <p>
+ * Handlers are called through executors made by an
+ * {@link EventExecutorGenerator} rather than by reflection, handlers that
+ * can't be called from a generated executor fall back to reflection.
+ * Handlers are found the same way bukkit finds them, so priority and
+ * ignoreCancelled behave exactly as they would for a plugin listener.
+ */
+public final class EventRegistrar {
+
+	private EventRegistrar() {
+	}
+	
+	/**
+	 * Registers every event handler in a listener on behalf of a module.
+	 *
+	 * @param module the module the listener belongs to
+	 * @param plugin the plugin to register the handlers under
+	 * @param listener the listener
+	 */
+	public static void register(Module module, Plugin plugin, Listener listener) {
+		EventExecutorGenerator generator = new EventExecutorGenerator(listener.getClass());
+		
+		for (Method method : getHandlers(listener.getClass())) {
+			EventHandler handler = method.getAnnotation(EventHandler.class);
+			Class<? extends Event> eventClass = method.getParameterTypes()[0].asSubclass(Event.class);
+			
+			String name = Timings.nameOf(listener.getClass()) + "#" + method.getName() + "(" + eventClass.getSimpleName() + ")";
+			EventExecutor executor = new TimedEventExecutor(Timings.getTiming(module.getName(), TimingType.LISTENER, name), createExecutor(generator, eventClass, method));
+			
+			getHandlerList(eventClass).register(new RegisteredListener(listener, executor, handler.priority(), plugin, handler.ignoreCancelled()));
+		}
+	}
+	
+	private static Set<Method> getHandlers(Class<?> clazz) {
+		Set<Method> methods = new LinkedHashSet<Method>();
+		Set<Method> handlers = new LinkedHashSet<Method>();
+		
+		try {
+			for (Method method : clazz.getMethods()) {
+				methods.add(method);
+			}
+			for (Method method : clazz.getDeclaredMethods()) {
+				methods.add(method);
+			}
+		} catch (NoClassDefFoundError ex) {
+			throw new IllegalPluginAccessException("Listener " + clazz.getName() + " references a class that does not exist, " + ex.getMessage());
+		}
+		
+		for (Method method : methods) {
+			if (method.getAnnotation(EventHandler.class) == null || method.isBridge() || method.isSynthetic()) {
+				continue;
+			}
+			
+			Class<?>[] parameters = method.getParameterTypes();
+			if (parameters.length != 1 || !Event.class.isAssignableFrom(parameters[0])) {
+				bFundamentals.log(Level.SEVERE, clazz.getName() + " attempted to register an invalid EventHandler method signature \"" + method.toGenericString() + "\"");
+				continue;
+			}
+			
+			method.setAccessible(true);
+			handlers.add(method);
+		}
+		
+		return handlers;
+	}
+	
+	private static EventExecutor createExecutor(EventExecutorGenerator generator, Class<? extends Event> eventClass, Method method) {
+		if (generator.canGenerate(method)) {
+			try {
+				return generator.generate(eventClass, method);
+			} catch (Throwable ex) {
+				bFundamentals.log(Level.WARNING, "Could not generate an event executor for " + method.toGenericString() + ", falling back to reflection", ex);
+			}
+		}
+		
+		return createReflectiveExecutor(eventClass, method);
+	}
+	
+	/**
+	 * Creates an executor which calls a handler by reflection, the same way
+	 * bukkit's own executors do.
+	 *
+	 * @param eventClass the class of event the handler accepts
+	 * @param method the handler method
+	 * @return the executor
+	 */
+	public static EventExecutor createReflectiveExecutor(final Class<? extends Event> eventClass, final Method method) {
+		return new EventExecutor() {
+			@Override
+			public void execute(Listener listener, Event event) throws EventException {
+				if (!eventClass.isAssignableFrom(event.getClass())) {
+					return;
+				}
+				
+				try {
+					method.invoke(listener, event);
+				} catch (InvocationTargetException ex) {
+					throw new EventException(ex.getCause());
+				} catch (Throwable ex) {
+					throw new EventException(ex);
+				}
+			}
+		};
+	}
+	
+	/**
+	 * Finds the handler list for an event, the handler list is declared on the
+	 * event class or the closest superclass that declares one.
+	 */
+	private static HandlerList getHandlerList(Class<? extends Event> eventClass) {
+		Class<?> clazz = eventClass;
+		
+		while (clazz != null && Event.class.isAssignableFrom(clazz)) {
+			try {
+				Method method = clazz.getDeclaredMethod("getHandlerList");
+				method.setAccessible(true);
+				return (HandlerList) method.invoke(null);
+			} catch (NoSuchMethodException ex) {
+				clazz = clazz.getSuperclass();
+			} catch (Exception ex) {
+				throw new IllegalPluginAccessException(ex.toString());
+			}
+		}
+		
+		throw new IllegalPluginAccessException("Unable to find handler list for event " + eventClass.getName());
+	}
+}
@@ -17,18 +17,13 @@
  */
 package uk.codingbadgers.bFundamentals.module;
 
-import java.io.BufferedReader;
-import java.io.DataInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import net.milkbowl.vault.permission.Permission;
@@ -41,13 +36,21 @@ import org.bukkit.command.CommandSender;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
 import org.bukkit.event.Listener;
+import org.bukkit.scheduler.BukkitTask;
 import uk.codingbadgers.bFundamentals.bFundamentals;
 import uk.codingbadgers.bFundamentals.commands.ModuleCommand;
 import uk.codingbadgers.bFundamentals.commands.ModuleCommandHandler;
 import uk.codingbadgers.bFundamentals.config.ConfigFactory;
 import uk.codingbadgers.bFundamentals.config.ConfigFile;
+import uk.codingbadgers.bFundamentals.database.DatabaseService;
+import uk.codingbadgers.bFundamentals.language.LanguageCatalog;
+import uk.codingbadgers.bFundamentals.language.LanguageFileWatcher;
+import uk.codingbadgers.bFundamentals.language.MessageTemplate;
+import uk.codingbadgers.bFundamentals.metrics.MetricGroup;
+import uk.codingbadgers.bFundamentals.metrics.Metrics;
 import uk.codingbadgers.bFundamentals.module.loader.Loadable;
-import uk.codingbadgers.bFundamentals.update.UpdateThread;
+import uk.codingbadgers.bFundamentals.player.PlayerNameIndex;
+import uk.codingbadgers.bFundamentals.update.UpdateQueue;
 import uk.codingbadgers.bFundamentals.update.Updater;
 import uk.thecodingbadgers.bDatabaseManager.Database.BukkitDatabase;
 
@@ -57,19 +60,26 @@ import uk.thecodingbadgers.bDatabaseManager.Database.BukkitDatabase;
  */
 public abstract class Module extends Loadable implements Listener {
 
+	/** How long a disabled module's background tasks are given to finish, in milliseconds. */
+	private static final long EXECUTOR_SHUTDOWN_TIMEOUT = 5000L;
+
 	protected static BukkitDatabase m_database = null;
 	protected final bFundamentals m_plugin;
 	protected File m_configFile = null;
 	protected FileConfiguration m_config;
 	private static Permission m_permissions = null;
 	private boolean m_debug = false;
-	private boolean loadedLanguageFile;
+	private volatile boolean loadedLanguageFile;
 	private boolean m_enabled;
 	private List<Class<? extends ConfigFile>> m_configFiles;
 	private List<Listener> m_listeners = new ArrayList<Listener>();
+	private ModuleScheduler m_scheduler;
+	private ModuleExecutor m_executor;
+	private Future<?> m_update;
 	private ModuleLogger m_log;
-	private Map<String, String> m_languageMap = new HashMap<String, String>();
-	private UpdateThread m_updater;
+	private volatile LanguageCatalog m_language = LanguageCatalog.EMPTY;
+	private LanguageFileWatcher.Watch m_languageWatch;
+	private Updater m_updater;
 
 	/**
 	 * Instantiates a new module with default settings.
@@ -87,8 +97,8 @@ public abstract class Module extends Loadable implements Listener {
 	}
 
 	protected void setUpdater(Updater updater) {
-		m_updater = new UpdateThread(updater);
-		log(Level.INFO, "Set new updater to " + m_updater.getUpdater().getUpdater());
+		m_updater = updater;
+		log(Level.INFO, "Set new updater to " + m_updater.getUpdater());
 	}
 
 	public void update() {
@@ -97,7 +107,12 @@ public abstract class Module extends Loadable implements Listener {
 			return;
 		}
 
-		m_updater.start();
+		synchronized (this) {
+			if (m_update != null && !m_update.isDone()) {
+				return;
+			}
+			m_update = UpdateQueue.submit(m_updater);
+		}
 	}
 
 	/**
@@ -150,54 +165,43 @@ public abstract class Module extends Loadable implements Listener {
 
 		log(Level.INFO, "Loading Language File: " + languageFile.getName());
 
-		FileInputStream fstream = null;
-		DataInputStream in = null;
-		BufferedReader br = null;
-
-		try {
-			fstream = new FileInputStream(languageFile);
-			in = new DataInputStream(fstream);
-			br = new BufferedReader(new InputStreamReader(in));
-
-			String line = null;
-			String key = null;
-			while ((line = br.readLine()) != null) {
-
-				if (line.isEmpty() || line.startsWith("//"))
-					continue;
+		if (!reloadLanguageFile(languageFile)) {
+			return;
+		}
 
-				if (line.startsWith("#")) {
-					key = line.substring(1);
-					continue;
-				}
+		synchronized (this) {
+			if (m_languageWatch != null) {
+				m_languageWatch.cancel();
+			}
 
-				if (key == null) {
-					log(Level.WARNING, "Trying to parse a language value, with no key set!");
-					continue;
+			final File watched = languageFile;
+			m_languageWatch = LanguageFileWatcher.getInstance().watch(languageFile, new Runnable() {
+				@Override
+				public void run() {
+					if (reloadLanguageFile(watched)) {
+						log(Level.INFO, "Reloaded Language File: " + watched.getName());
+					}
 				}
+			});
+		}
+	}
 
-				m_languageMap.put(key.toLowerCase(), line);
-			}
-
+	/**
+	 * Compiles a language file and swaps it in for the current values, if the
+	 * file can't be read the current values are kept.
+	 * 
+	 * @param languageFile the language file
+	 * @return true if the file was loaded
+	 */
+	private boolean reloadLanguageFile(File languageFile) {
+		try {
+			m_language = LanguageCatalog.load(languageFile, getLogger());
 			loadedLanguageFile = true;
-		} catch (Exception e) {
+			return true;
+		} catch (IOException e) {
 			e.printStackTrace();
-		} finally {
-			try {
-				if (fstream != null) {
-					fstream.close();
-				}
-				if (in != null) {
-					in.close();
-				}
-				if (br != null) {
-					br.close();
-				}
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
+			return false;
 		}
-
 	}
 
 	/**
@@ -220,15 +224,136 @@ public abstract class Module extends Loadable implements Listener {
 	}
 
 	/**
-	 * Register a bukkit event listener.
+	 * Register a bukkit event listener, the time each handler takes is
+	 * recorded against this module when timings are enabled.
 	 * 
 	 * @param listener the bukkit event listener
 	 */
 	public final void register(Listener listener) {
-		m_plugin.getServer().getPluginManager().registerEvents(listener, m_plugin);
+		EventRegistrar.register(this, m_plugin, listener);
 		m_listeners.add(listener);
 	}
 
+	/**
+	 * Runs a task on the main thread on the next tick, the task is cancelled
+	 * if it hasn't run when this module is unloaded.
+	 *
+	 * @param task the task
+	 * @return the scheduled task
+	 */
+	public BukkitTask runTask(Runnable task) {
+		return getScheduler().runTask(task);
+	}
+
+	/**
+	 * Runs a task on the main thread after a delay, the task is cancelled if
+	 * it hasn't run when this module is unloaded.
+	 *
+	 * @param task the task
+	 * @param delay the delay in ticks
+	 * @return the scheduled task
+	 */
+	public BukkitTask runTaskLater(Runnable task, long delay) {
+		return getScheduler().runTaskLater(task, delay);
+	}
+
+	/**
+	 * Runs a repeating task on the main thread, the task is cancelled when
+	 * this module is unloaded.
+	 *
+	 * @param task the task
+	 * @param delay the delay in ticks before the first run
+	 * @param period the period in ticks between runs
+	 * @return the scheduled task
+	 */
+	public BukkitTask runTaskTimer(Runnable task, long delay, long period) {
+		return getScheduler().runTaskTimer(task, delay, period);
+	}
+
+	/**
+	 * Runs a task asynchronously, the task is cancelled if it hasn't started
+	 * when this module is unloaded.
+	 *
+	 * @param task the task
+	 * @return the scheduled task
+	 */
+	public BukkitTask runTaskAsynchronously(Runnable task) {
+		return getScheduler().runTaskAsynchronously(task);
+	}
+
+	/**
+	 * Gets the scheduler this module's main thread tasks are tracked by.
+	 *
+	 * @return the module scheduler
+	 */
+	public synchronized ModuleScheduler getScheduler() {
+		if (m_scheduler == null) {
+			m_scheduler = new ModuleScheduler(m_plugin, getName());
+		}
+		return m_scheduler;
+	}
+
+	/**
+	 * Gets the bounded executor this module should run its background work
+	 * on, the executor is shut down when the module is disabled and a new one
+	 * is created the next time it is needed.
+	 *
+	 * @return the module executor
+	 */
+	public synchronized ModuleExecutor getExecutor() {
+		if (m_executor == null || m_executor.isShutdown()) {
+			m_executor = createExecutor();
+		}
+		return m_executor;
+	}
+
+	/**
+	 * Creates this module's executor, override to change how many threads it
+	 * has or how many tasks it can queue.
+	 *
+	 * @return a new module executor
+	 */
+	protected ModuleExecutor createExecutor() {
+		return new ModuleExecutor(getName(), ModuleExecutor.DEFAULT_THREADS, ModuleExecutor.DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Cancels every task this module scheduled through its run task methods.
+	 */
+	public void cancelTasks() {
+		ModuleScheduler scheduler;
+		synchronized (this) {
+			scheduler = m_scheduler;
+		}
+		
+		if (scheduler != null) {
+			scheduler.cancelTasks();
+		}
+	}
+
+	/**
+	 * Stops this module's background work, queued and running tasks are given
+	 * until a deadline to finish before they are interrupted.
+	 */
+	private void shutdownExecutor() {
+		ModuleExecutor executor;
+		Future<?> update;
+		synchronized (this) {
+			executor = m_executor;
+			update = m_update;
+			m_executor = null;
+			m_update = null;
+		}
+		
+		if (update != null) {
+			update.cancel(true);
+		}
+		
+		if (executor != null && !executor.shutdown(EXECUTOR_SHUTDOWN_TIMEOUT)) {
+			log(Level.WARNING, "Background tasks did not finish within " + EXECUTOR_SHUTDOWN_TIMEOUT + "ms of disabling, they have been interrupted");
+		}
+	}
+
 	/**
 	 * Gets the vault permissions instance.
 	 * 
@@ -238,6 +363,26 @@ public abstract class Module extends Loadable implements Listener {
 		return m_permissions;
 	}
 
+	/**
+	 * Gets this module's metrics, they are exported with the rest of the
+	 * bFundamentals metrics and removed when the module is unloaded.
+	 *
+	 * @return the module's metric group
+	 */
+	public MetricGroup getMetrics() {
+		return Metrics.getGroup(getName());
+	}
+
+	/**
+	 * Gets the shared database service, use this rather than the bukkit
+	 * database for anything run often or off the main thread.
+	 * 
+	 * @return the database service
+	 */
+	public DatabaseService getDatabaseService() {
+		return bFundamentals.getDatabaseService();
+	}
+
 	/**
 	 * The enable method for this module, called on enabling the module via
 	 * {@link #setEnabled(boolean)} this is used to register commands, events
@@ -260,6 +405,21 @@ public abstract class Module extends Loadable implements Listener {
 	public void onLoad() {
 	}
 
+	/**
+	 * The prepare method for this module, called by the {@link ModuleLoader}
+	 * on a background thread before {@link #onEnable()}. Modules with no
+	 * dependency between them are prepared at the same time, so this is the
+	 * place for slow work such as reading files or warming caches.
+	 * <p>
+	 * This must not use the bukkit api, anything registered with bukkit
+	 * belongs in {@link #onEnable()} which is always called on the main
+	 * thread. If this throws the module is not enabled.
+	 * 
+	 * @throws Exception if the module could not be prepared
+	 */
+	public void onPrepare() throws Exception {
+	}
+
 	/**
 	 * Sets the module enabled status, will call {@link #onEnable()} if the
 	 * module isn't already enabled and you want to enable it and will call
@@ -281,9 +441,22 @@ public abstract class Module extends Loadable implements Listener {
 				return;
 			}
 
-			onDisable();
-			ModuleCommandHandler.deregisterCommand(this);
-			m_enabled = false;
+			try {
+				onDisable();
+			} finally {
+				// release everything the module holds even if onDisable failed
+				ModuleCommandHandler.deregisterCommand(this);
+				cancelTasks();
+				shutdownExecutor();
+
+				synchronized (this) {
+					if (m_languageWatch != null) {
+						m_languageWatch.cancel();
+						m_languageWatch = null;
+					}
+				}
+				m_enabled = false;
+			}
 		}
 	}
 
@@ -395,26 +568,61 @@ public abstract class Module extends Loadable implements Listener {
 
 	/**
 	 * Gets the language value for the current loaded language, case
-	 * insensitive, all keys are forced to be in lower case.
+	 * insensitive, colour codes using '&' have already been translated.
 	 * 
 	 * @param key the language key
 	 * @return the language value, if available, the key with hyphens removed
 	 *         and in lower case otherwise
 	 */
 	public String getLanguageValue(String key) {
-		Validate.notNull(key, "Language key cannot be null");
+		MessageTemplate template = getLanguageTemplate(key);
 
-		if (!loadedLanguageFile) {
-			log(Level.SEVERE, "Cannot get language value before loading language file");
+		if (template == null) {
+			return key.toLowerCase().replace("-", " ");
+		}
+
+		return template.getText();
+	}
+
+	/**
+	 * Gets the language value for the current loaded language with its
+	 * placeholders filled in, placeholders are written as either
+	 * <code>%name%</code> or <code>&lt;&lt;name&gt;&gt;</code> in the language
+	 * file.
+	 * 
+	 * @param key the language key
+	 * @param placeholders alternating placeholder names and values
+	 * @return the rendered language value, if available, the key with hyphens
+	 *         removed and in lower case otherwise
+	 * @see MessageTemplate#render(Object...)
+	 */
+	public String getLanguageValue(String key, Object... placeholders) {
+		MessageTemplate template = getLanguageTemplate(key);
+
+		if (template == null) {
+			return key.toLowerCase().replace("-", " ");
 		}
 
-		String value = m_languageMap.get(key.toLowerCase());
+		return template.render(placeholders);
+	}
+
+	/**
+	 * Gets the compiled language value for the current loaded language, case
+	 * insensitive. Modules sending the same message often should keep hold
+	 * of the template rather than looking it up each time, the template is
+	 * replaced when the language file is reloaded.
+	 * 
+	 * @param key the language key
+	 * @return the template, or null if the key isn't in the language file
+	 */
+	public MessageTemplate getLanguageTemplate(String key) {
+		Validate.notNull(key, "Language key cannot be null");
 
-		if (value == null) {
-			value = key.toLowerCase().replace("-", " ");
+		if (!loadedLanguageFile) {
+			log(Level.SEVERE, "Cannot get language value before loading language file");
 		}
 
-		return value;
+		return m_language.get(key);
 	}
 
 	/**
@@ -481,7 +689,30 @@ public abstract class Module extends Loadable implements Listener {
 	}
 
 	/**
-	 * Get a list of players whose name matches a given string
+	 * Reloads every config class registered to this module from its file, a
+	 * config that fails to load keeps its current values.
+	 * 
+	 * @see ConfigFactory#getSnapshot(Class)
+	 */
+	public void reloadConfigs() {
+		if (m_configFiles == null) {
+			return;
+		}
+
+		for (Class<? extends ConfigFile> clazz : m_configFiles) {
+			try {
+				ConfigFactory.load(clazz, getDataFolder());
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Get a list of players whose name matches a given string, if a player's
+	 * name matches exactly only that player is returned. Offline players are
+	 * looked up in the {@link bFundamentals#getPlayerNameIndex() name index}
+	 * rather than scanning every player file.
 	 * 
 	 * @param match The name to match
 	 * @param onlineOnly Only return players who are currently online
@@ -492,26 +723,40 @@ public abstract class Module extends Loadable implements Listener {
 		Server server = m_plugin.getServer();
 		List<OfflinePlayer> matches = new ArrayList<OfflinePlayer>();
 
-		OfflinePlayer[] offlinePlayers = server.getOfflinePlayers();
-		for (OfflinePlayer player : offlinePlayers) {
+		if (onlineOnly) {
+			final String lowerMatch = match.toLowerCase();
 
-			if (onlineOnly && !player.isOnline()) {
-				continue;
-			}
+			for (Player player : server.getOnlinePlayers()) {
 
-			final String playerName = player.getName();
+				final String playerName = player.getName();
 
-			// exact name, just return this
-			if (playerName.equalsIgnoreCase(match)) {
-				matches.clear();
-				matches.add(player);
-				return matches;
-			}
+				// exact name, just return this
+				if (playerName.equalsIgnoreCase(match)) {
+					matches.clear();
+					matches.add(player);
+					return matches;
+				}
 
-			// match is contained within this player add them to the list
-			if (playerName.toLowerCase().startsWith(match.toLowerCase())) {
-				matches.add(player);
+				// match is contained within this player add them to the list
+				if (playerName.toLowerCase().startsWith(lowerMatch)) {
+					matches.add(player);
+				}
 			}
+
+			return matches;
+		}
+
+		PlayerNameIndex index = bFundamentals.getPlayerNameIndex();
+		String exact = index.getExact(match);
+
+		// exact name, just return this
+		if (exact != null) {
+			matches.add(server.getOfflinePlayer(exact));
+			return matches;
+		}
+
+		for (String name : index.getPrefixMatches(match)) {
+			matches.add(server.getOfflinePlayer(name));
 		}
 
 		return matches;
@@ -0,0 +1,280 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bFundamentals.module;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import uk.codingbadgers.bFundamentals.error.ExceptionHandler;
+
+/**
+ * A bounded pool of named threads a module runs its background work on.
+ * <p>
+ * Every task is timed from when it was submitted to when it started and
+ * finished. Idle threads exit after a short time so a quiet module holds no
+ * threads. The pool is shut down when its module is disabled: queued tasks
+ * are given until a deadline to finish, then anything left is interrupted.
+ * If the queue is full, new tasks are rejected with a
+ * {@link RejectedExecutionException} rather than blocking the caller.
+ */
+public class ModuleExecutor extends AbstractExecutorService {
+
+	/** The default number of threads per module. */
+	public static final int DEFAULT_THREADS = 2;
+	
+	/** The default number of tasks that can wait for a thread. */
+	public static final int DEFAULT_CAPACITY = 256;
+	
+	/** How long idle threads are kept, in seconds. */
+	private static final long KEEP_ALIVE = 30;
+	
+	private final String name;
+	private final ThreadPoolExecutor executor;
+	
+	private final AtomicLong submitted = new AtomicLong();
+	private final AtomicLong completed = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	private final AtomicLong totalLatency = new AtomicLong();
+	private final AtomicLong maxLatency = new AtomicLong();
+	private final AtomicLong totalRunTime = new AtomicLong();
+	
+	/**
+	 * Instantiates a new module executor.
+	 *
+	 * @param name the name threads are named after
+	 * @param threads the maximum number of threads
+	 * @param capacity the maximum number of tasks waiting for a thread
+	 */
+	public ModuleExecutor(final String name, int threads, int capacity) {
+		this.name = name;
+		
+		BlockingQueue<Runnable> queue = new LinkedBlockingQueue<Runnable>(capacity);
+		this.executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE, TimeUnit.SECONDS, queue, new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+			
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, name + "-async-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		this.executor.allowCoreThreadTimeOut(true);
+	}
+	
+	@Override
+	public void execute(Runnable command) {
+		try {
+			executor.execute(new TrackedTask(command));
+			submitted.incrementAndGet();
+		} catch (RejectedExecutionException e) {
+			rejected.incrementAndGet();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Stops accepting tasks and waits up to the given time for queued and
+	 * running tasks to finish, anything still running after that is
+	 * interrupted and anything still queued is dropped.
+	 *
+	 * @param timeout the maximum time to wait in milliseconds
+	 * @return true if every task finished before the deadline
+	 */
+	public boolean shutdown(long timeout) {
+		executor.shutdown();
+		
+		try {
+			if (executor.awaitTermination(timeout, TimeUnit.MILLISECONDS)) {
+				return true;
+			}
+			
+			executor.shutdownNow();
+			executor.awaitTermination(timeout, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+		
+		return false;
+	}
+	
+	@Override
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	@Override
+	public List<Runnable> shutdownNow() {
+		return executor.shutdownNow();
+	}
+
+	@Override
+	public boolean isShutdown() {
+		return executor.isShutdown();
+	}
+
+	@Override
+	public boolean isTerminated() {
+		return executor.isTerminated();
+	}
+
+	@Override
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		return executor.awaitTermination(timeout, unit);
+	}
+	
+	/**
+	 * Gets the name threads are named after.
+	 *
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * Gets the number of tasks waiting for a thread.
+	 *
+	 * @return the queue depth
+	 */
+	public int getQueueSize() {
+		return executor.getQueue().size();
+	}
+	
+	/**
+	 * Gets the number of threads currently running a task.
+	 *
+	 * @return the active thread count
+	 */
+	public int getActiveCount() {
+		return executor.getActiveCount();
+	}
+	
+	/**
+	 * Gets the number of threads in the pool, idle or not.
+	 *
+	 * @return the thread count
+	 */
+	public int getPoolSize() {
+		return executor.getPoolSize();
+	}
+	
+	/**
+	 * Gets the number of tasks accepted.
+	 *
+	 * @return the submitted task count
+	 */
+	public long getSubmittedCount() {
+		return submitted.get();
+	}
+	
+	/**
+	 * Gets the number of tasks that have finished, including failed tasks.
+	 *
+	 * @return the completed task count
+	 */
+	public long getCompletedCount() {
+		return completed.get();
+	}
+	
+	/**
+	 * Gets the number of tasks that threw an exception.
+	 *
+	 * @return the failed task count
+	 */
+	public long getFailedCount() {
+		return failed.get();
+	}
+	
+	/**
+	 * Gets the number of tasks rejected because the queue was full or the
+	 * executor was shut down.
+	 *
+	 * @return the rejected task count
+	 */
+	public long getRejectedCount() {
+		return rejected.get();
+	}
+	
+	/**
+	 * Gets the average time tasks waited for a thread.
+	 *
+	 * @return the average latency in nanoseconds
+	 */
+	public long getAverageLatency() {
+		long count = completed.get();
+		return count == 0 ? 0 : totalLatency.get() / count;
+	}
+	
+	/**
+	 * Gets the longest time a task waited for a thread.
+	 *
+	 * @return the maximum latency in nanoseconds
+	 */
+	public long getMaxLatency() {
+		return maxLatency.get();
+	}
+	
+	/**
+	 * Gets the average time tasks took to run.
+	 *
+	 * @return the average run time in nanoseconds
+	 */
+	public long getAverageRunTime() {
+		long count = completed.get();
+		return count == 0 ? 0 : totalRunTime.get() / count;
+	}
+	
+	private final class TrackedTask implements Runnable {
+		
+		private final Runnable task;
+		private final long queued = System.nanoTime();
+		
+		TrackedTask(Runnable task) {
+			this.task = task;
+		}
+		
+		public void run() {
+			long start = System.nanoTime();
+			long latency = start - queued;
+			
+			totalLatency.addAndGet(latency);
+			long max;
+			while (latency > (max = maxLatency.get()) && !maxLatency.compareAndSet(max, latency));
+			
+			try {
+				task.run();
+			} catch (Throwable e) {
+				failed.incrementAndGet();
+				ExceptionHandler.handleException(e);
+			} finally {
+				totalRunTime.addAndGet(System.nanoTime() - start);
+				completed.incrementAndGet();
+			}
+		}
+	}
+}
@@ -19,9 +19,21 @@ package uk.codingbadgers.bFundamentals.module;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
 import org.bukkit.Bukkit;
@@ -29,8 +41,11 @@ import org.bukkit.event.HandlerList;
 import org.bukkit.event.Listener;
 
 import uk.codingbadgers.bFundamentals.bFundamentals;
+import uk.codingbadgers.bFundamentals.commands.ModuleCommandHandler;
 import uk.codingbadgers.bFundamentals.error.ExceptionHandler;
+import uk.codingbadgers.bFundamentals.metrics.Metrics;
 import uk.codingbadgers.bFundamentals.module.loader.Loader;
+import uk.codingbadgers.bFundamentals.module.loader.ModuleGraph;
 
 /**
  * The ModuleLoader.
@@ -90,7 +105,8 @@ public class ModuleLoader {
 	}
 	
 	/**
-	 * Loads a module with a jar file
+	 * Loads a module with a jar file, the module is placed in the dependency
+	 * order after everything it depends on.
 	 *  
 	 * @param file the jar file for this module
 	 */
@@ -101,11 +117,17 @@ public class ModuleLoader {
 		if (getModule(file) != null)
 			throw new IllegalArgumentException("Module " + file.getName() + " is already loaded");
 		
-		m_modules.clear();
-		m_modules.addAll(m_loader.sort(m_loader.load(file)));
+		for (Module loaded : m_loader.load(file)) {
+			if (!m_modules.contains(loaded)) {
+				m_modules.add(loaded);
+			}
+		}
+		orderModules();
 		
 		Module module = getModule(file);
 		module.onLoad();
+		// replaces the help topic of the module that was previously loaded from this file
+		Bukkit.getHelpMap().addTopic(new ModuleHelpTopic(module));
 		module.log(Level.INFO, module.getName() + " v:" + module.getVersion() + " has been loaded successfuly");
 	}
 	
@@ -118,40 +140,136 @@ public class ModuleLoader {
 	}
 	
 	/**
-	 * Unload a specific module.
+	 * Unload a specific module, the module is disabled, all of its listeners,
+	 * commands and tasks are released and its class loader is closed.
 	 *
 	 * @param module the module
 	 */
 	public void unload(Module module) {
 		try {
 			module.setEnabled(false);
+		} catch (Throwable ex) {
+			ExceptionHandler.handleException(ex);
+		}
+		
+		try {
 			for (Listener listener : module.getListeners()) {
 				HandlerList.unregisterAll(listener);
 			}
-			m_modules.remove(module);
+			HandlerList.unregisterAll(module);
+			module.getListeners().clear();
+			module.cancelTasks();
+			ModuleCommandHandler.deregisterCommand(module);
+			Metrics.remove(module.getName());
 		} catch (Throwable ex) {
 			ExceptionHandler.handleException(ex);
+		} finally {
+			m_modules.remove(module);
+			
+			if (m_loader != null) {
+				m_loader.unload(module);
+			}
 		}
 	}
 	
 	/**
-	 * Run on enable in all modules.
+	 * Run on enable in all modules, modules are enabled in dependency order.
+	 * Modules in the same dependency layer are prepared concurrently with
+	 * {@link Module#onPrepare()}, then each is enabled on this thread.
+	 * <p>
+	 * A module is not enabled if a dependency is missing, failed to enable or
+	 * is part of a dependency cycle.
 	 */
 	public void enable() {
-		for (Module module : m_modules) {
-			try {
-				module.setEnabled(true);
-			} catch (Throwable ex) {
-				ExceptionHandler.handleException(ex);
+		ModuleGraph<Module> graph = orderModules();
+		
+		for (List<String> cycle : graph.getCycles()) {
+			bFundamentals.log(Level.WARNING, "Module dependency cycle found: " + cycle);
+		}
+		
+		for (Map.Entry<Module, String> failure : graph.getFailed().entrySet()) {
+			bFundamentals.log(Level.SEVERE, "Cannot enable " + failure.getKey().getName() + ", " + failure.getValue());
+		}
+		
+		Set<String> unavailable = new HashSet<String>();
+		ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new PrepareThreadFactory());
+		
+		try {
+			for (List<Module> layer : graph.getLayers()) {
+				Map<Module, Future<?>> prepared = new LinkedHashMap<Module, Future<?>>();
+				
+				for (final Module module : layer) {
+					if (isDependencyUnavailable(module, unavailable)) {
+						bFundamentals.log(Level.SEVERE, "Cannot enable " + module.getName() + ", a dependency failed to enable");
+						unavailable.add(module.getName().toLowerCase());
+						continue;
+					}
+					
+					prepared.put(module, executor.submit(new Callable<Void>() {
+						@Override
+						public Void call() throws Exception {
+							module.onPrepare();
+							return null;
+						}
+					}));
+				}
+				
+				for (Map.Entry<Module, Future<?>> entry : prepared.entrySet()) {
+					Module module = entry.getKey();
+					
+					try {
+						entry.getValue().get();
+						module.setEnabled(true);
+					} catch (ExecutionException ex) {
+						ExceptionHandler.handleException(ex.getCause());
+					} catch (InterruptedException ex) {
+						Thread.currentThread().interrupt();
+						return;
+					} catch (Throwable ex) {
+						ExceptionHandler.handleException(ex);
+					}
+					
+					if (!module.isEnabled()) {
+						unavailable.add(module.getName().toLowerCase());
+					}
+				}
 			}
+		} finally {
+			executor.shutdown();
 		}
 	}
 	
 	/**
-	 * run on disable in all modules.
+	 * Sorts the loaded modules into dependency order, modules are disabled in
+	 * reverse. Modules that can't be enabled are kept at the end.
+	 * 
+	 * @return the dependency graph of the loaded modules
+	 */
+	private ModuleGraph<Module> orderModules() {
+		ModuleGraph<Module> graph = new ModuleGraph<Module>(m_modules);
+		m_modules.clear();
+		m_modules.addAll(graph.getOrder());
+		m_modules.addAll(graph.getFailed().keySet());
+		return graph;
+	}
+	
+	private boolean isDependencyUnavailable(Module module, Set<String> unavailable) {
+		for (String dependency : module.getDesciption().getDependencies()) {
+			if (unavailable.contains(dependency.toLowerCase())) {
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * run on disable in all modules, in the reverse of the order they were
+	 * enabled.
 	 */
 	public void disable() {
 		List<Module> modules = new ArrayList<Module>(m_modules);
+		Collections.reverse(modules);
 		for (Module module : modules) {
 			try {
 				unload(module);
@@ -213,5 +331,16 @@ public class ModuleLoader {
 		}
 		return null;
 	}
-
+	
+	private static final class PrepareThreadFactory implements ThreadFactory {
+		
+		private final AtomicInteger count = new AtomicInteger();
+		
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "bFundamentals module prepare #" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
 }
@@ -0,0 +1,234 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bFundamentals.module;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+
+import uk.codingbadgers.bFundamentals.timings.Timings;
+
+/**
+ * Schedules a module's tasks on the bukkit scheduler, every task is tracked
+ * so they can all be cancelled when the module is disabled.
+ * <p>
+ * Tasks run on the next tick are timed from when they were scheduled to
+ * when they started, to show how far behind the main thread is.
+ */
+public class ModuleScheduler {
+
+	private final Plugin plugin;
+	private final String name;
+	private final List<BukkitTask> tasks = new ArrayList<BukkitTask>();
+	private final List<Future<?>> calls = new ArrayList<Future<?>>();
+	
+	private final AtomicLong started = new AtomicLong();
+	private final AtomicLong totalLatency = new AtomicLong();
+	private final AtomicLong maxLatency = new AtomicLong();
+	
+	/**
+	 * Instantiates a new module scheduler.
+	 *
+	 * @param plugin the plugin tasks are scheduled for
+	 * @param name the name of the module, used for timings
+	 */
+	public ModuleScheduler(Plugin plugin, String name) {
+		this.plugin = plugin;
+		this.name = name;
+	}
+	
+	/**
+	 * Runs a task on the main thread on the next tick.
+	 *
+	 * @param task the task
+	 * @return the scheduled task
+	 */
+	public BukkitTask runTask(Runnable task) {
+		return track(Bukkit.getScheduler().runTask(plugin, new TimedTask(Timings.wrap(name, task))));
+	}
+	
+	/**
+	 * Runs a task on the main thread after a delay.
+	 *
+	 * @param task the task
+	 * @param delay the delay in ticks
+	 * @return the scheduled task
+	 */
+	public BukkitTask runTaskLater(Runnable task, long delay) {
+		return track(Bukkit.getScheduler().runTaskLater(plugin, Timings.wrap(name, task), delay));
+	}
+	
+	/**
+	 * Runs a repeating task on the main thread.
+	 *
+	 * @param task the task
+	 * @param delay the delay in ticks before the first run
+	 * @param period the period in ticks between runs
+	 * @return the scheduled task
+	 */
+	public BukkitTask runTaskTimer(Runnable task, long delay, long period) {
+		return track(Bukkit.getScheduler().runTaskTimer(plugin, Timings.wrap(name, task), delay, period));
+	}
+	
+	/**
+	 * Runs a task on a bukkit async thread, prefer the module's
+	 * {@link ModuleExecutor} which is bounded.
+	 *
+	 * @param task the task
+	 * @return the scheduled task
+	 */
+	public BukkitTask runTaskAsynchronously(Runnable task) {
+		return track(Bukkit.getScheduler().runTaskAsynchronously(plugin, Timings.wrap(name, task)));
+	}
+	
+	/**
+	 * Calls a method on the main thread on the next tick, can be called from
+	 * any thread.
+	 *
+	 * @param task the method to call
+	 * @return the future for the result
+	 */
+	public <T> Future<T> callSyncMethod(final Callable<T> task) {
+		final long queued = System.nanoTime();
+		
+		Future<T> future = Bukkit.getScheduler().callSyncMethod(plugin, new Callable<T>() {
+			public T call() throws Exception {
+				record(queued);
+				return task.call();
+			}
+		});
+		
+		synchronized (calls) {
+			Iterator<Future<?>> itr = calls.iterator();
+			while (itr.hasNext()) {
+				if (itr.next().isDone()) {
+					itr.remove();
+				}
+			}
+			calls.add(future);
+		}
+		
+		return future;
+	}
+	
+	private BukkitTask track(BukkitTask task) {
+		synchronized (tasks) {
+			BukkitScheduler scheduler = Bukkit.getScheduler();
+			
+			// forget tasks which have already finished
+			for (int i = tasks.size() - 1; i >= 0; i--) {
+				int id = tasks.get(i).getTaskId();
+				if (!scheduler.isQueued(id) && !scheduler.isCurrentlyRunning(id)) {
+					tasks.remove(i);
+				}
+			}
+			
+			tasks.add(task);
+		}
+		return task;
+	}
+	
+	private void record(long queued) {
+		long latency = System.nanoTime() - queued;
+		
+		started.incrementAndGet();
+		totalLatency.addAndGet(latency);
+		long max;
+		while (latency > (max = maxLatency.get()) && !maxLatency.compareAndSet(max, latency));
+	}
+	
+	/**
+	 * Cancels every task scheduled through this scheduler.
+	 */
+	public void cancelTasks() {
+		synchronized (tasks) {
+			for (BukkitTask task : tasks) {
+				task.cancel();
+			}
+			tasks.clear();
+		}
+		
+		synchronized (calls) {
+			for (Future<?> call : calls) {
+				call.cancel(false);
+			}
+			calls.clear();
+		}
+	}
+	
+	/**
+	 * Gets the number of tasks scheduled which may not have finished yet.
+	 *
+	 * @return the pending task count
+	 */
+	public int getPendingCount() {
+		int count;
+		
+		synchronized (tasks) {
+			count = tasks.size();
+		}
+		
+		synchronized (calls) {
+			count += calls.size();
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Gets the average time next tick tasks waited before they started.
+	 *
+	 * @return the average latency in nanoseconds
+	 */
+	public long getAverageLatency() {
+		long count = started.get();
+		return count == 0 ? 0 : totalLatency.get() / count;
+	}
+	
+	/**
+	 * Gets the longest time a next tick task waited before it started.
+	 *
+	 * @return the maximum latency in nanoseconds
+	 */
+	public long getMaxLatency() {
+		return maxLatency.get();
+	}
+	
+	private final class TimedTask implements Runnable {
+		
+		private final Runnable task;
+		private final long queued = System.nanoTime();
+		
+		TimedTask(Runnable task) {
+			this.task = task;
+		}
+		
+		public void run() {
+			record(queued);
+			task.run();
+		}
+	}
+}
@@ -40,6 +40,7 @@ public class LoadableDescriptionFile {
     private final String mainClass;
 	private final List<String> authors;
 	private final Collection<String> dependencies;
+	private final Collection<String> softDependencies;
     
     /**
      * Instantiates a new loadable description file.
@@ -56,6 +57,30 @@ public class LoadableDescriptionFile {
         mainClass = ldf.getString("main-class");
         authors = ImmutableList.of(ldf.getStringList("authors").toArray(new String[0]));
         dependencies = Collections.unmodifiableCollection(ldf.getStringList("dependencies"));
+        softDependencies = Collections.unmodifiableCollection(ldf.getStringList("softdependencies"));
+    }
+    
+    /**
+     * Instantiates a loadable description file from values that have already
+     * been parsed, used when a description is read back from the module
+     * cache.
+     *
+     * @param name the name of the loadable
+     * @param version the version of the loadable
+     * @param description the description of the loadable
+     * @param mainClass the fully qualified name of the main class
+     * @param authors the authors of the loadable
+     * @param dependencies the modules that must be enabled first
+     * @param softDependencies the modules that are enabled first if present
+     */
+    public LoadableDescriptionFile(String name, String version, String description, String mainClass, List<String> authors, List<String> dependencies, List<String> softDependencies) {
+        this.name = name;
+        this.version = version;
+        this.description = description;
+        this.mainClass = mainClass;
+        this.authors = ImmutableList.copyOf(authors);
+        this.dependencies = Collections.unmodifiableCollection(dependencies);
+        this.softDependencies = Collections.unmodifiableCollection(softDependencies);
     }
     
     /**
@@ -112,4 +137,15 @@ public class LoadableDescriptionFile {
 	public Collection<String> getDependencies() {
 		return dependencies;
 	}
+	
+	/**
+	 * Gets the soft module dependencies of this loadable, this module will
+	 * load after any of the soft dependencies that are installed, but will
+	 * still load if they are missing.
+	 * 
+	 * @return a unmodifiable collection of the soft dependencies
+	 */
+	public Collection<String> getSoftDependencies() {
+		return softDependencies;
+	}
 }
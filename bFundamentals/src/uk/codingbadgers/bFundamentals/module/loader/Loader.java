@@ -18,20 +18,21 @@
 package uk.codingbadgers.bFundamentals.module.loader;
 
 import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.Constructor;
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.net.URLClassLoader;
 import java.util.*;
-import java.util.jar.JarEntry;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.jar.JarFile;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.bukkit.plugin.Plugin;
 
+import uk.codingbadgers.bFundamentals.config.ConfigFactory;
 import uk.codingbadgers.bFundamentals.error.ExceptionHandler;
 import uk.codingbadgers.bFundamentals.module.Module;
 import uk.codingbadgers.bFundamentals.module.ModuleLoadEvent;
+import uk.codingbadgers.bFundamentals.module.loader.ModuleScanner.ScanResult;
 
 /*     Copyright (C) 2012  Nodin Chan <nodinchan@live.com>
  * 
@@ -59,7 +60,8 @@ public class Loader {
 	private final Plugin plugin;
 	private final List<File> files;
 	private final List<Module> loadables;
-	private ClassLoader loader;
+	private final ModuleScanner scanner;
+	private final List<ModuleClassLoader> classLoaders = new CopyOnWriteArrayList<ModuleClassLoader>();
 
 	/**
 	 * Instantiates a new loader.
@@ -73,24 +75,7 @@ public class Loader {
 		this.plugin = plugin;
 		this.files = Arrays.asList(dir.listFiles(new FileExtensionFilter(".jar")));
 		this.loadables = new ArrayList<Module>();
-
-		generateClassLoader();
-	}
-
-	private void generateClassLoader() {
-		this.loadables.clear();
-
-		List<URL> urls = new ArrayList<URL>();
-
-		for (File file : files) {
-			try {
-				urls.add(file.toURI().toURL());
-			} catch (MalformedURLException e) {
-				e.printStackTrace();
-			}
-		}
-	
-		this.loader = URLClassLoader.newInstance(urls.toArray(new URL[0]), plugin.getClass().getClassLoader());
+		this.scanner = new ModuleScanner(new File(dir, "modules.cache"), Runtime.getRuntime().availableProcessors());
 	}
 
 	/**
@@ -108,9 +93,19 @@ public class Loader {
 	 * @return List of loaded loadables
 	 */
 	public final List<Module> load() {
-		for (File file : files) {
-			load(file);
+		long start = System.nanoTime();
+		List<ScanResult> results = scanner.scan(files);
+		int cached = 0;
+		
+		// jars are scanned in parallel, but modules are still created in file order on this thread
+		for (ScanResult result : results) {
+			if (result.isCached()) {
+				cached++;
+			}
+			load(result);
 		}
+		
+		getLogger().log(Level.INFO, "Loaded " + results.size() + " module jars in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms (" + cached + " cached descriptions)");
 		return loadables;
 	}
 
@@ -120,19 +115,28 @@ public class Loader {
 	 * @param file
 	 *            the file
 	 * @return the list
-	 * @TODO support module dependencies
 	 */
 	public List<Module> load(File file) {
+		return load(scanner.scan(Collections.singletonList(file)).get(0));
+	}
+	
+	private List<Module> load(ScanResult result) {
+		File file = result.getFile();
+		ModuleClassLoader loader = null;
+		boolean loaded = false;
+		
 		try {
-			JarFile jarFile = new JarFile(file);
-			String mainClass = null;
-			LoadableDescriptionFile ldf = null;
-
-			if (jarFile.getEntry("path.yml") != null) {
-				JarEntry element = jarFile.getJarEntry("path.yml");
-				ldf = new LoadableDescriptionFile(jarFile.getInputStream(element));
-				mainClass = ldf.getMainClass();
+			if (result.getError() != null) {
+				throw result.getError();
 			}
+			
+			long start = System.nanoTime();
+			JarFile jarFile = result.getJarFile();
+			LoadableDescriptionFile ldf = result.getDescription();
+			String mainClass = ldf == null ? null : ldf.getMainClass();
+			
+			// every module gets its own class loader so it can be released when the module is unloaded
+			loader = new ModuleClassLoader(this, file, jarFile, plugin.getClass().getClassLoader());
 
 			if (mainClass != null) {
 				Class<?> clazz = Class.forName(mainClass, true, loader);
@@ -145,7 +149,6 @@ public class Loader {
 					if (loadables.contains(loadable)) {
 						getLogger().log(Level.WARNING, "The loadable " + file.getName() + " is already loaded, make sure to disable the module first");
 						getLogger().log(Level.WARNING, "The JAR file " + file.getName() + " failed to load");
-						jarFile.close();
 						return loadables;
 					}
 
@@ -156,17 +159,21 @@ public class Loader {
 					loadable.init();
 
 					loadables.add(loadable);
+					classLoaders.add(loader);
+					loaded = true;
+					
+					getLogger().log(Level.INFO, "Loaded " + loadable.getName() + " from " + file.getName() + " in " + 
+							TimeUnit.NANOSECONDS.toMillis(result.getNanos() + System.nanoTime() - start) + "ms (scan " +
+							TimeUnit.NANOSECONDS.toMillis(result.getNanos()) + "ms" + (result.isCached() ? ", cached" : "") + ")");
 
 					ModuleLoadEvent event = new ModuleLoadEvent(plugin, loadable, jarFile);
 					plugin.getServer().getPluginManager().callEvent(event);
 
 				} else {
-					jarFile.close();
 					throw new ClassNotFoundException("Class " + mainClass + " could not be found.");
 				}
 
 			} else {
-				jarFile.close();
 				throw new ClassNotFoundException("Could not find main class in the path.yml.");
 			}
 
@@ -186,9 +193,39 @@ public class Loader {
 			ExceptionHandler.handleException(e);
 			getLogger().log(Level.WARNING, "Unknown cause.");
 			getLogger().log(Level.WARNING, "The JAR file " + file.getName() + " failed to load.");
+		} finally {
+			// the module failed to load, release its jar and anything it loaded
+			if (!loaded && loader != null) {
+				close(loader);
+			} else if (!loaded && result.getJarFile() != null) {
+				close(result.getJarFile());
+			}
 		}
 		return loadables;
 	}
+	
+	/**
+	 * Finds a class in any loaded module other than the one asking, used so
+	 * modules can still use classes from the modules they depend on.
+	 *
+	 * @param name the binary name of the class
+	 * @param requester the class loader asking for the class
+	 * @return the class, or null if no module contains it
+	 */
+	Class<?> findModuleClass(String name, ModuleClassLoader requester) {
+		for (ModuleClassLoader classLoader : classLoaders) {
+			if (classLoader == requester) {
+				continue;
+			}
+			
+			Class<?> clazz = classLoader.findLocalClass(name);
+			if (clazz != null) {
+				return clazz;
+			}
+		}
+		
+		return null;
+	}
 
 	/**
 	 * Reloads the Loader.
@@ -197,7 +234,6 @@ public class Loader {
 	 */
 	public List<Module> reload() {
 		unload();
-		generateClassLoader();
 		return load();
 	}
 
@@ -209,22 +245,14 @@ public class Loader {
 	 * @return The sorted list of Loadables
 	 */
 	public List<Module> sort(List<Module> loadables) {
-		List<Module> sortedLoadables = new ArrayList<Module>();
-		List<String> names = new ArrayList<String>();
-
-		for (Loadable t : loadables) {
-			names.add(t.getName());
-		}
+		List<Module> sortedLoadables = new ArrayList<Module>(loadables);
 		
-		Collections.sort(names);
-
-		for (String name : names) {
-			for (Module t : loadables) {
-				if (t.getName().equals(name)) {
-					sortedLoadables.add(t);
-				}
+		Collections.sort(sortedLoadables, new Comparator<Module>() {
+			@Override
+			public int compare(Module o1, Module o2) {
+				return o1.getName().compareTo(o2.getName());
 			}
-		}
+		});
 
 		return sortedLoadables;
 	}
@@ -237,22 +265,56 @@ public class Loader {
 	 * @return The sorted map of Loadables
 	 */
 	public Map<String, Module> sort(Map<String, Module> loadables) {
-		Map<String, Module> sortedLoadables = new HashMap<String, Module>();
-		List<String> names = new ArrayList<String>(loadables.keySet());
-
-		Collections.sort(names);
+		return new TreeMap<String, Module>(loadables);
+	}
 
-		for (String name : names) {
-			sortedLoadables.put(name, loadables.get(name));
+	/**
+	 * Unloads a single module, the module's class loader and jar are closed and
+	 * its configs are forgotten so the module can be garbage collected once
+	 * nothing else references it.
+	 *
+	 * @param module the module to unload
+	 */
+	public void unload(Module module) {
+		loadables.remove(module);
+		
+		try {
+			module.unload();
+		} finally {
+			ClassLoader classLoader = module.getClass().getClassLoader();
+			
+			if (classLoader instanceof ModuleClassLoader) {
+				classLoaders.remove(classLoader);
+				ConfigFactory.forget(classLoader);
+				close((ModuleClassLoader) classLoader);
+			}
 		}
-
-		return sortedLoadables;
 	}
 
 	/**
 	 * Unloads the Loader.
 	 */
 	public void unload() {
+		for (Module module : new ArrayList<Module>(loadables)) {
+			unload(module);
+		}
+		
 		loadables.clear();
 	}
+	
+	private void close(ModuleClassLoader classLoader) {
+		try {
+			classLoader.close();
+		} catch (IOException e) {
+			getLogger().log(Level.WARNING, "Could not close " + classLoader.getFile().getName(), e);
+		}
+	}
+	
+	private void close(JarFile jar) {
+		try {
+			jar.close();
+		} catch (IOException e) {
+			getLogger().log(Level.WARNING, "Could not close " + jar.getName(), e);
+		}
+	}
 }
\ No newline at end of file
@@ -0,0 +1,301 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bFundamentals.module.loader;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.security.CodeSource;
+import java.security.SecureClassLoader;
+import java.security.cert.Certificate;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+/**
+ * The class loader for a single module, classes are read directly from the
+ * module's jar so the jar can be closed when the module is unloaded.
+ * <p>
+ * Classes are looked up in the parent first, then in the module's own jar and
+ * then in every other loaded module. Once closed the loader can't load any
+ * more classes, and once nothing references the module's classes the loader
+ * and everything it loaded can be garbage collected.
+ * <p>
+ * Modules look up classes in each other, so a class loader never holds a lock
+ * while asking another one for a class. Classes are defined under a lock for
+ * just that class name, and where the jvm supports it the loaders are
+ * registered as parallel capable so the jvm doesn't lock the whole loader
+ * either.
+ */
+public class ModuleClassLoader extends SecureClassLoader {
+
+	static {
+		try {
+			// java 7+, called reflectively as bFundamentals still targets java 6
+			Method register = ClassLoader.class.getDeclaredMethod("registerAsParallelCapable");
+			register.invoke(null);
+		} catch (NoSuchMethodException ex) {
+			// java 6, the jvm locks the whole loader while loading a class
+		} catch (Exception ex) {
+			// not registered, classes still load but with the loader locked
+		}
+	}
+
+	private final ConcurrentMap<String, Object> classLocks = new ConcurrentHashMap<String, Object>();
+	private final Loader loader;
+	private final File file;
+	private final URL url;
+	private final CodeSource codeSource;
+	private final Manifest manifest;
+	private volatile JarFile jar;
+
+	/**
+	 * Instantiates a new module class loader.
+	 *
+	 * @param loader the loader that created this class loader
+	 * @param file the module jar file
+	 * @param jar the open module jar, closed when this class loader is closed
+	 * @param parent the parent class loader
+	 * @throws IOException if the jar manifest can't be read
+	 */
+	public ModuleClassLoader(Loader loader, File file, JarFile jar, ClassLoader parent) throws IOException {
+		super(parent);
+		
+		this.loader = loader;
+		this.file = file;
+		this.jar = jar;
+		this.url = file.toURI().toURL();
+		this.codeSource = new CodeSource(url, (Certificate[]) null);
+		this.manifest = jar.getManifest();
+	}
+	
+	/**
+	 * Gets the module jar file this class loader reads from.
+	 *
+	 * @return the jar file
+	 */
+	public File getFile() {
+		return file;
+	}
+	
+	/**
+	 * Checks if this class loader has been closed.
+	 *
+	 * @return true if closed
+	 */
+	public boolean isClosed() {
+		return jar == null;
+	}
+
+	@Override
+	protected Class<?> findClass(String name) throws ClassNotFoundException {
+		Class<?> clazz = findLocalClass(name);
+		
+		if (clazz == null && loader != null) {
+			clazz = loader.findModuleClass(name, this);
+		}
+		
+		if (clazz == null) {
+			throw new ClassNotFoundException(name);
+		}
+		
+		return clazz;
+	}
+	
+	/**
+	 * Finds a class in this module's jar only, without asking the parent or
+	 * any other module.
+	 *
+	 * @param name the binary name of the class
+	 * @return the class, or null if this module does not contain it
+	 */
+	Class<?> findLocalClass(String name) {
+		Class<?> clazz = findLoadedClass(name);
+		
+		if (clazz != null) {
+			return clazz.getClassLoader() == this ? clazz : null;
+		}
+		
+		JarFile current = jar;
+		if (current == null) {
+			return null;
+		}
+		
+		JarEntry entry = current.getJarEntry(name.replace('.', '/') + ".class");
+		if (entry == null) {
+			return null;
+		}
+		
+		// nothing in here asks another loader for a class, so this lock is
+		// never held while waiting on one
+		synchronized (getClassLock(name)) {
+			clazz = findLoadedClass(name);
+			
+			if (clazz != null) {
+				return clazz.getClassLoader() == this ? clazz : null;
+			}
+			
+			try {
+				byte[] bytes = read(current, entry);
+				definePackage(name);
+				return defineClass(name, bytes, 0, bytes.length, codeSource);
+			} catch (IOException ex) {
+				return null;
+			}
+		}
+	}
+	
+	private Object getClassLock(String name) {
+		Object lock = new Object();
+		Object existing = classLocks.putIfAbsent(name, lock);
+		return existing == null ? lock : existing;
+	}
+	
+	private void definePackage(String className) {
+		int index = className.lastIndexOf('.');
+		if (index == -1) {
+			return;
+		}
+		
+		String name = className.substring(0, index);
+		if (getPackage(name) != null) {
+			return;
+		}
+		
+		try {
+			if (manifest != null) {
+				definePackage(name, manifest, url);
+			} else {
+				definePackage(name, null, null, null, null, null, null, null);
+			}
+		} catch (IllegalArgumentException ex) {
+			// defined by another thread
+		}
+	}
+	
+	private Package definePackage(String name, Manifest manifest, URL url) {
+		Attributes attributes = manifest.getMainAttributes();
+		return definePackage(name,
+				attributes.getValue(Attributes.Name.SPECIFICATION_TITLE),
+				attributes.getValue(Attributes.Name.SPECIFICATION_VERSION),
+				attributes.getValue(Attributes.Name.SPECIFICATION_VENDOR),
+				attributes.getValue(Attributes.Name.IMPLEMENTATION_TITLE),
+				attributes.getValue(Attributes.Name.IMPLEMENTATION_VERSION),
+				attributes.getValue(Attributes.Name.IMPLEMENTATION_VENDOR),
+				null);
+	}
+
+	@Override
+	protected URL findResource(String name) {
+		JarFile current = jar;
+		
+		if (current == null || current.getJarEntry(name) == null) {
+			return null;
+		}
+		
+		try {
+			return new URL("jar:" + url + "!/" + name);
+		} catch (MalformedURLException ex) {
+			return null;
+		}
+	}
+
+	@Override
+	protected Enumeration<URL> findResources(String name) throws IOException {
+		URL resource = findResource(name);
+		
+		if (resource == null) {
+			return Collections.enumeration(Collections.<URL>emptyList());
+		}
+		
+		return Collections.enumeration(Collections.singletonList(resource));
+	}
+
+	/**
+	 * Reads resources from this module's jar directly rather than through a
+	 * jar url, the jvm caches the jars opened by jar urls which would keep the
+	 * module jar open after the module is unloaded.
+	 */
+	@Override
+	public InputStream getResourceAsStream(String name) {
+		JarFile current = jar;
+		
+		if (current != null) {
+			JarEntry entry = current.getJarEntry(name);
+			
+			if (entry != null) {
+				try {
+					return new ByteArrayInputStream(read(current, entry));
+				} catch (IOException ex) {
+					return null;
+				}
+			}
+		}
+		
+		return super.getResourceAsStream(name);
+	}
+	
+	private static byte[] read(JarFile jar, JarEntry entry) throws IOException {
+		InputStream in = jar.getInputStream(entry);
+		
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream(entry.getSize() > 0 ? (int) entry.getSize() : 4096);
+			byte[] buffer = new byte[4096];
+			int read;
+			
+			while ((read = in.read(buffer)) != -1) {
+				out.write(buffer, 0, read);
+			}
+			
+			return out.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+	
+	/**
+	 * Closes this class loader and the module jar, no more classes or
+	 * resources can be loaded from the module after this.
+	 *
+	 * @throws IOException if the jar could not be closed
+	 */
+	public synchronized void close() throws IOException {
+		JarFile current = jar;
+		jar = null;
+		classLocks.clear();
+		
+		if (current != null) {
+			current.close();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "ModuleClassLoader[" + file.getName() + (isClosed() ? ", closed" : "") + "]";
+	}
+}
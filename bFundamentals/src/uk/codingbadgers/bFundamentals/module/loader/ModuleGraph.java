@@ -0,0 +1,406 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bFundamentals.module.loader;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * The dependency graph of a set of loadables, built from the dependencies and
+ * soft dependencies declared in their path.yml.
+ * <p>
+ * Loadables are ordered so every loadable comes after everything it depends
+ * on, loadables with no ordering between them are sorted by name. Loadables
+ * are also grouped into layers, nothing in a layer depends on anything else
+ * in the same layer so a layer can be prepared concurrently.
+ * <p>
+ * A loadable is left out of the order if a dependency is missing, if it is
+ * part of a dependency cycle or if it depends on a loadable that was left
+ * out. Cycles made only of soft dependencies are broken rather than failing.
+ *
+ * @param <T> the type of loadable
+ */
+public class ModuleGraph<T extends Loadable> {
+
+	private final Map<String, Node<T>> nodes = new LinkedHashMap<String, Node<T>>();
+	private final List<T> order = new ArrayList<T>();
+	private final List<List<T>> layers = new ArrayList<List<T>>();
+	private final Map<T, String> failed = new LinkedHashMap<T, String>();
+	private final List<List<String>> cycles = new ArrayList<List<String>>();
+	
+	/**
+	 * Builds the dependency graph of a collection of loadables.
+	 *
+	 * @param loadables the loadables
+	 */
+	public ModuleGraph(Collection<T> loadables) {
+		for (T loadable : loadables) {
+			String key = key(loadable.getName());
+			
+			if (nodes.containsKey(key)) {
+				failed.put(loadable, "another module named " + loadable.getName() + " is already loaded");
+				continue;
+			}
+			
+			nodes.put(key, new Node<T>(loadable));
+		}
+		
+		link();
+		findHardCycles();
+		propagateFailures();
+		sort();
+	}
+	
+	/**
+	 * Gets the loadables in dependency order.
+	 *
+	 * @return the ordered loadables, without any that failed
+	 */
+	public List<T> getOrder() {
+		return Collections.unmodifiableList(order);
+	}
+	
+	/**
+	 * Gets the loadables grouped into layers, every loadable only depends on
+	 * loadables in earlier layers.
+	 *
+	 * @return the layers, in order
+	 */
+	public List<List<T>> getLayers() {
+		return Collections.unmodifiableList(layers);
+	}
+	
+	/**
+	 * Gets the loadables that were left out of the order.
+	 *
+	 * @return the failed loadables and the reason each failed
+	 */
+	public Map<T, String> getFailed() {
+		return Collections.unmodifiableMap(failed);
+	}
+	
+	/**
+	 * Gets every dependency cycle found, soft cycles which were broken are
+	 * included.
+	 *
+	 * @return the cycles, each as a list of loadable names
+	 */
+	public List<List<String>> getCycles() {
+		return Collections.unmodifiableList(cycles);
+	}
+	
+	private static String key(String name) {
+		return name.toLowerCase();
+	}
+	
+	private void link() {
+		for (Node<T> node : nodes.values()) {
+			LoadableDescriptionFile description = node.loadable.getDesciption();
+			
+			for (String dependency : description.getDependencies()) {
+				Node<T> target = nodes.get(key(dependency));
+				
+				if (target == null) {
+					fail(node, "missing dependency " + dependency);
+				} else {
+					node.hard.add(target);
+				}
+			}
+			
+			for (String dependency : description.getSoftDependencies()) {
+				Node<T> target = nodes.get(key(dependency));
+				
+				if (target != null && target != node && !node.hard.contains(target)) {
+					node.soft.add(target);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Tarjan's strongly connected components over the hard dependency edges,
+	 * every component with more than one loadable, or a loadable depending on
+	 * itself, is a cycle that can't be loaded.
+	 */
+	private void findHardCycles() {
+		int[] counter = new int[1];
+		List<Node<T>> stack = new ArrayList<Node<T>>();
+		
+		for (Node<T> node : nodes.values()) {
+			if (node.index < 0) {
+				connect(node, counter, stack);
+			}
+		}
+	}
+	
+	private void connect(Node<T> node, int[] counter, List<Node<T>> stack) {
+		node.index = node.lowlink = counter[0]++;
+		stack.add(node);
+		node.onStack = true;
+		
+		for (Node<T> dependency : node.hard) {
+			if (dependency.index < 0) {
+				connect(dependency, counter, stack);
+				node.lowlink = Math.min(node.lowlink, dependency.lowlink);
+			} else if (dependency.onStack) {
+				node.lowlink = Math.min(node.lowlink, dependency.index);
+			}
+		}
+		
+		if (node.lowlink != node.index) {
+			return;
+		}
+		
+		List<Node<T>> component = new ArrayList<Node<T>>();
+		Node<T> member;
+		
+		do {
+			member = stack.remove(stack.size() - 1);
+			member.onStack = false;
+			component.add(member);
+		} while (member != node);
+		
+		if (component.size() > 1 || node.hard.contains(node)) {
+			Collections.reverse(component);
+			List<String> cycle = names(component);
+			cycles.add(cycle);
+			
+			for (Node<T> cycleNode : component) {
+				fail(cycleNode, "dependency cycle " + describe(cycle));
+			}
+		}
+	}
+	
+	private void propagateFailures() {
+		boolean changed = true;
+		
+		while (changed) {
+			changed = false;
+			
+			for (Node<T> node : nodes.values()) {
+				if (node.failed) {
+					continue;
+				}
+				
+				for (Node<T> dependency : node.hard) {
+					if (dependency.failed) {
+						fail(node, "dependency " + dependency.loadable.getName() + " failed to load");
+						changed = true;
+						break;
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Kahn's algorithm over both hard and soft edges, ties are broken by name
+	 * so the order is stable between starts.
+	 */
+	private void sort() {
+		Map<Node<T>, List<Node<T>>> dependents = new HashMap<Node<T>, List<Node<T>>>();
+		PriorityQueue<Node<T>> ready = new PriorityQueue<Node<T>>(Math.max(1, nodes.size()), new Comparator<Node<T>>() {
+			@Override
+			public int compare(Node<T> o1, Node<T> o2) {
+				return o1.loadable.getName().compareTo(o2.loadable.getName());
+			}
+		});
+		
+		int remaining = 0;
+		
+		for (Node<T> node : nodes.values()) {
+			if (node.failed) {
+				continue;
+			}
+			
+			remaining++;
+			
+			for (Node<T> dependency : node.dependencies()) {
+				if (dependency.failed) {
+					continue;
+				}
+				
+				node.waiting++;
+				
+				List<Node<T>> list = dependents.get(dependency);
+				if (list == null) {
+					list = new ArrayList<Node<T>>();
+					dependents.put(dependency, list);
+				}
+				list.add(node);
+			}
+			
+			if (node.waiting == 0) {
+				ready.add(node);
+			}
+		}
+		
+		while (remaining > 0) {
+			if (ready.isEmpty()) {
+				ready.add(breakSoftCycle());
+			}
+			
+			Node<T> node = ready.poll();
+			node.placed = true;
+			remaining--;
+			
+			int layer = 0;
+			for (Node<T> dependency : node.dependencies()) {
+				if (dependency.placed) {
+					layer = Math.max(layer, dependency.layer + 1);
+				}
+			}
+			node.layer = layer;
+			
+			while (layers.size() <= layer) {
+				layers.add(new ArrayList<T>());
+			}
+			layers.get(layer).add(node.loadable);
+			order.add(node.loadable);
+			
+			List<Node<T>> waiting = dependents.get(node);
+			if (waiting != null) {
+				for (Node<T> dependent : waiting) {
+					if (!dependent.placed && --dependent.waiting == 0) {
+						ready.add(dependent);
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Every loadable left is waiting on another, the hard edges are acyclic
+	 * so at least one is only waiting on soft dependencies. The first by name
+	 * is released early and the cycle it was part of is recorded.
+	 */
+	private Node<T> breakSoftCycle() {
+		Node<T> chosen = null;
+		
+		for (Node<T> node : nodes.values()) {
+			if (node.failed || node.placed || node.released) {
+				continue;
+			}
+			
+			boolean hardReady = true;
+			for (Node<T> dependency : node.hard) {
+				if (!dependency.placed) {
+					hardReady = false;
+					break;
+				}
+			}
+			
+			if (hardReady && (chosen == null || node.loadable.getName().compareTo(chosen.loadable.getName()) < 0)) {
+				chosen = node;
+			}
+		}
+		
+		if (chosen == null) {
+			throw new IllegalStateException("Dependency graph has a hard cycle that was not detected");
+		}
+		
+		chosen.released = true;
+		cycles.add(names(softCycle(chosen)));
+		return chosen;
+	}
+	
+	private List<Node<T>> softCycle(Node<T> start) {
+		// follow unplaced dependencies until a loadable repeats
+		List<Node<T>> path = new ArrayList<Node<T>>();
+		Node<T> current = start;
+		
+		while (!path.contains(current)) {
+			path.add(current);
+			
+			Node<T> next = null;
+			for (Node<T> dependency : current.dependencies()) {
+				if (!dependency.placed && !dependency.failed) {
+					next = dependency;
+					break;
+				}
+			}
+			
+			if (next == null) {
+				return path;
+			}
+			current = next;
+		}
+		
+		return path.subList(path.indexOf(current), path.size());
+	}
+	
+	private void fail(Node<T> node, String reason) {
+		if (!node.failed) {
+			node.failed = true;
+			failed.put(node.loadable, reason);
+		}
+	}
+	
+	private List<String> names(List<Node<T>> path) {
+		List<String> names = new ArrayList<String>(path.size());
+		for (Node<T> node : path) {
+			names.add(node.loadable.getName());
+		}
+		return names;
+	}
+	
+	private static String describe(List<String> cycle) {
+		StringBuilder builder = new StringBuilder();
+		
+		for (String name : cycle) {
+			builder.append(name).append(" -> ");
+		}
+		
+		return builder.append(cycle.get(0)).toString();
+	}
+	
+	private static final class Node<T extends Loadable> {
+		
+		final T loadable;
+		final List<Node<T>> hard = new ArrayList<Node<T>>();
+		final List<Node<T>> soft = new ArrayList<Node<T>>();
+		
+		int index = -1;
+		int lowlink = -1;
+		boolean onStack = false;
+		
+		boolean failed = false;
+		boolean placed = false;
+		boolean released = false;
+		int waiting = 0;
+		int layer = 0;
+		
+		Node(T loadable) {
+			this.loadable = loadable;
+		}
+		
+		List<Node<T>> dependencies() {
+			List<Node<T>> all = new ArrayList<Node<T>>(hard.size() + soft.size());
+			all.addAll(hard);
+			all.addAll(soft);
+			return all;
+		}
+	}
+}
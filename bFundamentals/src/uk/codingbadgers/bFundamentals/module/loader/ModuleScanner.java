@@ -0,0 +1,388 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bFundamentals.module.loader;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Opens module jars and reads their path.yml descriptions, jars are scanned
+ * in parallel and the parsed descriptions are cached on disk so unchanged
+ * jars do not have to be parsed again on the next start.
+ * <p>
+ * A cached description is only used if the jar's size, modification time and
+ * the checksum of its path.yml all match the values recorded with it.
+ */
+public class ModuleScanner {
+
+	/** The descriptor file every module jar contains. */
+	public static final String DESCRIPTOR = "path.yml";
+	
+	private static final int CACHE_MAGIC = 0x62464d43;
+	private static final int CACHE_VERSION = 2;
+	
+	private final File cacheFile;
+	private final int threads;
+	private Map<String, CacheEntry> cache = null;
+	
+	/**
+	 * Instantiates a new module scanner.
+	 * 
+	 * @param cacheFile the file descriptions are cached in, or null to
+	 *            disable caching
+	 * @param threads the maximum number of jars to scan at once, 1 scans
+	 *            every jar on the calling thread
+	 */
+	public ModuleScanner(File cacheFile, int threads) {
+		this.cacheFile = cacheFile;
+		this.threads = Math.max(1, threads);
+	}
+	
+	/**
+	 * Scan a list of module jars, the results are returned in the same order
+	 * as the files. Jars that could not be scanned are returned with their
+	 * error rather than being left out.
+	 * 
+	 * @param files the jar files
+	 * @return the scan results
+	 */
+	public List<ScanResult> scan(List<File> files) {
+		if (cache == null) {
+			cache = readCache();
+		}
+		
+		final Map<String, CacheEntry> current = cache;
+		final Map<String, CacheEntry> updated = new ConcurrentHashMap<String, CacheEntry>();
+		List<ScanResult> results = new ArrayList<ScanResult>(files.size());
+		int poolSize = Math.min(threads, files.size());
+		
+		if (poolSize <= 1) {
+			for (File file : files) {
+				results.add(scan(file, current, updated));
+			}
+		} else {
+			ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+			
+			try {
+				List<Future<ScanResult>> futures = new ArrayList<Future<ScanResult>>(files.size());
+				
+				for (final File file : files) {
+					futures.add(executor.submit(new Callable<ScanResult>() {
+						@Override
+						public ScanResult call() {
+							return scan(file, current, updated);
+						}
+					}));
+				}
+				
+				for (int i = 0; i < futures.size(); i++) {
+					results.add(get(futures.get(i), files.get(i)));
+				}
+			} finally {
+				executor.shutdown();
+			}
+		}
+		
+		if (!updated.isEmpty()) {
+			Map<String, CacheEntry> merged = new HashMap<String, CacheEntry>(current);
+			merged.putAll(updated);
+			cache = merged;
+			writeCache(merged);
+		}
+		
+		return results;
+	}
+	
+	private static ScanResult get(Future<ScanResult> future, File file) {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			return new ScanResult(file, null, null, false, 0, e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return new ScanResult(file, null, null, false, 0, e);
+		}
+	}
+	
+	private ScanResult scan(File file, Map<String, CacheEntry> current, Map<String, CacheEntry> updated) {
+		long start = System.nanoTime();
+		JarFile jar = null;
+		
+		try {
+			jar = new JarFile(file);
+			JarEntry entry = jar.getJarEntry(DESCRIPTOR);
+			
+			if (entry == null) {
+				return new ScanResult(file, jar, null, false, System.nanoTime() - start, null);
+			}
+			
+			CacheEntry cached = current.get(file.getName());
+			
+			if (cached != null && cached.matches(file, entry)) {
+				return new ScanResult(file, jar, cached.description, true, System.nanoTime() - start, null);
+			}
+			
+			LoadableDescriptionFile description = new LoadableDescriptionFile(jar.getInputStream(entry));
+			
+			// jars written without checksums can't be validated, so are never cached
+			if (entry.getCrc() != -1) {
+				updated.put(file.getName(), new CacheEntry(file.length(), file.lastModified(), entry.getCrc(), description));
+			}
+			
+			return new ScanResult(file, jar, description, false, System.nanoTime() - start, null);
+		} catch (Throwable t) {
+			if (jar != null) {
+				try {
+					jar.close();
+				} catch (IOException e) {
+				}
+			}
+			
+			return new ScanResult(file, null, null, false, System.nanoTime() - start, t);
+		}
+	}
+	
+	private Map<String, CacheEntry> readCache() {
+		Map<String, CacheEntry> entries = new HashMap<String, CacheEntry>();
+		
+		if (cacheFile == null || !cacheFile.exists()) {
+			return entries;
+		}
+		
+		DataInputStream in = null;
+		
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)));
+			
+			if (in.readInt() != CACHE_MAGIC || in.readInt() != CACHE_VERSION) {
+				return entries;
+			}
+			
+			int count = in.readInt();
+			
+			for (int i = 0; i < count; i++) {
+				String name = in.readUTF();
+				long size = in.readLong();
+				long modified = in.readLong();
+				long crc = in.readLong();
+				
+				LoadableDescriptionFile description = new LoadableDescriptionFile(in.readUTF(), in.readUTF(), in.readUTF(), in.readBoolean() ? in.readUTF() : null, readList(in), readList(in), readList(in));
+				entries.put(name, new CacheEntry(size, modified, crc, description));
+			}
+		} catch (IOException e) {
+			// a corrupt cache just means every jar is parsed again
+			entries.clear();
+		} finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (IOException e) {
+				}
+			}
+		}
+		
+		return entries;
+	}
+	
+	private void writeCache(Map<String, CacheEntry> entries) {
+		if (cacheFile == null) {
+			return;
+		}
+		
+		File temp = new File(cacheFile.getPath() + ".tmp");
+		DataOutputStream out = null;
+		
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+			out.writeInt(CACHE_MAGIC);
+			out.writeInt(CACHE_VERSION);
+			out.writeInt(entries.size());
+			
+			for (Map.Entry<String, CacheEntry> entry : entries.entrySet()) {
+				CacheEntry cached = entry.getValue();
+				LoadableDescriptionFile description = cached.description;
+				
+				out.writeUTF(entry.getKey());
+				out.writeLong(cached.size);
+				out.writeLong(cached.modified);
+				out.writeLong(cached.crc);
+				out.writeUTF(description.getName());
+				out.writeUTF(description.getVersion());
+				out.writeUTF(description.getDescription());
+				out.writeBoolean(description.getMainClass() != null);
+				if (description.getMainClass() != null) {
+					out.writeUTF(description.getMainClass());
+				}
+				writeList(out, description.getAuthors());
+				writeList(out, new ArrayList<String>(description.getDependencies()));
+				writeList(out, new ArrayList<String>(description.getSoftDependencies()));
+			}
+			
+			out.close();
+			out = null;
+			
+			if (!temp.renameTo(cacheFile)) {
+				cacheFile.delete();
+				temp.renameTo(cacheFile);
+			}
+		} catch (IOException e) {
+			// not being able to cache descriptions only costs start up time
+			temp.delete();
+		} finally {
+			if (out != null) {
+				try {
+					out.close();
+				} catch (IOException e) {
+				}
+			}
+		}
+	}
+	
+	private static List<String> readList(DataInputStream in) throws IOException {
+		int size = in.readInt();
+		List<String> list = new ArrayList<String>(size);
+		
+		for (int i = 0; i < size; i++) {
+			list.add(in.readUTF());
+		}
+		
+		return Collections.unmodifiableList(list);
+	}
+	
+	private static void writeList(DataOutputStream out, List<String> list) throws IOException {
+		out.writeInt(list.size());
+		
+		for (String value : list) {
+			out.writeUTF(value);
+		}
+	}
+	
+	private static final class CacheEntry {
+		
+		final long size;
+		final long modified;
+		final long crc;
+		final LoadableDescriptionFile description;
+		
+		CacheEntry(long size, long modified, long crc, LoadableDescriptionFile description) {
+			this.size = size;
+			this.modified = modified;
+			this.crc = crc;
+			this.description = description;
+		}
+		
+		boolean matches(File file, JarEntry descriptor) {
+			return size == file.length() && modified == file.lastModified() && crc == descriptor.getCrc();
+		}
+	}
+	
+	/**
+	 * The result of scanning a single module jar.
+	 */
+	public static final class ScanResult {
+		
+		private final File file;
+		private final JarFile jar;
+		private final LoadableDescriptionFile description;
+		private final boolean cached;
+		private final long nanos;
+		private final Throwable error;
+		
+		ScanResult(File file, JarFile jar, LoadableDescriptionFile description, boolean cached, long nanos, Throwable error) {
+			this.file = file;
+			this.jar = jar;
+			this.description = description;
+			this.cached = cached;
+			this.nanos = nanos;
+			this.error = error;
+		}
+		
+		/**
+		 * Gets the jar file that was scanned.
+		 * 
+		 * @return the file
+		 */
+		public File getFile() {
+			return file;
+		}
+		
+		/**
+		 * Gets the opened jar, left open for the module to use.
+		 * 
+		 * @return the jar, or null if it could not be opened
+		 */
+		public JarFile getJarFile() {
+			return jar;
+		}
+		
+		/**
+		 * Gets the description read from the jar's path.yml.
+		 * 
+		 * @return the description, or null if the jar has no path.yml
+		 */
+		public LoadableDescriptionFile getDescription() {
+			return description;
+		}
+		
+		/**
+		 * Checks if the description came from the cache.
+		 * 
+		 * @return true if the description was cached
+		 */
+		public boolean isCached() {
+			return cached;
+		}
+		
+		/**
+		 * Gets the time taken to scan the jar.
+		 * 
+		 * @return the scan time in nanoseconds
+		 */
+		public long getNanos() {
+			return nanos;
+		}
+		
+		/**
+		 * Gets the error thrown while scanning the jar.
+		 * 
+		 * @return the error, or null if the jar was scanned successfully
+		 */
+		public Throwable getError() {
+			return error;
+		}
+	}
+}
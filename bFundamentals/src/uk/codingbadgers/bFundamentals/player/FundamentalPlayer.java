@@ -21,7 +21,6 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.util.Arrays;
 import java.util.HashMap;
-import java.util.logging.Level;
 
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
@@ -30,15 +29,12 @@ import org.bukkit.entity.Player;
 import org.bukkit.inventory.PlayerInventory;
 import org.bukkit.plugin.messaging.Messenger;
 
-import com.comphenix.protocol.PacketType;
-import com.comphenix.protocol.ProtocolLibrary;
-import com.comphenix.protocol.events.PacketContainer;
-import com.comphenix.protocol.wrappers.WrappedChatComponent;
-
 import uk.codingbadgers.bFundamentals.bFundamentals;
+import uk.codingbadgers.bFundamentals.backup.BackupCallback;
 import uk.codingbadgers.bFundamentals.backup.BackupFactory;
 import uk.codingbadgers.bFundamentals.backup.PlayerBackup;
 import uk.codingbadgers.bFundamentals.message.Message;
+import uk.codingbadgers.bFundamentals.message.MessageSender;
 
 /**
  * The Basic Player class for all modules.
@@ -196,14 +192,30 @@ public class FundamentalPlayer {
 	 *
 	 * @param BackupFolder The folder the backup should be created in
 	 * @param clearInv clear the players inventory after backing up
+	 * @return the backup
 	 */
 	public PlayerBackup backupInventory(File backupFolder, boolean clearInv) {
+		return backupInventory(backupFolder, clearInv, null);
+	}
+
+	/**
+	 * Backup a player to a file based on their name in a given folder. The
+	 * backup is written in the background, if it can't be written the
+	 * callback can restore the player from the backup held in memory.
+	 *
+	 * @param BackupFolder The folder the backup should be created in
+	 * @param clearInv clear the players inventory after backing up
+	 * @param callback told on the main thread whether the backup was
+	 *        written, or null
+	 * @return the backup
+	 */
+	public PlayerBackup backupInventory(File backupFolder, boolean clearInv, BackupCallback callback) {
 		
-		File backupFile = new File(backupFolder + File.separator + m_player.getName() + ".json");				
-		PlayerBackup backup = BackupFactory.createBackup(backupFile, m_player);
+		File backupFile = BackupFactory.getBackupFile(backupFolder, m_player.getName());
+		PlayerBackup backup = BackupFactory.createBackup(backupFile, m_player, callback);
 		
-		// clear the inventory only if the backup was successful
-		if (clearInv && backup != null) {
+		// the backup is a snapshot, so the inventory can be cleared before it is written
+		if (clearInv) {
 			clearInventory(true);
 		}
 		
@@ -220,12 +232,11 @@ public class FundamentalPlayer {
 		
 		clearInventory(true);
 		
-		File backupFile = new File(restoreFolder + File.separator + m_player.getName() + ".json");		
-		if (!backupFile.exists()) {
+		if (!BackupFactory.hasBackup(restoreFolder, m_player.getName())) {
 			throw(new FileNotFoundException("A backup file could not be found for the player " + m_player.getName() + " in the folder " + restoreFolder.getAbsolutePath()));
 		}
 
-		PlayerBackup backup = BackupFactory.readBackup(backupFile);
+		PlayerBackup backup = BackupFactory.readBackup(restoreFolder, m_player.getName());
 
 		if (backup != null) {
 			backup.restore(m_player);
@@ -255,20 +266,13 @@ public class FundamentalPlayer {
 	}
 	
 	/**
-	 * Send a custom formated message to a player
+	 * Send a custom formated message to a player, the message's chat
+	 * component is cached and shared with every other send of the same message.
 	 * 
 	 * @param message the messge to send
+	 * @see MessageSender#broadcast(Iterable, Message)
 	 */
 	public void sendMessage(Message message) {
-		String json = bFundamentals.getGsonInstance().toJson(message);
-		if (bFundamentals.getConfigurationManager().isDebugEnabled()) { bFundamentals.log(Level.INFO, json); }
-		
-		try {
-			PacketContainer packet = ProtocolLibrary.getProtocolManager().createPacket(PacketType.Play.Server.CHAT);
-			packet.getChatComponents().write(0, WrappedChatComponent.fromJson(json));
-			ProtocolLibrary.getProtocolManager().sendServerPacket(this.m_player, packet);
-		} catch (Exception ex) {
-			throw new RuntimeException(ex);
-		}
+		MessageSender.send(m_player, message);
 	}
 }
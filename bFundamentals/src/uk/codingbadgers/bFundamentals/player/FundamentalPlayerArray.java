@@ -17,18 +17,52 @@
  */
 package uk.codingbadgers.bFundamentals.player;
 
+import java.util.AbstractCollection;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.bukkit.entity.Player;
 
+import uk.codingbadgers.bFundamentals.message.Message;
+import uk.codingbadgers.bFundamentals.message.MessageSender;
+
 /**
- * The BasePlayer Array.
+ * The BasePlayer Array, a registry of all online players indexed by unique
+ * id and by case insensitive name.
+ * <p>
+ * Lookups are constant time and safe to call from any thread, iteration is
+ * weakly consistent and never throws a
+ * {@link java.util.ConcurrentModificationException}.
  */
-public class FundamentalPlayerArray extends ArrayList<FundamentalPlayer> {
+public class FundamentalPlayerArray extends AbstractCollection<FundamentalPlayer> {
 
-	/** Auto generated UID. */
-	private static final long serialVersionUID = -5142104058202469125L;
+	private final ConcurrentMap<UUID, FundamentalPlayer> m_byId = new ConcurrentHashMap<UUID, FundamentalPlayer>();
+	private final ConcurrentMap<String, FundamentalPlayer> m_byName = new ConcurrentHashMap<String, FundamentalPlayer>();
+
+	/**
+	 * Adds a player to the array, replacing any player already registered
+	 * with the same unique id.
+	 *
+	 * @param player the player
+	 * @return true
+	 */
+	@Override
+	public boolean add(FundamentalPlayer player) {
+		Player bukkitPlayer = player.getPlayer();
+		
+		FundamentalPlayer old = m_byId.put(bukkitPlayer.getUniqueId(), player);
+		if (old != null && old != player && old.getPlayer() != null) {
+			m_byName.remove(nameKey(old.getPlayer().getName()), old);
+		}
+		
+		m_byName.put(nameKey(bukkitPlayer.getName()), player);
+		return true;
+	}
 
 	/**
 	 * Gets the player based of a bukkit player.
@@ -37,26 +71,27 @@ public class FundamentalPlayerArray extends ArrayList<FundamentalPlayer> {
 	 * @return the player
 	 */
 	public FundamentalPlayer getPlayer(Player player) {
-		return getPlayer(player.getName());
+		return m_byId.get(player.getUniqueId());
 	}
 	
 	/**
-	 * Gets the player based of their name.
+	 * Gets the player based of their unique id.
+	 *
+	 * @param id the player's unique id
+	 * @return the player
+	 */
+	public FundamentalPlayer getPlayer(UUID id) {
+		return m_byId.get(id);
+	}
+	
+	/**
+	 * Gets the player based of their name, case insensitive.
 	 *
 	 * @param player the player's name
 	 * @return the player
 	 */
 	public FundamentalPlayer getPlayer(String player) {
-		Iterator<FundamentalPlayer> itr = iterator();
-		
-		while(itr.hasNext()) {
-			FundamentalPlayer current = itr.next();
-			if (current.getPlayer().getName().equalsIgnoreCase(player)) {
-				return current;
-			}
-		}
-		
-		return null;
+		return m_byName.get(nameKey(player));
 	}
 	
 	/**
@@ -65,11 +100,91 @@ public class FundamentalPlayerArray extends ArrayList<FundamentalPlayer> {
 	 * @param player the bukkit player
 	 */
 	public void removePlayer(Player player) {
-		FundamentalPlayer bPlayer = getPlayer(player);
+		FundamentalPlayer bPlayer = m_byId.remove(player.getUniqueId());
 		if (bPlayer != null) {
+			m_byName.remove(nameKey(player.getName()), bPlayer);
 			bPlayer.destroy();
-			remove(bPlayer);
 		}
 	}
+
+	/**
+	 * Send a message to every player in the array, the message is encoded
+	 * once and the same chat component is sent to every player.
+	 *
+	 * @param message the message
+	 */
+	public void broadcast(Message message) {
+		List<Player> players = new ArrayList<Player>(m_byId.size());
+		
+		for (FundamentalPlayer player : m_byId.values()) {
+			Player bukkitPlayer = player.getPlayer();
+			if (bukkitPlayer != null) {
+				players.add(bukkitPlayer);
+			}
+		}
+		
+		MessageSender.broadcast(players, message);
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		if (!(o instanceof FundamentalPlayer)) {
+			return false;
+		}
+		
+		Player player = ((FundamentalPlayer) o).getPlayer();
+		if (player == null || !m_byId.remove(player.getUniqueId(), o)) {
+			return false;
+		}
+		
+		m_byName.remove(nameKey(player.getName()), o);
+		return true;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return m_byId.containsValue(o);
+	}
+
+	@Override
+	public void clear() {
+		m_byId.clear();
+		m_byName.clear();
+	}
+
+	@Override
+	public Iterator<FundamentalPlayer> iterator() {
+		final Iterator<FundamentalPlayer> itr = m_byId.values().iterator();
+		
+		return new Iterator<FundamentalPlayer>() {
+			private FundamentalPlayer current;
+			
+			public boolean hasNext() {
+				return itr.hasNext();
+			}
+
+			public FundamentalPlayer next() {
+				return current = itr.next();
+			}
+
+			public void remove() {
+				if (current == null) {
+					throw new IllegalStateException();
+				}
+				
+				FundamentalPlayerArray.this.remove(current);
+				current = null;
+			}
+		};
+	}
+
+	@Override
+	public int size() {
+		return m_byId.size();
+	}
+	
+	private static String nameKey(String name) {
+		return name.toLowerCase(Locale.ENGLISH);
+	}
 	
 }
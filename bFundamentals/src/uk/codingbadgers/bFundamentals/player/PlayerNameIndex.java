@@ -0,0 +1,201 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bFundamentals.player;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.bukkit.OfflinePlayer;
+
+/**
+ * A sorted index of every player name the server has seen, used to look up
+ * players by exact or partial name without scanning the server's player
+ * files.
+ * <p>
+ * The index is built once from the offline players when bFundamentals is
+ * enabled and kept up to date as players join. Names are kept in a sorted
+ * array published as an immutable snapshot, so lookups are a binary search,
+ * never lock and are safe to call from any thread.
+ */
+public class PlayerNameIndex {
+
+	private volatile Snapshot snapshot = Snapshot.EMPTY;
+	
+	/**
+	 * Replaces the contents of the index with a set of players.
+	 *
+	 * @param players the players
+	 */
+	public synchronized void rebuild(OfflinePlayer[] players) {
+		List<String> names = new ArrayList<String>(players.length);
+		
+		for (OfflinePlayer player : players) {
+			if (player.getName() != null) {
+				names.add(player.getName());
+			}
+		}
+		
+		rebuild(names);
+	}
+	
+	/**
+	 * Replaces the contents of the index with a set of names.
+	 *
+	 * @param names the player names
+	 */
+	public synchronized void rebuild(Iterable<String> names) {
+		Map<String, String> sorted = new TreeMap<String, String>();
+		
+		for (String name : names) {
+			sorted.put(key(name), name);
+		}
+		
+		String[] keys = sorted.keySet().toArray(new String[sorted.size()]);
+		String[] values = sorted.values().toArray(new String[sorted.size()]);
+		snapshot = new Snapshot(keys, values);
+	}
+	
+	/**
+	 * Adds a name to the index, replacing the case of the name if it is
+	 * already known.
+	 *
+	 * @param name the player name
+	 */
+	public synchronized void add(String name) {
+		Snapshot current = snapshot;
+		String key = key(name);
+		int index = Arrays.binarySearch(current.keys, key);
+		
+		if (index >= 0) {
+			if (!current.names[index].equals(name)) {
+				String[] names = current.names.clone();
+				names[index] = name;
+				snapshot = new Snapshot(current.keys, names);
+			}
+			return;
+		}
+		
+		int insert = -index - 1;
+		int size = current.keys.length;
+		String[] keys = new String[size + 1];
+		String[] names = new String[size + 1];
+		
+		System.arraycopy(current.keys, 0, keys, 0, insert);
+		System.arraycopy(current.names, 0, names, 0, insert);
+		keys[insert] = key;
+		names[insert] = name;
+		System.arraycopy(current.keys, insert, keys, insert + 1, size - insert);
+		System.arraycopy(current.names, insert, names, insert + 1, size - insert);
+		
+		snapshot = new Snapshot(keys, names);
+	}
+	
+	/**
+	 * Gets a player's name as it was last seen, ignoring case.
+	 *
+	 * @param name the name to look up
+	 * @return the name in its correct case, or null if the player has never
+	 *         been seen
+	 */
+	public String getExact(String name) {
+		Snapshot current = snapshot;
+		int index = Arrays.binarySearch(current.keys, key(name));
+		return index >= 0 ? current.names[index] : null;
+	}
+	
+	/**
+	 * Checks if a player has been seen, ignoring case.
+	 *
+	 * @param name the name to look up
+	 * @return true if a player with that name has been seen
+	 */
+	public boolean contains(String name) {
+		return getExact(name) != null;
+	}
+	
+	/**
+	 * Gets every name starting with a prefix, ignoring case.
+	 *
+	 * @param prefix the prefix
+	 * @return the matching names in alphabetical order
+	 */
+	public List<String> getPrefixMatches(String prefix) {
+		return getPrefixMatches(prefix, Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * Gets the names starting with a prefix, ignoring case.
+	 *
+	 * @param prefix the prefix
+	 * @param limit the maximum number of names to return
+	 * @return the matching names in alphabetical order
+	 */
+	public List<String> getPrefixMatches(String prefix, int limit) {
+		Snapshot current = snapshot;
+		String key = key(prefix);
+		int start = Arrays.binarySearch(current.keys, key);
+		
+		if (start < 0) {
+			start = -start - 1;
+		}
+		
+		int end = start;
+		while (end < current.keys.length && end - start < limit && current.keys[end].startsWith(key)) {
+			end++;
+		}
+		
+		if (end == start) {
+			return Collections.emptyList();
+		}
+		
+		return Collections.unmodifiableList(Arrays.asList(current.names).subList(start, end));
+	}
+	
+	/**
+	 * Gets the number of names in the index.
+	 *
+	 * @return the number of names
+	 */
+	public int size() {
+		return snapshot.keys.length;
+	}
+	
+	private static String key(String name) {
+		return name.toLowerCase(Locale.ENGLISH);
+	}
+	
+	private static final class Snapshot {
+		
+		static final Snapshot EMPTY = new Snapshot(new String[0], new String[0]);
+		
+		/** lower case names, sorted */
+		final String[] keys;
+		/** the names as they were last seen, in the same order as the keys */
+		final String[] names;
+		
+		Snapshot(String[] keys, String[] names) {
+			this.keys = keys;
+			this.names = names;
+		}
+	}
+}
@@ -0,0 +1,59 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bFundamentals.timings;
+
+import org.bukkit.event.Event;
+import org.bukkit.event.EventException;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.EventExecutor;
+
+/**
+ * An event executor which records how long the wrapped executor takes while
+ * timings are enabled.
+ */
+public class TimedEventExecutor implements EventExecutor {
+
+	private final Timing timing;
+	private final EventExecutor executor;
+	
+	/**
+	 * Instantiates a new timed event executor.
+	 *
+	 * @param timing the timing to record events against
+	 * @param executor the executor to time
+	 */
+	public TimedEventExecutor(Timing timing, EventExecutor executor) {
+		this.timing = timing;
+		this.executor = executor;
+	}
+
+	@Override
+	public void execute(Listener listener, Event event) throws EventException {
+		if (!Timings.isEnabled()) {
+			executor.execute(listener, event);
+			return;
+		}
+		
+		long start = System.nanoTime();
+		try {
+			executor.execute(listener, event);
+		} finally {
+			timing.record(System.nanoTime() - start);
+		}
+	}
+}
@@ -0,0 +1,53 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bFundamentals.timings;
+
+/**
+ * A task which records how long each run takes while timings are enabled.
+ */
+public class TimedRunnable implements Runnable {
+
+	private final Timing timing;
+	private final Runnable task;
+	
+	/**
+	 * Instantiates a new timed task.
+	 *
+	 * @param timing the timing to record runs against
+	 * @param task the task to run
+	 */
+	public TimedRunnable(Timing timing, Runnable task) {
+		this.timing = timing;
+		this.task = task;
+	}
+
+	@Override
+	public void run() {
+		if (!Timings.isEnabled()) {
+			task.run();
+			return;
+		}
+		
+		long start = System.nanoTime();
+		try {
+			task.run();
+		} finally {
+			timing.record(System.nanoTime() - start);
+		}
+	}
+}
@@ -0,0 +1,93 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bFundamentals.timings;
+
+import uk.codingbadgers.bFundamentals.metrics.Histogram;
+
+/**
+ * The timings of a single handler, records how many times it ran, the total
+ * and maximum time it took and a histogram of the durations.
+ * <p>
+ * The histogram has four buckets per power of two nanoseconds, so the
+ * percentiles it reports are within 25% of the real value. Recording never
+ * locks and is safe from any thread.
+ */
+public class Timing extends Histogram {
+
+	private final String module;
+	private final TimingType type;
+	private final String name;
+	
+	/**
+	 * Instantiates a new timing.
+	 *
+	 * @param module the name of the module the handler belongs to
+	 * @param type the type of handler
+	 * @param name the name of the handler
+	 */
+	public Timing(String module, TimingType type, String name) {
+		this.module = module;
+		this.type = type;
+		this.name = name;
+	}
+	
+	/**
+	 * Records a single run of the handler.
+	 *
+	 * @param nanos how long the handler took in nanoseconds
+	 */
+	public void record(long nanos) {
+		update(nanos);
+	}
+	
+	/**
+	 * Gets the name of the module the handler belongs to.
+	 *
+	 * @return the module name
+	 */
+	public String getModule() {
+		return module;
+	}
+	
+	/**
+	 * Gets the type of handler.
+	 *
+	 * @return the handler type
+	 */
+	public TimingType getType() {
+		return type;
+	}
+	
+	/**
+	 * Gets the name of the handler.
+	 *
+	 * @return the handler name
+	 */
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * Gets the total time the handler took.
+	 *
+	 * @return the total time in nanoseconds
+	 */
+	public long getTotal() {
+		return getSum();
+	}
+}
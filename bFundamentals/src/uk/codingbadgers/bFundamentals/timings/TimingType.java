@@ -0,0 +1,48 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bFundamentals.timings;
+
+/**
+ * The kind of handler a {@link Timing} measures.
+ */
+public enum TimingType {
+	
+	/** An event handler registered through Module#register(Listener). */
+	LISTENER("listener"),
+	
+	/** A command registered by a module. */
+	COMMAND("command"),
+	
+	/** A task scheduled through a module's run task methods. */
+	TASK("task");
+	
+	private final String name;
+	
+	private TimingType(String name) {
+		this.name = name;
+	}
+	
+	/**
+	 * Gets the name used for this type in timing reports.
+	 *
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+}
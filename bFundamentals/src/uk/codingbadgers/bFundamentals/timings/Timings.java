@@ -0,0 +1,241 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bFundamentals.timings;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Per module timings of listeners, commands and tasks.
+ * <p>
+ * Timings are created when a handler is registered, but nothing is recorded
+ * unless timings are enabled, when disabled a timed handler only pays for a
+ * single volatile read.
+ */
+public final class Timings {
+
+	private static volatile boolean enabled = false;
+	private static final ConcurrentMap<String, Timing> timings = new ConcurrentHashMap<String, Timing>();
+	
+	private Timings() {
+	}
+	
+	/**
+	 * Checks if timings are being recorded.
+	 *
+	 * @return true if enabled
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+	
+	/**
+	 * Enables or disables recording timings.
+	 *
+	 * @param enabled true to record timings
+	 */
+	public static void setEnabled(boolean enabled) {
+		Timings.enabled = enabled;
+	}
+	
+	/**
+	 * Gets the timing for a handler, creating it if needed.
+	 *
+	 * @param module the name of the module the handler belongs to
+	 * @param type the type of handler
+	 * @param name the name of the handler
+	 * @return the timing
+	 */
+	public static Timing getTiming(String module, TimingType type, String name) {
+		String key = module + '\0' + type.name() + '\0' + name;
+		Timing timing = timings.get(key);
+		
+		if (timing == null) {
+			Timing created = new Timing(module, type, name);
+			timing = timings.putIfAbsent(key, created);
+			
+			if (timing == null) {
+				timing = created;
+			}
+		}
+		
+		return timing;
+	}
+	
+	/**
+	 * Wraps a task so each run is recorded against the module.
+	 *
+	 * @param module the name of the module the task belongs to
+	 * @param task the task
+	 * @return the timed task
+	 */
+	public static Runnable wrap(String module, Runnable task) {
+		return new TimedRunnable(getTiming(module, TimingType.TASK, nameOf(task.getClass())), task);
+	}
+	
+	/**
+	 * Gets every timing.
+	 *
+	 * @return the timings
+	 */
+	public static Collection<Timing> getTimings() {
+		return Collections.unmodifiableCollection(timings.values());
+	}
+	
+	/**
+	 * Resets every timing.
+	 */
+	public static void reset() {
+		for (Timing timing : timings.values()) {
+			timing.reset();
+		}
+	}
+	
+	/**
+	 * Builds a report of every handler that has run, grouped by module with
+	 * the most expensive modules and handlers first.
+	 *
+	 * @return the report lines
+	 */
+	public static List<String> report() {
+		Map<String, List<Timing>> modules = new LinkedHashMap<String, List<Timing>>();
+		
+		for (Timing timing : timings.values()) {
+			if (timing.getCount() == 0) {
+				continue;
+			}
+			
+			List<Timing> list = modules.get(timing.getModule());
+			if (list == null) {
+				list = new ArrayList<Timing>();
+				modules.put(timing.getModule(), list);
+			}
+			list.add(timing);
+		}
+		
+		List<ModuleSummary> summaries = new ArrayList<ModuleSummary>();
+		for (Map.Entry<String, List<Timing>> entry : modules.entrySet()) {
+			summaries.add(new ModuleSummary(entry.getKey(), entry.getValue()));
+		}
+		Collections.sort(summaries);
+		
+		List<String> lines = new ArrayList<String>();
+		lines.add("Timings " + (enabled ? "enabled" : "disabled") + ", times in milliseconds");
+		
+		if (summaries.isEmpty()) {
+			lines.add("Nothing has been recorded");
+			return lines;
+		}
+		
+		for (ModuleSummary summary : summaries) {
+			lines.add(summary.name + ": " + format(summary.count, summary.total, summary.max, Timing.percentile(summary.histogram, 0.5, summary.max), Timing.percentile(summary.histogram, 0.99, summary.max)));
+			
+			Collections.sort(summary.timings, new Comparator<Timing>() {
+				@Override
+				public int compare(Timing o1, Timing o2) {
+					return o1.getTotal() < o2.getTotal() ? 1 : (o1.getTotal() == o2.getTotal() ? 0 : -1);
+				}
+			});
+			
+			for (Timing timing : summary.timings) {
+				lines.add("    [" + timing.getType().getName() + "] " + timing.getName() + ": " + 
+						format(timing.getCount(), timing.getTotal(), timing.getMax(), timing.getPercentile(0.5), timing.getPercentile(0.99)));
+			}
+		}
+		
+		return lines;
+	}
+	
+	/**
+	 * Writes the report to a file.
+	 *
+	 * @param file the file to write to
+	 * @throws IOException if the file could not be written
+	 */
+	public static void export(File file) throws IOException {
+		if (file.getParentFile() != null) {
+			file.getParentFile().mkdirs();
+		}
+		
+		PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+		
+		try {
+			for (String line : report()) {
+				writer.println(line);
+			}
+		} finally {
+			writer.close();
+		}
+		
+		if (writer.checkError()) {
+			throw new IOException("Could not write timings to " + file.getPath());
+		}
+	}
+	
+	static String nameOf(Class<?> clazz) {
+		String name = clazz.getName();
+		return name.substring(name.lastIndexOf('.') + 1);
+	}
+	
+	private static String format(long count, long total, long max, long p50, long p99) {
+		return String.format("count=%d total=%.2f avg=%.4f max=%.3f p50=%.4f p99=%.4f", count, millis(total), millis(count == 0 ? 0 : total / count), millis(max), millis(p50), millis(p99));
+	}
+	
+	private static double millis(long nanos) {
+		return nanos / 1000000.0;
+	}
+	
+	private static final class ModuleSummary implements Comparable<ModuleSummary> {
+		
+		final String name;
+		final List<Timing> timings;
+		final long[] histogram = Timing.emptySnapshot();
+		long count;
+		long total;
+		long max;
+		
+		ModuleSummary(String name, List<Timing> timings) {
+			this.name = name;
+			this.timings = timings;
+			
+			for (Timing timing : timings) {
+				count += timing.getCount();
+				total += timing.getTotal();
+				max = Math.max(max, timing.getMax());
+				Timing.merge(histogram, timing.snapshot());
+			}
+		}
+
+		@Override
+		public int compareTo(ModuleSummary other) {
+			return total < other.total ? 1 : (total == other.total ? name.compareTo(other.name) : -1);
+		}
+	}
+}
@@ -17,6 +17,7 @@
  */
 package uk.codingbadgers.bFundamentals.update;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
@@ -30,7 +31,10 @@ import org.xml.sax.SAXException;
 
 import com.google.common.io.Files;
 
+import org.bukkit.Bukkit;
+
 import uk.codingbadgers.bFundamentals.bFundamentals;
+import uk.codingbadgers.bFundamentals.error.ExceptionHandler;
 import uk.codingbadgers.bFundamentals.module.Module;
 
 /**
@@ -38,6 +42,9 @@ import uk.codingbadgers.bFundamentals.module.Module;
  */
 public class BadgerUpdater extends Updater {
 
+	/** The artifact id read from the repository metadata. */
+	private String m_artifact;
+
 	/**
 	 * Instantiates a new badger updater.
 	 *
@@ -45,6 +52,7 @@ public class BadgerUpdater extends Updater {
 	 */
 	public BadgerUpdater(Module module) {
 		super(module, "BadgerUpdater");
+		m_artifact = module.getName();
 		
 		if (!module.getName().startsWith("b"))
 			throw new IllegalArgumentException("Badger updater can only be used on coding badger modules");
@@ -69,12 +77,10 @@ public class BadgerUpdater extends Updater {
 		String website = "";
 		
 		try {
-			URL metadata = new URL(m_repository + "/maven-metadata.xml");
+			Document doc = readMetadata();
 			
-			DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-			DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
-			Document doc = dBuilder.parse(metadata.openStream());
-			doc.getDocumentElement().normalize();
+			Element node = (Element) doc.getElementsByTagName("metadata").item(0);
+			m_artifact = getTagValue("artifactId", node);
 			
 			Element versions = (Element) doc.getElementsByTagName("versioning").item(0);
 			
@@ -136,6 +142,22 @@ public class BadgerUpdater extends Updater {
 		return !upToDate;
 	}
 
+	/**
+	 * Reads the repository metadata for the module through the metadata
+	 * cache.
+	 *
+	 * @return the metadata document
+	 */
+	private Document readMetadata() throws IOException, SAXException, ParserConfigurationException {
+		byte[] metadata = m_metadata.get(new URL(m_repository + "/maven-metadata.xml"));
+		
+		DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
+		DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
+		Document doc = dBuilder.parse(new ByteArrayInputStream(metadata));
+		doc.getDocumentElement().normalize();
+		return doc;
+	}
+
 	/* (non-Javadoc)
 	 * @see uk.codingbadgers.bFundamentals.update.Updater#downloadUpdate()
 	 */
@@ -145,40 +167,12 @@ public class BadgerUpdater extends Updater {
 			return;
 		
 		m_log.info("Automaticaly downloading update for " + m_module.getName() + " version: " + m_newVersion);
-		String artifact = m_module.getName();
-		try {
-			URL metadata = new URL(m_repository + "/maven-metadata.xml");
-			
-			DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-			DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
-			Document doc = dBuilder.parse(metadata.openStream());
-			doc.getDocumentElement().normalize();
-			
-			Element node = (Element) doc.getElementsByTagName("metadata").item(0);
-			
-			artifact = getTagValue("artifactId", node);
-		} catch (MalformedURLException e) {
-			e.printStackTrace();
-			return;
-		} catch (IOException e) {
-			e.printStackTrace();
-			return;
-		} catch (SAXException e) {
-		} catch (ParserConfigurationException e) {
-			e.printStackTrace();
-			return;
-		}
 		
-		m_downloadLink = new URL(m_repository + "/" + m_newVersion + "/" + artifact + "-" + m_newVersion + ".jar");
+		m_downloadLink = new URL(m_repository + "/" + m_newVersion + "/" + m_artifact + "-" + m_newVersion + ".jar");
 		
+		// only a verified download is ever left in the download folder
 		File output = new File(m_downloadFolder + File.separator + m_module.getName() + ".jar");
-		if (output.exists()) {
-			output.delete();
-		}
-		output.createNewFile();
-		System.out.println(output.getAbsolutePath());
-		
-		UpdaterUtils.download(m_downloadLink, output);
+		UpdaterUtils.downloadVerified(m_downloadLink, output);
 	}
 
 	/* (non-Javadoc)
@@ -186,29 +180,70 @@ public class BadgerUpdater extends Updater {
 	 */
 	@Override
 	public void applyUpdate() throws Exception{
-		m_log.info("Applying update for " + m_module.getName() + " version: " + m_newVersion);
-		File output = new File(m_downloadFolder + File.separator + m_module.getName() + ".jar");
-		if (output.exists()) {
+		final File output = new File(m_downloadFolder + File.separator + m_module.getName() + ".jar");
+		if (!output.exists()) {
+			m_log.info("No verified download for " + m_module.getName() + ", not applying update");
 			return;
 		}
 		
-		File dest = new File(bFundamentals.getModuleLoader().getModuleDir() + File.separator + m_module.getFile().getName() + ".jar");
-		File backup = new File(m_backupFolder + File.separator + m_module + ".jar");
-		
-		if (dest.exists()) {
-			Files.copy(dest, backup);
-			dest.delete();
+		if (!bFundamentals.getInstance().isEnabled()) {
+			m_log.info("Server is stopping, not applying update for " + m_module.getName());
+			return;
 		}
 		
-		if (backup.exists()) {
-			backup.delete();
+		// updates are checked off the main thread, but the module can only be
+		// swapped and reloaded on it
+		Bukkit.getScheduler().runTask(bFundamentals.getInstance(), new Runnable() {
+			@Override
+			public void run() {
+				try {
+					install(output);
+				} catch (Exception ex) {
+					ExceptionHandler.handleException(ex);
+				}
+			}
+		});
+	}
+	
+	/**
+	 * Swaps the module's jar for a verified download then reloads and
+	 * enables it, must be called on the main thread. The module is unloaded
+	 * first so its class loader no longer holds the old jar open.
+	 *
+	 * @param output the verified download
+	 * @throws IOException if the jar could not be replaced
+	 */
+	protected void install(File output) throws IOException {
+		if (!output.exists()) {
+			return;
 		}
 		
-		Files.copy(output, dest);	
+		m_log.info("Applying update for " + m_module.getName() + " version: " + m_newVersion);
+		
+		File dest = m_module.getFile();
+		File backup = new File(m_backupFolder + File.separator + m_module.getName() + ".jar");
 		
-		// reload the module
 		bFundamentals.getModuleLoader().unload(m_module);
-		bFundamentals.getModuleLoader().load(dest);
+		
+		try {
+			if (backup.exists()) {
+				backup.delete();
+			}
+			
+			if (dest.exists()) {
+				Files.copy(dest, backup);
+			}
+			
+			Files.move(output, dest);
+		} finally {
+			// reload whichever jar is in place, the old one if the swap failed
+			bFundamentals.getModuleLoader().load(dest);
+			
+			Module module = bFundamentals.getModuleLoader().getModule(m_module.getName());
+			if (module != null) {
+				module.setEnabled(true);
+			}
+		}
 	}
 
 }
@@ -0,0 +1,184 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bFundamentals.update;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.codec.digest.DigestUtils;
+
+/**
+ * A local cache of repository metadata, metadata is revalidated with a
+ * conditional request using the ETag and Last-Modified headers the
+ * repository sent with it so unchanged metadata isn't downloaded again.
+ * <p>
+ * If the repository can't be reached the cached copy is used.
+ */
+public class MetadataCache {
+
+	private static final String ETAG = "etag";
+	private static final String LAST_MODIFIED = "last-modified";
+	
+	private final File folder;
+	
+	private final AtomicLong fetched = new AtomicLong();
+	private final AtomicLong revalidated = new AtomicLong();
+	
+	/**
+	 * Instantiates a new metadata cache.
+	 *
+	 * @param folder the folder cached metadata is kept in
+	 */
+	public MetadataCache(File folder) {
+		this.folder = folder;
+	}
+	
+	/**
+	 * Gets the metadata at a url, from the cache if it hasn't changed.
+	 *
+	 * @param url the url of the metadata
+	 * @return the metadata
+	 * @throws IOException if the metadata could not be downloaded and there
+	 *             is no cached copy
+	 */
+	public byte[] get(URL url) throws IOException {
+		String key = DigestUtils.md5Hex(url.toString());
+		File dataFile = new File(folder, key + ".xml");
+		File infoFile = new File(folder, key + ".properties");
+		
+		Properties info = new Properties();
+		boolean cached = dataFile.exists() && infoFile.exists();
+		
+		if (cached) {
+			InputStream in = new FileInputStream(infoFile);
+			try {
+				info.load(in);
+			} finally {
+				in.close();
+			}
+		}
+		
+		HttpURLConnection connection;
+		int status;
+		
+		try {
+			connection = UpdaterUtils.openConnection(url);
+			
+			if (cached) {
+				if (info.getProperty(ETAG) != null) {
+					connection.setRequestProperty("If-None-Match", info.getProperty(ETAG));
+				}
+				if (info.getProperty(LAST_MODIFIED) != null) {
+					connection.setRequestProperty("If-Modified-Since", info.getProperty(LAST_MODIFIED));
+				}
+			}
+			
+			status = connection.getResponseCode();
+		} catch (IOException e) {
+			if (cached) {
+				return read(dataFile);
+			}
+			throw e;
+		}
+		
+		try {
+			if (status == HttpURLConnection.HTTP_NOT_MODIFIED && cached) {
+				revalidated.incrementAndGet();
+				return read(dataFile);
+			}
+			
+			if (status != HttpURLConnection.HTTP_OK) {
+				if (cached) {
+					return read(dataFile);
+				}
+				throw new IOException("Server returned " + status + " for " + url);
+			}
+			
+			byte[] data = UpdaterUtils.readFully(connection.getInputStream());
+			fetched.incrementAndGet();
+			
+			Properties updated = new Properties();
+			if (connection.getHeaderField("ETag") != null) {
+				updated.setProperty(ETAG, connection.getHeaderField("ETag"));
+			}
+			if (connection.getHeaderField("Last-Modified") != null) {
+				updated.setProperty(LAST_MODIFIED, connection.getHeaderField("Last-Modified"));
+			}
+			
+			store(dataFile, infoFile, data, updated);
+			return data;
+		} finally {
+			connection.disconnect();
+		}
+	}
+	
+	private void store(File dataFile, File infoFile, byte[] data, Properties info) {
+		if (!folder.exists() && !folder.mkdirs()) {
+			return;
+		}
+		
+		try {
+			OutputStream out = new FileOutputStream(dataFile);
+			try {
+				out.write(data);
+			} finally {
+				out.close();
+			}
+			
+			out = new FileOutputStream(infoFile);
+			try {
+				info.store(out, null);
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			// the cache is only an optimisation, the metadata is still usable
+			infoFile.delete();
+		}
+	}
+	
+	private static byte[] read(File file) throws IOException {
+		return UpdaterUtils.readFully(new FileInputStream(file));
+	}
+	
+	/**
+	 * Gets the number of times metadata was downloaded.
+	 *
+	 * @return the download count
+	 */
+	public long getFetchCount() {
+		return fetched.get();
+	}
+	
+	/**
+	 * Gets the number of times the cached metadata was still up to date.
+	 *
+	 * @return the revalidated count
+	 */
+	public long getRevalidatedCount() {
+		return revalidated.get();
+	}
+}
@@ -0,0 +1,91 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bFundamentals.update;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+import uk.codingbadgers.bFundamentals.bFundamentals;
+
+/**
+ * Runs module update checks on a small shared pool of threads, so checking
+ * every module doesn't start a thread per module.
+ */
+public class UpdateQueue {
+
+	/** The maximum number of update checks run at once. */
+	private static final int POOL_SIZE = 4;
+	
+	/** How long idle update threads are kept, in seconds. */
+	private static final long KEEP_ALIVE = 30;
+	
+	private static ExecutorService executor = null;
+	
+	/**
+	 * Queues an update check for a module.
+	 *
+	 * @param updater the module's updater
+	 * @return the future for the update
+	 */
+	public static synchronized Future<?> submit(Updater updater) {
+		if (executor == null) {
+			ThreadPoolExecutor pool = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, KEEP_ALIVE, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+				private final AtomicInteger count = new AtomicInteger();
+				
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "bFundamentals updater #" + count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			pool.allowCoreThreadTimeOut(true);
+			executor = pool;
+		}
+		
+		return executor.submit(new UpdateThread(updater));
+	}
+	
+	/**
+	 * Stops any queued update checks and waits for running ones to finish.
+	 *
+	 * @param timeout the maximum time to wait in milliseconds
+	 */
+	public static synchronized void shutdown(long timeout) {
+		if (executor == null) {
+			return;
+		}
+		
+		executor.shutdownNow();
+		
+		try {
+			if (!executor.awaitTermination(timeout, TimeUnit.MILLISECONDS)) {
+				bFundamentals.log(Level.WARNING, "Timed out waiting for module updates to finish");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		
+		executor = null;
+	}
+}
@@ -18,25 +18,24 @@
 package uk.codingbadgers.bFundamentals.update;
 
 /**
- * The Updater thread
+ * The Updater task, run on the {@link UpdateQueue}.
  */
-public class UpdateThread extends Thread {
+public class UpdateThread implements Runnable {
 
 	/** The updater to use. */
 	private final Updater m_updater;
 	
 	/**
-	 * Instantiates a new update thread.
+	 * Instantiates a new update task.
 	 *
 	 * @param updater the updater
 	 */
 	public UpdateThread(Updater updater) {
 		m_updater = updater;
-		this.setName("Updater: "+updater.getModule());
 	}
 	
 	/* (non-Javadoc)
-	 * @see java.lang.Thread#run()
+	 * @see java.lang.Runnable#run()
 	 */
 	public void run() {
 		try {
@@ -47,7 +46,7 @@ public class UpdateThread extends Thread {
 	}
 	
 	/**
-	 * Gets the updater from the thread.
+	 * Gets the updater from the task.
 	 *
 	 * @return the updater
 	 */
@@ -60,6 +60,9 @@ public abstract class Updater {
 	/** The download. */
 	protected boolean m_download = false;
 	
+	/** The cache repository metadata is read through. */
+	protected final MetadataCache m_metadata;
+	
 	/**
 	 * Instantiates a new updater.
 	 *
@@ -75,6 +78,7 @@ public abstract class Updater {
 		m_downloadFolder.mkdirs();
 		m_backupFolder = new File(bFundamentals.getModuleLoader().getModuleDir() + File.separator + ".backup" + File.separator);
 		m_backupFolder.mkdirs();
+		m_metadata = new MetadataCache(new File(m_downloadFolder, "metadata"));
 	}
 	
 	/**
@@ -17,31 +17,174 @@
  */
 package uk.codingbadgers.bFundamentals.update;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
 import java.net.URL;
-import java.nio.channels.Channels;
-import java.nio.channels.ReadableByteChannel;
+import java.net.URLConnection;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.apache.commons.codec.binary.Hex;
 
 /**
  * The Updater utils class
  */
 public class UpdaterUtils {
 
+	private static final int CONNECT_TIMEOUT = 10000;
+	private static final int READ_TIMEOUT = 30000;
+	private static final int BUFFER_SIZE = 8192;
+
 	/**
 	 * Download a file from a specific url.
 	 *
 	 * @param link the link
 	 * @param outputFile the output file
-	 * @throws Exception the exception
+	 * @throws IOException if the file could not be downloaded
+	 */
+	public static void download(URL link, File outputFile) throws IOException {
+		if (link == null) 
+			throw new IllegalArgumentException ("dl link cannot be null");
+		
+		InputStream in = openStream(link);
+		try {
+			copy(in, outputFile, null);
+		} finally {
+			in.close();
+		}
+	}
+	
+	/**
+	 * Download a file from a specific url and check it against the SHA-1
+	 * checksum published alongside it. The file is downloaded next to the
+	 * output file and only moved into place once it has been verified, so
+	 * the output file never holds a partial or corrupt download.
+	 *
+	 * @param link the link
+	 * @param outputFile the output file
+	 * @throws IOException if the file could not be downloaded, or it didn't
+	 *             match its checksum
 	 */
-	public static void download(URL link, File outputFile) throws Exception{
+	public static void downloadVerified(URL link, File outputFile) throws IOException {
 		if (link == null) 
 			throw new IllegalArgumentException ("dl link cannot be null");
 		
-        ReadableByteChannel rbc = Channels.newChannel(link.openStream());
-        FileOutputStream output = new FileOutputStream(outputFile);
-        output.getChannel().transferFrom(rbc, 0, 1 << 24);
-        output.close();
+		String expected = new String(readFully(openStream(new URL(link + ".sha1"))), "UTF-8").trim();
+		// some repositories put the file name after the checksum
+		int space = expected.indexOf(' ');
+		if (space != -1) {
+			expected = expected.substring(0, space);
+		}
+		
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException("SHA-1 is not supported", e);
+		}
+		
+		File partFile = new File(outputFile.getPath() + ".part");
+		try {
+			InputStream in = openStream(link);
+			try {
+				copy(in, partFile, digest);
+			} finally {
+				in.close();
+			}
+			
+			String actual = new String(Hex.encodeHex(digest.digest()));
+			if (!actual.equalsIgnoreCase(expected)) {
+				throw new IOException("Checksum mismatch for " + link + ", expected " + expected + " but was " + actual);
+			}
+			
+			if (outputFile.exists() && !outputFile.delete()) {
+				throw new IOException("Could not replace " + outputFile);
+			}
+			
+			if (!partFile.renameTo(outputFile)) {
+				throw new IOException("Could not move download to " + outputFile);
+			}
+		} finally {
+			// nothing is left behind if the download failed part way, once
+			// moved into place there is no part file to delete
+			partFile.delete();
+		}
+	}
+	
+	/**
+	 * Opens a connection to a url with the updater's timeouts.
+	 *
+	 * @param url the url
+	 * @return the connection, not yet connected
+	 * @throws IOException if the connection could not be opened
+	 */
+	static HttpURLConnection openConnection(URL url) throws IOException {
+		URLConnection connection = url.openConnection();
+		
+		if (!(connection instanceof HttpURLConnection)) {
+			throw new IOException("Not a http url: " + url);
+		}
+		
+		connection.setConnectTimeout(CONNECT_TIMEOUT);
+		connection.setReadTimeout(READ_TIMEOUT);
+		connection.setUseCaches(false);
+		return (HttpURLConnection) connection;
+	}
+	
+	/**
+	 * Reads a stream fully and closes it.
+	 *
+	 * @param in the stream
+	 * @return the bytes read
+	 * @throws IOException if the stream could not be read
+	 */
+	static byte[] readFully(InputStream in) throws IOException {
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[BUFFER_SIZE];
+			int read;
+			
+			while ((read = in.read(buffer)) != -1) {
+				out.write(buffer, 0, read);
+			}
+			
+			return out.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+	
+	private static InputStream openStream(URL url) throws IOException {
+		HttpURLConnection connection = openConnection(url);
+		int status = connection.getResponseCode();
+		
+		if (status != HttpURLConnection.HTTP_OK) {
+			connection.disconnect();
+			throw new IOException("Server returned " + status + " for " + url);
+		}
+		
+		return connection.getInputStream();
+	}
+	
+	private static void copy(InputStream in, File outputFile, MessageDigest digest) throws IOException {
+		OutputStream out = new FileOutputStream(outputFile);
+		byte[] buffer = new byte[BUFFER_SIZE];
+		int read;
+		
+		try {
+			while ((read = in.read(buffer)) != -1) {
+				if (digest != null) {
+					digest.update(buffer, 0, read);
+				}
+				out.write(buffer, 0, read);
+			}
+		} finally {
+			out.close();
+		}
 	}
 }
@@ -0,0 +1,177 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.thecodingbadgers.bFundamentals.bungee;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bukkit.entity.Player;
+import org.junit.Test;
+
+import uk.codingbadgers.bFundamentals.bungee.SimpleBungeeMessenger;
+import static org.junit.Assert.*;
+
+public class BungeeMessengerTest {
+
+	/**
+	 * A messenger sending through a fake player, flushed by hand rather than
+	 * by the scheduler.
+	 */
+	private static class TestMessenger extends SimpleBungeeMessenger {
+		
+		final List<byte[]> received = new ArrayList<byte[]>();
+		boolean online = true;
+		int scheduled = 0;
+		
+		private final Player carrier = (Player) Proxy.newProxyInstance(Player.class.getClassLoader(), new Class<?>[] { Player.class }, new InvocationHandler() {
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				if (method.getName().equals("sendPluginMessage")) {
+					assertEquals("BungeeCord", args[1]);
+					received.add((byte[]) args[2]);
+					return null;
+				} else if (method.getName().equals("isOnline")) {
+					return online;
+				}
+				throw new UnsupportedOperationException(String.valueOf(method));
+			}
+		});
+		
+		TestMessenger(int capacity) {
+			super(null, capacity);
+		}
+		
+		@Override
+		protected Player getCarrier() {
+			return online ? carrier : null;
+		}
+		
+		@Override
+		protected void scheduleFlush() {
+			scheduled++;
+		}
+	}
+	
+	private static String[] decode(byte[] message, int strings) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(message));
+		String[] result = new String[strings];
+		
+		for (int i = 0; i < strings; i++) {
+			result[i] = in.readUTF();
+		}
+		
+		assertEquals(0, in.available());
+		return result;
+	}
+	
+	@Test
+	public void testBatching() throws IOException {
+		TestMessenger messenger = new TestMessenger(16);
+		
+		messenger.connect("TheFish97", "hub");
+		messenger.sendMessage("TheFish97", "hello");
+		
+		// nothing is sent until the tick's flush, which is only scheduled once
+		assertTrue(messenger.received.isEmpty());
+		assertEquals(2, messenger.getQueueSize());
+		assertEquals(1, messenger.scheduled);
+		
+		messenger.flush();
+		
+		assertEquals(2, messenger.received.size());
+		assertArrayEquals(new String[] { "ConnectOther", "TheFish97", "hub" }, decode(messenger.received.get(0), 3));
+		assertArrayEquals(new String[] { "Message", "TheFish97", "hello" }, decode(messenger.received.get(1), 3));
+		assertEquals(0, messenger.getQueueSize());
+		assertEquals(2L, messenger.getSentCount());
+		
+		messenger.getPlayerCount("hub");
+		assertEquals(2, messenger.scheduled);
+	}
+	
+	@Test
+	public void testCoalescing() throws IOException {
+		TestMessenger messenger = new TestMessenger(16);
+		
+		for (int i = 0; i < 10; i++) {
+			messenger.getPlayerCount("hub");
+			messenger.getPlayerList("hub");
+		}
+		messenger.getPlayerCount("lobby");
+		
+		assertEquals(3, messenger.getQueueSize());
+		assertEquals(18L, messenger.getCoalescedCount());
+		
+		messenger.flush();
+		assertEquals(3, messenger.received.size());
+		assertArrayEquals(new String[] { "PlayerCount", "hub" }, decode(messenger.received.get(0), 2));
+		
+		// once sent the same request can be queued again
+		messenger.getPlayerCount("hub");
+		assertEquals(1, messenger.getQueueSize());
+	}
+	
+	@Test
+	public void testBounded() {
+		TestMessenger messenger = new TestMessenger(4);
+		messenger.online = false;
+		
+		for (int i = 0; i < 10; i++) {
+			messenger.sendMessage("TheFish97", "message " + i);
+		}
+		
+		assertEquals(4, messenger.getQueueSize());
+		assertEquals(6L, messenger.getDroppedCount());
+		
+		// nobody is online so the messages stay queued
+		messenger.flush();
+		assertEquals(4, messenger.getQueueSize());
+		assertTrue(messenger.received.isEmpty());
+		
+		messenger.online = true;
+		messenger.sendQueuedCommands();
+		assertEquals(4, messenger.received.size());
+		assertEquals(0, messenger.getQueueSize());
+	}
+	
+	@Test
+	public void testForward() throws IOException {
+		TestMessenger messenger = new TestMessenger(16);
+		
+		ByteArrayOutputStream data = new ByteArrayOutputStream();
+		data.write(new byte[] { 1, 2, 3 });
+		messenger.forwardMessage("ALL", "bFundamentals", data);
+		messenger.flush();
+		
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(messenger.received.get(0)));
+		assertEquals("FORWARD", in.readUTF());
+		assertEquals("ALL", in.readUTF());
+		assertEquals("bFundamentals", in.readUTF());
+		assertEquals(3, in.readShort());
+		assertEquals(1, in.read());
+		assertEquals(2, in.read());
+		assertEquals(3, in.read());
+		assertEquals(-1, in.read());
+	}
+}
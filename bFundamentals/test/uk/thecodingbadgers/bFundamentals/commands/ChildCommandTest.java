@@ -0,0 +1,69 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.thecodingbadgers.bFundamentals.commands;
+
+import org.junit.Test;
+
+import uk.codingbadgers.bFundamentals.commands.ModuleChildCommand;
+import uk.codingbadgers.bFundamentals.commands.ModuleCommand;
+import static org.junit.Assert.*;
+
+public class ChildCommandTest {
+
+	@Test
+	public void testLookup() {
+		ModuleCommand parent = new ModuleCommand("parent", "/parent <child>");
+		
+		for (int i = 0; i < 50; i++) {
+			parent.addChildCommand(new ModuleChildCommand(parent, "child" + i));
+		}
+		
+		ModuleChildCommand list = new ModuleChildCommand(parent, "list");
+		list.addAliase("ls");
+		parent.addChildCommand(list);
+		
+		assertSame(list, parent.getChildCommand("list"));
+		assertSame(list, parent.getChildCommand("LIST"));
+		assertSame(list, parent.getChildCommand("Ls"));
+		assertEquals("child42", parent.getChildCommand("CHILD42").getLabel());
+		assertNull(parent.getChildCommand("child50"));
+	}
+	
+	@Test
+	public void testAliases() {
+		ModuleCommand parent = new ModuleCommand("parent", "/parent <child>");
+		
+		ModuleChildCommand remove = new ModuleChildCommand(parent, "remove");
+		parent.addChildCommand(remove);
+		
+		// aliases added after the child was added are still found
+		remove.addAliase("rm");
+		assertSame(remove, parent.getChildCommand("rm"));
+		
+		// a label always wins over another child's alias
+		ModuleChildCommand delete = new ModuleChildCommand(parent, "delete");
+		delete.addAliase("remove");
+		parent.addChildCommand(delete);
+		assertSame(remove, parent.getChildCommand("remove"));
+		
+		// aliases aren't resolved until the child has been added
+		ModuleChildCommand orphan = new ModuleChildCommand(parent, "orphan");
+		orphan.addAliase("o");
+		assertNull(parent.getChildCommand("o"));
+	}
+}
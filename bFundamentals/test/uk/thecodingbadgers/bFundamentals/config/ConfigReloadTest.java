@@ -0,0 +1,120 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.thecodingbadgers.bFundamentals.config;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+import uk.codingbadgers.bFundamentals.config.ConfigFactory;
+import uk.codingbadgers.bFundamentals.config.ConfigSnapshot;
+import static org.junit.Assert.*;
+
+public class ConfigReloadTest {
+
+	private static void write(File file, String value) throws IOException {
+		FileUtils.writeStringToFile(file, "first: " + value + "\nsecond: " + value + "\nnested:\n  third: " + value + "\n", "UTF-8");
+	}
+	
+	@Test
+	public void testReload() throws Exception {
+		File file = File.createTempFile("reloadconfig", ".yml");
+		file.deleteOnExit();
+		
+		try {
+			write(file, "a");
+			ConfigFactory.loadConfig(ReloadConfig.class, file);
+			
+			ConfigSnapshot snapshot = ConfigFactory.getSnapshot(ReloadConfig.class);
+			assertEquals("a", snapshot.get("first"));
+			assertEquals("a", snapshot.get("nested.third", String.class));
+			assertEquals("a", ReloadConfig.first);
+			assertEquals("a", ReloadConfig.Nested.third);
+			
+			for (int i = 0; i < 10; i++) {
+				ConfigFactory.loadConfig(ReloadConfig.class, file);
+			}
+			
+			// the mapper is only created once, while binding the class
+			assertEquals(1, ReloadConfig.CountingMapper.created.get());
+			
+			// missing values fall back to the declared default, not the last loaded value
+			FileUtils.writeStringToFile(file, "first: b\n", "UTF-8");
+			ConfigFactory.loadConfig(ReloadConfig.class, file);
+			assertEquals("b", ReloadConfig.first);
+			assertEquals("default", ReloadConfig.second);
+			assertEquals("default", ConfigFactory.getSnapshot(ReloadConfig.class).get("nested.third"));
+		} finally {
+			file.delete();
+		}
+	}
+	
+	@Test
+	public void testConcurrentReads() throws Exception {
+		final File file = File.createTempFile("reloadconfig", ".yml");
+		file.deleteOnExit();
+		
+		final AtomicBoolean running = new AtomicBoolean(true);
+		final AtomicReference<String> failure = new AtomicReference<String>();
+		
+		try {
+			write(file, "v0");
+			ConfigFactory.loadConfig(ReloadConfig.class, file);
+			
+			Thread[] readers = new Thread[4];
+			
+			for (int i = 0; i < readers.length; i++) {
+				readers[i] = new Thread() {
+					@Override
+					public void run() {
+						while (running.get()) {
+							ConfigSnapshot snapshot = ConfigFactory.getSnapshot(ReloadConfig.class);
+							Object first = snapshot.get("first");
+							
+							if (!first.equals(snapshot.get("second")) || !first.equals(snapshot.get("nested.third"))) {
+								failure.set("Read a mixed snapshot " + snapshot.getValues());
+							}
+						}
+					}
+				};
+				readers[i].start();
+			}
+			
+			for (int i = 1; i <= 200; i++) {
+				write(file, "v" + i);
+				ConfigFactory.loadConfig(ReloadConfig.class, file);
+			}
+			
+			running.set(false);
+			
+			for (Thread reader : readers) {
+				reader.join();
+			}
+			
+			assertNull(failure.get(), failure.get());
+			assertEquals("v200", ConfigFactory.getSnapshot(ReloadConfig.class).get("first"));
+		} finally {
+			running.set(false);
+			file.delete();
+		}
+	}
+}
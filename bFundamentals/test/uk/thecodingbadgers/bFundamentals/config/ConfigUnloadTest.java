@@ -0,0 +1,91 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.thecodingbadgers.bFundamentals.config;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.jar.JarFile;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.io.Files;
+
+import uk.codingbadgers.bFundamentals.config.ConfigFactory;
+import uk.codingbadgers.bFundamentals.config.ConfigFile;
+import uk.codingbadgers.bFundamentals.module.loader.ModuleClassLoader;
+import uk.thecodingbadgers.bFundamentals.support.JarConfig;
+import uk.thecodingbadgers.bFundamentals.support.JarMapper;
+import uk.thecodingbadgers.bFundamentals.support.ModuleJar;
+import static org.junit.Assert.*;
+
+public class ConfigUnloadTest {
+
+	private File dir;
+	
+	@Before
+	public void createDir() {
+		dir = Files.createTempDir();
+	}
+	
+	@After
+	public void cleanup() throws IOException {
+		FileUtils.deleteDirectory(dir);
+	}
+	
+	@Test
+	public void forgottenConfigReleasesItsClassLoader() throws Exception {
+		File jar = ModuleJar.create(new File(dir, "config.jar"), "bConfigTest", "1.0", JarConfig.class, JarMapper.class);
+		WeakReference<ClassLoader> reference = bindAndForget(jar);
+		
+		assertTrue("Config class loader is still reachable", collect(reference));
+	}
+	
+	/**
+	 * Binds a config loaded from the jar, then forgets it as unloading its
+	 * module would. Nothing from the jar is left on the stack once this
+	 * returns.
+	 */
+	private WeakReference<ClassLoader> bindAndForget(File jar) throws Exception {
+		ModuleClassLoader loader = new ModuleClassLoader(null, jar, new JarFile(jar), getClass().getClassLoader());
+		Class<? extends ConfigFile> clazz = Class.forName(ModuleJar.getName(JarConfig.class), true, loader).asSubclass(ConfigFile.class);
+		
+		ConfigFactory.load(clazz, dir);
+		assertSame(loader, clazz.getClassLoader());
+		assertEquals("jar", ConfigFactory.getSnapshot(clazz).get("name"));
+		
+		ConfigFactory.forget(loader);
+		assertNull(ConfigFactory.getSnapshot(clazz));
+		
+		loader.close();
+		return new WeakReference<ClassLoader>(loader);
+	}
+	
+	private static boolean collect(WeakReference<?> reference) throws InterruptedException {
+		for (int i = 0; i < 50 && reference.get() != null; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		
+		System.gc();
+		return reference.get() == null;
+	}
+}
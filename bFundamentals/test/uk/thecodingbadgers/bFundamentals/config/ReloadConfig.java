@@ -0,0 +1,50 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.thecodingbadgers.bFundamentals.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import uk.codingbadgers.bFundamentals.config.ConfigFile;
+import uk.codingbadgers.bFundamentals.config.annotation.Catagory;
+import uk.codingbadgers.bFundamentals.config.annotation.Element;
+import uk.codingbadgers.bFundamentals.config.deserialiser.DefaultConfigMapper;
+
+public class ReloadConfig implements ConfigFile {
+
+	@Element
+	public static String first = "default";
+
+	@Element(mapper = CountingMapper.class)
+	public static String second = "default";
+	
+	@Catagory("nested")
+	public static class Nested {
+
+		@Element(mapper = CountingMapper.class)
+		public static String third = "default";
+	}
+	
+	public static class CountingMapper extends DefaultConfigMapper {
+		
+		public static final AtomicInteger created = new AtomicInteger();
+		
+		public CountingMapper() {
+			created.incrementAndGet();
+		}
+	}
+}
@@ -0,0 +1,191 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.thecodingbadgers.bFundamentals.crash;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import uk.codingbadgers.bFundamentals.error.CrashReporter;
+
+public class CrashReporterTest {
+
+	private static final long WINDOW = 10 * 60 * 1000L;
+	/** The longest a single call to report may take, far less than an upload stalled on the server. */
+	private static final long MAX_REPORT_NANOS = 250000000L;
+
+	private HttpServer server;
+	private final AtomicInteger requests = new AtomicInteger();
+	/** while set, the crash server holds every upload until it is counted down */
+	private volatile CountDownLatch stall = null;
+	private File spool;
+
+	@Before
+	public void setup() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/report", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				requests.incrementAndGet();
+
+				CountDownLatch current = stall;
+				if (current != null) {
+					try {
+						current.await(10, TimeUnit.SECONDS);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+
+				byte[] body = "{\"success\":true}".getBytes("UTF-8");
+				exchange.sendResponseHeaders(200, body.length);
+				OutputStream out = exchange.getResponseBody();
+				out.write(body);
+				out.close();
+			}
+		});
+		server.start();
+
+		spool = File.createTempFile("crash", "spool");
+		spool.delete();
+		spool.mkdirs();
+	}
+
+	@After
+	public void teardown() {
+		server.stop(0);
+
+		File[] files = spool.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		spool.delete();
+	}
+
+	@Test
+	public void duplicatesAreUploadedOnce() throws InterruptedException {
+		CrashReporter reporter = new CrashReporter(url(server.getAddress().getPort()), "password", spool, WINDOW, 10, 64);
+
+		long slowest = 0;
+		for (int i = 0; i < 10000; i++) {
+			IllegalStateException exception = new IllegalStateException("Test Exception");
+			long start = System.nanoTime();
+			reporter.report(exception);
+			slowest = Math.max(slowest, System.nanoTime() - start);
+		}
+
+		waitFor(reporter, 1);
+		reporter.shutdown(5000);
+
+		assertEquals(1, requests.get());
+		assertEquals(1L, reporter.getUploadedCount());
+		assertEquals(9999L, reporter.getSuppressedCount());
+		assertTrue("slowest report took " + (slowest / 1000000) + "ms", slowest < MAX_REPORT_NANOS);
+	}
+
+	@Test
+	public void reportingNeverWaitsForTheUploader() throws InterruptedException {
+		stall = new CountDownLatch(1);
+		CrashReporter reporter = new CrashReporter(url(server.getAddress().getPort()), "password", spool, WINDOW, 10, 64);
+
+		try {
+			assertTrue(reporter.report(new IllegalStateException("Test Exception"), "first"));
+
+			// wait for the first upload to be stuck on the server
+			long deadline = System.currentTimeMillis() + 10000;
+			while (requests.get() == 0 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			assertEquals(1, requests.get());
+
+			// fill the queue and keep going, the extra reports are dropped rather than waited on
+			for (int i = 0; i < 200; i++) {
+				IllegalStateException exception = new IllegalStateException("Test Exception " + i);
+				long start = System.nanoTime();
+				reporter.report(exception, "exception-" + i);
+				long elapsed = System.nanoTime() - start;
+
+				assertTrue("report " + i + " took " + (elapsed / 1000000) + "ms", elapsed < MAX_REPORT_NANOS);
+			}
+
+			assertEquals(1, requests.get());
+			assertTrue(reporter.getDroppedCount() > 0);
+		} finally {
+			stall.countDown();
+			reporter.shutdown(5000);
+		}
+	}
+
+	@Test
+	public void unreachableReportsAreSpooled() throws IOException, InterruptedException {
+		CrashReporter offline = new CrashReporter(url(unusedPort()), "password", spool, WINDOW, 10, 64);
+		assertTrue(offline.report(new IllegalStateException("Test Exception")));
+
+		long deadline = System.currentTimeMillis() + 10000;
+		while (offline.getSpooledCount() == 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		offline.shutdown(5000);
+
+		assertEquals(1L, offline.getSpooledCount());
+		assertEquals(1, spool.listFiles().length);
+
+		CrashReporter online = new CrashReporter(url(server.getAddress().getPort()), "password", spool, WINDOW, 10, 64);
+		waitFor(online, 1);
+		online.shutdown(5000);
+
+		assertEquals(1, requests.get());
+		assertEquals(0, spool.listFiles().length);
+	}
+
+	private static String url(int port) {
+		return "http://127.0.0.1:" + port + "/report";
+	}
+
+	private static int unusedPort() throws IOException {
+		ServerSocket socket = new ServerSocket(0);
+		int port = socket.getLocalPort();
+		socket.close();
+		return port;
+	}
+
+	private static void waitFor(CrashReporter reporter, long uploads) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10000;
+
+		while (reporter.getUploadedCount() < uploads && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+	}
+}
@@ -0,0 +1,267 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.thecodingbadgers.bFundamentals.database;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import uk.codingbadgers.bFundamentals.database.BatchWriter;
+import uk.codingbadgers.bFundamentals.database.DatabaseCallback;
+import uk.codingbadgers.bFundamentals.database.DatabaseService;
+import uk.codingbadgers.bFundamentals.database.RowMapper;
+import uk.codingbadgers.bFundamentals.database.SqlConnection;
+import uk.codingbadgers.bFundamentals.database.SqlTask;
+import static org.junit.Assert.*;
+
+public class DatabaseServiceTest {
+
+	private static final Executor DIRECT = new Executor() {
+		@Override
+		public void execute(Runnable command) {
+			command.run();
+		}
+	};
+	
+	private static final RowMapper<String> NAME = new RowMapper<String>() {
+		@Override
+		public String map(ResultSet result) throws SQLException {
+			return result.getString("name");
+		}
+	};
+	
+	private List<DatabaseService> services = new ArrayList<DatabaseService>();
+	private List<File> files = new ArrayList<File>();
+	
+	@BeforeClass
+	public static void loadDrivers() throws ClassNotFoundException {
+		Class.forName("org.sqlite.JDBC");
+		Class.forName("org.h2.Driver");
+	}
+	
+	@After
+	public void cleanup() {
+		for (DatabaseService service : services) {
+			service.shutdown(1000);
+		}
+		
+		for (File file : files) {
+			file.delete();
+		}
+	}
+	
+	private List<DatabaseService> createServices() throws IOException, SQLException {
+		File file = File.createTempFile("bFundamentals", ".db");
+		files.add(file);
+		
+		DatabaseService sqlite = new DatabaseService("jdbc:sqlite:" + file.getAbsolutePath(), null, null, 2, DIRECT);
+		DatabaseService mysql = new DatabaseService("jdbc:h2:mem:" + file.getName().replace('.', '_') + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "", 2, DIRECT);
+		
+		List<DatabaseService> created = new ArrayList<DatabaseService>();
+		created.add(sqlite);
+		created.add(mysql);
+		
+		for (DatabaseService service : created) {
+			service.update("CREATE TABLE players (name VARCHAR(32), score INT)");
+			services.add(service);
+		}
+		
+		return created;
+	}
+	
+	@Test
+	public void testUpdateAndQuery() throws Exception {
+		for (DatabaseService service : createServices()) {
+			assertEquals(1, service.update("INSERT INTO players (name, score) VALUES (?, ?)", "TheFish97", 10));
+			assertEquals(1, service.update("INSERT INTO players (name, score) VALUES (?, ?)", "n3wton", 5));
+			
+			List<String> names = service.query("SELECT name FROM players WHERE score > ? ORDER BY score DESC", NAME, 1);
+			assertEquals(2, names.size());
+			assertEquals("TheFish97", names.get(0));
+			
+			// values are bound, not concatenated
+			assertEquals(0, service.query("SELECT name FROM players WHERE name = ?", NAME, "' OR '1'='1").size());
+		}
+	}
+	
+	@Test
+	public void testStatementCache() throws Exception {
+		for (DatabaseService service : createServices()) {
+			service.execute(new SqlTask<Void>() {
+				@Override
+				public Void run(SqlConnection connection) throws SQLException {
+					PreparedStatement first = connection.prepare("SELECT name FROM players");
+					PreparedStatement second = connection.prepare("SELECT name FROM players");
+					assertSame(first, second);
+					return null;
+				}
+			});
+		}
+	}
+	
+	@Test
+	public void testAsyncCallback() throws Exception {
+		for (DatabaseService service : createServices()) {
+			service.update("INSERT INTO players (name, score) VALUES (?, ?)", "TheFish97", 10);
+			
+			final CountDownLatch latch = new CountDownLatch(1);
+			final AtomicReference<List<String>> result = new AtomicReference<List<String>>();
+			
+			service.queryAsync("SELECT name FROM players", NAME, new DatabaseCallback<List<String>>() {
+				@Override
+				public void onComplete(List<String> rows) {
+					result.set(rows);
+					latch.countDown();
+				}
+
+				@Override
+				public void onError(Throwable cause) {
+					latch.countDown();
+				}
+			});
+			
+			assertTrue(latch.await(5, TimeUnit.SECONDS));
+			assertNotNull(result.get());
+			assertEquals("TheFish97", result.get().get(0));
+		}
+	}
+	
+	@Test
+	public void testAsyncError() throws Exception {
+		for (DatabaseService service : createServices()) {
+			final CountDownLatch latch = new CountDownLatch(1);
+			final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+			
+			service.queryAsync("SELECT name FROM missing", NAME, new DatabaseCallback<List<String>>() {
+				@Override
+				public void onComplete(List<String> rows) {
+					latch.countDown();
+				}
+
+				@Override
+				public void onError(Throwable cause) {
+					error.set(cause);
+					latch.countDown();
+				}
+			});
+			
+			assertTrue(latch.await(5, TimeUnit.SECONDS));
+			assertTrue(error.get() instanceof SQLException);
+			
+			// the failed connection should have gone back to the pool
+			assertEquals(0, service.getActiveConnections());
+		}
+	}
+	
+	@Test
+	public void testFullQueueRejectsTasks() throws Exception {
+		for (DatabaseService service : createServices()) {
+			final CountDownLatch started = new CountDownLatch(2);
+			final CountDownLatch release = new CountDownLatch(1);
+			SqlTask<Void> blocking = new SqlTask<Void>() {
+				@Override
+				public Void run(SqlConnection connection) throws SQLException {
+					started.countDown();
+					try {
+						release.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					return null;
+				}
+			};
+			SqlTask<Void> empty = new SqlTask<Void>() {
+				@Override
+				public Void run(SqlConnection connection) {
+					return null;
+				}
+			};
+			
+			try {
+				// occupy both threads, then fill the queue behind them
+				service.submit(blocking);
+				service.submit(blocking);
+				assertTrue(started.await(5, TimeUnit.SECONDS));
+				
+				for (int i = 0; i < DatabaseService.QUEUE_CAPACITY; i++) {
+					service.submit(empty);
+				}
+				
+				try {
+					service.submit(empty);
+					fail("a full queue accepted a task");
+				} catch (RejectedExecutionException e) {
+					// expected
+				}
+			} finally {
+				release.countDown();
+			}
+		}
+	}
+	
+	@Test
+	public void testBatchWriter() throws Exception {
+		for (DatabaseService service : createServices()) {
+			BatchWriter writer = service.createBatchWriter("INSERT INTO players (name, score) VALUES (?, ?)", 1000, 64, 50);
+			
+			for (int i = 0; i < 500; i++) {
+				assertTrue(writer.offer("player" + i, i));
+			}
+			
+			writer.close();
+			
+			assertFalse(writer.offer("late", 0));
+			assertEquals(500, writer.getWrittenCount());
+			assertEquals(1, writer.getDroppedCount());
+			assertEquals(500, service.query("SELECT name FROM players", NAME).size());
+		}
+	}
+	
+	@Test
+	public void testBatchWriterDropsWhenFull() throws Exception {
+		for (DatabaseService service : createServices()) {
+			BatchWriter writer = service.createBatchWriter("INSERT INTO players (name, score) VALUES (?, ?)", 10, 100, 60000);
+			
+			int queued = 0;
+			for (int i = 0; i < 20; i++) {
+				if (writer.offer("player" + i, i)) {
+					queued++;
+				}
+			}
+			
+			assertEquals(10, queued);
+			assertEquals(10, writer.getDroppedCount());
+			
+			writer.close();
+			assertEquals(10, service.query("SELECT name FROM players", NAME).size());
+		}
+	}
+}
@@ -0,0 +1,65 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.thecodingbadgers.bFundamentals.gui;
+
+import org.bukkit.Material;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.inventory.ItemStack;
+import org.junit.Test;
+
+import uk.codingbadgers.bFundamentals.gui.GuiCallback;
+import uk.codingbadgers.bFundamentals.gui.GuiInventory;
+import uk.thecodingbadgers.bFundamentals.TestContainer;
+import static org.junit.Assert.*;
+
+public class GuiInventoryTest extends TestContainer {
+
+	private static final GuiCallback CALLBACK = new GuiCallback() {
+		@Override
+		public void onClick(GuiInventory inventory, InventoryClickEvent clickEvent) {
+		}
+	};
+	
+	@Test
+	public void testHolder() {
+		GuiInventory first = new GuiInventory(null);
+		first.createInventory("Store", 3);
+		GuiInventory second = new GuiInventory(null);
+		second.createInventory("Store", 3);
+		
+		// menus with the same title are still told apart
+		assertSame(first, first.getInventory().getHolder());
+		assertSame(second, second.getInventory().getHolder());
+		assertEquals(27, first.getInventory().getSize());
+	}
+	
+	@Test
+	public void testCallbacks() {
+		GuiInventory gui = new GuiInventory(null);
+		gui.createInventory("Store", 2);
+		
+		gui.addMenuItem("Buy", new ItemStack(Material.DIAMOND), new String[] { "Buy a diamond" }, 4, CALLBACK);
+		gui.addMenuItem("Info", new ItemStack(Material.BOOK), new String[] { "No callback" }, null);
+		
+		assertSame(CALLBACK, gui.getCallback(4));
+		assertNull(gui.getCallback(0));
+		assertNull(gui.getCallback(-1));
+		assertNull(gui.getCallback(18));
+		assertNotNull(gui.getItem("Info"));
+	}
+}
@@ -0,0 +1,118 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.thecodingbadgers.bFundamentals.language;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.io.FileUtils;
+import org.bukkit.ChatColor;
+import org.junit.Test;
+
+import uk.codingbadgers.bFundamentals.language.LanguageCatalog;
+import uk.codingbadgers.bFundamentals.language.LanguageFileWatcher;
+import uk.codingbadgers.bFundamentals.language.MessageTemplate;
+import static org.junit.Assert.*;
+
+public class LanguageCatalogTest {
+
+	private static final String LANGUAGE = 
+			"// comment\n" +
+			"\n" +
+			"#WELCOME-MESSAGE\n" +
+			"&aWelcome %playername% to <<servername>>\n" +
+			"#plain\n" +
+			"No placeholders here\n" +
+			"#Overwritten\n" +
+			"first\n" +
+			"second\n";
+	
+	@Test
+	public void testParse() throws IOException {
+		LanguageCatalog catalog = LanguageCatalog.parse(new StringReader(LANGUAGE), null);
+		
+		assertEquals(3, catalog.size());
+		assertTrue(catalog.getKeys().contains("welcome-message"));
+		assertSame(catalog.get("WELCOME-MESSAGE"), catalog.get("welcome-message"));
+		assertSame(catalog.get("WELCOME-MESSAGE"), catalog.get("Welcome-Message"));
+		assertEquals("second", catalog.get("overwritten").getText());
+		assertNull(catalog.get("missing"));
+		assertEquals(0, LanguageCatalog.EMPTY.size());
+	}
+	
+	@Test
+	public void testRender() throws IOException {
+		LanguageCatalog catalog = LanguageCatalog.parse(new StringReader(LANGUAGE), null);
+		
+		MessageTemplate welcome = catalog.get("welcome-message");
+		assertTrue(welcome.hasPlaceholders());
+		assertEquals(ChatColor.GREEN + "Welcome Steve to badgercraft", welcome.render("playername", "Steve", "ServerName", "badgercraft"));
+		assertEquals(ChatColor.GREEN + "Welcome Steve to <<servername>>", welcome.render("playername", "Steve"));
+		
+		MessageTemplate plain = catalog.get("plain");
+		assertFalse(plain.hasPlaceholders());
+		assertSame(plain.getText(), plain.render("playername", "Steve"));
+	}
+	
+	@Test
+	public void testNotPlaceholders() {
+		assertEquals("50% off, 20% on", MessageTemplate.compile("50% off, 20% on").render("off", "x"));
+		assertEquals("a << b", MessageTemplate.compile("a << b").render());
+		assertEquals("100%", MessageTemplate.compile("100%").render());
+	}
+	
+	@Test
+	public void testWatcherReload() throws Exception {
+		File file = File.createTempFile("bFundamentals", ".lang");
+		file.deleteOnExit();
+		FileUtils.writeStringToFile(file, "#key\nold\n", "UTF-8");
+		
+		final AtomicReference<LanguageCatalog> current = new AtomicReference<LanguageCatalog>(LanguageCatalog.load(file, null));
+		final CountDownLatch reloaded = new CountDownLatch(1);
+		final File watched = file;
+		
+		LanguageFileWatcher watcher = new LanguageFileWatcher(10);
+		LanguageFileWatcher.Watch watch = watcher.watch(file, new Runnable() {
+			@Override
+			public void run() {
+				try {
+					current.set(LanguageCatalog.load(watched, null));
+					reloaded.countDown();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		});
+		
+		try {
+			assertEquals("old", current.get().get("key").getText());
+			
+			FileUtils.writeStringToFile(file, "#key\nnew value\n", "UTF-8");
+			
+			assertTrue(reloaded.await(5, TimeUnit.SECONDS));
+			assertEquals("new value", current.get().get("key").getText());
+		} finally {
+			watch.cancel();
+			file.delete();
+		}
+	}
+}
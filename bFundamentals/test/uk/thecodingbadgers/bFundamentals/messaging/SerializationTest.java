@@ -49,6 +49,26 @@ public class SerializationTest extends TestContainer {
 		assertEquals(JSON_MESSAGE_1, GSON.toJson(message));
 	}
 
+	@Test
+	public void testMessageJsonCache() {
+		Message message = new Message("Hello world");
+		message.setColor(ChatColor.GOLD);
+		message.addStyle(ChatColor.BOLD);
+		
+		String json = message.toJson();
+		assertEquals(JSON_MESSAGE_1, json);
+		assertSame(json, message.toJson());
+		
+		Message extra = new Message("!");
+		message.addExtra(extra);
+		String withExtra = message.toJson();
+		assertEquals(GSON.toJson(message), withExtra);
+		
+		extra.setColor(ChatColor.RED);
+		assertNotSame(withExtra, message.toJson());
+		assertEquals(GSON.toJson(message), message.toJson());
+	}
+
 	@Test
 	public void testMessageDeserialize() {
 		Message expected = new Message("Hello world");
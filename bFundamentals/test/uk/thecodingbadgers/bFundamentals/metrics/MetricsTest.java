@@ -0,0 +1,159 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.thecodingbadgers.bFundamentals.metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Test;
+
+import uk.codingbadgers.bFundamentals.metrics.Counter;
+import uk.codingbadgers.bFundamentals.metrics.Gauge;
+import uk.codingbadgers.bFundamentals.metrics.Histogram;
+import uk.codingbadgers.bFundamentals.metrics.MetricGroup;
+import uk.codingbadgers.bFundamentals.metrics.Metrics;
+import static org.junit.Assert.*;
+
+public class MetricsTest {
+
+	private static final String GROUP = "bMetricsTest";
+
+	@After
+	public void cleanup() {
+		Metrics.remove(GROUP);
+		Metrics.setJmxEnabled(false);
+	}
+
+	@Test
+	public void metricsAreShared() {
+		MetricGroup group = Metrics.getGroup(GROUP);
+		Counter counter = group.counter("count");
+		counter.inc();
+		counter.inc(4);
+
+		assertSame(counter, Metrics.counter(GROUP, "count"));
+		assertEquals(5L, Metrics.counter(GROUP, "count").getCount());
+
+		Histogram histogram = group.histogram("time");
+		for (long i = 1; i <= 1000; i++) {
+			histogram.update(i * 1000);
+		}
+
+		assertEquals(1000L, histogram.getCount());
+		assertEquals(500500L, histogram.getMean());
+		assertEquals(1000000L, histogram.getMax());
+		assertEquals(500000, histogram.get50thPercentile(), 125000);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void typesCantBeMixed() {
+		Metrics.counter(GROUP, "mixed");
+		Metrics.histogram(GROUP, "mixed");
+	}
+
+	@Test
+	public void gaugesAreReplaced() throws IOException {
+		Metrics.gauge(GROUP, "queue", constant(1));
+		Metrics.gauge(GROUP, "queue", constant(2));
+
+		assertEquals(2L, ((Gauge) Metrics.getMetric(GROUP, "queue")).getValue());
+		assertTrue(Metrics.report().contains(GROUP + ".queue: value=2"));
+
+		Metrics.remove(GROUP);
+		assertNull(Metrics.getMetric(GROUP, "queue"));
+	}
+
+	@Test
+	public void metricsAreExportedOverJmx() throws Exception {
+		Metrics.setJmxEnabled(true);
+		Metrics.counter(GROUP, "jmx").inc(3);
+		Metrics.gauge(GROUP, "gauge", constant(7));
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName counter = new ObjectName(Metrics.DOMAIN + ":type=Metrics,group=" + ObjectName.quote(GROUP) + ",name=" + ObjectName.quote("jmx"));
+		ObjectName gauge = new ObjectName(Metrics.DOMAIN + ":type=Metrics,group=" + ObjectName.quote(GROUP) + ",name=" + ObjectName.quote("gauge"));
+
+		assertEquals(3L, server.getAttribute(counter, "Count"));
+		assertEquals(7L, server.getAttribute(gauge, "Value"));
+
+		Metrics.remove(GROUP);
+		assertFalse(server.isRegistered(counter));
+		assertFalse(server.isRegistered(gauge));
+	}
+
+	@Test
+	public void snapshotIsWritten() throws IOException {
+		Metrics.counter(GROUP, "snapshot").inc();
+
+		File file = File.createTempFile("metrics", ".txt");
+		try {
+			Metrics.export(file);
+			List<String> lines = FileUtils.readLines(file, "UTF-8");
+			assertTrue(lines.contains(GROUP + ".snapshot: count=1"));
+			assertFalse(new File(file.getPath() + ".tmp").exists());
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void recordingDoesNotAllocate() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean allocation = (com.sun.management.ThreadMXBean) threads;
+		Assume.assumeTrue(allocation.isThreadAllocatedMemorySupported() && allocation.isThreadAllocatedMemoryEnabled());
+
+		Counter counter = Metrics.counter(GROUP, "allocation.counter");
+		Histogram histogram = Metrics.histogram(GROUP, "allocation.histogram");
+		long id = Thread.currentThread().getId();
+
+		// warm up so the loop is compiled before it is measured
+		record(counter, histogram, 100000);
+
+		long before = allocation.getThreadAllocatedBytes(id);
+		record(counter, histogram, 1000000);
+		long allocated = allocation.getThreadAllocatedBytes(id) - before;
+
+		// a single allocation per record would be at least 16mb
+		assertTrue("recording allocated " + allocated + " bytes", allocated < 64 * 1024);
+	}
+
+	private static void record(Counter counter, Histogram histogram, int times) {
+		for (int i = 0; i < times; i++) {
+			counter.inc();
+			histogram.update(i);
+		}
+	}
+
+	private static Gauge constant(final long value) {
+		return new Gauge() {
+			public long getValue() {
+				return value;
+			}
+		};
+	}
+}
@@ -0,0 +1,150 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.thecodingbadgers.bFundamentals.module;
+
+import java.lang.reflect.Method;
+
+import org.bukkit.event.Event;
+import org.bukkit.event.EventException;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.EventExecutor;
+import org.junit.Test;
+
+import uk.codingbadgers.bFundamentals.module.EventExecutorGenerator;
+import static org.junit.Assert.*;
+
+public class EventExecutorGeneratorTest {
+
+	public static class TestEvent extends Event {
+		private static final HandlerList handlers = new HandlerList();
+		
+		@Override
+		public HandlerList getHandlers() {
+			return handlers;
+		}
+		
+		public static HandlerList getHandlerList() {
+			return handlers;
+		}
+	}
+	
+	public static class OtherEvent extends TestEvent {
+	}
+	
+	public static class UnrelatedEvent extends Event {
+		private static final HandlerList handlers = new HandlerList();
+		
+		@Override
+		public HandlerList getHandlers() {
+			return handlers;
+		}
+		
+		public static HandlerList getHandlerList() {
+			return handlers;
+		}
+	}
+	
+	public interface TestHandler extends Listener {
+		void onInterface(TestEvent event);
+	}
+	
+	public static class TestListener implements TestHandler {
+		public static int staticCalls = 0;
+		public int calls = 0;
+		
+		public void onEvent(TestEvent event) {
+			calls++;
+		}
+		
+		public long onEventReturning(TestEvent event) {
+			calls += 10;
+			return calls;
+		}
+		
+		public static void onStatic(TestEvent event) {
+			staticCalls++;
+		}
+		
+		public void onInterface(TestEvent event) {
+			calls += 100;
+		}
+		
+		public void onFail(TestEvent event) {
+			throw new IllegalStateException("handler failed");
+		}
+		
+		void onHidden(TestEvent event) {
+		}
+	}
+	
+	private final EventExecutorGenerator generator = new EventExecutorGenerator(TestListener.class);
+	
+	private EventExecutor generate(Class<?> owner, String name) throws NoSuchMethodException {
+		Method method = owner.getDeclaredMethod(name, TestEvent.class);
+		assertTrue(generator.canGenerate(method));
+		return generator.generate(TestEvent.class, method);
+	}
+	
+	@Test
+	public void testDispatch() throws Exception {
+		TestListener listener = new TestListener();
+		
+		generate(TestListener.class, "onEvent").execute(listener, new TestEvent());
+		generate(TestListener.class, "onEventReturning").execute(listener, new TestEvent());
+		generate(TestHandler.class, "onInterface").execute(listener, new TestEvent());
+		
+		// subclasses of the handled event are passed to the handler
+		generate(TestListener.class, "onEvent").execute(listener, new OtherEvent());
+		assertEquals(112, listener.calls);
+		
+		int before = TestListener.staticCalls;
+		generate(TestListener.class, "onStatic").execute(listener, new TestEvent());
+		assertEquals(before + 1, TestListener.staticCalls);
+	}
+	
+	@Test
+	public void testIgnoresOtherEvents() throws Exception {
+		TestListener listener = new TestListener();
+		generate(TestListener.class, "onEvent").execute(listener, new UnrelatedEvent());
+		assertEquals(0, listener.calls);
+	}
+	
+	@Test
+	public void testExceptionsAreWrapped() throws Exception {
+		try {
+			generate(TestListener.class, "onFail").execute(new TestListener(), new TestEvent());
+			fail("Handler exception should be wrapped");
+		} catch (EventException ex) {
+			assertTrue(ex.getCause() instanceof IllegalStateException);
+			assertEquals("handler failed", ex.getCause().getMessage());
+		}
+	}
+	
+	@Test
+	public void testNonPublicHandlers() throws Exception {
+		Method method = TestListener.class.getDeclaredMethod("onHidden", TestEvent.class);
+		assertFalse(generator.canGenerate(method));
+		
+		try {
+			generator.generate(TestEvent.class, method);
+			fail("Should not generate an executor for a package private handler");
+		} catch (IllegalArgumentException expected) {
+		}
+	}
+}
@@ -0,0 +1,209 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.thecodingbadgers.bFundamentals.module;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import uk.codingbadgers.bFundamentals.bFundamentals;
+import uk.codingbadgers.bFundamentals.module.Module;
+import uk.codingbadgers.bFundamentals.module.ModuleLoader;
+import uk.codingbadgers.bFundamentals.module.loader.ModuleClassLoader;
+import uk.thecodingbadgers.bFundamentals.TestContainer;
+import uk.thecodingbadgers.bFundamentals.support.ModuleJar;
+import uk.thecodingbadgers.bFundamentals.support.ReloadableClass;
+import uk.thecodingbadgers.bFundamentals.support.TestPlugin;
+import static org.junit.Assert.*;
+
+public class ModuleClassLoaderTest extends TestContainer {
+
+	private static final String CLASS_NAME = ReloadableClass.class.getName();
+	private static final String MODULE = "bReloadTest";
+	private static final int RELOADS = 100;
+	
+	private File dir;
+	private File jar;
+	
+	@BeforeClass
+	public static void setupPlugin() {
+		TestPlugin.setup();
+	}
+	
+	@Before
+	public void createJar() throws IOException {
+		dir = File.createTempFile("modules", "");
+		dir.delete();
+		dir.mkdirs();
+		
+		jar = new File(dir, "reloadable.jar");
+		String entry = CLASS_NAME.replace('.', '/') + ".class";
+		InputStream in = getClass().getClassLoader().getResourceAsStream(entry);
+		JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+		
+		try {
+			out.putNextEntry(new ZipEntry(entry));
+			IOUtils.copy(in, out);
+			out.closeEntry();
+			
+			out.putNextEntry(new ZipEntry("path.yml"));
+			out.write("name: Reloadable\nversion: 1.0\nmain-class: uk.test.Reloadable\n".getBytes("UTF-8"));
+			out.closeEntry();
+		} finally {
+			in.close();
+			out.close();
+		}
+	}
+	
+	@After
+	public void cleanup() {
+		for (File file : dir.listFiles()) {
+			file.delete();
+		}
+		dir.delete();
+	}
+	
+	/**
+	 * Loads the class from the jar only, the bootstrap parent can't see the
+	 * copy of the class on the test classpath.
+	 */
+	private ModuleClassLoader createLoader() throws IOException {
+		return new ModuleClassLoader(null, jar, new JarFile(jar), null);
+	}
+	
+	@Test
+	public void testLoadAndClose() throws Exception {
+		ModuleClassLoader loader = createLoader();
+		Class<?> clazz = Class.forName(CLASS_NAME, true, loader);
+		
+		assertSame(loader, clazz.getClassLoader());
+		assertNotSame(ReloadableClass.class, clazz);
+		assertEquals("reloadable", clazz.getMethod("getName").invoke(clazz.newInstance()));
+		assertNotNull(loader.getResourceAsStream("path.yml"));
+		assertEquals(jar.toURI().toURL(), clazz.getProtectionDomain().getCodeSource().getLocation());
+		
+		loader.close();
+		
+		assertTrue(loader.isClosed());
+		assertNull(loader.getResourceAsStream("path.yml"));
+		assertSame(clazz, loader.loadClass(CLASS_NAME));
+		
+		try {
+			loader.loadClass("uk.test.Missing");
+			fail("Closed loader should not load new classes");
+		} catch (ClassNotFoundException expected) {
+		}
+		
+		// the jar handle has been released
+		assertTrue(jar.delete());
+	}
+	
+	@Test
+	public void testReloadDoesNotLeak() throws Exception {
+		Runtime runtime = Runtime.getRuntime();
+		WeakReference<ClassLoader> first = null;
+		WeakReference<ClassLoader> last = null;
+		long baseline = 0;
+		
+		for (int i = 0; i < RELOADS; i++) {
+			ModuleClassLoader loader = createLoader();
+			Object instance = Class.forName(CLASS_NAME, true, loader).newInstance();
+			assertNotNull(instance);
+			
+			last = new WeakReference<ClassLoader>(loader);
+			if (first == null) {
+				first = last;
+			}
+			
+			loader.close();
+			loader = null;
+			instance = null;
+			
+			if (i == 0) {
+				collect(first);
+				baseline = runtime.totalMemory() - runtime.freeMemory();
+			}
+		}
+		
+		assertTrue("First class loader is still reachable", collect(first));
+		assertTrue("Last class loader is still reachable", collect(last));
+		
+		// every leaked loader would keep a megabyte of ballast alive
+		long growth = (runtime.totalMemory() - runtime.freeMemory()) - baseline;
+		assertTrue("Heap grew by " + (growth / 1024) + "KB over " + RELOADS + " reloads", growth < 16 * 1024 * 1024);
+	}
+	
+	@Test
+	public void testModuleUnloadReleasesLoader() throws Exception {
+		ModuleLoader modules = bFundamentals.getModuleLoader();
+		File moduleJar = ModuleJar.create(new File(modules.getModuleDir(), MODULE + ".jar"), MODULE, "1.0");
+		
+		try {
+			WeakReference<ClassLoader> reference = loadAndUnload(modules, moduleJar);
+			assertTrue("Module class loader is still reachable", collect(reference));
+		} finally {
+			moduleJar.delete();
+		}
+	}
+	
+	/**
+	 * Runs a module through its whole life cycle, nothing it created may be
+	 * referenced from the caller's frame once this returns.
+	 */
+	private static WeakReference<ClassLoader> loadAndUnload(ModuleLoader modules, File moduleJar) {
+		modules.load(moduleJar);
+		Module module = modules.getModule(MODULE);
+		
+		assertNotNull(module);
+		assertEquals(ModuleJar.MAIN_CLASS, module.getClass().getName());
+		assertTrue(module.getClass().getClassLoader() instanceof ModuleClassLoader);
+		
+		module.setEnabled(true);
+		assertTrue(module.isEnabled());
+		module.setEnabled(false);
+		assertFalse(module.isEnabled());
+		
+		modules.unload(module);
+		assertNull(modules.getModule(MODULE));
+		
+		ModuleClassLoader loader = (ModuleClassLoader) module.getClass().getClassLoader();
+		assertTrue(loader.isClosed());
+		return new WeakReference<ClassLoader>(loader);
+	}
+	
+	private static boolean collect(WeakReference<?> reference) throws InterruptedException {
+		for (int i = 0; i < 50 && reference.get() != null; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		
+		System.gc();
+		return reference.get() == null;
+	}
+}
@@ -0,0 +1,173 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.thecodingbadgers.bFundamentals.module;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.codingbadgers.bFundamentals.module.loader.Loadable;
+import uk.codingbadgers.bFundamentals.module.loader.LoadableDescriptionFile;
+import uk.codingbadgers.bFundamentals.module.loader.ModuleGraph;
+import static org.junit.Assert.*;
+
+public class ModuleGraphTest {
+
+	private static Loadable loadable(String name, List<String> dependencies, List<String> softDependencies) {
+		Loadable loadable = new Loadable();
+		loadable.setDesciption(new LoadableDescriptionFile(name, "1.0", "", null, Arrays.asList("TheFish97"), dependencies, softDependencies));
+		return loadable;
+	}
+	
+	private static Loadable loadable(String name, String... dependencies) {
+		return loadable(name, Arrays.asList(dependencies), Collections.<String>emptyList());
+	}
+	
+	private static Map<String, Integer> positions(List<Loadable> order) {
+		Map<String, Integer> positions = new HashMap<String, Integer>();
+		for (int i = 0; i < order.size(); i++) {
+			positions.put(order.get(i).getName(), i);
+		}
+		return positions;
+	}
+	
+	private static List<String> names(Iterable<Loadable> loadables) {
+		List<String> names = new ArrayList<String>();
+		for (Loadable loadable : loadables) {
+			names.add(loadable.getName());
+		}
+		return names;
+	}
+	
+	@Test
+	public void testRandomGraph() {
+		Random random = new Random(97);
+		List<Loadable> loadables = new ArrayList<Loadable>();
+		
+		for (int i = 0; i < 50; i++) {
+			List<String> hard = new ArrayList<String>();
+			List<String> soft = new ArrayList<String>();
+			
+			// only depend on earlier modules so the graph is acyclic
+			for (int j = 0; j < i; j++) {
+				int roll = random.nextInt(10);
+				if (roll == 0) {
+					hard.add("Module" + j);
+				} else if (roll == 1) {
+					soft.add("Module" + j);
+				}
+			}
+			
+			loadables.add(loadable("Module" + i, hard, soft));
+		}
+		
+		Collections.shuffle(loadables, random);
+		ModuleGraph<Loadable> graph = new ModuleGraph<Loadable>(loadables);
+		
+		assertTrue(graph.getFailed().isEmpty());
+		assertTrue(graph.getCycles().isEmpty());
+		assertEquals(50, graph.getOrder().size());
+		
+		Map<String, Integer> positions = positions(graph.getOrder());
+		Map<String, Integer> layerOf = new HashMap<String, Integer>();
+		int count = 0;
+		
+		for (int i = 0; i < graph.getLayers().size(); i++) {
+			for (Loadable loadable : graph.getLayers().get(i)) {
+				layerOf.put(loadable.getName(), i);
+				count++;
+			}
+		}
+		
+		assertEquals(50, count);
+		
+		for (Loadable loadable : loadables) {
+			List<String> dependencies = new ArrayList<String>(loadable.getDesciption().getDependencies());
+			dependencies.addAll(loadable.getDesciption().getSoftDependencies());
+			
+			for (String dependency : dependencies) {
+				assertTrue(dependency + " must come before " + loadable.getName(), positions.get(dependency) < positions.get(loadable.getName()));
+				assertTrue(dependency + " must be in an earlier layer than " + loadable.getName(), layerOf.get(dependency) < layerOf.get(loadable.getName()));
+			}
+		}
+	}
+	
+	@Test
+	public void testStableOrder() {
+		List<Loadable> loadables = Arrays.asList(loadable("Charlie"), loadable("Alpha", "Delta"), loadable("Bravo"), loadable("Delta"));
+		ModuleGraph<Loadable> graph = new ModuleGraph<Loadable>(loadables);
+		
+		assertEquals(Arrays.asList("Bravo", "Charlie", "Delta", "Alpha"), names(graph.getOrder()));
+		assertEquals(2, graph.getLayers().size());
+		assertEquals(Arrays.asList("Alpha"), names(graph.getLayers().get(1)));
+	}
+	
+	@Test
+	public void testHardCycle() {
+		List<Loadable> loadables = Arrays.asList(loadable("A", "B"), loadable("B", "C"), loadable("C", "A"), loadable("D", "A"), loadable("E"));
+		ModuleGraph<Loadable> graph = new ModuleGraph<Loadable>(loadables);
+		
+		assertEquals(Arrays.asList("E"), names(graph.getOrder()));
+		assertEquals(4, graph.getFailed().size());
+		assertEquals(1, graph.getCycles().size());
+		assertEquals(3, graph.getCycles().get(0).size());
+		assertTrue(graph.getFailed().get(loadables.get(0)).startsWith("dependency cycle"));
+		assertTrue(graph.getFailed().get(loadables.get(3)).contains("failed to load"));
+	}
+	
+	@Test
+	public void testSoftCycle() {
+		List<Loadable> loadables = Arrays.asList(
+				loadable("A", Collections.<String>emptyList(), Arrays.asList("B")),
+				loadable("B", Collections.<String>emptyList(), Arrays.asList("A")),
+				loadable("C", "A", "B"));
+		ModuleGraph<Loadable> graph = new ModuleGraph<Loadable>(loadables);
+		
+		assertTrue(graph.getFailed().isEmpty());
+		assertEquals(1, graph.getCycles().size());
+		assertEquals(Arrays.asList("A", "B", "C"), names(graph.getOrder()));
+	}
+	
+	@Test
+	public void testMissingDependencies() {
+		List<Loadable> loadables = Arrays.asList(
+				loadable("A", Collections.<String>emptyList(), Arrays.asList("Missing")),
+				loadable("B", "Missing"),
+				loadable("C", "B"));
+		ModuleGraph<Loadable> graph = new ModuleGraph<Loadable>(loadables);
+		
+		assertEquals(Arrays.asList("A"), names(graph.getOrder()));
+		assertEquals("missing dependency Missing", graph.getFailed().get(loadables.get(1)));
+		assertTrue(graph.getFailed().containsKey(loadables.get(2)));
+	}
+	
+	@Test
+	public void testDuplicateName() {
+		List<Loadable> loadables = Arrays.asList(loadable("A"), loadable("a"));
+		ModuleGraph<Loadable> graph = new ModuleGraph<Loadable>(loadables);
+		
+		assertEquals(1, graph.getOrder().size());
+		assertTrue(graph.getFailed().containsKey(loadables.get(1)));
+	}
+}
@@ -0,0 +1,170 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.thecodingbadgers.bFundamentals.module;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import uk.codingbadgers.bFundamentals.module.Module;
+import uk.codingbadgers.bFundamentals.module.ModuleExecutor;
+import uk.codingbadgers.bFundamentals.module.loader.LoadableDescriptionFile;
+import uk.thecodingbadgers.bFundamentals.TestContainer;
+
+public class ModuleLifecycleTest extends TestContainer {
+
+	private static final String NAME = "bLifecycleTest";
+	private static final int TASKS = 20;
+
+	public static class TestModule extends Module {
+
+		final AtomicInteger ran = new AtomicInteger();
+
+		@Override
+		public void onEnable() {
+			for (int i = 0; i < TASKS; i++) {
+				getExecutor().execute(new Runnable() {
+					public void run() {
+						try {
+							Thread.sleep(1);
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+						ran.incrementAndGet();
+					}
+				});
+			}
+		}
+
+		@Override
+		public void onDisable() {
+		}
+	}
+
+	@Test
+	public void noThreadsLeakAcrossReloads() throws InterruptedException {
+		TestModule module = new TestModule();
+		module.setDesciption(new LoadableDescriptionFile(NAME, "1.0", "", null, Arrays.asList("TheFish97"), Collections.<String>emptyList(), Collections.<String>emptyList()));
+		module.init();
+
+		for (int i = 0; i < 100; i++) {
+			module.setEnabled(true);
+			assertTrue(module.isEnabled());
+			module.setEnabled(false);
+		}
+
+		// every queued task is drained before disable returns
+		assertEquals(100 * TASKS, module.ran.get());
+		assertEquals(0, awaitThreads(NAME + "-async-"));
+	}
+
+	@Test
+	public void shutdownInterruptsAfterDeadline() throws InterruptedException {
+		ModuleExecutor executor = new ModuleExecutor("bDeadlineTest", 2, 16);
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch interrupted = new CountDownLatch(1);
+
+		executor.execute(new Runnable() {
+			public void run() {
+				started.countDown();
+				try {
+					Thread.sleep(60000);
+				} catch (InterruptedException e) {
+					interrupted.countDown();
+				}
+			}
+		});
+
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		assertEquals(1, executor.getActiveCount());
+
+		assertFalse(executor.shutdown(100));
+		assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+		assertTrue(executor.isShutdown());
+		assertEquals(0, awaitThreads("bDeadlineTest-async-"));
+	}
+
+	@Test
+	public void tasksAreMeasured() throws InterruptedException {
+		ModuleExecutor executor = new ModuleExecutor("bMeasureTest", 1, 1);
+		final CountDownLatch release = new CountDownLatch(1);
+
+		executor.execute(new Runnable() {
+			public void run() {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		executor.execute(new Runnable() {
+			public void run() {
+			}
+		});
+
+		try {
+			executor.execute(new Runnable() {
+				public void run() {
+				}
+			});
+			fail("a full executor accepted a task");
+		} catch (RejectedExecutionException e) {
+			// expected
+		}
+
+		assertEquals(1, executor.getQueueSize());
+		release.countDown();
+		assertTrue(executor.shutdown(5000));
+
+		assertEquals(2L, executor.getSubmittedCount());
+		assertEquals(2L, executor.getCompletedCount());
+		assertEquals(1L, executor.getRejectedCount());
+		assertTrue(executor.getMaxLatency() > 0);
+	}
+
+	private static int awaitThreads(String prefix) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		int count;
+
+		while ((count = countThreads(prefix)) > 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+
+		return count;
+	}
+
+	private static int countThreads(String prefix) {
+		int count = 0;
+
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (thread.getName().startsWith(prefix) && thread.isAlive()) {
+				count++;
+			}
+		}
+
+		return count;
+	}
+}
@@ -0,0 +1,167 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.thecodingbadgers.bFundamentals.module;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.codingbadgers.bFundamentals.module.loader.LoadableDescriptionFile;
+import uk.codingbadgers.bFundamentals.module.loader.ModuleScanner;
+import uk.codingbadgers.bFundamentals.module.loader.ModuleScanner.ScanResult;
+import static org.junit.Assert.*;
+
+public class ModuleScannerTest {
+
+	private File dir;
+	private List<File> jars;
+	private List<ScanResult> opened = new ArrayList<ScanResult>();
+	
+	@Before
+	public void createJars() throws IOException {
+		dir = File.createTempFile("modules", "");
+		dir.delete();
+		dir.mkdirs();
+		
+		jars = new ArrayList<File>();
+		
+		for (int i = 0; i < 12; i++) {
+			jars.add(createJar("module" + i, "name: Module" + i + "\nversion: 1." + i + "\nmain-class: uk.test.Module" + i + "\nauthors: [TheFish97]\ndependencies: [Module" + (i + 1) + "]\n"));
+		}
+		
+		// a jar without a path.yml and a file which isn't a jar at all
+		jars.add(5, createJar("nopath", null));
+		File corrupt = new File(dir, "corrupt.jar");
+		FileOutputStream out = new FileOutputStream(corrupt);
+		out.write("not a jar".getBytes("UTF-8"));
+		out.close();
+		jars.add(8, corrupt);
+	}
+	
+	@After
+	public void cleanup() throws IOException {
+		for (ScanResult result : opened) {
+			if (result.getJarFile() != null) {
+				result.getJarFile().close();
+			}
+		}
+		
+		for (File file : dir.listFiles()) {
+			file.delete();
+		}
+		dir.delete();
+	}
+	
+	private File createJar(String name, String descriptor) throws IOException {
+		File file = new File(dir, name + ".jar");
+		JarOutputStream out = new JarOutputStream(new FileOutputStream(file));
+		
+		if (descriptor != null) {
+			out.putNextEntry(new ZipEntry("path.yml"));
+			out.write(descriptor.getBytes("UTF-8"));
+			out.closeEntry();
+		}
+		
+		out.putNextEntry(new ZipEntry("uk/test/placeholder.txt"));
+		out.write(name.getBytes("UTF-8"));
+		out.closeEntry();
+		out.close();
+		return file;
+	}
+	
+	private List<ScanResult> scan(ModuleScanner scanner) {
+		List<ScanResult> results = scanner.scan(jars);
+		opened.addAll(results);
+		return results;
+	}
+	
+	private static void assertSameDescription(LoadableDescriptionFile expected, LoadableDescriptionFile actual) {
+		if (expected == null) {
+			assertNull(actual);
+			return;
+		}
+		
+		assertEquals(expected.getName(), actual.getName());
+		assertEquals(expected.getVersion(), actual.getVersion());
+		assertEquals(expected.getDescription(), actual.getDescription());
+		assertEquals(expected.getMainClass(), actual.getMainClass());
+		assertEquals(expected.getAuthors(), actual.getAuthors());
+		assertEquals(new ArrayList<String>(expected.getDependencies()), new ArrayList<String>(actual.getDependencies()));
+	}
+	
+	@Test
+	public void testParallelMatchesSequential() {
+		List<ScanResult> sequential = scan(new ModuleScanner(null, 1));
+		List<ScanResult> parallel = scan(new ModuleScanner(null, 4));
+		
+		assertEquals(jars.size(), sequential.size());
+		assertEquals(jars.size(), parallel.size());
+		
+		for (int i = 0; i < jars.size(); i++) {
+			assertEquals(jars.get(i), sequential.get(i).getFile());
+			assertEquals(jars.get(i), parallel.get(i).getFile());
+			assertSameDescription(sequential.get(i).getDescription(), parallel.get(i).getDescription());
+			assertEquals(sequential.get(i).getError() == null, parallel.get(i).getError() == null);
+		}
+		
+		assertNull(parallel.get(5).getDescription());
+		assertNull(parallel.get(5).getError());
+		assertNotNull(parallel.get(8).getError());
+		assertEquals("Module0", parallel.get(0).getDescription().getName());
+		assertEquals("uk.test.Module11", parallel.get(jars.size() - 1).getDescription().getMainClass());
+	}
+	
+	@Test
+	public void testCache() throws IOException {
+		File cache = new File(dir, "modules.cache");
+		
+		List<ScanResult> first = scan(new ModuleScanner(cache, 4));
+		assertTrue(cache.exists());
+		
+		for (ScanResult result : first) {
+			assertFalse(result.isCached());
+		}
+		
+		List<ScanResult> second = scan(new ModuleScanner(cache, 4));
+		
+		for (int i = 0; i < jars.size(); i++) {
+			boolean valid = first.get(i).getDescription() != null;
+			assertEquals(valid, second.get(i).isCached());
+			assertSameDescription(first.get(i).getDescription(), second.get(i).getDescription());
+		}
+		
+		// changing a jar invalidates its cached description
+		first.get(0).getJarFile().close();
+		second.get(0).getJarFile().close();
+		File changed = createJar("module0", "name: Renamed\nversion: 2.0\nmain-class: uk.test.Renamed\n");
+		changed.setLastModified(changed.lastModified() + 2000);
+		
+		List<ScanResult> third = scan(new ModuleScanner(cache, 4));
+		assertFalse(third.get(0).isCached());
+		assertEquals("Renamed", third.get(0).getDescription().getName());
+		assertTrue(third.get(1).isCached());
+	}
+}
@@ -0,0 +1,122 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.thecodingbadgers.bFundamentals.player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.bukkit.entity.Player;
+import org.junit.Test;
+
+import uk.codingbadgers.bFundamentals.player.FundamentalPlayer;
+import uk.codingbadgers.bFundamentals.player.FundamentalPlayerArray;
+import uk.thecodingbadgers.bFundamentals.support.DummyPlayer;
+import static org.junit.Assert.*;
+
+public class PlayerArrayTest {
+
+	@Test
+	public void testLookup() {
+		FundamentalPlayerArray players = new FundamentalPlayerArray();
+		Player bukkitPlayer = DummyPlayer.create("TheFish97");
+		FundamentalPlayer player = new FundamentalPlayer(bukkitPlayer);
+		players.add(player);
+
+		assertSame(player, players.getPlayer(bukkitPlayer));
+		assertSame(player, players.getPlayer(bukkitPlayer.getUniqueId()));
+		assertSame(player, players.getPlayer("thefish97"));
+		assertSame(player, players.getPlayer("THEFISH97"));
+		assertNull(players.getPlayer("n3wton"));
+		assertEquals(1, players.size());
+	}
+
+	@Test
+	public void testRemove() {
+		FundamentalPlayerArray players = new FundamentalPlayerArray();
+		Player bukkitPlayer = DummyPlayer.create("n3wton");
+		players.add(new FundamentalPlayer(bukkitPlayer));
+		players.removePlayer(bukkitPlayer);
+
+		assertNull(players.getPlayer(bukkitPlayer));
+		assertNull(players.getPlayer("n3wton"));
+		assertTrue(players.isEmpty());
+	}
+
+	@Test
+	public void testRejoin() {
+		FundamentalPlayerArray players = new FundamentalPlayerArray();
+		Player first = DummyPlayer.create("n3wton");
+		Player second = DummyPlayer.create("n3wton", first.getUniqueId());
+		players.add(new FundamentalPlayer(first));
+		FundamentalPlayer rejoined = new FundamentalPlayer(second);
+		players.add(rejoined);
+
+		assertEquals(1, players.size());
+		assertSame(rejoined, players.getPlayer("n3wton"));
+	}
+
+	@Test
+	public void testConcurrentAccess() throws InterruptedException {
+		final FundamentalPlayerArray players = new FundamentalPlayerArray();
+		final List<Player> online = new ArrayList<Player>();
+		for (int i = 0; i < 500; i++) {
+			online.add(DummyPlayer.create("player" + i));
+		}
+
+		final CountDownLatch start = new CountDownLatch(1);
+		final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+
+		Thread reader = new Thread() {
+			public void run() {
+				try {
+					start.await();
+					for (int pass = 0; pass < 100; pass++) {
+						for (Player player : online) {
+							FundamentalPlayer found = players.getPlayer(player.getName());
+							if (found != null && found.getPlayer() != null) {
+								assertEquals(player.getName(), found.getPlayer().getName());
+							}
+						}
+						for (FundamentalPlayer player : players) {
+							assertNotNull(player);
+						}
+					}
+				} catch (Throwable t) {
+					error.set(t);
+				}
+			}
+		};
+		reader.start();
+
+		start.countDown();
+		for (int pass = 0; pass < 20; pass++) {
+			for (Player player : online) {
+				players.add(new FundamentalPlayer(player));
+			}
+			for (Player player : online) {
+				players.removePlayer(player);
+			}
+		}
+		reader.join();
+
+		assertNull(error.get());
+		assertTrue(players.isEmpty());
+	}
+}
@@ -0,0 +1,81 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.thecodingbadgers.bFundamentals.player;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import uk.codingbadgers.bFundamentals.player.PlayerNameIndex;
+import static org.junit.Assert.*;
+
+public class PlayerNameIndexTest {
+
+	@Test
+	public void testLookup() {
+		PlayerNameIndex index = new PlayerNameIndex();
+		index.rebuild(Arrays.asList("TheFish97", "thebadger", "Notch", "Jeb_"));
+		
+		assertEquals(4, index.size());
+		assertEquals("TheFish97", index.getExact("thefish97"));
+		assertEquals("Notch", index.getExact("NOTCH"));
+		assertNull(index.getExact("the"));
+		assertTrue(index.contains("jeb_"));
+		
+		assertEquals(Arrays.asList("thebadger", "TheFish97"), index.getPrefixMatches("THE"));
+		assertEquals(Arrays.asList("thebadger"), index.getPrefixMatches("the", 1));
+		assertEquals(Arrays.asList("TheFish97"), index.getPrefixMatches("thef"));
+		assertTrue(index.getPrefixMatches("z").isEmpty());
+		assertEquals(4, index.getPrefixMatches("").size());
+	}
+	
+	@Test
+	public void testAdd() {
+		PlayerNameIndex index = new PlayerNameIndex();
+		
+		index.add("Notch");
+		index.add("jeb_");
+		index.add("Alpha");
+		index.add("zed");
+		index.add("NOTCH");
+		
+		assertEquals(4, index.size());
+		assertEquals("NOTCH", index.getExact("notch"));
+		assertEquals(Arrays.asList("Alpha", "jeb_", "NOTCH", "zed"), index.getPrefixMatches(""));
+	}
+	
+	@Test
+	public void testLargeIndex() {
+		List<String> names = new ArrayList<String>();
+		for (int i = 0; i < 50000; i++) {
+			names.add("Player" + i);
+		}
+		
+		PlayerNameIndex index = new PlayerNameIndex();
+		index.rebuild(names);
+		index.add("Player50000");
+		
+		assertEquals(50001, index.size());
+		assertEquals("Player12345", index.getExact("player12345"));
+		// Player4999, Player49990 - Player49999
+		assertEquals(11, index.getPrefixMatches("player4999").size());
+		assertEquals(10, index.getPrefixMatches("player4999", 10).size());
+	}
+}
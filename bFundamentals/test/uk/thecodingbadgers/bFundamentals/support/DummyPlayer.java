@@ -0,0 +1,47 @@
+package uk.thecodingbadgers.bFundamentals.support;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.UUID;
+
+import org.bukkit.entity.Player;
+
+public class DummyPlayer implements InvocationHandler {
+
+	private final String name;
+	private final UUID id;
+
+	private DummyPlayer(String name, UUID id) {
+		this.name = name;
+		this.id = id;
+	}
+
+	public static Player create(String name) {
+		return create(name, UUID.randomUUID());
+	}
+
+	public static Player create(String name, UUID id) {
+		return (Player) Proxy.newProxyInstance(Player.class.getClassLoader(), new Class<?>[] { Player.class }, new DummyPlayer(name, id));
+	}
+
+	public Object invoke(Object proxy, Method method, Object[] args) {
+		String methodName = method.getName();
+
+		if (methodName.equals("getName")) {
+			return name;
+		} else if (methodName.equals("getUniqueId")) {
+			return id;
+		} else if (methodName.equals("updateInventory")) {
+			return null;
+		} else if (methodName.equals("hashCode")) {
+			return System.identityHashCode(proxy);
+		} else if (methodName.equals("equals")) {
+			return proxy == args[0];
+		} else if (methodName.equals("toString")) {
+			return "DummyPlayer{name=" + name + "}";
+		}
+
+		throw new UnsupportedOperationException(String.valueOf(method));
+	}
+}
@@ -8,7 +8,15 @@ import java.util.logging.Logger;
 
 import org.bukkit.Bukkit;
 import org.bukkit.Server;
+import org.bukkit.command.SimpleCommandMap;
+import org.bukkit.craftbukkit.v1_7_R1.inventory.CraftInventoryCustom;
 import org.bukkit.craftbukkit.v1_7_R1.inventory.CraftItemFactory;
+import org.bukkit.help.HelpMap;
+import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.plugin.ServicesManager;
+import org.bukkit.plugin.SimplePluginManager;
+import org.bukkit.plugin.SimpleServicesManager;
 
 public class DummyServer implements InvocationHandler {
 	private static interface MethodHandler {
@@ -59,6 +67,49 @@ public class DummyServer implements InvocationHandler {
                         }
                     }
                 );
+            methods.put(
+                    Server.class.getMethod("createInventory", InventoryHolder.class, int.class, String.class),
+                    new MethodHandler() {
+                        public Object handle(DummyServer server, Object[] args) {
+                            return new CraftInventoryCustom((InventoryHolder) args[0], (Integer) args[1], (String) args[2]);
+                        }
+                    }
+                );
+            methods.put(
+                    Server.class.getMethod("getPluginManager"),
+                    new MethodHandler() {
+                        PluginManager manager = null;
+                        public synchronized Object handle(DummyServer server, Object[] args) {
+                            if (manager == null) {
+                                manager = new SimplePluginManager(Bukkit.getServer(), new SimpleCommandMap(Bukkit.getServer()));
+                            }
+                            return manager;
+                        }
+                    }
+                );
+            methods.put(
+                    Server.class.getMethod("getServicesManager"),
+                    new MethodHandler() {
+                        final ServicesManager manager = new SimpleServicesManager();
+                        public Object handle(DummyServer server, Object[] args) {
+                            return manager;
+                        }
+                    }
+                );
+            methods.put(
+                    Server.class.getMethod("getHelpMap"),
+                    new MethodHandler() {
+                        // help topics are never shown in tests, so they are just dropped
+                        final HelpMap helpMap = (HelpMap) Proxy.newProxyInstance(HelpMap.class.getClassLoader(), new Class<?>[] { HelpMap.class }, new InvocationHandler() {
+                            public Object invoke(Object proxy, Method method, Object[] args) {
+                                return null;
+                            }
+                        });
+                        public Object handle(DummyServer server, Object[] args) {
+                            return helpMap;
+                        }
+                    }
+                );
             Bukkit.setServer(Proxy.getProxyClass(Server.class.getClassLoader(), Server.class).asSubclass(Server.class).getConstructor(InvocationHandler.class).newInstance(new DummyServer()));
         } catch (Throwable t) {
             throw new Error(t);
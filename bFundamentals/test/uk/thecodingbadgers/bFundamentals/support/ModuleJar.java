@@ -0,0 +1,136 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.thecodingbadgers.bFundamentals.support;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Writes module jars for tests which load modules through the module loader.
+ * <p>
+ * The classes in the jar are copies of classes in this package, such as
+ * {@link JarModule}, moved into a package that isn't on the test classpath.
+ * Otherwise the module's class loader would find them in its parent and they
+ * would never be loaded from the jar.
+ */
+public final class ModuleJar {
+
+	/** The main class of every module jar. */
+	public static final String MAIN_CLASS = getName(JarModule.class);
+	
+	private ModuleJar() {
+	}
+	
+	/**
+	 * Gets the name a class has once it is copied into a module jar.
+	 *
+	 * @param clazz the class in this package
+	 * @return the binary name of the class in the jar
+	 */
+	public static String getName(Class<?> clazz) {
+		return target(clazz).replace('/', '.');
+	}
+	
+	/**
+	 * Writes a module jar containing {@link JarModule} and any other classes
+	 * from this package it needs.
+	 *
+	 * @param file the jar file to write
+	 * @param name the name of the module
+	 * @param version the version of the module
+	 * @param classes the other classes to copy into the jar
+	 * @return the jar file
+	 * @throws IOException if the jar could not be written
+	 */
+	public static File create(File file, String name, String version, Class<?>... classes) throws IOException {
+		Class<?>[] copied = new Class<?>[classes.length + 1];
+		copied[0] = JarModule.class;
+		System.arraycopy(classes, 0, copied, 1, classes.length);
+		
+		JarOutputStream out = new JarOutputStream(new FileOutputStream(file));
+		
+		try {
+			for (Class<?> clazz : copied) {
+				out.putNextEntry(new ZipEntry(target(clazz) + ".class"));
+				out.write(rename(readClass(clazz), copied));
+				out.closeEntry();
+			}
+			
+			out.putNextEntry(new ZipEntry("path.yml"));
+			out.write(("name: " + name + "\nversion: " + version + "\nmain-class: " + MAIN_CLASS + "\n").getBytes("UTF-8"));
+			out.closeEntry();
+		} finally {
+			out.close();
+		}
+		
+		return file;
+	}
+	
+	private static String source(Class<?> clazz) {
+		return clazz.getName().replace('.', '/');
+	}
+	
+	/** the package name is the same length, so only the constant pool text changes */
+	private static String target(Class<?> clazz) {
+		return source(clazz).replace("/support/", "/modules/");
+	}
+	
+	private static byte[] readClass(Class<?> clazz) throws IOException {
+		InputStream in = ModuleJar.class.getClassLoader().getResourceAsStream(source(clazz) + ".class");
+		
+		try {
+			return IOUtils.toByteArray(in);
+		} finally {
+			in.close();
+		}
+	}
+	
+	/**
+	 * Renames every copied class a class refers to, including itself.
+	 */
+	private static byte[] rename(byte[] bytes, Class<?>[] classes) throws IOException {
+		for (Class<?> clazz : classes) {
+			byte[] source = source(clazz).getBytes("UTF-8");
+			byte[] target = target(clazz).getBytes("UTF-8");
+			
+			for (int i = 0; i <= bytes.length - source.length; i++) {
+				if (matches(bytes, i, source)) {
+					System.arraycopy(target, 0, bytes, i, target.length);
+				}
+			}
+		}
+		
+		return bytes;
+	}
+	
+	private static boolean matches(byte[] bytes, int offset, byte[] search) {
+		for (int i = 0; i < search.length; i++) {
+			if (bytes[offset + i] != search[i]) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+}
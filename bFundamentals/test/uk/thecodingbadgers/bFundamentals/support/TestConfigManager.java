@@ -23,7 +23,9 @@ import java.lang.reflect.Proxy;
 import java.util.HashMap;
 
 import uk.codingbadgers.bFundamentals.ConfigManager;
+import uk.codingbadgers.bFundamentals.DatabaseSettings;
 import uk.codingbadgers.bFundamentals.bFundamentals;
+import uk.thecodingbadgers.bDatabaseManager.bDatabaseManager.DatabaseType;
 
 public class TestConfigManager implements InvocationHandler {
 	private static interface MethodHandler {
@@ -49,6 +51,33 @@ public class TestConfigManager implements InvocationHandler {
                         }
                     }
                 );
+            methods.put(
+                    ConfigManager.class.getMethod("getLogPrefix"),
+                    new MethodHandler() {
+                        public Object handle(TestConfigManager server, Object[] args) {
+                            return "[bFundamentals]";
+                        }
+                    }
+                );
+            methods.put(
+                    ConfigManager.class.getMethod("getLanguage"),
+                    new MethodHandler() {
+                        public Object handle(TestConfigManager server, Object[] args) {
+                            return "UK";
+                        }
+                    }
+                );
+            methods.put(
+                    ConfigManager.class.getMethod("getDatabaseSettings"),
+                    new MethodHandler() {
+                        public Object handle(TestConfigManager server, Object[] args) {
+                            DatabaseSettings settings = new DatabaseSettings();
+                            settings.type = DatabaseType.SQLite;
+                            settings.name = "bFundamentals";
+                            return settings;
+                        }
+                    }
+                );
             bFundamentals.setConfigManager(Proxy.getProxyClass(ConfigManager.class.getClassLoader(), ConfigManager.class).asSubclass(ConfigManager.class).getConstructor(InvocationHandler.class).newInstance(new TestConfigManager()));
         } catch (Throwable t) {
             throw new Error(t);
@@ -17,15 +17,21 @@
  */
 package uk.thecodingbadgers.bFundamentals.support;
 
+import java.io.File;
+
 import org.bukkit.Achievement;
+import org.bukkit.Bukkit;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.PluginDescriptionFile;
 
+import com.google.common.io.Files;
 import com.google.gson.GsonBuilder;
 
 import uk.codingbadgers.bFundamentals.bFundamentals;
 import uk.codingbadgers.bFundamentals.message.ClickEventType;
 import uk.codingbadgers.bFundamentals.message.HoverEventType;
 import uk.codingbadgers.bFundamentals.message.Message;
+import uk.codingbadgers.bFundamentals.module.ModuleLoader;
 import uk.codingbadgers.bFundamentals.serialization.AchievementSerializer;
 import uk.codingbadgers.bFundamentals.serialization.ItemStackSerializer;
 
@@ -41,4 +47,31 @@ public class TestPlugin extends bFundamentals {
 						.create();
 	}
 	
+	/**
+	 * Creates a plugin initialised as if the server had loaded it, with its
+	 * own data folder.
+	 *
+	 * @param dataFolder the plugin's data folder
+	 */
+	public TestPlugin(File dataFolder) {
+		this();
+		initialize(null, Bukkit.getServer(), new PluginDescriptionFile("bFundamentals", "1.2-SNAPSHOT", bFundamentals.class.getName()),
+				dataFolder, new File(dataFolder.getParentFile(), "bFundamentals.jar"), getClass().getClassLoader());
+	}
+	
+	/**
+	 * Sets up a plugin instance and module loader over a temporary data
+	 * folder, for tests which load real modules. Only the first call creates
+	 * the plugin, the instance can't be replaced.
+	 */
+	public static synchronized void setup() {
+		if (getInstance() != null) {
+			return;
+		}
+		
+		TestPlugin plugin = new TestPlugin(Files.createTempDir());
+		setInstance(plugin);
+		m_log = plugin.getLogger();
+		m_moduleLoader = new ModuleLoader();
+	}
 }
@@ -0,0 +1,136 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.thecodingbadgers.bFundamentals.timings;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Test;
+
+import uk.codingbadgers.bFundamentals.timings.Timing;
+import uk.codingbadgers.bFundamentals.timings.TimingType;
+import uk.codingbadgers.bFundamentals.timings.Timings;
+import static org.junit.Assert.*;
+
+public class TimingsTest {
+
+	@After
+	public void cleanup() {
+		Timings.setEnabled(false);
+		Timings.reset();
+	}
+	
+	@Test
+	public void testPercentiles() {
+		Timing timing = new Timing("Test", TimingType.LISTENER, "percentiles");
+		
+		for (long i = 1; i <= 1000; i++) {
+			timing.record(i * 1000);
+		}
+		
+		assertEquals(1000L, timing.getCount());
+		assertEquals(500500000L, timing.getTotal());
+		assertEquals(1000000L, timing.getMax());
+		
+		// percentiles are bucketed so only accurate to within 25%
+		assertEquals(500000, timing.getPercentile(0.5), 125000);
+		assertEquals(990000, timing.getPercentile(0.99), 247500);
+		assertEquals(timing.getMax(), timing.getPercentile(1.0));
+		
+		timing.reset();
+		assertEquals(0L, timing.getCount());
+		assertEquals(0L, timing.getPercentile(0.5));
+	}
+	
+	@Test
+	public void testSmallAndLargeValues() {
+		Timing timing = new Timing("Test", TimingType.TASK, "range");
+		
+		timing.record(-5);
+		timing.record(0);
+		timing.record(3);
+		timing.record(Long.MAX_VALUE);
+		
+		assertEquals(4L, timing.getCount());
+		assertEquals(0L, timing.getPercentile(0.5));
+		assertEquals(Long.MAX_VALUE, timing.getMax());
+		assertEquals(Long.MAX_VALUE, timing.getPercentile(1.0));
+	}
+	
+	@Test
+	public void testDisabledTasksAreNotRecorded() {
+		final int[] runs = new int[1];
+		Runnable task = Timings.wrap("Test", new Runnable() {
+			@Override
+			public void run() {
+				runs[0]++;
+			}
+		});
+		
+		Timings.setEnabled(false);
+		task.run();
+		
+		Timings.setEnabled(true);
+		task.run();
+		task.run();
+		
+		assertEquals(3, runs[0]);
+		
+		long recorded = 0;
+		for (Timing timing : Timings.getTimings()) {
+			if (timing.getModule().equals("Test") && timing.getType() == TimingType.TASK) {
+				recorded += timing.getCount();
+			}
+		}
+		assertEquals(2L, recorded);
+	}
+	
+	@Test
+	public void testReport() throws IOException {
+		Timings.getTiming("Expensive", TimingType.COMMAND, "/slow").record(5000000);
+		Timings.getTiming("Cheap", TimingType.LISTENER, "Listener#onMove(PlayerMoveEvent)").record(1000);
+		Timings.getTiming("Unused", TimingType.LISTENER, "Listener#never(Event)");
+		
+		List<String> report = Timings.report();
+		int expensive = -1, cheap = -1;
+		
+		for (int i = 0; i < report.size(); i++) {
+			if (report.get(i).startsWith("Expensive:")) {
+				expensive = i;
+			} else if (report.get(i).startsWith("Cheap:")) {
+				cheap = i;
+			}
+			assertFalse(report.get(i).startsWith("Unused"));
+		}
+		
+		assertTrue(expensive > 0);
+		assertTrue(cheap > expensive);
+		assertTrue(report.get(expensive + 1).contains("[command] /slow"));
+		
+		File file = File.createTempFile("timings", ".txt");
+		try {
+			Timings.export(file);
+			assertEquals(report, FileUtils.readLines(file, "UTF-8"));
+		} finally {
+			file.delete();
+		}
+	}
+}
@@ -0,0 +1,99 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.thecodingbadgers.bFundamentals.update;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import uk.codingbadgers.bFundamentals.bFundamentals;
+import uk.codingbadgers.bFundamentals.module.Module;
+import uk.codingbadgers.bFundamentals.module.ModuleLoader;
+import uk.codingbadgers.bFundamentals.update.BadgerUpdater;
+import uk.thecodingbadgers.bFundamentals.TestContainer;
+import uk.thecodingbadgers.bFundamentals.support.ModuleJar;
+import uk.thecodingbadgers.bFundamentals.support.TestPlugin;
+
+public class BadgerUpdaterTest extends TestContainer {
+
+	private static final String NAME = "bUpdaterTest";
+
+	private ModuleLoader loader;
+	private File jar;
+
+	@BeforeClass
+	public static void setupPlugin() {
+		TestPlugin.setup();
+	}
+
+	@Before
+	public void loadModule() throws IOException {
+		loader = bFundamentals.getModuleLoader();
+		jar = ModuleJar.create(new File(loader.getModuleDir(), NAME + ".jar"), NAME, "1.0");
+		loader.load(jar);
+		loader.getModule(NAME).setEnabled(true);
+	}
+
+	@After
+	public void unloadModule() {
+		Module module = loader.getModule(NAME);
+		if (module != null) {
+			loader.unload(module);
+		}
+		jar.delete();
+	}
+
+	@Test
+	public void installedModuleIsEnabled() throws IOException {
+		Module old = loader.getModule(NAME);
+		InstallingUpdater updater = new InstallingUpdater(old);
+		File download = ModuleJar.create(new File(updater.getDownloadFolder(), NAME + ".jar"), NAME, "1.1");
+
+		updater.install(download);
+
+		Module module = loader.getModule(NAME);
+		assertNotNull(module);
+		assertNotSame(old, module);
+		assertEquals("1.1", module.getVersion());
+		assertTrue(module.isEnabled());
+		assertFalse(old.isEnabled());
+		assertFalse(download.exists());
+	}
+
+	private static class InstallingUpdater extends BadgerUpdater {
+
+		InstallingUpdater(Module module) {
+			super(module);
+		}
+
+		File getDownloadFolder() {
+			return m_downloadFolder;
+		}
+
+		@Override
+		protected void install(File output) throws IOException {
+			super.install(output);
+		}
+	}
+}
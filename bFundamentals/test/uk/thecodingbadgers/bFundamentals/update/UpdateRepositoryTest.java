@@ -0,0 +1,183 @@
+/**
+ * bFundamentals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.thecodingbadgers.bFundamentals.update;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.codec.binary.Hex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.io.Files;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import uk.codingbadgers.bFundamentals.update.MetadataCache;
+import uk.codingbadgers.bFundamentals.update.UpdaterUtils;
+
+public class UpdateRepositoryTest {
+
+	private static final String ETAG = "\"v1\"";
+
+	private HttpServer server;
+	private final Map<String, byte[]> files = new ConcurrentHashMap<String, byte[]>();
+	private final AtomicInteger fullResponses = new AtomicInteger();
+	private File folder;
+
+	@Before
+	public void setup() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				String path = exchange.getRequestURI().getPath();
+				byte[] body = files.get(path);
+
+				if (body == null) {
+					exchange.sendResponseHeaders(404, -1);
+				} else if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+					exchange.sendResponseHeaders(304, -1);
+				} else {
+					fullResponses.incrementAndGet();
+					exchange.getResponseHeaders().add("ETag", ETAG);
+					exchange.sendResponseHeaders(200, body.length);
+					OutputStream out = exchange.getResponseBody();
+					out.write(body);
+					out.close();
+				}
+				exchange.close();
+			}
+		});
+		server.start();
+
+		folder = Files.createTempDir();
+	}
+
+	@After
+	public void teardown() {
+		server.stop(0);
+		delete(folder);
+	}
+
+	@Test
+	public void metadataIsRevalidated() throws IOException {
+		byte[] metadata = "<metadata><artifactId>bTest</artifactId></metadata>".getBytes("UTF-8");
+		files.put("/bTest/maven-metadata.xml", metadata);
+
+		MetadataCache cache = new MetadataCache(new File(folder, "metadata"));
+		URL url = url("/bTest/maven-metadata.xml");
+
+		assertArrayEquals(metadata, cache.get(url));
+		assertArrayEquals(metadata, cache.get(url));
+
+		// a new cache over the same folder, as after a restart
+		MetadataCache restarted = new MetadataCache(new File(folder, "metadata"));
+		assertArrayEquals(metadata, restarted.get(url));
+
+		assertEquals(1, fullResponses.get());
+		assertEquals(1L, cache.getFetchCount());
+		assertEquals(1L, cache.getRevalidatedCount());
+		assertEquals(1L, restarted.getRevalidatedCount());
+	}
+
+	@Test
+	public void cachedMetadataIsUsedOffline() throws IOException {
+		byte[] metadata = "<metadata/>".getBytes("UTF-8");
+		files.put("/bTest/maven-metadata.xml", metadata);
+
+		MetadataCache cache = new MetadataCache(new File(folder, "metadata"));
+		URL url = url("/bTest/maven-metadata.xml");
+		cache.get(url);
+
+		server.stop(0);
+		assertArrayEquals(metadata, cache.get(url));
+	}
+
+	@Test
+	public void largeDownloadIsVerified() throws Exception {
+		// larger than the old 16mb transfer cap
+		byte[] jar = new byte[(1 << 24) + 4096];
+		for (int i = 0; i < jar.length; i++) {
+			jar[i] = (byte) (i * 31);
+		}
+		files.put("/bTest/1.1/bTest-1.1.jar", jar);
+		files.put("/bTest/1.1/bTest-1.1.jar.sha1", sha1(jar).getBytes("UTF-8"));
+
+		File output = new File(folder, "bTest.jar");
+		UpdaterUtils.downloadVerified(url("/bTest/1.1/bTest-1.1.jar"), output);
+
+		assertEquals(jar.length, output.length());
+		assertTrue(Arrays.equals(jar, Files.toByteArray(output)));
+	}
+
+	@Test
+	public void corruptDownloadIsRejected() throws Exception {
+		byte[] jar = "not really a jar".getBytes("UTF-8");
+		files.put("/bTest/1.1/bTest-1.1.jar", jar);
+		files.put("/bTest/1.1/bTest-1.1.jar.sha1", sha1("something else".getBytes("UTF-8")).getBytes("UTF-8"));
+
+		File output = new File(folder, "bTest.jar");
+
+		try {
+			UpdaterUtils.downloadVerified(url("/bTest/1.1/bTest-1.1.jar"), output);
+			fail("corrupt download was accepted");
+		} catch (IOException e) {
+			// expected
+		}
+
+		assertFalse(output.exists());
+		assertEquals(0, folder.listFiles().length);
+	}
+
+	@Test(expected = IOException.class)
+	public void missingChecksumIsRejected() throws Exception {
+		files.put("/bTest/1.1/bTest-1.1.jar", new byte[16]);
+		UpdaterUtils.downloadVerified(url("/bTest/1.1/bTest-1.1.jar"), new File(folder, "bTest.jar"));
+	}
+
+	private URL url(String path) throws IOException {
+		return new URL("http://127.0.0.1:" + server.getAddress().getPort() + path);
+	}
+
+	private static String sha1(byte[] data) throws Exception {
+		return new String(Hex.encodeHex(MessageDigest.getInstance("SHA-1").digest(data)));
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+}
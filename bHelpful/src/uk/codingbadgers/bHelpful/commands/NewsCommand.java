@@ -27,7 +27,6 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Level;
 
-import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.command.CommandSender;
 import org.json.simple.JSONArray;
@@ -72,7 +71,7 @@ public class NewsCommand extends ConfigCommand {
 
 	@Override
 	protected void loadConfig() throws IOException {
-		Bukkit.getScheduler().runTaskAsynchronously(bHelpful.PLUGIN, new Runnable() {
+		bHelpful.MODULE.getExecutor().execute(new Runnable() {
 			@Override
 			public void run() {
 				try {
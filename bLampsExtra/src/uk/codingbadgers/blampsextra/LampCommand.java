@@ -33,13 +33,27 @@ public class LampCommand extends ModuleCommand {
     /**
      * 
      */
-    public LampCommand() {
-        super("lamp", "/lamp <force>");
+    private final bLampsExtra module;
+    
+    /**
+     * 
+     */
+    public LampCommand(bLampsExtra module) {
+        super("lamp", "/lamp <force|stats>");
+        this.module = module;
     }
 
     @Override
     public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
         
+        if (args.length == 1 && args[0].equalsIgnoreCase("stats")) {
+            LampUpdater updater = this.module.getUpdater();
+            Module.sendMessage("bLampsExtra", sender, "Lamps: " + this.module.getLampCount() + ", queued: " + updater.getQueueSize() + ", per tick: " + updater.getBudget());
+            Module.sendMessage("bLampsExtra", sender, "Last cycle: " + updater.getLastCycleUpdated() + " lamps over " + updater.getLastCycleTicks() + " ticks, total: " + updater.getTotalUpdated());
+            Module.sendMessage("bLampsExtra", sender, String.format("Tick time: %.3fms last, %.3fms max", updater.getLastTickMillis(), updater.getMaxTickMillis()));
+            return true;
+        }
+        
         if (!(sender instanceof Player)) {
             return true;
         }
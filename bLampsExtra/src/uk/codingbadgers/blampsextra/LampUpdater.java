@@ -0,0 +1,200 @@
+/**
+ * bFundamentalsBuild 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.blampsextra;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+/**
+ * Applies queued lamp changes to the world, a fixed number of lamps are
+ * processed each tick so a day/night transition is spread over several ticks
+ * instead of relighting every lamp at once.
+ * <p>
+ * A lamp's block is only changed if it is not already in the wanted state,
+ * and lamps in unloaded chunks are skipped until their chunk loads.
+ */
+class LampUpdater implements Runnable {
+
+    private final bLampsExtra module;
+    private final Deque<LightBlock> queue = new ArrayDeque<LightBlock>();
+    private final int budget;
+    
+    /** lamps changed in the cycle currently being processed */
+    private int cycleUpdated = 0;
+    /** ticks spent on the cycle currently being processed */
+    private int cycleTicks = 0;
+    
+    private int lastCycleUpdated = 0;
+    private int lastCycleTicks = 0;
+    private long totalUpdated = 0;
+    private double lastTickMillis = 0;
+    private double maxTickMillis = 0;
+
+    LampUpdater(bLampsExtra module, int budget) {
+        this.module = module;
+        this.budget = Math.max(1, budget);
+    }
+    
+    /**
+     * Queue a lamp to have its block checked against its wanted state.
+     *
+     * @param light the lamp
+     */
+    void queue(LightBlock light) {
+        if (!light.queued) {
+            light.queued = true;
+            queue.add(light);
+        }
+    }
+    
+    /**
+     * Drop every queued lamp.
+     */
+    void clear() {
+        for (LightBlock light : queue) {
+            light.queued = false;
+        }
+        queue.clear();
+    }
+    
+    int getBudget() {
+        return budget;
+    }
+
+    @Override
+    public void run() {
+        
+        if (queue.isEmpty()) {
+            return;
+        }
+        
+        long start = System.nanoTime();
+        
+        for (int processed = 0; processed < budget && !queue.isEmpty(); processed++) {
+            LightBlock light = queue.poll();
+            light.queued = false;
+            
+            if (apply(light)) {
+                cycleUpdated++;
+            }
+        }
+        
+        lastTickMillis = (System.nanoTime() - start) / 1000000.0;
+        maxTickMillis = Math.max(maxTickMillis, lastTickMillis);
+        cycleTicks++;
+        
+        if (queue.isEmpty()) {
+            lastCycleUpdated = cycleUpdated;
+            lastCycleTicks = cycleTicks;
+            totalUpdated += cycleUpdated;
+            
+            module.debugConsole("Updated " + cycleUpdated + " lamps over " + cycleTicks + " ticks");
+            
+            cycleUpdated = 0;
+            cycleTicks = 0;
+        }
+    }
+    
+    /**
+     * Bring a lamp's block into its wanted state.
+     *
+     * @param light the lamp
+     * @return true if the block was changed
+     */
+    private boolean apply(LightBlock light) {
+        
+        World world = Bukkit.getWorld(light.world);
+        if (world == null || !world.isChunkLoaded(light.x >> 4, light.z >> 4)) {
+            return false;
+        }
+        
+        Block block = world.getBlockAt(light.x, light.y, light.z);
+        Material type = block.getType();
+        
+        if (light.isLit && type == Material.REDSTONE_LAMP_OFF) {
+            block.setType(Material.REDSTONE_LAMP_ON);
+            return true;
+        }
+        
+        if (!light.isLit && type == Material.REDSTONE_LAMP_ON && !block.isBlockIndirectlyPowered()) {
+            block.setType(Material.REDSTONE_LAMP_OFF);
+            return true;
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Gets the number of lamps waiting to be updated.
+     *
+     * @return the queue size
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+    
+    /**
+     * Gets the number of lamps changed in the last completed cycle.
+     *
+     * @return the lamps updated last cycle
+     */
+    public int getLastCycleUpdated() {
+        return lastCycleUpdated;
+    }
+    
+    /**
+     * Gets the number of ticks the last completed cycle was spread over.
+     *
+     * @return the ticks taken by the last cycle
+     */
+    public int getLastCycleTicks() {
+        return lastCycleTicks;
+    }
+    
+    /**
+     * Gets the number of lamps changed since the module was enabled.
+     *
+     * @return the total lamps updated
+     */
+    public long getTotalUpdated() {
+        return totalUpdated;
+    }
+    
+    /**
+     * Gets the time spent updating lamps in the last tick that had work.
+     *
+     * @return the time in milliseconds
+     */
+    public double getLastTickMillis() {
+        return lastTickMillis;
+    }
+    
+    /**
+     * Gets the longest time spent updating lamps in a single tick.
+     *
+     * @return the time in milliseconds
+     */
+    public double getMaxTickMillis() {
+        return maxTickMillis;
+    }
+}
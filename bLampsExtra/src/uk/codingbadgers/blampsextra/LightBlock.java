@@ -0,0 +1,74 @@
+/**
+ * bFundamentalsBuild 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.blampsextra;
+
+/**
+ * A lamp managed by bLampsExtra. Lamps hold their coordinates rather than a
+ * {@link org.bukkit.block.Block} so they do not keep unloaded chunks alive.
+ */
+class LightBlock {
+
+    /** The name of the world the lamp is in. */
+    final String world;
+    
+    /** The block coordinates of the lamp. */
+    final int x, y, z;
+    
+    /** Whether the lamp is lit all day as well as all night. */
+    boolean force;
+    
+    /** The name of the player who made the lamp. */
+    String owner;
+    
+    /** Whether the lamp should currently be lit. */
+    boolean isLit;
+    
+    /** Whether the lamp is waiting in the update queue. */
+    boolean queued;
+
+    LightBlock(String world, int x, int y, int z, boolean force, String owner) {
+        this.world = world;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.force = force;
+        this.owner = owner;
+        this.isLit = false;
+        this.queued = false;
+    }
+    
+    /**
+     * Pack the coordinates of a block into a single key, 26 bits for x and z
+     * and 12 bits for y.
+     */
+    static long blockKey(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+    
+    static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+    
+    long blockKey() {
+        return blockKey(x, y, z);
+    }
+    
+    long chunkKey() {
+        return chunkKey(x >> 4, z >> 4);
+    }
+}
@@ -23,8 +23,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
 import org.bukkit.Bukkit;
-import org.bukkit.Location;
-import org.bukkit.Material;
+import org.bukkit.Chunk;
 import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.configuration.file.FileConfiguration;
@@ -33,6 +32,7 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockBreakEvent;
 import org.bukkit.event.block.BlockRedstoneEvent;
+import org.bukkit.event.world.ChunkLoadEvent;
 import org.bukkit.scheduler.BukkitScheduler;
 import uk.codingbadgers.bFundamentals.module.Module;
 
@@ -42,27 +42,27 @@ import uk.codingbadgers.bFundamentals.module.Module;
 public class bLampsExtra extends Module implements Listener {
 
         private BukkitScheduler scheduler = null;
-        private Map<World, List<LightBlock>> blocks = null;
+        private Map<String, WorldLamps> blocks = null;
         private Options options = null;
         private int scheduleId = -1;
+        private int updateId = -1;
         private LampCommand lampCommand = null;
+        private LampUpdater updater = null;
         
 	@Override
 	public void onEnable() {
             
             register(this);
             
-            this.lampCommand = new LampCommand();
+            this.lampCommand = new LampCommand(this);
             registerCommand(this.lampCommand);
             
             this.options = new Options();
-            this.blocks = new HashMap<World, List<LightBlock>>();
-            for (World world : Bukkit.getWorlds()) {
-                this.blocks.put(world, new ArrayList<LightBlock>());
-            }
+            this.blocks = new HashMap<String, WorldLamps>();
             
             loadConfig();
             
+            this.updater = new LampUpdater(this, this.options.updatesPerTick);
             this.scheduler = Bukkit.getScheduler();
             performForceLights();
             
@@ -72,9 +72,33 @@ public class bLampsExtra extends Module implements Listener {
 	public void onDisable() {
 	
             this.scheduler.cancelTask(scheduleId);
+            this.scheduler.cancelTask(updateId);
+            this.updater.clear();
             
 	}
         
+        /**
+         * Gets the lamp updater, which holds the update metrics.
+         * 
+         * @return the lamp updater
+         */
+        LampUpdater getUpdater() {
+            return this.updater;
+        }
+        
+        /**
+         * Gets the number of lamps loaded in every world.
+         * 
+         * @return the number of lamps
+         */
+        int getLampCount() {
+            int count = 0;
+            for (WorldLamps lamps : this.blocks.values()) {
+                count += lamps.blocks.size();
+            }
+            return count;
+        }
+        
         /**
          * 
          */
@@ -85,6 +109,8 @@ public class bLampsExtra extends Module implements Listener {
             FileConfiguration config = this.getConfig();            
             this.options.timeOn = config.getInt("Time_on");
             this.options.timeOff = config.getInt("Time_off");
+            this.options.updatesPerTick = config.getInt("Updates_per_tick", 50);
+            this.options.checkInterval = config.getInt("Check_interval", 20);
             
             log(Level.INFO, "Time range: " + this.options.timeOn + " -> " + this.options.timeOff);
             
@@ -97,12 +123,13 @@ public class bLampsExtra extends Module implements Listener {
                 if (world == null) {
                     continue;
                 }          
-                Location location = new Location(world, Double.parseDouble(parts[1]), Double.parseDouble(parts[2]), Double.parseDouble(parts[3]));
-                LightBlock newBlock = new LightBlock(location.getBlock(), Integer.parseInt(parts[5]) == 1, parts[0]);
+                LightBlock newBlock = new LightBlock(world.getName(), 
+                    (int) Math.floor(Double.parseDouble(parts[1])), 
+                    (int) Math.floor(Double.parseDouble(parts[2])), 
+                    (int) Math.floor(Double.parseDouble(parts[3])), 
+                    Integer.parseInt(parts[5]) == 1, parts[0]);
                 
-                List<LightBlock> worldBlocks = this.blocks.get(world);
-                worldBlocks.add(newBlock);                
-                this.blocks.put(world, worldBlocks);
+                addLamp(newBlock);
                 noofLamps++;
             }
 
@@ -114,16 +141,17 @@ public class bLampsExtra extends Module implements Listener {
             FileConfiguration config = this.getConfig();            
             config.set("Time_on", this.options.timeOn);
             config.set("Time_off", this.options.timeOff);
+            config.set("Updates_per_tick", this.options.updatesPerTick);
+            config.set("Check_interval", this.options.checkInterval);
 
             List<String> allLights = new ArrayList<String>();
-            for (World world : Bukkit.getWorlds()) {                
-                List<LightBlock> lightBlocks = blocks.get(world);
-                for (LightBlock light : lightBlocks) {
+            for (WorldLamps lamps : this.blocks.values()) {                
+                for (LightBlock light : lamps.blocks.values()) {
                     allLights.add(light.owner + "," 
-                        + light.block.getX() + "," 
-                        + light.block.getY() + "," 
-                        + light.block.getZ() + "," 
-                        + light.block.getWorld().getName() + ","
+                        + light.x + "," 
+                        + light.y + "," 
+                        + light.z + "," 
+                        + light.world + ","
                         + (light.force ? "1" : "0") 
                     );
                 }                
@@ -135,7 +163,70 @@ public class bLampsExtra extends Module implements Listener {
         }
         
         /**
+         * Add a lamp to the index, replacing any lamp at the same block.
          * 
+         * @param light the lamp to add
+         * @return the lamps in the lamp's world
+         */
+        private WorldLamps addLamp(LightBlock light) {
+            
+            WorldLamps lamps = this.blocks.get(light.world);
+            if (lamps == null) {
+                lamps = new WorldLamps();
+                this.blocks.put(light.world, lamps);
+            }
+            
+            LightBlock old = lamps.blocks.put(light.blockKey(), light);
+            if (old != null) {
+                lamps.chunks.get(old.chunkKey()).remove(old);
+            }
+            
+            List<LightBlock> chunk = lamps.chunks.get(light.chunkKey());
+            if (chunk == null) {
+                chunk = new ArrayList<LightBlock>(2);
+                lamps.chunks.put(light.chunkKey(), chunk);
+            }
+            chunk.add(light);
+            
+            return lamps;
+        }
+        
+        /**
+         * Gets the lamp at a block.
+         * 
+         * @param block the block
+         * @return the lamp, or null if the block is not a lamp
+         */
+        private LightBlock getLamp(Block block) {
+            
+            WorldLamps lamps = this.blocks.get(block.getWorld().getName());
+            if (lamps == null) {
+                return null;
+            }
+            
+            return lamps.blocks.get(LightBlock.blockKey(block.getX(), block.getY(), block.getZ()));
+        }
+        
+        /**
+         * Update the wanted state of a lamp, queueing it if it has changed.
+         * 
+         * @param light the lamp
+         * @param isNight whether it is night in the lamp's world
+         */
+        private void refreshLamp(LightBlock light, boolean isNight) {
+            
+            boolean lit = isNight || light.force;
+            if (lit != light.isLit) {
+                light.isLit = lit;
+                this.updater.queue(light);
+            }
+            
+        }
+        
+        /**
+         * Start the day/night check and the lamp update tasks. Lamps are only
+         * queued when day turns to night or night to day in their world, the
+         * update task then works through the queue a few lamps at a time.
          */
         private void performForceLights() {
             
@@ -147,15 +238,27 @@ public class bLampsExtra extends Module implements Listener {
 
                     for (World world : Bukkit.getWorlds()) {
                         
+                        WorldLamps lamps = blocks.get(world.getName());
+                        if (lamps == null) {
+                            continue;
+                        }
+                        
                         long time = world.getTime();
                         boolean isNight = time >= options.timeOn && time <= options.timeOff;
+                        
+                        if (lamps.isNight != null && lamps.isNight == isNight) {
+                            continue;
+                        }
+                        
+                        boolean first = lamps.isNight == null;
+                        lamps.isNight = isNight;
 
-                        List<LightBlock> lightBlocks = blocks.get(world);
-                        for (LightBlock light : lightBlocks) {
-                            light.isLit = false;
-                            if (isNight || light.force) {
-                                light.block.setType(Material.REDSTONE_LAMP_ON);
-                                light.isLit = true;
+                        for (LightBlock light : lamps.blocks.values()) {
+                            refreshLamp(light, isNight);
+                            
+                            // the first check makes sure every block matches its lamp
+                            if (first) {
+                                updater.queue(light);
                             }
                         }
                     }
@@ -163,7 +266,9 @@ public class bLampsExtra extends Module implements Listener {
                 }
                 
             }, 
-            20L, 60L);      
+            20L, this.options.checkInterval);
+            
+            this.updateId = this.scheduler.scheduleSyncRepeatingTask(m_plugin, this.updater, 20L, 1L);
             
         }
         
@@ -174,17 +279,35 @@ public class bLampsExtra extends Module implements Listener {
         @EventHandler
         public void onBlockRedstone(BlockRedstoneEvent event) {
         
-            final Block block = event.getBlock();
-            final World world = block.getWorld();
-            List<LightBlock> lightBlocks = this.blocks.get(world);
-            
-            for (LightBlock light : lightBlocks) {
-                if (block.equals(light.block)) {
-                    if (light.isLit) {
-                        event.setNewCurrent(100);
-                    }                    
-                    return;
-                }                
+            LightBlock light = getLamp(event.getBlock());
+            if (light != null && light.isLit) {
+                event.setNewCurrent(100);
+            }
+            
+        }
+        
+        /**
+         * Lamps in chunks that were unloaded when their state changed are
+         * brought up to date when the chunk loads.
+         * 
+         * @param event 
+         */
+        @EventHandler
+        public void onChunkLoad(ChunkLoadEvent event) {
+            
+            final Chunk chunk = event.getChunk();
+            WorldLamps lamps = this.blocks.get(chunk.getWorld().getName());
+            if (lamps == null) {
+                return;
+            }
+            
+            List<LightBlock> lights = lamps.chunks.get(LightBlock.chunkKey(chunk.getX(), chunk.getZ()));
+            if (lights == null) {
+                return;
+            }
+            
+            for (LightBlock light : lights) {
+                this.updater.queue(light);
             }
             
         }
@@ -204,10 +327,12 @@ public class bLampsExtra extends Module implements Listener {
             if (makeLamps || forceOnLamps) {
                 
                 final Block block = event.getBlock();
-                List<LightBlock> lightBlocks = this.blocks.get(block.getWorld());
-                LightBlock newBlock = new LightBlock(block, forceOnLamps, player.getName());
-                lightBlocks.add(newBlock);
-                this.blocks.put(block.getWorld(), lightBlocks);
+                LightBlock newBlock = new LightBlock(block.getWorld().getName(), block.getX(), block.getY(), block.getZ(), forceOnLamps, player.getName());
+                WorldLamps lamps = addLamp(newBlock);
+                
+                if (lamps.isNight != null) {
+                    refreshLamp(newBlock, lamps.isNight);
+                }
                 
                 this.saveBlockConfig();
                 event.setCancelled(true);
@@ -223,22 +348,16 @@ public class bLampsExtra extends Module implements Listener {
         private class Options {
             public int timeOn;
             public int timeOff;
+            public int updatesPerTick;
+            public int checkInterval;
         }
-	
+        
         /**
-         * 
+         * The lamps in a single world, indexed by block and by chunk.
          */
-        private class LightBlock {
-            public Block block;
-            public boolean force;
-            public String owner;
-            public boolean isLit;
-            
-            public LightBlock(Block block, boolean force, String owner) {
-                this.block = block;
-                this.force = force;
-                this.owner = owner;
-                this.isLit = false;
-            }
+        private class WorldLamps {
+            public Map<Long, LightBlock> blocks = new HashMap<Long, LightBlock>();
+            public Map<Long, List<LightBlock>> chunks = new HashMap<Long, List<LightBlock>>();
+            public Boolean isNight = null;
         }
 }
@@ -0,0 +1,313 @@
+/**
+ * bFundamentalsBuild 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bmonitor;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import uk.codingbadgers.bFundamentals.database.BatchWriter;
+import uk.codingbadgers.bFundamentals.database.DatabaseService;
+import uk.codingbadgers.bFundamentals.database.SqlConnection;
+import uk.codingbadgers.bFundamentals.database.SqlTask;
+
+/**
+ * A write behind audit log writer, listeners enqueue records which are
+ * written to the database in batches by a {@link BatchWriter} per table.
+ * <p>
+ * Records are written through a {@link DatabaseService} owned by the caller,
+ * normally the shared bFundamentals database, the writer never shuts the
+ * service down.
+ * <p>
+ * Each table is flushed whenever a full batch is waiting or the flush
+ * interval has elapsed. If a table's queue is full new records are dropped
+ * rather than blocking the calling thread, the number of dropped records is
+ * logged on the next flush.
+ */
+public class AuditWriter {
+
+	/**
+	 * The audit tables and the columns inserted into each of them.
+	 */
+	public enum Table {
+		COMMANDS("commands", "player", "command", "args"),
+		CHAT("chat", "player", "message"),
+		JOIN("join", "player", "ip"),
+		QUIT("quit", "player", "ip");
+
+		private final String name;
+		private final String[] columns;
+
+		private Table(String name, String... columns) {
+			this.name = name;
+			this.columns = columns;
+		}
+
+		/**
+		 * Gets the table name without the configured prefix.
+		 *
+		 * @return the table name
+		 */
+		public String getName() {
+			return name;
+		}
+
+		String insertStatement(String prefix) {
+			StringBuilder query = new StringBuilder("INSERT INTO ").append(prefix).append(name).append(" (date");
+			StringBuilder values = new StringBuilder(" VALUES (?");
+
+			for (String column : columns) {
+				query.append(", ").append(column);
+				values.append(", ?");
+			}
+
+			return query.append(')').append(values).append(')').toString();
+		}
+	}
+
+	/**
+	 * A single queued audit record.
+	 */
+	public static final class Record {
+
+		private final Table table;
+		private final long time;
+		private final String[] values;
+
+		/**
+		 * Instantiates a new record timestamped with the current time.
+		 *
+		 * @param table the table the record belongs in
+		 * @param values the column values, in the order declared by the table
+		 */
+		public Record(Table table, String... values) {
+			if (values.length != table.columns.length) {
+				throw new IllegalArgumentException("Table " + table.name + " expects " + table.columns.length + " values, got " + values.length);
+			}
+
+			this.table = table;
+			this.time = System.currentTimeMillis();
+			this.values = values;
+		}
+
+		Object[] toRow() {
+			Object[] row = new Object[values.length + 1];
+			row[0] = new Timestamp(time);
+			System.arraycopy(values, 0, row, 1, values.length);
+			return row;
+		}
+	}
+
+	private final DatabaseService service;
+	private final String prefix;
+	private final int capacity;
+	private final int batchSize;
+	private final long flushInterval;
+
+	/** records offered while the writer was not running */
+	private final AtomicLong dropped = new AtomicLong();
+
+	/** records and batches written by writers that have been shut down */
+	private final AtomicLong written = new AtomicLong();
+	private final AtomicLong batches = new AtomicLong();
+
+	private volatile Map<Table, BatchWriter> writers = null;
+
+	/**
+	 * Instantiates a new audit writer.
+	 *
+	 * @param service the database service to write through
+	 * @param prefix the table prefix
+	 * @param capacity the maximum number of records waiting to be written to each table
+	 * @param batchSize the maximum number of records written in a single batch
+	 * @param flushInterval the maximum time in milliseconds a record waits before being written
+	 */
+	public AuditWriter(DatabaseService service, String prefix, int capacity, int batchSize, long flushInterval) {
+		this.service = service;
+		this.prefix = prefix;
+		this.capacity = capacity;
+		this.batchSize = batchSize;
+		this.flushInterval = flushInterval;
+	}
+
+	/**
+	 * Creates any missing tables and starts the background writers.
+	 *
+	 * @throws SQLException if the tables could not be created
+	 */
+	public synchronized void start() throws SQLException {
+		if (writers != null) {
+			return;
+		}
+
+		service.execute(new SqlTask<Void>() {
+			@Override
+			public Void run(SqlConnection connection) throws SQLException {
+				createTables(connection);
+				return null;
+			}
+		});
+
+		Map<Table, BatchWriter> created = new EnumMap<Table, BatchWriter>(Table.class);
+		for (Table table : Table.values()) {
+			created.put(table, service.createBatchWriter(table.insertStatement(prefix), capacity, batchSize, flushInterval));
+		}
+		writers = created;
+	}
+
+	/**
+	 * Queues a record to be written, never blocks.
+	 *
+	 * @param record the record
+	 * @return true if the record was queued, false if it was dropped
+	 */
+	public boolean offer(Record record) {
+		Map<Table, BatchWriter> current = writers;
+
+		if (current == null) {
+			dropped.incrementAndGet();
+			return false;
+		}
+
+		return current.get(record.table).offer(record.toRow());
+	}
+
+	/**
+	 * Stops the writer, writing every queued record first. The database
+	 * service is left open.
+	 */
+	public synchronized void shutdown() {
+		Map<Table, BatchWriter> current = writers;
+
+		if (current == null) {
+			return;
+		}
+
+		writers = null;
+
+		for (BatchWriter writer : current.values()) {
+			writer.close();
+			written.addAndGet(writer.getWrittenCount());
+			batches.addAndGet(writer.getBatchCount());
+		}
+	}
+
+	/**
+	 * Gets the number of records waiting to be written.
+	 *
+	 * @return the queue depth
+	 */
+	public int getQueueSize() {
+		int size = 0;
+		Map<Table, BatchWriter> current = writers;
+
+		if (current != null) {
+			for (BatchWriter writer : current.values()) {
+				size += writer.getQueueSize();
+			}
+		}
+
+		return size;
+	}
+
+	/**
+	 * Gets the number of records dropped because the queue was full.
+	 *
+	 * @return the dropped record count
+	 */
+	public long getDroppedCount() {
+		long count = dropped.get();
+		Map<Table, BatchWriter> current = writers;
+
+		if (current != null) {
+			for (BatchWriter writer : current.values()) {
+				count += writer.getDroppedCount();
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Gets the number of records written to the database.
+	 *
+	 * @return the written record count
+	 */
+	public long getWrittenCount() {
+		long count = written.get();
+		Map<Table, BatchWriter> current = writers;
+
+		if (current != null) {
+			for (BatchWriter writer : current.values()) {
+				count += writer.getWrittenCount();
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Gets the number of batches written to the database.
+	 *
+	 * @return the written batch count
+	 */
+	public long getBatchCount() {
+		long count = batches.get();
+		Map<Table, BatchWriter> current = writers;
+
+		if (current != null) {
+			for (BatchWriter writer : current.values()) {
+				count += writer.getBatchCount();
+			}
+		}
+
+		return count;
+	}
+
+	private void createTables(SqlConnection connection) throws SQLException {
+		Statement statement = connection.getConnection().createStatement();
+
+		try {
+			statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + prefix + "commands (" +
+							"date TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+							"player VARCHAR(64)," +
+							"command VARCHAR(64)," +
+							"args VARCHAR(128));");
+
+			statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + prefix + "chat (" +
+							"date TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, " +
+							"player VARCHAR (64)," +
+							"message VARCHAR (128));");
+
+			statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + prefix + "join (" +
+							"date TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, " +
+							"player VARCHAR (64)," +
+							"ip VARCHAR (45));");
+
+			statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + prefix + "quit (" +
+							"date TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, " +
+							"player VARCHAR (64)," +
+							"ip VARCHAR (45));");
+		} finally {
+			statement.close();
+		}
+	}
+}
@@ -21,8 +21,6 @@ import java.util.logging.Level;
 
 import org.bukkit.configuration.file.FileConfiguration;
 
-import n3wton.me.BukkitDatabaseManager.BukkitDatabaseManager.DatabaseType;
-
 import uk.codingbadgers.bFundamentals.module.Module;
 
 // TODO: Auto-generated Javadoc
@@ -37,6 +35,9 @@ public class bMonitor extends Module {
 	/** The Constant VERSION. */
 	private static final String VERSION = "1.0";
 	
+	/** The connection settings used before the audit tables moved to the bFundamentals database. */
+	private static final String[] OLD_DATABASE_SETTINGS = {"driver", "host", "dbname", "user", "password", "port"};
+	
 	/** The m_player listener. */
 	private CommandListener m_playerListener = new CommandListener();
 	
@@ -44,33 +45,22 @@ public class bMonitor extends Module {
 	public static bMonitor INSTANCE;
 	
 	/**
-	 * The Class DatabaseInfo.
+	 * The Class DatabaseInfo, the audit tables live in the shared
+	 * bFundamentals database so only the table and queue settings are kept.
 	 */
 	public static class DatabaseInfo {
 		
-		/** The database driver. */
-		public DatabaseType m_driver = null;
-		
-		/** The the hostname. */
-		public String m_host = null;
-		
-		/** The teh database name. */
-		public String m_dbname = null;
-		
 		/** The table prefix. */
 		public String m_tablePrefix = null;
 		
-		/** The database username. */
-		public String m_user = null;
-		
-		/** The the database password. */
-		public String m_password = null;
+		/** The update time, the longest time in seconds a log entry waits before being written. */
+		public int m_update = 20;
 		
-		/** The database port. */
-		public int m_port = 3306;
+		/** The maximum number of log entries waiting to be written. */
+		public int m_queueSize = 4096;
 		
-		/** The update time. */
-		public int m_update = 20;
+		/** The maximum number of log entries written in a single batch. */
+		public int m_batchSize = 256;
 	}
 	
 	/**
@@ -111,10 +101,10 @@ public class bMonitor extends Module {
 		
 		INSTANCE = this;
 		
-		register(m_playerListener);
-		
 		setupConfig();
-		DatabaseManager.setupDatabase(m_plugin);
+		DatabaseManager.setupDatabase(this);
+		
+		register(m_playerListener);
 		
 		log(Level.INFO, "bMonitor enabled");
 	}
@@ -123,6 +113,7 @@ public class bMonitor extends Module {
 	 * @see uk.codingbadgers.bFundamentals.module.Module#onDisable()
 	 */
 	public void onDisable() {
+		DatabaseManager.shutdown();
 		log(Level.INFO, "bMonitor disabled");
 	}
 	
@@ -135,14 +126,14 @@ public class bMonitor extends Module {
 		
 		try {
 			// database config
-			config.addDefault("database.driver", "SQLite");
-			config.addDefault("database.host", "localhost");
-			config.addDefault("database.dbname", "bMonitor");
+			for (String setting : OLD_DATABASE_SETTINGS) {
+				config.set("database." + setting, null);
+			}
+			
 			config.addDefault("database.tablePrefix", "bMonitor_");
-			config.addDefault("database.user", "root");
-			config.addDefault("database.password", "");
-			config.addDefault("database.port", 3306);
 			config.addDefault("database.updateTime", 2);
+			config.addDefault("database.queueSize", 4096);
+			config.addDefault("database.batchSize", 256);
 			
 			config.addDefault("logging.player.join", true);
 			config.addDefault("logging.player.leave", true);
@@ -157,14 +148,10 @@ public class bMonitor extends Module {
 		}
 		
 		m_dbInfo = new DatabaseInfo();
-		m_dbInfo.m_driver = DatabaseType.valueOf(config.getString("database.driver", "SQLite"));
-		m_dbInfo.m_host = config.getString("database.host", "localhost");
-		m_dbInfo.m_dbname = config.getString("database.dbname", "bMonitor");
 		m_dbInfo.m_tablePrefix = config.getString("database.tablePrefix", "bMonitor_");
-		m_dbInfo.m_user = config.getString("database.user", "root");
-		m_dbInfo.m_password = config.getString("database.password", "");
-		m_dbInfo.m_port = config.getInt("database.port", 3306);
 		m_dbInfo.m_update = config.getInt("database.updateTime", 2);
+		m_dbInfo.m_queueSize = config.getInt("database.queueSize", 4096);
+		m_dbInfo.m_batchSize = config.getInt("database.batchSize", 256);
 		
 		m_logging = new Logging();
 		m_logging.m_playerJoin = config.getBoolean("logging.player.join", true);
@@ -0,0 +1,132 @@
+/**
+ * bFundamentalsBuild 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.thecodingbadgers.bmonitor;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.Executor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import uk.codingbadgers.bFundamentals.database.DatabaseService;
+import uk.codingbadgers.bFundamentals.database.RowMapper;
+import uk.codingbadgers.bmonitor.AuditWriter;
+import uk.codingbadgers.bmonitor.AuditWriter.Record;
+import uk.codingbadgers.bmonitor.AuditWriter.Table;
+import static org.junit.Assert.*;
+
+/**
+ * Writes audit records to a local SQLite file, and checks how many rows and
+ * batches reach the database.
+ */
+public class AuditWriterTest {
+
+	private static final String PREFIX = "bMonitor_";
+
+	private static final Executor DIRECT = new Executor() {
+		@Override
+		public void execute(Runnable command) {
+			command.run();
+		}
+	};
+
+	private static final RowMapper<Integer> COUNT = new RowMapper<Integer>() {
+		@Override
+		public Integer map(ResultSet result) throws SQLException {
+			return result.getInt(1);
+		}
+	};
+
+	private File file;
+	private DatabaseService service;
+
+	@BeforeClass
+	public static void loadDriver() throws ClassNotFoundException {
+		Class.forName("org.sqlite.JDBC");
+	}
+
+	@Before
+	public void setup() throws IOException {
+		file = File.createTempFile("bMonitor", ".db");
+		service = new DatabaseService("jdbc:sqlite:" + file.getAbsolutePath(), null, null, 1, DIRECT);
+	}
+
+	@After
+	public void cleanup() {
+		service.shutdown(1000);
+		file.delete();
+	}
+
+	@Test
+	public void recordsAreFlushedOnShutdown() throws SQLException {
+		AuditWriter writer = new AuditWriter(service, PREFIX, 1000, 256, 60000L);
+		writer.start();
+
+		for (int i = 0; i < 100; i++) {
+			assertTrue(writer.offer(new Record(Table.CHAT, "TheFish97", "message " + i)));
+		}
+		assertTrue(writer.offer(new Record(Table.COMMANDS, "n3wton", "/spawn", "")));
+		assertTrue(writer.offer(new Record(Table.JOIN, "n3wton", "127.0.0.1")));
+
+		writer.shutdown();
+
+		assertEquals(100, count(Table.CHAT));
+		assertEquals(1, count(Table.COMMANDS));
+		assertEquals(1, count(Table.JOIN));
+		assertEquals(0, count(Table.QUIT));
+
+		// nothing filled a batch, each table is written once on shutdown
+		assertEquals(102L, writer.getWrittenCount());
+		assertEquals(3L, writer.getBatchCount());
+
+		// the writer has stopped, later records are counted as dropped
+		assertFalse(writer.offer(new Record(Table.QUIT, "n3wton", "127.0.0.1")));
+		assertEquals(1L, writer.getDroppedCount());
+	}
+
+	@Test
+	public void recordsAreWrittenInBatches() throws SQLException {
+		final int records = 20000;
+		final int batchSize = 256;
+		AuditWriter writer = new AuditWriter(service, PREFIX, records, batchSize, 60000L);
+		writer.start();
+
+		for (int i = 0; i < records; i++) {
+			assertTrue(writer.offer(new Record(Table.CHAT, "TheFish97", "message " + i)));
+		}
+		writer.shutdown();
+
+		assertEquals(0L, writer.getDroppedCount());
+		assertEquals(records, count(Table.CHAT));
+		assertEquals((long) records, writer.getWrittenCount());
+
+		// full batches are written as they fill, only the end of a flush can be partial
+		long batches = writer.getBatchCount();
+		assertTrue("Only " + batches + " batches written", batches >= (records + batchSize - 1) / batchSize);
+		assertTrue(batches + " batches written for " + records + " records", batches < records);
+	}
+
+	private int count(Table table) throws SQLException {
+		return service.query("SELECT COUNT(*) FROM " + PREFIX + table.getName(), COUNT).get(0);
+	}
+}
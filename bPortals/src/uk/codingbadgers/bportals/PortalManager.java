@@ -25,38 +25,23 @@ import org.bukkit.entity.EntityType;
 import org.bukkit.entity.Player;
 
 import uk.codingbadgers.bportals.portal.Portal;
+import uk.codingbadgers.bportals.portal.PortalIndex;
 
 import com.google.common.collect.ImmutableSet;
 import com.sk89q.worldedit.regions.Region;
 
-import static uk.codingbadgers.bportals.utils.LocationUtils.*;
-
 public class PortalManager {
 
 	private Set<Portal> portals = null;
+	private PortalIndex index = null;
 
 	public PortalManager() {
 		portals = new HashSet<Portal>();
+		index = new PortalIndex();
 	}
 
 	public Portal getPortalFromLocation(Location loc) {
-		for (Portal portal : portals) {
-			
-			// Check everything
-			if (portal.getPortalRegion().contains(convertLocationToVector(loc))) {
-				return portal;
-			}
-
-			if (portal.getPortalRegion().contains(convertLocationToFloorVector(loc))) {
-				return portal;
-			}
-
-			if (portal.getPortalRegion().contains(convertLocationToCeilVector(loc))) {
-				return portal;
-			}
-		}
-
-		return null;
+		return index.get(loc);
 	}
 
 	public Portal getPortalById(String string) {
@@ -78,6 +63,17 @@ public class PortalManager {
 
 	public void registerPortal(Portal portal) {
 		portals.add(portal);
+		index.add(portal);
+	}
+
+	public void updatePortalRegion(Portal portal, Region selection) {
+		portal.setRegion(selection);
+		index.add(portal);
+	}
+
+	public void removePortal(Portal portal) {
+		portals.remove(portal);
+		index.remove(portal);
 	}
 
 	public boolean isAllowedEntityType(EntityType entityType) {
@@ -95,6 +91,8 @@ public class PortalManager {
 	void destroy() {
 		portals.clear();
 		portals = null;
+		index.clear();
+		index = null;
 	}
 
 	public Set<Portal> getPortals() {
@@ -41,7 +41,7 @@ import static uk.codingbadgers.bportals.utils.LocationUtils.*;
 public class PortalCommand extends ModuleCommand {
 
 	public PortalCommand() {
-		super("portal", "/portal <create/link/destination>");
+		super("portal", "/portal <create/link/destination/redefine/remove>");
 	}
 
 	@Override
@@ -78,6 +78,16 @@ public class PortalCommand extends ModuleCommand {
 			setDestination(player, args);
 			return true;
 		}
+
+		if (args[0].equalsIgnoreCase("redefine")) {
+			redefinePortal(player, args);
+			return true;
+		}
+
+		if (args[0].equalsIgnoreCase("remove")) {
+			removePortal(player, args);
+			return true;
+		}
 		
 		return false;
 	}
@@ -88,6 +98,8 @@ public class PortalCommand extends ModuleCommand {
 		sender.sendMessage(ChatColor.DARK_PURPLE + "link" + ChatColor.RESET + " - link a portal with another portal");
 		sender.sendMessage(ChatColor.DARK_PURPLE + "list" + ChatColor.RESET + " - list all created portals");
 		sender.sendMessage(ChatColor.DARK_PURPLE + "destination" + ChatColor.RESET + " - set the destination for a portal");
+		sender.sendMessage(ChatColor.DARK_PURPLE + "redefine" + ChatColor.RESET + " - set a portal's region to your current selection");
+		sender.sendMessage(ChatColor.DARK_PURPLE + "remove" + ChatColor.RESET + " - remove a portal");
 	}
 
 	private void createPortal(Player sender, String[] args) {
@@ -157,6 +169,49 @@ public class PortalCommand extends ModuleCommand {
 	private void setDestination(Player sender, String[] args) {
 		
 	}
+
+	private void redefinePortal(Player sender, String[] args) {
+		if (args.length < 2) {
+			sender.sendMessage(ChatColor.DARK_PURPLE + "/portal redefine <portal id>");
+			return;
+		}
+
+		Portal portal = bPortals.getPortalManager().getPortalById(args[1]);
+
+		if (portal == null) {
+			sender.sendMessage(ChatColor.DARK_PURPLE + "[bPortals] " + ChatColor.RESET + args[1] + " does not exist.");
+			return;
+		}
+
+		try {
+			LocalPlayer player = bPortals.getWorldEdit().wrapPlayer(sender);
+			LocalSession localSession = bPortals.getWorldEdit().getWorldEdit().getSession(player);
+
+			Region sel = localSession.getSelection(player.getWorld());
+			bPortals.getPortalManager().updatePortalRegion(portal, sel);
+
+			sender.sendMessage(ChatColor.DARK_PURPLE + "[bPortals] " + ChatColor.RESET + "Portal " + portal.getId() + " redefined");
+		} catch (IncompleteRegionException e) {
+			sender.sendMessage(ChatColor.DARK_PURPLE + "[bPortals] " + ChatColor.RESET + e.getMessage());
+		}
+	}
+
+	private void removePortal(Player sender, String[] args) {
+		if (args.length < 2) {
+			sender.sendMessage(ChatColor.DARK_PURPLE + "/portal remove <portal id>");
+			return;
+		}
+
+		Portal portal = bPortals.getPortalManager().getPortalById(args[1]);
+
+		if (portal == null) {
+			sender.sendMessage(ChatColor.DARK_PURPLE + "[bPortals] " + ChatColor.RESET + args[1] + " does not exist.");
+			return;
+		}
+
+		bPortals.getPortalManager().removePortal(portal);
+		sender.sendMessage(ChatColor.DARK_PURPLE + "[bPortals] " + ChatColor.RESET + "Portal " + portal.getId() + " removed");
+	}
 	
 
 }
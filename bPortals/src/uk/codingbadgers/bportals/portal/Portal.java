@@ -60,7 +60,8 @@ public class Portal {
 	}
 
 	/**
-	 * Sets the region.
+	 * Sets the region, registered portals should be updated through
+	 * PortalManager#updatePortalRegion so the portal index stays in sync.
 	 *
 	 * @param selection the new region
 	 */
@@ -0,0 +1,313 @@
+/**
+ * bPortals 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bportals.portal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import com.sk89q.worldedit.LocalWorld;
+import com.sk89q.worldedit.Vector;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.regions.Region;
+
+/**
+ * A per world spatial index of portals, portals are bucketed by every chunk
+ * their region overlaps so a block lookup only has to test the portals in a
+ * single chunk.
+ * <p>
+ * The index is rebuilt on every modification and published as an immutable
+ * snapshot, lookups never lock and never allocate for cuboid regions.
+ */
+public class PortalIndex {
+
+	private final Map<Portal, Entry> entries = new LinkedHashMap<Portal, Entry>();
+	private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+	/**
+	 * Adds a portal to the index, or re-indexes it if its region has changed.
+	 *
+	 * @param portal the portal
+	 */
+	public synchronized void add(Portal portal) {
+		entries.remove(portal);
+
+		if (portal.getPortalRegion() != null) {
+			entries.put(portal, new Entry(portal));
+		}
+
+		rebuild();
+	}
+
+	/**
+	 * Removes a portal from the index.
+	 *
+	 * @param portal the portal
+	 */
+	public synchronized void remove(Portal portal) {
+		if (entries.remove(portal) != null) {
+			rebuild();
+		}
+	}
+
+	/**
+	 * Removes every portal from the index.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		snapshot = Snapshot.EMPTY;
+	}
+
+	/**
+	 * Gets the portal which contains a location, a location is contained if
+	 * either the block it is in or the block its coordinates round up to is
+	 * inside a portals region.
+	 *
+	 * @param loc the location
+	 * @return the portal containing the location, or null if none do
+	 */
+	public Portal get(Location loc) {
+		Snapshot current = snapshot;
+
+		if (current.isEmpty()) {
+			return null;
+		}
+
+		World world = loc.getWorld();
+		ChunkTable table = world == null ? null : current.worlds.get(world.getName());
+		double x = loc.getX(), y = loc.getY(), z = loc.getZ();
+		int fx = floor(x), fy = floor(y), fz = floor(z);
+
+		Portal portal = lookup(table, current.global, fx, fy, fz);
+
+		if (portal != null) {
+			return portal;
+		}
+
+		int cx = ceil(x), cy = ceil(y), cz = ceil(z);
+
+		if (cx == fx && cy == fy && cz == fz) {
+			return null;
+		}
+
+		return lookup(table, current.global, cx, cy, cz);
+	}
+
+	private static Portal lookup(ChunkTable table, ChunkTable global, int x, int y, int z) {
+		long key = chunkKey(x >> 4, z >> 4);
+		Portal portal = null;
+
+		if (table != null) {
+			portal = find(table.get(key), x, y, z);
+		}
+
+		if (portal == null && global != null) {
+			portal = find(global.get(key), x, y, z);
+		}
+
+		return portal;
+	}
+
+	private static Portal find(Entry[] bucket, int x, int y, int z) {
+		if (bucket == null) {
+			return null;
+		}
+
+		for (Entry entry : bucket) {
+			if (entry.contains(x, y, z)) {
+				return entry.portal;
+			}
+		}
+
+		return null;
+	}
+
+	private void rebuild() {
+		Map<String, Map<Long, List<Entry>>> worlds = new HashMap<String, Map<Long, List<Entry>>>();
+
+		for (Entry entry : entries.values()) {
+			Map<Long, List<Entry>> chunks = worlds.get(entry.world);
+
+			if (chunks == null) {
+				chunks = new HashMap<Long, List<Entry>>();
+				worlds.put(entry.world, chunks);
+			}
+
+			for (int cx = entry.minX >> 4; cx <= entry.maxX >> 4; cx++) {
+				for (int cz = entry.minZ >> 4; cz <= entry.maxZ >> 4; cz++) {
+					Long key = chunkKey(cx, cz);
+					List<Entry> bucket = chunks.get(key);
+
+					if (bucket == null) {
+						bucket = new ArrayList<Entry>(1);
+						chunks.put(key, bucket);
+					}
+
+					bucket.add(entry);
+				}
+			}
+		}
+
+		Map<String, ChunkTable> tables = new HashMap<String, ChunkTable>();
+		ChunkTable global = null;
+
+		for (Map.Entry<String, Map<Long, List<Entry>>> world : worlds.entrySet()) {
+			ChunkTable table = new ChunkTable(world.getValue());
+
+			if (world.getKey() == null) {
+				global = table;
+			} else {
+				tables.put(world.getKey(), table);
+			}
+		}
+
+		snapshot = new Snapshot(tables, global);
+	}
+
+	private static long chunkKey(int x, int z) {
+		return ((long) x << 32) | (z & 0xFFFFFFFFL);
+	}
+
+	private static int floor(double value) {
+		int i = (int) value;
+		return value < i ? i - 1 : i;
+	}
+
+	private static int ceil(double value) {
+		int i = (int) value;
+		return value > i ? i + 1 : i;
+	}
+
+	private static final class Snapshot {
+
+		static final Snapshot EMPTY = new Snapshot(Collections.<String, ChunkTable>emptyMap(), null);
+
+		/** per world chunk tables, keyed by world name */
+		final Map<String, ChunkTable> worlds;
+		/** portals whose region has no world attached, matched in every world */
+		final ChunkTable global;
+
+		Snapshot(Map<String, ChunkTable> worlds, ChunkTable global) {
+			this.worlds = worlds;
+			this.global = global;
+		}
+
+		boolean isEmpty() {
+			return worlds.isEmpty() && global == null;
+		}
+	}
+
+	/**
+	 * A read only open addressed table of chunk key to portal bucket, used
+	 * instead of a {@link HashMap} so lookups do not have to box the key.
+	 */
+	private static final class ChunkTable {
+
+		private final long[] keys;
+		private final Entry[][] buckets;
+		private final int mask;
+
+		ChunkTable(Map<Long, List<Entry>> chunks) {
+			int capacity = 2;
+
+			while (capacity < chunks.size() * 2) {
+				capacity <<= 1;
+			}
+
+			keys = new long[capacity];
+			buckets = new Entry[capacity][];
+			mask = capacity - 1;
+
+			for (Map.Entry<Long, List<Entry>> chunk : chunks.entrySet()) {
+				long key = chunk.getKey();
+				int index = hash(key) & mask;
+
+				while (buckets[index] != null) {
+					index = (index + 1) & mask;
+				}
+
+				keys[index] = key;
+				buckets[index] = chunk.getValue().toArray(new Entry[chunk.getValue().size()]);
+			}
+		}
+
+		Entry[] get(long key) {
+			int index = hash(key) & mask;
+
+			while (buckets[index] != null) {
+				if (keys[index] == key) {
+					return buckets[index];
+				}
+
+				index = (index + 1) & mask;
+			}
+
+			return null;
+		}
+
+		private static int hash(long key) {
+			key ^= key >>> 33;
+			key *= 0xFF51AFD7ED558CCDL;
+			key ^= key >>> 33;
+			return (int) key;
+		}
+	}
+
+	private static final class Entry {
+
+		final Portal portal;
+		final Region region;
+		final String world;
+		final boolean cuboid;
+		final int minX, minY, minZ;
+		final int maxX, maxY, maxZ;
+
+		Entry(Portal portal) {
+			this.portal = portal;
+			this.region = portal.getPortalRegion();
+
+			LocalWorld localWorld = region.getWorld();
+			this.world = localWorld == null ? null : localWorld.getName();
+			this.cuboid = region instanceof CuboidRegion;
+
+			Vector min = region.getMinimumPoint();
+			Vector max = region.getMaximumPoint();
+			this.minX = min.getBlockX();
+			this.minY = min.getBlockY();
+			this.minZ = min.getBlockZ();
+			this.maxX = max.getBlockX();
+			this.maxY = max.getBlockY();
+			this.maxZ = max.getBlockZ();
+		}
+
+		boolean contains(int x, int y, int z) {
+			if (x < minX || x > maxX || y < minY || y > maxY || z < minZ || z > maxZ) {
+				return false;
+			}
+
+			// the bounding box is exact for cuboids, anything else has to ask the region
+			return cuboid || region.contains(new Vector(x, y, z));
+		}
+	}
+}
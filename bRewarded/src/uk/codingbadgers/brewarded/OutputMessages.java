@@ -7,6 +7,9 @@
 package uk.codingbadgers.brewarded;
 
 /**
+ * The language keys of the messages sent when a player votes, the messages
+ * are looked up when they are sent so changes to the language file are picked
+ * up without a reload.
  *
  * @author Sam
  */
@@ -15,36 +18,36 @@ public class OutputMessages {
 	/**
 	 * The message to show to all online players when a player votes
 	 */
-	public String messageAnnounceOther = null;
+	public String messageAnnounceOther = "ANNOUNCE-VOTE-OTHERS";
 	
 	/**
 	 * The message to show to the player who voted if they are online
 	 */
-	public String messageAnnounce = null;
+	public String messageAnnounce = "ANNOUNCE-VOTE-TO-PLAYER";
 	
 	/**
-	 * 
+	 * The message to show to all online players when a player is given money for voting
 	 */
-	public String messageAnnounceOtherRewardAmount = null;
+	public String messageAnnounceOtherRewardAmount = "ANNOUNCE-VOTE-REWARD-AMOUNT-OTHERS";
 	
 	/**
-	 * 
+	 * The message to show to the player who voted when they are given money
 	 */
-	public String messageAnnounceRewardAmount = null;
+	public String messageAnnounceRewardAmount = "ANNOUNCE-VOTE-REWARD-AMOUNT";
 	
 	/**
-	 * 
+	 * The message to show to all online players when a player is given a bonus for voting
 	 */
-	public String messageAnnounceOtherRewardBonus = null;
+	public String messageAnnounceOtherRewardBonus = "ANNOUNCE-VOTE-REWARD-BONUS-OTHERS";
 	
 	/**
-	 * 
+	 * The message to show to the player who voted when they are given a bonus
 	 */
-	public String messageAnnounceRewardBonus = null;
+	public String messageAnnounceRewardBonus = "ANNOUNCE-VOTE-REWARD-BONUS";
 	
 	/**
-	 * 
+	 * The message to show to the player who voted when they are given a random item
 	 */
-	public String messageAnnounceRandomReward = null;
+	public String messageAnnounceRandomReward = "ANNOUNCE-REWARD-REWARD";
 	
 }
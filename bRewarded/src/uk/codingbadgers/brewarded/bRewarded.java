@@ -130,14 +130,6 @@ public class bRewarded extends Module {
 		
 		register(new RewardedVotifierListener(this));
 		
-		this.message.messageAnnounceOther = this.getLanguageValue("ANNOUNCE-VOTE-OTHERS");
-		this.message.messageAnnounce = this.getLanguageValue("ANNOUNCE-VOTE-TO-PLAYER");
-		this.message.messageAnnounceOtherRewardAmount = this.getLanguageValue("ANNOUNCE-VOTE-REWARD-AMOUNT-OTHERS");
-		this.message.messageAnnounceRewardAmount = this.getLanguageValue("ANNOUNCE-VOTE-REWARD-AMOUNT");
-		this.message.messageAnnounceOtherRewardBonus = this.getLanguageValue("ANNOUNCE-VOTE-REWARD-BONUS-OTHERS");
-		this.message.messageAnnounceRewardBonus = this.getLanguageValue("ANNOUNCE-VOTE-REWARD-BONUS");
-		this.message.messageAnnounceRandomReward = this.getLanguageValue("ANNOUNCE-REWARD-REWARD");
-		
 		log(Level.INFO,  getName() + " version " + getVersion() + " enabled.");
 	}
 	
@@ -515,8 +507,6 @@ public class bRewarded extends Module {
 	 * @return 
 	 */
 	private String formatRandomReward(ItemStack item, Vote vote) {
-		String message = formatMessage(this.message.messageAnnounceRandomReward, vote, 0.0);
-		
 		String itemName = item.getAmount() + "x ";
 		if (item.getItemMeta().hasDisplayName()) {
 			itemName += item.getItemMeta().getDisplayName();
@@ -525,25 +515,27 @@ public class bRewarded extends Module {
 			itemName += item.getType().name();
 		}
 		
-		message = message.replaceAll("<<item>>", itemName);
-		return message;
+		return this.getLanguageValue(this.message.messageAnnounceRandomReward,
+				"player", vote.getUsername(),
+				"servername", Bukkit.getServerName(),
+				"service", vote.getServiceName(),
+				"amount", formatAmount(0.0),
+				"item", itemName);
 	}
 	
 	/**
 	 * 
-	 * @param message
+	 * @param key the language key of the message
 	 * @param vote
 	 * @param amount
 	 * @return 
 	 */
-	private String formatMessage(String message, Vote vote, Double amount) {
-		
-		message = message.replaceAll("<<player>>", vote.getUsername());
-		message = message.replaceAll("<<servername>>", Bukkit.getServerName());
-		message = message.replaceAll("<<service>>", vote.getServiceName());
-		message = message.replaceAll("<<amount>>", formatAmount(amount));
-		
-		return message;
+	private String formatMessage(String key, Vote vote, Double amount) {
+		return this.getLanguageValue(key,
+				"player", vote.getUsername(),
+				"servername", Bukkit.getServerName(),
+				"service", vote.getServiceName(),
+				"amount", formatAmount(amount));
 	}
 	
 	/**
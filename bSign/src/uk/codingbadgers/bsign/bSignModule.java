@@ -19,7 +19,6 @@ package uk.codingbadgers.bsign;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.ArrayList;
 import java.util.logging.Level;
 
 import me.cybermaxke.inputgui.api.InputGuiAPI;
@@ -38,6 +37,7 @@ import uk.codingbadgers.bsign.listener.WorldListener;
 import uk.codingbadgers.bsign.sign.CommandSign;
 import uk.codingbadgers.bsign.sign.InfoSign;
 import uk.codingbadgers.bsign.sign.Sign;
+import uk.codingbadgers.bsign.sign.SignRegistry;
 import uk.codingbadgers.bsign.sign.WebSign;
 import uk.thecodingbadgers.bDatabaseManager.Database.BukkitDatabase;
 
@@ -62,8 +62,8 @@ public class bSignModule extends Module {
 	/** Access to the module. */
 	public static bSignModule MODULE = null;
 	
-	/** A list of all the bSigns */
-	public static ArrayList<Sign> SIGNS = new ArrayList<Sign>();
+	/** The registry of all the bSigns */
+	public static final SignRegistry SIGNS = new SignRegistry();
 	
 	/** Access to the bFundamental database. */
 	public static BukkitDatabase DATABASE = null;
@@ -155,6 +155,11 @@ public class bSignModule extends Module {
 					continue;
 				}
 				loadedSign.init(signContext);
+				
+				// signs in worlds which aren't loaded yet are picked up when the world loads
+				if (location.getWorld() == null)
+					continue;
+				
 				bSignModule.SIGNS.add(loadedSign);
 				noofSignsInWorld++;
 			}
@@ -186,7 +191,7 @@ public class bSignModule extends Module {
 		
 		World locWorld = PLUGIN.getServer().getWorld(locationString);
 		
-		if (locWorld != null && worldName != null && locWorld.getName() != worldName)
+		if (locWorld != null && worldName != null && !locWorld.getName().equals(worldName))
 			return null;
 
 		return new Location(locWorld, locX, locY, locZ);
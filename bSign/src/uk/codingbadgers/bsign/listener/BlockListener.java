@@ -87,7 +87,8 @@ public class BlockListener implements Listener {
 			iplayer.openGui(new SignInputGui(newSign, "Enter the info message for this sign"));
 		}
 		
-		bSignModule.SIGNS.add(newSign);
+		if (newSign != null)
+			bSignModule.SIGNS.add(newSign);
 		
 	}
 	
@@ -99,7 +100,7 @@ public class BlockListener implements Listener {
 	@EventHandler(priority = EventPriority.LOW)
 	public void onBlockBreak(BlockBreakEvent event) {
 
-		if (bSignModule.SIGNS == null)
+		if (bSignModule.SIGNS.size() == 0)
 			return;
 		
 		Block block = event.getBlock();
@@ -109,17 +110,7 @@ public class BlockListener implements Listener {
 			return;
 		
 		// find the sign at the location
-		Sign contextSign = null;
-		for (Sign sign : bSignModule.SIGNS) {
-			
-			if (sign == null)
-				continue;
-			
-			if (sign.getLocation().equals(block.getLocation())) {
-				contextSign = sign;
-				break;
-			}
-		}
+		Sign contextSign = bSignModule.SIGNS.get(block);
 		
 		// not a bsign so carry on
 		if (contextSign == null)
@@ -54,18 +54,7 @@ public class PlayerListener implements Listener {
 	private void handleSignInteract(final Block block, final Player player)
 	{		
 		// try to find the bsign from all our stored signs
-		Sign contextSign = null;
-		for (Sign sign : bSignModule.SIGNS) {
-					
-			if (sign == null)
-				continue;
-					
-			if (sign.getLocation().equals(block.getLocation())) {
-				contextSign = sign;
-				break;
-			}
-					
-		}
+		Sign contextSign = bSignModule.SIGNS.get(block);
 				
 		// its a sign, but not a bsign
 		if (contextSign == null)
@@ -81,18 +70,7 @@ public class PlayerListener implements Listener {
 	private void handleSignInteract(final Block block, final Player player, final int delay)
 	{		
 		// try to find the bsign from all our stored signs
-		Sign contextSign = null;
-		for (Sign sign : bSignModule.SIGNS) {
-			
-			if (sign == null)
-				continue;
-			
-			if (sign.getLocation().equals(block.getLocation())) {
-				contextSign = sign;
-				break;
-			}
-			
-		}
+		Sign contextSign = bSignModule.SIGNS.get(block);
 		
 		// its a sign, but not a bsign
 		if (contextSign == null)
@@ -439,7 +417,7 @@ public class PlayerListener implements Listener {
 		if (event.isCancelled())
 			return;
 		
-		if (bSignModule.SIGNS == null)
+		if (bSignModule.SIGNS.size() == 0)
 			return;
 				
 		// If we right clicked, then handle the sign interaction
@@ -0,0 +1,270 @@
+/**
+ * bFundamentalsBuild 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.codingbadgers.bsign.sign;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+/**
+ * The registry of every loaded bSign, signs are indexed by world and packed
+ * block coordinates so finding the sign at a block is a single hash lookup,
+ * and grouped by chunk so the signs in a chunk can be listed without
+ * scanning every sign.
+ * <p>
+ * The registry is not thread safe and should only be used from the main
+ * server thread.
+ */
+public class SignRegistry {
+	
+	/** The signs in each world, keyed by world name. */
+	private final Map<String, WorldSigns> m_worlds = new HashMap<String, WorldSigns>();
+	
+	/** The total number of registered signs. */
+	private int m_size = 0;
+	
+	/**
+	 * Register a sign, replacing any sign already registered at the same
+	 * block. Signs in worlds which are not loaded are ignored, they will be
+	 * loaded again when their world loads.
+	 *
+	 * @param sign the sign to register
+	 * @return the sign previously registered at the block, or null
+	 */
+	public Sign add(Sign sign) {
+		if (sign == null || sign.getLocation() == null || sign.getLocation().getWorld() == null) {
+			return null;
+		}
+		
+		Location location = sign.getLocation();
+		String world = location.getWorld().getName();
+		WorldSigns signs = m_worlds.get(world);
+		
+		if (signs == null) {
+			signs = new WorldSigns();
+			m_worlds.put(world, signs);
+		}
+		
+		Sign previous = signs.blocks.put(blockKey(location.getBlockX(), location.getBlockY(), location.getBlockZ()), sign);
+		
+		if (previous != null) {
+			signs.removeFromChunk(previous);
+		} else {
+			m_size++;
+		}
+		
+		Long chunk = chunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4);
+		List<Sign> chunkSigns = signs.chunks.get(chunk);
+		
+		if (chunkSigns == null) {
+			chunkSigns = new ArrayList<Sign>(2);
+			signs.chunks.put(chunk, chunkSigns);
+		}
+		
+		chunkSigns.add(sign);
+		return previous;
+	}
+	
+	/**
+	 * Unregister a sign, nothing is removed if a different sign has since
+	 * been registered at the same block.
+	 *
+	 * @param sign the sign to unregister
+	 * @return true if the sign was registered
+	 */
+	public boolean remove(Sign sign) {
+		if (sign == null || sign.getLocation() == null || sign.getLocation().getWorld() == null) {
+			return false;
+		}
+		
+		Location location = sign.getLocation();
+		WorldSigns signs = m_worlds.get(location.getWorld().getName());
+		
+		if (signs == null) {
+			return false;
+		}
+		
+		Long key = blockKey(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+		
+		if (signs.blocks.get(key) != sign) {
+			return false;
+		}
+		
+		signs.blocks.remove(key);
+		signs.removeFromChunk(sign);
+		m_size--;
+		
+		if (signs.blocks.isEmpty()) {
+			m_worlds.remove(location.getWorld().getName());
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Get the sign registered at a block.
+	 *
+	 * @param block the block
+	 * @return the sign at the block, or null if there is not one
+	 */
+	public Sign get(Block block) {
+		return get(block.getWorld(), block.getX(), block.getY(), block.getZ());
+	}
+	
+	/**
+	 * Get the sign registered at the block containing a location.
+	 *
+	 * @param location the location
+	 * @return the sign at the location, or null if there is not one
+	 */
+	public Sign get(Location location) {
+		return get(location.getWorld(), location.getBlockX(), location.getBlockY(), location.getBlockZ());
+	}
+	
+	/**
+	 * Get the sign registered at a block.
+	 *
+	 * @param world the world the block is in
+	 * @param x the block x coordinate
+	 * @param y the block y coordinate
+	 * @param z the block z coordinate
+	 * @return the sign at the block, or null if there is not one
+	 */
+	public Sign get(World world, int x, int y, int z) {
+		if (m_size == 0 || world == null) {
+			return null;
+		}
+		
+		WorldSigns signs = m_worlds.get(world.getName());
+		
+		if (signs == null) {
+			return null;
+		}
+		
+		return signs.blocks.get(blockKey(x, y, z));
+	}
+	
+	/**
+	 * Get the signs registered in a chunk.
+	 *
+	 * @param chunk the chunk
+	 * @return an unmodifiable view of the signs in the chunk
+	 */
+	public Collection<Sign> getSigns(Chunk chunk) {
+		return getSigns(chunk.getWorld(), chunk.getX(), chunk.getZ());
+	}
+	
+	/**
+	 * Get the signs registered in a chunk.
+	 *
+	 * @param world the world the chunk is in
+	 * @param chunkX the chunk x coordinate
+	 * @param chunkZ the chunk z coordinate
+	 * @return an unmodifiable view of the signs in the chunk
+	 */
+	public Collection<Sign> getSigns(World world, int chunkX, int chunkZ) {
+		WorldSigns signs = world == null ? null : m_worlds.get(world.getName());
+		List<Sign> chunkSigns = signs == null ? null : signs.chunks.get(chunkKey(chunkX, chunkZ));
+		
+		if (chunkSigns == null) {
+			return Collections.emptyList();
+		}
+		
+		return Collections.unmodifiableList(chunkSigns);
+	}
+	
+	/**
+	 * Get every registered sign.
+	 *
+	 * @return a copy of every registered sign
+	 */
+	public List<Sign> getSigns() {
+		List<Sign> all = new ArrayList<Sign>(m_size);
+		
+		for (WorldSigns signs : m_worlds.values()) {
+			all.addAll(signs.blocks.values());
+		}
+		
+		return all;
+	}
+	
+	/**
+	 * Get the number of registered signs.
+	 *
+	 * @return the number of signs
+	 */
+	public int size() {
+		return m_size;
+	}
+	
+	/**
+	 * Unregister every sign.
+	 */
+	public void clear() {
+		m_worlds.clear();
+		m_size = 0;
+	}
+	
+	/**
+	 * Pack block coordinates into a single key, 26 bits for x and z and 12
+	 * bits for y covers the whole of a minecraft world.
+	 */
+	private static long blockKey(int x, int y, int z) {
+		return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+	}
+	
+	private static long chunkKey(int x, int z) {
+		return ((long) x << 32) | (z & 0xFFFFFFFFL);
+	}
+	
+	/**
+	 * The signs in a single world.
+	 */
+	private static final class WorldSigns {
+		
+		/** Signs keyed by packed block coordinates. */
+		final Map<Long, Sign> blocks = new HashMap<Long, Sign>();
+		
+		/** Signs grouped by packed chunk coordinates. */
+		final Map<Long, List<Sign>> chunks = new HashMap<Long, List<Sign>>();
+		
+		void removeFromChunk(Sign sign) {
+			Location location = sign.getLocation();
+			Long key = chunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4);
+			List<Sign> chunkSigns = chunks.get(key);
+			
+			if (chunkSigns == null) {
+				return;
+			}
+			
+			chunkSigns.remove(sign);
+			
+			if (chunkSigns.isEmpty()) {
+				chunks.remove(key);
+			}
+		}
+	}
+}
@@ -0,0 +1,212 @@
+/**
+ * bFundamentalsBuild 1.2-SNAPSHOT
+ * Copyright (C) 2013  CodingBadgers <plugins@mcbadgercraft.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package uk.thecodingbadgers.bsign;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.entity.Player;
+import org.bukkit.event.block.Action;
+import org.bukkit.event.player.PlayerInteractEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.codingbadgers.bsign.bSignModule;
+import uk.codingbadgers.bsign.listener.PlayerListener;
+import uk.codingbadgers.bsign.sign.Sign;
+import static org.junit.Assert.*;
+
+/**
+ * Clicks through the interact handler with 5,000 registered signs, on a
+ * bSign, on a sign which isn't a bSign and on a plain block. The lookup is
+ * timed against a scan of every sign by SignInteractBenchmark in bBenchmarks.
+ */
+public class SignInteractTest {
+
+	private static final int SIGNS = 5000;
+
+	private World world;
+	private List<Sign> scanned;
+	private int interactions;
+
+	@Before
+	public void setup() {
+		world = proxy(World.class, new Stub("world"));
+		scanned = new ArrayList<Sign>(SIGNS);
+
+		for (int i = 0; i < SIGNS; i++) {
+			Sign sign = new TestSign(new Location(world, (i % 100) * 3, 64, (i / 100) * 3));
+			bSignModule.SIGNS.add(sign);
+			scanned.add(sign);
+		}
+	}
+
+	@After
+	public void cleanup() {
+		bSignModule.SIGNS.clear();
+	}
+
+	@Test
+	public void registryFindsSigns() {
+		assertEquals(SIGNS, bSignModule.SIGNS.size());
+		assertSame(scanned.get(150), bSignModule.SIGNS.get(block(Material.WALL_SIGN, 150, 64, 3)));
+		assertNull(bSignModule.SIGNS.get(block(Material.WALL_SIGN, 151, 64, 3)));
+		assertNull(bSignModule.SIGNS.get(block(Material.WALL_SIGN, 150, 65, 3)));
+
+		// signs 0 - 5 are in chunk 0, 0
+		assertEquals(6 * 6, bSignModule.SIGNS.getSigns(world, 0, 0).size());
+	}
+
+	@Test
+	public void interactWith5000Signs() {
+		PlayerListener listener = new PlayerListener();
+		Player player = proxy(Player.class, new Stub("TheFish97"));
+
+		PlayerInteractEvent[] onSign = new PlayerInteractEvent[SIGNS];
+		PlayerInteractEvent[] onOtherSign = new PlayerInteractEvent[SIGNS];
+		PlayerInteractEvent[] onStone = new PlayerInteractEvent[SIGNS];
+
+		for (int i = 0; i < SIGNS; i++) {
+			int x = (i % 100) * 3, z = (i / 100) * 3;
+			onSign[i] = click(player, block(Material.WALL_SIGN, x, 64, z));
+			onOtherSign[i] = click(player, block(Material.WALL_SIGN, x + 1, 64, z));
+			onStone[i] = click(player, block(Material.STONE, x, 63, z));
+		}
+
+		for (int i = 0; i < SIGNS; i++) {
+			listener.onPlayerInteract(onSign[i]);
+		}
+		assertEquals(SIGNS, interactions);
+
+		// only clicks on a registered sign reach it
+		for (int i = 0; i < SIGNS; i++) {
+			listener.onPlayerInteract(onOtherSign[i]);
+			listener.onPlayerInteract(onStone[i]);
+		}
+		assertEquals(SIGNS, interactions);
+	}
+
+	private static PlayerInteractEvent click(Player player, Block block) {
+		return new PlayerInteractEvent(player, Action.RIGHT_CLICK_BLOCK, null, block, BlockFace.NORTH);
+	}
+
+	private Block block(Material type, int x, int y, int z) {
+		return proxy(Block.class, new BlockStub(world, type, x, y, z));
+	}
+
+	private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+		return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler));
+	}
+
+	private class TestSign extends Sign {
+
+		TestSign(Location location) {
+			super(null, location);
+		}
+
+		@Override
+		public boolean init(String context) {
+			m_context = context;
+			return true;
+		}
+
+		@Override
+		public void interact(Player player) {
+			interactions++;
+		}
+
+		@Override
+		public String getType() {
+			return "test";
+		}
+	}
+
+	/**
+	 * A world or player which only has a name.
+	 */
+	private static class Stub implements InvocationHandler {
+
+		private final String name;
+
+		Stub(String name) {
+			this.name = name;
+		}
+
+		public Object invoke(Object proxy, Method method, Object[] args) {
+			String methodName = method.getName();
+
+			if (methodName.equals("getName")) {
+				return name;
+			} else if (methodName.equals("hashCode")) {
+				return System.identityHashCode(proxy);
+			} else if (methodName.equals("equals")) {
+				return proxy == args[0];
+			}
+
+			throw new UnsupportedOperationException(String.valueOf(method));
+		}
+	}
+
+	private static class BlockStub implements InvocationHandler {
+
+		private final World world;
+		private final Material type;
+		private final int x, y, z;
+
+		BlockStub(World world, Material type, int x, int y, int z) {
+			this.world = world;
+			this.type = type;
+			this.x = x;
+			this.y = y;
+			this.z = z;
+		}
+
+		public Object invoke(Object proxy, Method method, Object[] args) {
+			String methodName = method.getName();
+
+			if (methodName.equals("getType")) {
+				return type;
+			} else if (methodName.equals("getWorld")) {
+				return world;
+			} else if (methodName.equals("getX")) {
+				return x;
+			} else if (methodName.equals("getY")) {
+				return y;
+			} else if (methodName.equals("getZ")) {
+				return z;
+			} else if (methodName.equals("getLocation") && args == null) {
+				return new Location(world, x, y, z);
+			} else if (methodName.equals("hashCode")) {
+				return System.identityHashCode(proxy);
+			} else if (methodName.equals("equals")) {
+				return proxy == args[0];
+			}
+
+			throw new UnsupportedOperationException(String.valueOf(method));
+		}
+	}
+}
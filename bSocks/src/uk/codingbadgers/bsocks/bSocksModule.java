@@ -19,7 +19,6 @@ package uk.codingbadgers.bsocks;
 
 import java.io.IOException;
 import java.net.MalformedURLException;
-import java.net.ServerSocket;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Level;
@@ -27,6 +26,7 @@ import java.util.logging.Level;
 import org.bukkit.configuration.file.FileConfiguration;
 
 import uk.codingbadgers.bFundamentals.module.Module;
+import uk.codingbadgers.bFundamentals.module.ModuleExecutor;
 import uk.codingbadgers.bsocks.threading.ListenerThread;
 import uk.codingbadgers.bsocks.web.AdminListener;
 import uk.codingbadgers.bsocks.web.PermissionsListener;
@@ -42,11 +42,11 @@ public class bSocksModule extends Module {
 	/** The listener thread. */
 	private ListenerThread m_listenerThread = null;
 	
-	/** The listen sock. */
-	private ServerSocket m_listenSock = null;
-	
 	/** The port. */
 	private int m_port = 5598;
+	
+	/** The number of worker threads requests are handled on. */
+	private int m_workers = 4;
 
 	/** The m_base website. */
 	private String m_baseWebsite = "http://example.com/";
@@ -67,15 +67,18 @@ public class bSocksModule extends Module {
 	 * Called when the module is disabled. Here we need to kill the listener thread
 	 */
 	public void onDisable() {
-		m_listenerThread.kill();		
+		if (m_listenerThread != null) {
+			m_listenerThread.kill();
+			m_listenerThread = null;
+		}		
                 m_instance = null;
 		log(Level.INFO,  "Module Version " + getVersion() + " disabled.");
 	}
 
 	/**
 	 * Called when the module is loaded. Here we create our listener thread which will
-	 * receive socket connections and create handler threads and register all sub listeners
-	 * if they are required.
+	 * receive socket connections and hand them to its worker pool and register all sub 
+	 * listeners if they are required.
 	 */
 	public void onEnable() {
 		m_instance = this; 
@@ -102,10 +105,8 @@ public class bSocksModule extends Module {
 		
 		// setup the listener thread
 		try {
-			m_listenSock = new ServerSocket(m_port);
-			m_listenerThread = new ListenerThread(m_plugin, m_listenSock, m_password, this);
-			m_listenerThread.setName(getName() + "-listenerThread");
-			m_listenerThread.start();
+			m_listenerThread = new ListenerThread(m_plugin, m_port, m_password, getExecutor(), this);
+			getExecutor().execute(m_listenerThread);
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
@@ -140,6 +141,7 @@ public class bSocksModule extends Module {
 		try {
 			FileConfiguration config = getConfig();
 			config.addDefault("port", m_port);	
+			config.addDefault("workers", m_workers);
 			config.addDefault("password", m_password);
 			config.addDefault("baseWebsite", m_baseWebsite);
                         config.addDefault("pex.validranks", m_validPexRanks);
@@ -147,6 +149,7 @@ public class bSocksModule extends Module {
 			config.options().copyDefaults(true);
                         
 			m_port = config.getInt("port");
+			m_workers = Math.max(1, config.getInt("workers"));
 			m_password = config.getString("password");
 			m_baseWebsite = config.getString("baseWebsite");
                         m_validPexRanks = config.getStringList("pex.validranks");
@@ -166,6 +169,15 @@ public class bSocksModule extends Module {
 		}
 	}
 	
+	/**
+	 * Creates the module executor, one thread runs the listener's selector and
+	 * the rest handle requests and web handlers.
+	 */
+	@Override
+	protected ModuleExecutor createExecutor() {
+		return new ModuleExecutor(getName(), m_workers + 1, ListenerThread.MAX_PENDING_REQUESTS);
+	}
+	
 	/**
 	 * Gets a new post web handler based of a script located in the base folder of the
 	 * web address given in config.
@@ -175,7 +187,7 @@ public class bSocksModule extends Module {
 	 * @throws MalformedURLException if the base URL is in the wrong format
 	 */
 	public WebHandler getPostHandler(String page) throws MalformedURLException {
-		return new WebHandler(m_baseWebsite + page, m_password, RequestType.POST);
+		return new WebHandler(m_baseWebsite + page, m_password, RequestType.POST, getExecutor());
 	}
 	
 	/**
@@ -187,7 +199,7 @@ public class bSocksModule extends Module {
 	 * @throws MalformedURLException if the base URL is in the wrong format
 	 */
 	public WebHandler getGetHandler(String page) throws MalformedURLException {
-		return new WebHandler(m_baseWebsite + page, m_password, RequestType.GET);
+		return new WebHandler(m_baseWebsite + page, m_password, RequestType.GET, getExecutor());
 	}
 	
         /**
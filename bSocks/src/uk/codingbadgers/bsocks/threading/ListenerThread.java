@@ -19,48 +19,104 @@ package uk.codingbadgers.bsocks.threading;
 
 import java.io.IOException;
 import java.math.BigInteger;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 
 import org.bukkit.plugin.java.JavaPlugin;
+import org.json.simple.JSONObject;
 
 import uk.codingbadgers.bsocks.bSocksModule;
 
-public class ListenerThread extends Thread {
+/**
+ * The listener, accepts and reads requests on a single non blocking selector
+ * and hands each complete request line to the module's executor. The
+ * selector loop itself runs on one of the executor's threads. Each
+ * connection carries a single line framed json request and is closed once
+ * its response, if any, has been written.
+ */
+public class ListenerThread implements Runnable {
 
-	/** The plugin instance. */
-	final private JavaPlugin m_plugin;
+	/** The longest request line accepted, connections sending more are dropped. */
+	private static final int MAX_REQUEST_SIZE = 64 * 1024;
+	
+	/** The size of the read buffers handed out to new connections. */
+	private static final int BUFFER_SIZE = 4 * 1024;
+	
+	/** The maximum number of idle read buffers kept for reuse. */
+	private static final int BUFFER_POOL_SIZE = 64;
 	
+	/** The maximum number of requests waiting for a worker. */
+	public static final int MAX_PENDING_REQUESTS = 1024;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
 	/** The module instance. */
 	final private bSocksModule m_module;
 	
-	/** The listener socket. */
-	final private ServerSocket m_listenSock;
+	/** The listener channel. */
+	final private ServerSocketChannel m_listenChannel;
+	
+	/** The selector all connections are multiplexed on. */
+	final private Selector m_selector;
 	
-	/** An md5 hash of the plain text password. */
-	final private String m_passHash;
+	/** The request handler shared by all workers. */
+	final private RequestHandler m_handler;
+	
+	/** The executor requests are handled on. */
+	final private Executor m_workers;
+	
+	/** Responses finished by workers waiting to be written by the selector thread. */
+	final private Queue<Connection> m_completed = new ConcurrentLinkedQueue<Connection>();
+	
+	/** Idle read buffers, only touched by the selector thread. */
+	final private Queue<ByteBuffer> m_bufferPool = new ArrayBlockingQueue<ByteBuffer>(BUFFER_POOL_SIZE);
 
 	/** Stores the running state of the listener thread. */
-	private boolean m_running = true;
+	private volatile boolean m_running = true;
+	
+	/** Released once the selector loop has exited. */
+	final private CountDownLatch m_stopped = new CountDownLatch(1);
 
 	/**
 	 * Instantiates a new listener thread.
 	 *
 	 * @param plugin the owner plugin
-	 * @param listenSock the listen socket
+	 * @param port the port to listen on
 	 * @param password the plain text password
+	 * @param workers the executor to handle requests on
 	 * @param module the owner module
 	 * @throws IOException Signals that an I/O exception has occurred.
 	 */
-	public ListenerThread(JavaPlugin plugin, ServerSocket listenSock, String password, bSocksModule module) throws IOException {
-		m_listenSock = listenSock;
-		m_listenSock.setPerformancePreferences(1, 0, 0);
+	public ListenerThread(JavaPlugin plugin, int port, String password, Executor workers, bSocksModule module) throws IOException {
+		m_listenChannel = ServerSocketChannel.open();
+		m_listenChannel.socket().setPerformancePreferences(1, 0, 0);
+		m_listenChannel.socket().setReuseAddress(true);
+		m_listenChannel.socket().bind(new InetSocketAddress(port));
+		m_listenChannel.configureBlocking(false);
+		
+		m_selector = Selector.open();
+		m_listenChannel.register(m_selector, SelectionKey.OP_ACCEPT);
 		
-		m_passHash = createMD5Hash(password);
-		m_plugin = plugin;
 		m_module = module;
+		m_handler = new RequestHandler(plugin, createMD5Hash(password), module);
+		m_workers = workers;
 	}
 	
 	/**
@@ -90,37 +146,246 @@ public class ListenerThread extends Thread {
 	/**
 	 * Set the listener thread running
 	 */
-	public void run() {		
-		// while we are running we keep processing socket requests, creating handlers
-		// to handle the request.
-		while (m_running) {			
-			try {
-				// this command is blocking, it will wait here until a socket request is accepted
-				Socket sock = m_listenSock.accept();
+	public void run() {
+		try {
+			while (m_running) {
+				m_selector.select();
+				
+				// register any responses that workers have finished since the last select
+				Connection completed;
+				while ((completed = m_completed.poll()) != null) {
+					if (!completed.key.isValid()) {
+						continue;
+					} else if (completed.response == null) {
+						close(completed.key);
+					} else {
+						completed.key.interestOps(SelectionKey.OP_WRITE);
+					}
+				}
 				
-				// sanity check on the socket.
-				if (!sock.isClosed()) {
-					// create a new request handler to handle the new socket request.
-					RequestHandler rh = new RequestHandler(m_plugin, m_passHash, sock, m_module);
-					rh.start();
+				Iterator<SelectionKey> keys = m_selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					
+					if (!key.isValid()) {
+						continue;
+					}
+					
+					try {
+						if (key.isAcceptable()) {
+							accept();
+						} else if (key.isReadable()) {
+							read(key);
+						} else if (key.isWritable()) {
+							write(key);
+						}
+					} catch (IOException e) {
+						// clients often drop connections early, don't spam the console
+						close(key);
+					}
 				}
-			} catch (IOException e) {
-				// we could throw an exception, however, often socket connections
-				// are created at a fast rate which can produce a lot of console spam.
 			}
+		} catch (ClosedSelectorException e) {
+			// killed while selecting
+		} catch (IOException e) {
+			m_module.log(Level.SEVERE, "Listener selector failed: " + e.getMessage());
+		} finally {
+			shutdownSelector();
+			m_stopped.countDown();
+		}
+	}
+	
+	private void shutdownSelector() {
+		try {
+			for (SelectionKey key : m_selector.keys()) {
+				key.channel().close();
+			}
+			m_selector.close();
+		} catch (ClosedSelectorException e) {
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		
+		try {
+			m_listenChannel.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	private void accept() throws IOException {
+		SocketChannel channel = m_listenChannel.accept();
+		
+		if (channel == null) {
+			return;
+		}
+		
+		channel.configureBlocking(false);
+		channel.socket().setTcpNoDelay(true);
+		
+		ByteBuffer buffer = m_bufferPool.poll();
+		if (buffer == null) {
+			buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		}
+		
+		SelectionKey key = channel.register(m_selector, SelectionKey.OP_READ);
+		key.attach(new Connection(key, buffer));
+	}
+	
+	private void read(SelectionKey key) throws IOException {
+		Connection connection = (Connection) key.attachment();
+		SocketChannel channel = (SocketChannel) key.channel();
+		
+		int read = channel.read(connection.buffer);
+		
+		int end = findLineEnd(connection.buffer, connection.scanned);
+		connection.scanned = connection.buffer.position();
+		
+		if (end == -1) {
+			if (read == -1) {
+				// the client closed its side without terminating the line, treat what we have as the request
+				end = connection.buffer.position();
+			} else {
+				if (!connection.buffer.hasRemaining()) {
+					if (!connection.grow()) {
+						m_module.log(Level.WARNING, "Request from " + channel.socket().getInetAddress().getHostAddress() + " exceeded " + MAX_REQUEST_SIZE + " bytes");
+						close(key);
+					}
+				}
+				return;
+			}
+		}
+		
+		if (end == 0) {
+			close(key);
+			return;
+		}
+		
+		// one request per connection, stop reading and hand off to a worker
+		key.interestOps(0);
+		connection.request = decodeLine(connection.buffer, end);
+		connection.address = channel.socket().getInetAddress().getHostAddress();
+		recycle(connection);
+		
+		try {
+			m_workers.execute(connection);
+		} catch (RejectedExecutionException e) {
+			m_module.log(Level.WARNING, "Request queue full, dropping request from " + connection.address);
+			close(key);
+		}
+	}
+	
+	private void write(SelectionKey key) throws IOException {
+		Connection connection = (Connection) key.attachment();
+		SocketChannel channel = (SocketChannel) key.channel();
+		
+		channel.write(connection.response);
+		
+		if (!connection.response.hasRemaining()) {
+			close(key);
+		}
+	}
+	
+	private static int findLineEnd(ByteBuffer buffer, int from) {
+		for (int i = from; i < buffer.position(); i++) {
+			if (buffer.get(i) == '\n') {
+				return i;
+			}
+		}
+		return -1;
+	}
+	
+	private static String decodeLine(ByteBuffer buffer, int end) {
+		if (end > 0 && buffer.get(end - 1) == '\r') {
+			end--;
+		}
+		
+		return new String(buffer.array(), buffer.arrayOffset(), end, UTF8);
+	}
+	
+	private void recycle(Connection connection) {
+		ByteBuffer buffer = connection.buffer;
+		connection.buffer = null;
+		
+		if (buffer != null && buffer.capacity() == BUFFER_SIZE) {
+			buffer.clear();
+			m_bufferPool.offer(buffer);
+		}
+	}
+	
+	private void close(SelectionKey key) {
+		Object attachment = key.attachment();
+		
+		if (attachment instanceof Connection) {
+			recycle((Connection) attachment);
+		}
+		
+		key.cancel();
+		
+		try {
+			key.channel().close();
+		} catch (IOException e) {
 		}
 	}
 	
 	/**
-	 * Kills the listener thread.
+	 * Kills the listener, requests already handed to the executor are left to
+	 * finish as the module's executor is drained.
 	 */
 	public void kill() {
 		m_running = false;
+		m_selector.wakeup();
 		
 		try {
-			m_listenSock.close();
-		} catch (IOException e) {
-			e.printStackTrace();
+			m_stopped.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * The state of a single client connection.
+	 */
+	private final class Connection implements Runnable {
+		
+		final SelectionKey key;
+		ByteBuffer buffer;
+		int scanned = 0;
+		String request;
+		String address;
+		volatile ByteBuffer response;
+		
+		Connection(SelectionKey key, ByteBuffer buffer) {
+			this.key = key;
+			this.buffer = buffer;
+		}
+		
+		boolean grow() {
+			if (buffer.capacity() >= MAX_REQUEST_SIZE) {
+				return false;
+			}
+			
+			ByteBuffer bigger = ByteBuffer.allocate(Math.min(buffer.capacity() * 2, MAX_REQUEST_SIZE));
+			buffer.flip();
+			bigger.put(buffer);
+			recycle(this);
+			buffer = bigger;
+			return true;
+		}
+		
+		public void run() {
+			try {
+				JSONObject result = m_handler.handle(request, address);
+				
+				if (result != null) {
+					response = ByteBuffer.wrap((result.toJSONString() + "\n").getBytes(UTF8));
+				}
+			} finally {
+				// always hand the connection back, without a response it is closed
+				m_completed.add(this);
+				m_selector.wakeup();
+			}
 		}
-	}	
+	}
 }
@@ -17,17 +17,10 @@
  */
 package uk.codingbadgers.bsocks.threading;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.net.Socket;
 import java.util.logging.Level;
 
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
-import org.bukkit.OfflinePlayer;
 import org.bukkit.Server;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
@@ -38,13 +31,18 @@ import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
 
+import uk.codingbadgers.bFundamentals.bFundamentals;
 import uk.codingbadgers.bsocks.bSocksModule;
 import uk.codingbadgers.bsocks.commands.WebCommand;
 import uk.codingbadgers.bsocks.commands.WebCommandHandler;
 
-public class RequestHandler extends Thread {
+/**
+ * Handles a single json request received by the {@link ListenerThread}, the
+ * handler holds no per connection state so one instance is shared between
+ * all of the listeners worker threads.
+ */
+public class RequestHandler {
 	
-	final private Socket m_sock;
 	final private String m_passHash;
 	final private JavaPlugin m_plugin;
 	final private bSocksModule m_module;
@@ -54,50 +52,43 @@ public class RequestHandler extends Thread {
 	 *
 	 * @param plugin the plugin instance
 	 * @param passHash the password as an md5 hash
-	 * @param sock the socket the connection was made on
 	 * @param module the module instance
 	 */
-	public RequestHandler(JavaPlugin plugin, String passHash, Socket sock, bSocksModule module) {
-		m_sock = sock;
+	public RequestHandler(JavaPlugin plugin, String passHash, bSocksModule module) {
 		m_plugin = plugin;
 		m_passHash = passHash;
 		m_module = module;
 	}
 
 	/**
-	 * Run the request handler thread
+	 * Handle a single request line.
+	 *
+	 * @param line the json request, without its line terminator
+	 * @param address the address of the client that sent the request
+	 * @return the response to send back to the client, or null if the request has no response
 	 */	
-	public void run() {
+	public JSONObject handle(String line, String address) {
 		
 		JSONParser parser = new JSONParser();
 		try {
 			
-			BufferedReader br = new BufferedReader(new InputStreamReader(m_sock.getInputStream()));
-			
 			JSONObject json = null;
-			String line = br.readLine();
 			try {
 				json = (JSONObject)parser.parse(line);
 			} catch (ParseException pe) {
 				m_module.log(Level.WARNING, "Error Parsing: " + line);
 				m_module.log(Level.WARNING, pe.toString());
-				br.close();
-				m_sock.close();
-				return;
+				return null;
 			}
             
 			if (json == null) {
-				m_module.log(Level.SEVERE, "Invalid request from " + m_sock.getInetAddress().getHostAddress());
-                br.close();
-                m_sock.close();
-                return;
+				m_module.log(Level.SEVERE, "Invalid request from " + address);
+				return null;
 			}
 
     		if (json.get("password") == null || !json.get("password").equals(m_passHash)) {
-    			m_module.log(Level.SEVERE, "Wrong password from " + m_sock.getInetAddress().getHostAddress());
-                br.close();
-                m_sock.close();
-                return;
+    			m_module.log(Level.SEVERE, "Wrong password from " + address);
+    			return null;
             }
     		
     		String type = (String)json.get("command");
@@ -105,71 +96,52 @@ public class RequestHandler extends Thread {
 			if (type.equals("message")) {
 				handleMessage(json);	
 			} else if (type.equals("serverstats")) {
-				handleServerStatsCommand(json, m_sock);
+				return handleServerStatsCommand(json);
 			} else if (type.equals("lookup")) {
-				handleLookup(json, m_sock);
+				return handleLookup(json);
 			} else if (type.equals("executeCommand")) {
 				handleExecuteCommand(json);
 			} else {
 				for (WebCommand command : WebCommandHandler.getCommands()) {
 					if (command.getLabel().equalsIgnoreCase(type)) {
-						JSONObject responce = command.handleCommand(json);
-						
-						if (responce != null) {
-							BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(m_sock.getOutputStream()));
-							bw.write(responce.toJSONString() + "\n");
-							bw.flush();
-							bw.close();
-						}
-						
-						break;
+						return command.handleCommand(json);
 					}
 				}
 			}
-			br.close();
-			m_sock.close();
 			
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
 		
+		return null;
 	}	
 
 	/**
-	 * Handle lookup. Looks for a player whos name starts with a given string
+	 * Handle lookup. Looks for a player whos name starts with a given string,
+	 * ignoring case
 	 *
 	 * @param command the command
-	 * @param sock the sock
-	 * @throws IOException Signals that an I/O exception has occurred.
+	 * @return the response
 	 */
 	@SuppressWarnings("unchecked")
-	private void handleLookup(JSONObject command, Socket sock) throws IOException {
+	private JSONObject handleLookup(JSONObject command) {
 		JSONObject responce = new JSONObject();
 		JSONArray players = new JSONArray();
 		
-		for (OfflinePlayer player : m_plugin.getServer().getOfflinePlayers()) {
-			if (player.getName().startsWith((String) command.get("player"))) {
-				players.add(player.getName());
-			}
-		}
+		players.addAll(bFundamentals.getPlayerNameIndex().getPrefixMatches((String) command.get("player")));
 		
 		responce.put("players", players);
-		
-		BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(sock.getOutputStream()));
-		bw.write(responce.toJSONString() + "\n");
-		bw.flush();
-		bw.close();
+		return responce;
 	}
 
 	/**
 	 * Handle server stats command. Returning information about the server and its players
 	 *
 	 * @param command the command
-	 * @param sock the sock
-	 * @throws Exception the exception
+	 * @return the response
 	 */
 	@SuppressWarnings("unchecked")
-	private void handleServerStatsCommand(JSONObject command, Socket sock) throws Exception {
+	private JSONObject handleServerStatsCommand(JSONObject command) {
 		
 		Server server = m_plugin.getServer();
 		Player[] onlinePlayers = server.getOnlinePlayers();
@@ -215,11 +187,7 @@ public class RequestHandler extends Thread {
 		}
 		
 		responce.put("online-players", players);
-		
-		BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(sock.getOutputStream()));
-		bw.write(responce.toJSONString() + "\n");
-		bw.flush();
-		bw.close();	
+		return responce;
 	}
 	
 	/**
@@ -29,14 +29,16 @@ import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Logger;
 
 import org.bukkit.Bukkit;
 
 /**
- * The Class PostHandler.
+ * The Class PostHandler, requests are sent on the module's executor.
  */
-public class WebHandler extends Thread{
+public class WebHandler implements Runnable {
 
 	/** The password for web to server communication. */
 	private final String m_password;
@@ -53,18 +55,24 @@ public class WebHandler extends Thread{
 	/** The request type to use */
 	private RequestType m_type;
 	
+	/** The executor the request is sent on. */
+	private final Executor m_executor;
+	
 	/**
 	 * Instantiates a new post handler.
 	 *
 	 * @param webAddress the web address of the script
 	 * @param password the password
+	 * @param type the request type
+	 * @param executor the executor to send the request on
 	 * @throws MalformedURLException if the url is in the wrong format
 	 */
-	public WebHandler(String webAddress, String password, RequestType type) throws MalformedURLException {
+	public WebHandler(String webAddress, String password, RequestType type, Executor executor) throws MalformedURLException {
 		m_webAddress = new URL(webAddress);
 		m_password = password;
 		m_log = Logger.getLogger("bSocks");
 		m_type = type;
+		m_executor = executor;
 	}
 	
 	/**
@@ -100,8 +108,19 @@ public class WebHandler extends Thread{
 		m_data.putAll(data);
 	}
 	
+	/**
+	 * Queues the request to be sent.
+	 */
+	public void start() {
+		try {
+			m_executor.execute(this);
+		} catch (RejectedExecutionException ex) {
+			m_log.warning("Too many requests waiting to be sent, dropping request to " + m_webAddress.getPath());
+		}
+	}
+	
 	/* (non-Javadoc)
-	 * @see java.lang.Thread#run()
+	 * @see java.lang.Runnable#run()
 	 */
 	public void run() {
 		String params = "password=" + md5(m_password) + "&server=" + Bukkit.getServerName();